@@ -75,6 +75,11 @@ public abstract class ClientConnection
     public boolean retrieveMessageText_;
     protected boolean jdbcReadOnly_;
     protected boolean jdbcDb2CompatibleMode_ = false;
+    // Request the next query block of forward-only result sets ahead of time
+    public boolean queryPrefetch_ = false;
+    public int queryPrefetchMemory_ = ClientBaseDataSource.propertyDefault_queryPrefetchMemory;
+    // Execute batches as a single statement under autocommit too
+    public boolean singleStatementBatch_ = false;
     /**
      * Holdabilty for created statements.
      * Only access through the holdability method
@@ -342,6 +347,9 @@ public abstract class ClientConnection
         token = ClientDataSource.getUserToken(properties);
         authenticator =  ClientDataSource.getUserTokenAuthenticator(properties);
         jdbcDb2CompatibleMode_ = ClientDataSource.getJdbcDb2CompatibleMode(properties);
+        queryPrefetch_ = ClientDataSource.getQueryPrefetch(properties);
+        queryPrefetchMemory_ = ClientDataSource.getQueryPrefetchMemory(properties);
+        singleStatementBatch_ = ClientDataSource.getSingleStatementBatch(properties);
 
         agent_ = newAgent_(logWriter,
                 loginTimeout_,
@@ -2354,7 +2354,11 @@ public class PreparedStatement extends Statement
             timeoutSent = true;
         }
 
-        boolean useBatchExecution = sqlMode_ != isCall__ && batchSize > 1 && !connection_.autoCommit_;
+        // Send all the parameter sets with a single EXCSQLSTT, which the server executes as a single
+        // statement. Under autocommit the elements are executed one by one, so that the batch continues
+        // past a failing element, unless the singleStatementBatch attribute is set.
+        boolean useBatchExecution = sqlMode_ != isCall__ && batchSize > 1 &&
+                (!connection_.autoCommit_ || connection_.singleStatementBatch_);
 
         if (useBatchExecution) {
             if (parameterMetaData_ != null) {
@@ -384,6 +384,7 @@ public class CodePoint {
 
     // Query Block Size
     static final int QRYBLKSZ = 0x2114;
+    static final int QRYBLKSZ_MAX = 10 * 1024 * 1024;
 
     // Query Protocol Type
     static final int QRYPRCTYP = 0x2102;
@@ -103,6 +103,9 @@ public class NetAgent extends Agent {
 
     public SqlException exceptionOpeningSocket_ = null;
     public SqlException exceptionConvertingRdbnam = null;
+
+    // Result set whose CNTQRY was flowed without reading its reply, see NetResultSet.prefetch()
+    private NetResultSet prefetchingResultSet_;
     
     //---------------------constructors/finalizer---------------------------------
     public NetAgent(NetConnection netConnection,
@@ -276,6 +279,25 @@ public class NetAgent extends Agent {
         reply_.initialize();
     }
 
+    NetResultSet prefetchingResultSet() {
+        return prefetchingResultSet_;
+    }
+
+    void setPrefetchingResultSet(NetResultSet resultSet) {
+        prefetchingResultSet_ = resultSet;
+    }
+
+    // Read the reply to the CNTQRY flowed ahead of time by a result set, which precedes
+    // the reply to any other request. Failures are kept by the result set until its
+    // next fetch, except for disconnects.
+    void completePrefetch() throws DisconnectException {
+        NetResultSet resultSet = prefetchingResultSet_;
+        if (resultSet != null) {
+            prefetchingResultSet_ = null;
+            resultSet.readPrefetch();
+        }
+    }
+
     // Close socket and its streams.
     public void close_() throws SqlException {
         // can we just close the socket here, do we need to close streams individually
@@ -465,12 +487,14 @@ public class NetAgent extends Agent {
     }
 
     public void beginWriteChainOutsideUOW() throws SqlException {
+        completePrefetch();
         request_.initialize();
         writeDeferredResetConnection();
         super.beginWriteChainOutsideUOW();
     }
 
     public void beginWriteChain(com.splicemachine.db.client.am.Statement statement) throws SqlException {
+        completePrefetch();
         request_.initialize();
         writeDeferredResetConnection();
         super.beginWriteChain(statement);
@@ -46,6 +46,13 @@ public abstract class NetResultSet extends com.splicemachine.db.client.am.Result
     // Indicates whether the fixed row protocol is being used. If so,
     // the fetch size will always be 1.
     private boolean isFixedRowProtocol = false;
+
+    // Size of the query blocks requested on CNTQRY, doubled on every query block
+    // prefetched up to the limit set by the queryPrefetchMemory attribute
+    int queryBlockSize_ = DssConstants.MAX_DSS_LEN;
+
+    // Failure reading the reply to a prefetched CNTQRY, thrown by the next fetch
+    private SqlException prefetchException_;
     
     //-----------------------------state------------------------------------------
 
@@ -189,6 +196,62 @@ public abstract class NetResultSet extends com.splicemachine.db.client.am.Result
         }
     }
 
+    // With the queryPrefetch attribute set, forward-only cursors flow the CNTQRY for the
+    // next query block right after reading the reply to the current one, and read its
+    // reply once the rows received so far are consumed. The server fills the next query
+    // block while the application reads the current one.
+    public void flowFetch() throws DisconnectException, SqlException {
+        if (netAgent_.prefetchingResultSet() == this) {
+            netAgent_.completePrefetch();
+        } else if (prefetchException_ == null) {
+            super.flowFetch();
+        }
+        if (prefetchException_ != null) {
+            SqlException e = prefetchException_;
+            prefetchException_ = null;
+            throw e;
+        }
+        if (canPrefetch()) {
+            prefetch();
+        }
+    }
+
+    // Positioned updates and deletes need the server cursor on the row read by the
+    // application, so only read only cursors prefetch. A CNTQRY flowed past the end of
+    // the query is harmless, the server implicitly closed the cursor and returns the
+    // end of data again.
+    private boolean canPrefetch() {
+        return netConnection_.queryPrefetch_ &&
+                resultSetType_ == java.sql.ResultSet.TYPE_FORWARD_ONLY &&
+                resultSetConcurrency_ == java.sql.ResultSet.CONCUR_READ_ONLY &&
+                !isFixedRowProtocol && !isRowsetCursor_ && !netCursor_.hasLobs_ &&
+                openOnServer_ && !netCursor_.allRowsReceivedFromServer();
+    }
+
+    private void prefetch() throws SqlException {
+        // two query blocks are held at a time, the one being read and the one prefetched
+        int maxQueryBlockSize = Math.max(DssConstants.MAX_DSS_LEN,
+                Math.min(CodePoint.QRYBLKSZ_MAX, netConnection_.queryPrefetchMemory_ / 2));
+        queryBlockSize_ = (int) Math.min((long) queryBlockSize_ * 2, maxQueryBlockSize);
+
+        agent_.beginWriteChain(statement_);
+        writeFetch_((generatedSection_ == null) ? statement_.section_ : generatedSection_);
+        agent_.flow(statement_);
+        netAgent_.setPrefetchingResultSet(this);
+    }
+
+    // Called by NetAgent before the next request on the connection or by the next fetch
+    void readPrefetch() throws DisconnectException {
+        try {
+            readFetch_();
+            agent_.endReadChain();
+        } catch (DisconnectException e) {
+            throw e;
+        } catch (SqlException e) {
+            prefetchException_ = e;
+        }
+    }
+
     void queryDataWasReturnedOnOpen() throws DisconnectException {
     }
 
@@ -1728,7 +1728,13 @@ public class NetStatementRequest extends NetPackageRequest implements StatementR
     // preconditions:
     //   sqlam must support this parameter for the command, method will not check.
     void buildQRYBLKSZ() throws SqlException {
-        writeScalar4Bytes(CodePoint.QRYBLKSZ, DssConstants.MAX_DSS_LEN);
+        buildQRYBLKSZ(DssConstants.MAX_DSS_LEN);
+    }
+
+    // query blocks larger than DssConstants.MAX_DSS_LEN are only requested on the
+    // CNTQRY's of forward-only cursors prefetching query blocks, see NetResultSet.
+    void buildQRYBLKSZ(int queryBlockSize) throws SqlException {
+        writeScalar4Bytes(CodePoint.QRYBLKSZ, queryBlockSize);
     }
 
     // Maximum Result Set Count specifies a limit on the number of result sets
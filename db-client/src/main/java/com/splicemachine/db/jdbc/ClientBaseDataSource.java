@@ -1233,4 +1233,18 @@ public abstract class ClientBaseDataSource implements Serializable, Referenceabl
     public static boolean getJdbcDb2CompatibleMode(Properties properties) {
         return Boolean.parseBoolean(properties.getProperty(Attribute.JDBC_DB2_COMPATIBLE_MODE));
     }
+
+    public final static int propertyDefault_queryPrefetchMemory = 8 * 1024 * 1024;
+
+    public static boolean getQueryPrefetch(Properties properties) {
+        return parseBoolean(properties.getProperty(Attribute.QUERY_PREFETCH), false);
+    }
+
+    public static int getQueryPrefetchMemory(Properties properties) {
+        return parseInt(properties.getProperty(Attribute.QUERY_PREFETCH_MEMORY), propertyDefault_queryPrefetchMemory);
+    }
+
+    public static boolean getSingleStatementBatch(Properties properties) {
+        return parseBoolean(properties.getProperty(Attribute.SINGLE_STATEMENT_BATCH), false);
+    }
 }
@@ -244,6 +244,16 @@ class DDMReader
 		return terminateChainOnErr;
 	}
 
+	/**
+	 * Check whether bytes read from the session were not processed yet
+	 *
+	 * @return true if the buffer holds unread bytes
+	 */
+	protected boolean hasBufferedData()
+	{
+		return pos < count;
+	}
+
 	/**
 	 * Next DSS has same correlator as current DSS
 	 *
@@ -361,6 +361,18 @@ class DRDAConnThread extends Thread {
                                 // a timeout on the read call in
                                 // DDMReader.fill(), which will happen
                                 // only when timeSlice is set.
+                                currentTimeSlice = getTimeSlice();
+                                continue;
+                            }
+                            // With the NIO front end, wait for the next
+                            // request on the session selector instead of
+                            // this thread. XA sessions keep their thread,
+                            // which tracks the current XA transaction.
+                            if (session != null && !reader.hasBufferedData() &&
+                                    !(database instanceof XADatabase) &&
+                                    server.parkSession(session)) {
+                                session = null;
+                                break;
                             }
                             currentTimeSlice = getTimeSlice();
                         } while ((currentTimeSlice <= 0)  ||
@@ -1156,6 +1168,7 @@ class DRDAConnThread extends Thread {
                         {
                             server.consoleExceptionPrint(e);
                         }
+                        writeBatchUpdateCounts(e);
                         writeSQLCARDs(e, 0);
                         errorInChain(e);
                     }
@@ -4562,6 +4575,26 @@ class DRDAConnThread extends Thread {
     }
 
 
+    /**
+     * Write an SQLCARD for each element of a batch executed before the element
+     * which failed, so the requester reports their update counts. Only done
+     * for errors which didn't roll back those elements.
+     *
+     * @param e the SQLException raised by the EXCSQLSTT
+     * @throws DRDAProtocolException
+     */
+    private void writeBatchUpdateCounts(SQLException e) throws DRDAProtocolException
+    {
+        if (!(e instanceof BatchUpdateException) ||
+            e.getErrorCode() >= ExceptionSeverity.TRANSACTION_SEVERITY)
+            return;
+        int[] updateCounts = ((BatchUpdateException) e).getUpdateCounts();
+        if (updateCounts == null)
+            return;
+        for (int updateCount : updateCounts)
+            writeSQLCARDs(null, updateCount);
+    }
+
     /**
      * Parse RDBCMTOK - tells the database whether to allow commits or rollbacks
      * to be executed as part of the command
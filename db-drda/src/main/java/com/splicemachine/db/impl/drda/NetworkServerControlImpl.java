@@ -63,9 +63,11 @@ import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import java.io.*;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.security.*;
@@ -263,6 +265,8 @@ public final class NetworkServerControlImpl {
                                         // and changing timeSlice
 
     private boolean keepAlive = true;   // keepAlive value for client socket
+    private boolean nio;                // park idle sessions on a selector
+    private volatile SessionSelector sessionSelector; // selector of the idle sessions, null unless nio
     private int minPoolSize;            //minimum pool size for pooled connections
     private int maxPoolSize;            //maximum pool size for pooled connections
     private Object poolSync = new Object();    // object to use for syning reading
@@ -671,6 +675,13 @@ public final class NetworkServerControlImpl {
         switch (getSSLMode()) {
         case SSL_OFF:
         default:
+            if (nio) {
+                // Sockets accepted from a channel can be parked on the session selector
+                ServerSocketChannel channel = ServerSocketChannel.open();
+                channel.socket().setReuseAddress(true);
+                channel.socket().bind(new InetSocketAddress(hostAddress, portNumber));
+                return channel.socket();
+            }
             ServerSocketFactory sf =
                 ServerSocketFactory.getDefault();
             return sf.createServerSocket(portNumber
@@ -789,6 +800,19 @@ public final class NetworkServerControlImpl {
                             NetworkServerMBean.class,
                             "type=NetworkServer");
 
+        if (serverSocket.getChannel() != null) {
+            sessionSelector =
+                (SessionSelector) AccessController.doPrivileged(
+                                new PrivilegedExceptionAction() {
+                                    public Object run() throws Exception
+                                    {
+                                        return new SessionSelector(thisControl);
+                                    }
+                                }
+                            );
+            sessionSelector.start();
+        }
+
         // We accept clients on a separate thread so we don't run into a problem
         // blocking on the accept when trying to process a shutdown
         final ClientThread clientThread =
@@ -880,6 +904,12 @@ public final class NetworkServerControlImpl {
                 consolePrintAndIgnore("DRDA_UnexpectedException.S", exception, true);
             }
 
+            // stop watching the idle sessions, they were closed above
+            if (sessionSelector != null) {
+                sessionSelector.close();
+                sessionSelector = null;
+            }
+
             // Wake up those waiting on sessions, so
             // they can close down
             try{
@@ -3072,6 +3102,11 @@ public final class NetworkServerControlImpl {
             StringUtil.SQLEqualsIgnoreCase(propval,"false"))
             keepAlive = false;
 
+        propval = PropertyUtil.getSystemProperty(
+            Property.DRDA_PROP_NIO);
+        nio = propval != null &&
+            StringUtil.SQLEqualsIgnoreCase(propval,"true");
+
         propval = PropertyUtil.getSystemProperty(
             Property.DRDA_PROP_HOSTNAME);
         if (propval != null){
@@ -3947,38 +3982,52 @@ public final class NetworkServerControlImpl {
 
         sessionTable.put(connectionNumber, session);
 
-        // Check whether there are enough free threads to service all the
-        // threads in the run queue in addition to the newly added session.
-        boolean enoughThreads;
-        synchronized (runQueue) {
-            enoughThreads = (runQueue.size() < freeThreads);
-        }
-        // No need to hold the synchronization on runQueue any longer than
-        // this. Since no other threads can make runQueue grow, and no other
-        // threads will reduce the number of free threads without removing
-        // sessions from runQueue, (runQueue.size() < freeThreads) cannot go
-        // from true to false until addSession() returns.
+        dispatchSession(session);
+    }
 
+    /**
+     * Put a session with work to do into the run queue. Start a new
+     * <code>DRDAConnThread</code> if there are more sessions waiting than
+     * there are free threads, and the maximum number of threads is not
+     * exceeded.
+     *
+     * <p>Used for new sessions by <code>ClientThread</code>, and for idle
+     * sessions which received a request by <code>SessionSelector</code>.
+     *
+     * @param session the session to run
+     */
+    void dispatchSession(Session session) {
         DRDAConnThread thread = null;
 
-        // try to start a new thread if we don't have enough free threads
-        if (!enoughThreads) {
-            // Synchronize on threadsSync to ensure that the value of
-            // maxThreads doesn't change until the new thread is added to
-            // threadList.
-            synchronized (threadsSync) {
-                // only start a new thread if we have no maximum number of
-                // threads or the maximum number of threads is not exceeded
-                if ((maxThreads == 0) || (threadList.size() < maxThreads)) {
-                    thread = new DRDAConnThread(session, this, getTimeSlice(),
-                                                getLogConnections());
-                    thread.setUncaughtExceptionHandler((t, e) -> {
-                        consoleMessage("tracing unhandled exception originating from thread: '" + t.getName() + "'", true);
-                        consoleExceptionPrintTrace(e);
-                    });
-                    threadList.add(thread);
-                    thread.start();
-                }
+        // Synchronize on threadsSync to ensure that the value of
+        // maxThreads doesn't change until the new thread is added to
+        // threadList, and that the callers don't race each other.
+        synchronized (threadsSync) {
+            // Check whether there are enough free threads to service all the
+            // threads in the run queue in addition to the newly added session.
+            boolean enoughThreads;
+            synchronized (runQueue) {
+                enoughThreads = (runQueue.size() < freeThreads);
+            }
+            // No need to hold the synchronization on runQueue any longer than
+            // this. Since no other threads can make runQueue grow, and no other
+            // threads will reduce the number of free threads without removing
+            // sessions from runQueue, (runQueue.size() < freeThreads) cannot go
+            // from true to false until dispatchSession() returns.
+
+            // try to start a new thread if we don't have enough free threads,
+            // only if we have no maximum number of threads or the maximum
+            // number of threads is not exceeded
+            if (!enoughThreads &&
+                    ((maxThreads == 0) || (threadList.size() < maxThreads))) {
+                thread = new DRDAConnThread(session, this, getTimeSlice(),
+                                            getLogConnections());
+                thread.setUncaughtExceptionHandler((t, e) -> {
+                    consoleMessage("tracing unhandled exception originating from thread: '" + t.getName() + "'", true);
+                    consoleExceptionPrintTrace(e);
+                });
+                threadList.add(thread);
+                thread.start();
             }
         }
 
@@ -3988,6 +4037,23 @@ public final class NetworkServerControlImpl {
         }
     }
 
+    /**
+     * Hand a session waiting for its next request over to the session
+     * selector, so the calling <code>DRDAConnThread</code> can work on other
+     * sessions meanwhile.
+     *
+     * @param session the session the calling thread is done with
+     * @return true if the session was parked, in which case the calling
+     *         thread must not use it any longer
+     */
+    boolean parkSession(Session session) {
+        SessionSelector selector = sessionSelector;
+        if (selector == null || !session.isParkable())
+            return false;
+        selector.park(session);
+        return true;
+    }
+
     /**
      * Remove a thread from the thread list. Should be called when a
      * <code>DRDAConnThread</code> has been closed.
@@ -278,6 +278,20 @@ class Session
 		return (getRequiredSecurityCodepoint() != -1);
 	}
 
+	/**
+	 * Check if the session can wait for its next request on the session
+	 * selector, which is the case when it comes from the NIO front end and
+	 * all the bytes it received were consumed.
+	 *
+	 * @return true if the session can be parked
+	 */
+	protected boolean isParkable()
+	{
+		return state != INIT && state != CLOSED &&
+			sessionInput instanceof SessionInputStream &&
+			((SessionInputStream) sessionInput).pendingBytes() == 0;
+	}
+
 	/**
 	 * Set Session state
 	 * 
@@ -296,6 +310,10 @@ class Session
 		throws Exception
 	{
 		sessionInput = clientSocket.getInputStream();
+		// Sessions of the NIO front end can be parked on the session
+		// selector, which may read the next request ahead
+		if (clientSocket.getChannel() != null)
+			sessionInput = new SessionInputStream(sessionInput);
 		sessionOutput = clientSocket.getOutputStream();
 		if (traceOn)
 			initTrace(traceDirectory,false);
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Input stream of a session accepted by the NIO front end. While the session
+ * is parked, the <code>SessionSelector</code> reads its next request into this
+ * stream, which returns those bytes before reading the socket again once a
+ * <code>DRDAConnThread</code> picks the session up.
+ */
+final class SessionInputStream extends InputStream
+{
+	private static final int INITIAL_REQUEST_SIZE = 4096;
+
+	private final InputStream in;
+
+	// request being read by the session selector, null when not parked
+	private ByteBuffer request;
+
+	// request handed over to the connection thread
+	private byte[] pending;
+	private int pendingPos;
+	private int pendingEnd;
+
+	SessionInputStream(InputStream in)
+	{
+		this.in = in;
+	}
+
+	/**
+	 * Read the bytes available on a non-blocking channel into the request.
+	 *
+	 * @return the number of bytes read, -1 at end of stream
+	 */
+	int readRequest(SocketChannel channel) throws IOException
+	{
+		if (request == null)
+			request = ByteBuffer.allocate(INITIAL_REQUEST_SIZE);
+		else if (!request.hasRemaining()) {
+			ByteBuffer larger = ByteBuffer.allocate(request.capacity() * 2);
+			request.flip();
+			larger.put(request);
+			request = larger;
+		}
+		return channel.read(request);
+	}
+
+	/**
+	 * @return the number of bytes of the request read so far
+	 */
+	int requestLength()
+	{
+		return request == null ? 0 : request.position();
+	}
+
+	/**
+	 * @return true if the request read so far ends with the last DSS of a
+	 *         chain, or doesn't look like DSSes at all in which case the
+	 *         connection thread reports the protocol error
+	 */
+	boolean isRequestComplete()
+	{
+		return request != null &&
+			isCompleteChain(request.array(), request.position());
+	}
+
+	/**
+	 * Make the request read by the session selector the next bytes returned
+	 * by the stream.
+	 */
+	void handOver()
+	{
+		if (request == null)
+			return;
+		pending = request.array();
+		pendingPos = 0;
+		pendingEnd = request.position();
+		request = null;
+	}
+
+	/**
+	 * @return the number of bytes handed over and not read yet
+	 */
+	int pendingBytes()
+	{
+		return pending == null ? 0 : pendingEnd - pendingPos;
+	}
+
+	/**
+	 * Check whether a buffer holds a whole chain of DSSes, following the
+	 * header and continuation header parsing of <code>DDMReader</code>.
+	 */
+	static boolean isCompleteChain(byte[] b, int length)
+	{
+		int pos = 0;
+		while (true) {
+			if (pos + 6 > length)
+				return false;
+			int dssLength = ((b[pos] & 0xff) << 8) + (b[pos + 1] & 0xff);
+			boolean continued = (dssLength & DssConstants.CONTINUATION_BIT) ==
+				DssConstants.CONTINUATION_BIT;
+			if (continued)
+				dssLength = DssConstants.MAX_DSS_LENGTH;
+			if (dssLength < 6 || (b[pos + 2] & 0xff) != DssConstants.DSS_ID)
+				return true;
+			int gdsFormatter = b[pos + 3] & 0xff;
+			pos += dssLength;
+			while (continued) {
+				if (pos + 2 > length)
+					return false;
+				int segmentLength = ((b[pos] & 0xff) << 8) + (b[pos + 1] & 0xff);
+				continued = (segmentLength & DssConstants.CONTINUATION_BIT) ==
+					DssConstants.CONTINUATION_BIT;
+				if (continued)
+					segmentLength = DssConstants.MAX_DSS_LENGTH;
+				if (segmentLength <= 2)
+					return true;
+				pos += segmentLength;
+			}
+			if (pos > length)
+				return false;
+			if ((gdsFormatter & DssConstants.DSSCHAIN) != DssConstants.DSSCHAIN)
+				return true;
+		}
+	}
+
+	public int read() throws IOException
+	{
+		if (pending != null) {
+			int b = pending[pendingPos++] & 0xff;
+			if (pendingPos == pendingEnd)
+				pending = null;
+			return b;
+		}
+		return in.read();
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException
+	{
+		if (pending != null) {
+			if (len == 0)
+				return 0;
+			int n = Math.min(len, pendingEnd - pendingPos);
+			System.arraycopy(pending, pendingPos, b, off, n);
+			pendingPos += n;
+			if (pendingPos == pendingEnd)
+				pending = null;
+			return n;
+		}
+		return in.read(b, off, len);
+	}
+
+	public int available() throws IOException
+	{
+		return pendingBytes() + in.available();
+	}
+
+	public void close() throws IOException
+	{
+		in.close();
+	}
+}
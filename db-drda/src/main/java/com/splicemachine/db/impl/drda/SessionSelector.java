@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Front end of the network server enabled by db.drda.nio. Sessions waiting
+ * for their next request are parked here by their <code>DRDAConnThread</code>,
+ * so idle sessions don't hold a thread each. This thread reads the requests
+ * of the parked sessions and puts a session back in the run queue once it has
+ * read a whole chain of DSSes, which <code>DRDAConnThread</code> then processes
+ * as usual.
+ */
+final class SessionSelector extends Thread
+{
+	// Past this size the rest of a request, e.g. a streamed LOB, is read
+	// by the connection thread
+	private static final int MAX_REQUEST_SIZE = 1024 * 1024;
+
+	private final NetworkServerControlImpl server;
+	private final Selector selector;
+	private final Queue<Session> parked = new ConcurrentLinkedQueue<>();
+	private volatile boolean closed;
+
+	SessionSelector(NetworkServerControlImpl server) throws IOException
+	{
+		NetworkServerControlImpl.setUniqueThreadName(this, "NetworkServerSelector");
+		setDaemon(true);
+		this.server = server;
+		this.selector = Selector.open();
+	}
+
+	/**
+	 * Wait for the next request of a session, the calling thread must not
+	 * use the session any longer.
+	 */
+	void park(Session session)
+	{
+		parked.add(session);
+		selector.wakeup();
+	}
+
+	void close()
+	{
+		closed = true;
+		selector.wakeup();
+	}
+
+	public void run()
+	{
+		List<Session> ready = new ArrayList<>();
+		try {
+			while (!closed) {
+				selector.select();
+				registerParked(ready);
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					Session session = (Session) key.attachment();
+					try {
+						if (readRequest(key))
+							ready.add(session);
+					} catch (RuntimeException e) {
+						fail(session, key, e);
+					}
+				}
+				if (!ready.isEmpty())
+					dispatch(ready);
+			}
+		} catch (ClosedSelectorException e) {
+			// shut down
+		} catch (Exception e) {
+			server.consoleExceptionPrintTrace(e);
+		} finally {
+			try {
+				selector.close();
+			} catch (IOException e) {
+				server.consoleExceptionPrintTrace(e);
+			}
+		}
+	}
+
+	private void registerParked(List<Session> ready)
+	{
+		Session session;
+		while ((session = parked.poll()) != null) {
+			SocketChannel channel = session.clientSocket.getChannel();
+			try {
+				channel.configureBlocking(false);
+				channel.register(selector, SelectionKey.OP_READ, session);
+			} catch (IOException e) {
+				// the connection thread will notice the broken connection
+				ready.add(session);
+			} catch (RuntimeException e) {
+				fail(session, channel.keyFor(selector), e);
+			}
+		}
+	}
+
+	/**
+	 * @return true if the session must go back to a connection thread, with
+	 *         a whole request or because of end of stream or error
+	 */
+	private boolean readRequest(SelectionKey key)
+	{
+		Session session = (Session) key.attachment();
+		SessionInputStream in = (SessionInputStream) session.sessionInput;
+		boolean done;
+		try {
+			int n = in.readRequest((SocketChannel) key.channel());
+			done = n < 0 || in.isRequestComplete() ||
+				in.requestLength() >= MAX_REQUEST_SIZE;
+		} catch (IOException e) {
+			done = true;
+		}
+		if (done)
+			key.cancel();
+		return done;
+	}
+
+	/**
+	 * Switch the channels of the sessions back to blocking mode, which
+	 * requires their cancelled keys to be deregistered first, and put the
+	 * sessions in the run queue.
+	 */
+	private void dispatch(List<Session> ready) throws IOException
+	{
+		selector.selectNow();
+		// the keys selected meanwhile stay ready for the next select
+		selector.selectedKeys().clear();
+		for (Session session : ready) {
+			try {
+				try {
+					session.clientSocket.getChannel().configureBlocking(true);
+				} catch (IOException e) {
+					// the connection thread will notice the broken connection
+				}
+				((SessionInputStream) session.sessionInput).handOver();
+				server.dispatchSession(session);
+			} catch (RuntimeException e) {
+				fail(session, null, e);
+			}
+		}
+		ready.clear();
+	}
+
+	/**
+	 * Close a session this thread couldn't handle, without affecting the
+	 * other parked sessions.
+	 *
+	 * @param key the key of the session's channel, if still registered
+	 */
+	private void fail(Session session, SelectionKey key, Throwable t)
+	{
+		server.consoleExceptionPrintTrace(t);
+		if (key != null)
+			key.cancel();
+		try {
+			session.close();
+		} catch (Exception e) {
+			server.consoleExceptionPrintTrace(e);
+		}
+		server.removeFromSessionTable(session.getConnNum());
+	}
+}
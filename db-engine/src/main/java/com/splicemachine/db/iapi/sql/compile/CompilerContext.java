@@ -815,4 +815,26 @@ public interface CompilerContext extends Context
     boolean compilingTrigger();
 
     void setCompilingTrigger(boolean newVal);
+
+    /**
+     * Record the resultCache hint of a table of the statement. The results of the statement are cached if one of
+     * its tables asks for it and none of them refuses it.
+     */
+    void setResultCacheHint(boolean cacheResults);
+
+    /**
+     * Prevent the results of the statement from being cached, e.g. because it reads data
+     * which can change without a commit to one of its tables.
+     */
+    void disableResultCache();
+
+    /**
+     * Add a table read by the statement, a commit to it invalidates the cached results of the statement.
+     */
+    void addResultCacheTable(UUID tableId);
+
+    /**
+     * @return the tables read by the statement if its results can be cached, null otherwise
+     */
+    UUID[] getResultCacheTables();
 }
@@ -868,6 +868,16 @@ public interface DataDictionary{
      */
     ViewDescriptor getViewDescriptor(TableDescriptor td) throws StandardException;
 
+    /**
+     * Gets the descriptors of the materialized views over a base table.
+     *
+     * @param td The TableDescriptor for the base table.
+     * @param tc TransactionController to use
+     * @return the descriptors of the views, an empty list if there are none
+     * @throws StandardException Thrown on error
+     */
+    List<ViewDescriptor> getMaterializedViewDescriptors(TableDescriptor td,TransactionController tc) throws StandardException;
+
     /**
      * Drops the view descriptor from the data dictionary.
      *
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.iapi.sql.dictionary;
+
+import com.splicemachine.db.catalog.UUID;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * What makes a view a materialized view, kept in the MATERIALIZEDVIEW column of SYSVIEWS.
+ *
+ * It names the base table the view aggregates and the storage table holding its partial aggregates, and maps each
+ * storage table column, by position, to the function it holds and the base column it is computed from. Each column of
+ * the view is mapped to the storage column it is read from.
+ *
+ * A view is stale once its base table has been written to without going through the write pipeline, e.g. by a bulk
+ * HFile import. Its storage table no longer agrees with the base table, so the view is then computed from the base
+ * table until it is rebuilt.
+ */
+public class MaterializedViewInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private UUID baseTableId;
+    private UUID storageTableId;
+    private final int[] storageFunctions;
+    /* null for COUNT(*) */
+    private final String[] storageBaseColumns;
+    private final int[] viewColumns;
+    private boolean stale;
+
+    /**
+     * @param storageFunctions   the function of each storage column
+     * @param storageBaseColumns the name of the base column each storage column is computed from, null for COUNT(*)
+     * @param viewColumns        the position of the storage column each view column is read from, 0-based
+     */
+    public MaterializedViewInfo(int[] storageFunctions, String[] storageBaseColumns, int[] viewColumns) {
+        assert storageFunctions.length == storageBaseColumns.length;
+        this.storageFunctions = storageFunctions;
+        this.storageBaseColumns = storageBaseColumns;
+        this.viewColumns = viewColumns;
+    }
+
+    public MaterializedViewInfo(MaterializedViewInfo other) {
+        this(other.storageFunctions, other.storageBaseColumns, other.viewColumns);
+        this.baseTableId = other.baseTableId;
+        this.storageTableId = other.storageTableId;
+        this.stale = other.stale;
+    }
+
+    public UUID getBaseTableId() {
+        return baseTableId;
+    }
+
+    public void setBaseTableId(UUID baseTableId) {
+        this.baseTableId = baseTableId;
+    }
+
+    public UUID getStorageTableId() {
+        return storageTableId;
+    }
+
+    public void setStorageTableId(UUID storageTableId) {
+        this.storageTableId = storageTableId;
+    }
+
+    public int getStorageColumnCount() {
+        return storageFunctions.length;
+    }
+
+    public int getStorageFunction(int storageColumn) {
+        return storageFunctions[storageColumn];
+    }
+
+    public String getStorageBaseColumn(int storageColumn) {
+        return storageBaseColumns[storageColumn];
+    }
+
+    public int getViewColumnCount() {
+        return viewColumns.length;
+    }
+
+    public int getViewColumn(int viewColumn) {
+        return viewColumns[viewColumn];
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public void setStale(boolean stale) {
+        this.stale = stale;
+    }
+
+    @Override
+    public String toString() {
+        return "MaterializedViewInfo{baseTableId=" + baseTableId + ", storageTableId=" + storageTableId +
+                ", storageFunctions=" + Arrays.toString(storageFunctions) +
+                ", storageBaseColumns=" + Arrays.toString(storageBaseColumns) +
+                ", viewColumns=" + Arrays.toString(viewColumns) + ", stale=" + stale + "}";
+    }
+}
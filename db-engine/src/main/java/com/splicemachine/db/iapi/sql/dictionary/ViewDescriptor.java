@@ -69,6 +69,7 @@ public final class ViewDescriptor extends TupleDescriptor
 	private final String		viewText;
 	private UUID		uuid;
 	private final UUID		compSchemaId;
+	private MaterializedViewInfo	materializedViewInfo;
 
 	public static final	int NO_CHECK_OPTION = 0;
 
@@ -173,6 +174,26 @@ public final class ViewDescriptor extends TupleDescriptor
 		return compSchemaId;
 	}
 
+	/**
+	 * Get what makes this view a materialized view.
+	 *
+	 * @return the storage of the view and the mapping of its columns, null if the view isn't materialized
+	 */
+	public MaterializedViewInfo getMaterializedViewInfo()
+	{
+		return materializedViewInfo;
+	}
+
+	public void setMaterializedViewInfo(MaterializedViewInfo materializedViewInfo)
+	{
+		this.materializedViewInfo = materializedViewInfo;
+	}
+
+	public boolean isMaterialized()
+	{
+		return materializedViewInfo != null;
+	}
+
 
 	//
 	// Provider interface
@@ -419,7 +440,8 @@ public final class ViewDescriptor extends TupleDescriptor
 			return	"uuid: " + uuid + " viewName: " + viewName + "\n" +
 				"viewText: " + viewText + "\n" +
 				"checkOption: " + checkOption + "\n" +
-				"compSchemaId: " + compSchemaId + "\n";
+				"compSchemaId: " + compSchemaId + "\n" +
+				"materializedViewInfo: " + materializedViewInfo + "\n";
 		}
 		else
 		{
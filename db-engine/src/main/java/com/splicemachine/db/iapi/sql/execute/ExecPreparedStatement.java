@@ -31,6 +31,7 @@
 
 package com.splicemachine.db.iapi.sql.execute;
 
+import com.splicemachine.db.catalog.UUID;
 import com.splicemachine.db.iapi.services.loader.GeneratedClass;
 
 import com.splicemachine.db.iapi.error.StandardException;
@@ -141,6 +142,12 @@ public interface ExecPreparedStatement
 	 */
 	boolean needsSavepoint();
 
+	/**
+	 * @return the tables read by the statement if its results can be kept
+	 * in the result cache, null otherwise
+	 */
+	UUID[] getResultCacheTables();
+
 	/**
 	 * Get a new prepared statement that is a shallow copy
 	 * of the current one.
@@ -38,7 +38,10 @@ import com.splicemachine.db.iapi.sql.execute.ExecPreparedStatement;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.ParameterValueSet;
 import com.splicemachine.db.iapi.sql.ResultDescription;
+import com.splicemachine.db.iapi.error.ExceptionSeverity;
 import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.property.PropertyUtil;
+import com.splicemachine.db.iapi.reference.Property;
 import com.splicemachine.db.iapi.reference.SQLState;
 import com.splicemachine.db.iapi.reference.JDBC40Translation;
 import java.math.BigDecimal;
@@ -1088,11 +1091,11 @@ public abstract class EmbedPreparedStatement extends EmbedStatement implements E
             Iterator it = stmts.iterator();
             activation.setBatch(it, this);
 
+            int r = 0;
             try {
                 activation.nextBatchElement();
 
                 returnUpdateCountForBatch = new int[size];
-                int r = 0;
                 do {
                     if (super.executeStatement(activation, false, true))
                         throw newSQLException(SQLState.RESULTSET_RETURN_NOT_ALLOWED);
@@ -1113,7 +1116,15 @@ public abstract class EmbedPreparedStatement extends EmbedStatement implements E
                 restoreContextStack();
             }
 
-            int successfulUpdateCount[] = new int[0];
+            if (r == 0 && size > 1 && isStatementFailure(sqle) && reportBatchElementUpdateCounts()) {
+                // The batch was executed as a single statement, which failed as a whole, so nothing was
+                // modified. Execute the elements one at a time to report the update counts of the elements
+                // preceding the failing one.
+                return executeBatchElements(stmts);
+            }
+
+            int successfulUpdateCount[] = new int[r];
+            System.arraycopy(returnUpdateCountForBatch, 0, successfulUpdateCount, 0, r);
 
             SQLException batch =
                     new java.sql.BatchUpdateException(sqle.getMessage(), sqle.getSQLState(),
@@ -1125,6 +1136,64 @@ public abstract class EmbedPreparedStatement extends EmbedStatement implements E
     }
 
 
+    /**
+     * Execute the elements of a batch as separate statements, stopping at the first one which fails.
+     */
+    private int[] executeBatchElements(Vector stmts) throws SQLException {
+        setupContextStack();
+        int size = stmts.size();
+        int[] returnUpdateCountForBatch = new int[size];
+        int i = 0;
+
+        SQLException sqle;
+        try {
+            for (; i < size; i++) {
+                InterruptStatus.throwIf(lcc);
+                if (executeBatchElement(stmts.get(i)))
+                    throw newSQLException(SQLState.RESULTSET_RETURN_NOT_ALLOWED);
+                returnUpdateCountForBatch[i] = getUpdateCount();
+            }
+
+            InterruptStatus.restoreIntrFlagIfSeen(lcc);
+            return returnUpdateCountForBatch;
+        } catch (StandardException se) {
+
+            sqle = handleException(se);
+        } catch (SQLException sqle2) {
+            sqle = sqle2;
+        } finally {
+            restoreContextStack();
+        }
+
+        int successfulUpdateCount[] = new int[i];
+        System.arraycopy(returnUpdateCountForBatch, 0, successfulUpdateCount, 0, i);
+
+        SQLException batch =
+                new java.sql.BatchUpdateException(sqle.getMessage(), sqle.getSQLState(),
+                        sqle.getErrorCode(), successfulUpdateCount, sqle);
+
+        batch.setNextException(sqle);
+        throw batch;
+    }
+
+    private boolean reportBatchElementUpdateCounts() throws SQLException {
+        try {
+            return PropertyUtil.getCachedDatabaseBoolean(lcc, Property.BATCH_ELEMENT_UPDATE_COUNTS);
+        } catch (StandardException se) {
+            throw handleException(se);
+        }
+    }
+
+    /**
+     * @return true if the exception only rolled back the statement which raised it, and the statement
+     *         wasn't cancelled
+     */
+    private static boolean isStatementFailure(SQLException sqle) {
+        return sqle.getErrorCode() < ExceptionSeverity.TRANSACTION_SEVERITY &&
+                !StandardException.getSQLStateFromIdentifier(SQLState.LANG_STATEMENT_CANCELLED_OR_TIMED_OUT)
+                        .equals(sqle.getSQLState());
+    }
+
     @Override
     boolean executeBatchElement(Object batchElement) throws SQLException, StandardException {
         
@@ -128,6 +128,9 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
 
     private boolean needsSavepoint;
 
+    // tables read by the statement if its results can be cached, null otherwise
+    private UUID[] resultCacheTables;
+
     private String execStmtName;
     private String execSchemaName;
     protected boolean isAtomic;
@@ -1048,6 +1051,21 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
         this.needsSavepoint = needsSavepoint;
     }
 
+    @Override
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "Intentional")
+    public UUID[] getResultCacheTables() {
+        return resultCacheTables;
+    }
+
+    /**
+     * Set the tables read by the statement if its results can be cached
+     * (see the resultCache hint), null otherwise.
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "Intentional")
+    public void setResultCacheTables(UUID[] resultCacheTables) {
+        this.resultCacheTables = resultCacheTables;
+    }
+
     /**
      * Set the stmts 'isAtomic' state.
      *
@@ -1108,6 +1126,7 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
         clone.updateColumns = updateColumns;
         clone.updateMode = updateMode;
         clone.needsSavepoint = needsSavepoint;
+        clone.resultCacheTables = resultCacheTables;
     }
 
     @Override
@@ -54,6 +54,7 @@ import com.splicemachine.db.iapi.util.ByteArray;
 import com.splicemachine.db.iapi.util.InterruptStatus;
 import com.splicemachine.db.impl.ast.JsonTreeBuilderVisitor;
 import com.splicemachine.db.impl.sql.compile.CharTypeCompiler;
+import com.splicemachine.db.impl.sql.compile.CursorNode;
 import com.splicemachine.db.impl.sql.compile.ExplainNode;
 import com.splicemachine.db.impl.sql.compile.StatementNode;
 import com.splicemachine.db.impl.sql.compile.TriggerReferencingStruct;
@@ -1127,6 +1128,9 @@ public class GenericStatement implements Statement{
             preparedStmt.setNeedsSavepoint(qt.needsSavepoint() ||
                                            TriggerReferencingStruct.isFromTableStatement.get().booleanValue());
             preparedStmt.setCursorInfo((CursorInfo)cc.getCursorInfo());
+            preparedStmt.setResultCacheTables(qt instanceof CursorNode &&
+                                              ((CursorNode) qt).getUpdateMode() != CursorNode.UPDATE &&
+                                              !qt.referencesSessionSchema() ? cc.getResultCacheTables() : null);
             preparedStmt.setIsAtomic(qt.isAtomic());
             preparedStmt.setExecuteStatementNameAndSchema(qt.executeStatementName(), qt.executeSchemaName());
             preparedStmt.setSPSName(qt.getSPSName());
@@ -102,6 +102,13 @@ public class GenericStorablePreparedStatement extends GenericPreparedStatement
         return activationClass;
     }
 
+    /**
+     * @return the activation class if it has been loaded, null otherwise
+     */
+    public GeneratedClass getLoadedActivationClass() {
+        return activationClass;
+    }
+
     @Override
     public void setActivationClass(GeneratedClass ac) {
 
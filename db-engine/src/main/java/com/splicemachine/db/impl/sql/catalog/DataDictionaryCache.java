@@ -61,7 +61,11 @@ import javax.management.MXBean;
 import javax.management.ObjectName;
 import java.sql.Timestamp;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *
@@ -93,12 +97,24 @@ public class DataDictionaryCache {
     private ManagedCache<String, Optional<String>> propertyCache;
     private ManagedCache<Long, Optional<String>> catalogVersionCache;
     private ManagedCache<UUID, ConstraintDescriptorList> constraintDescriptorListCache;
+    private ManagedCache<ResultCacheKey, ResultCacheValue> resultCache;
+    private int resultCacheMaxRows;
+    // commit timestamp of the last commit made through this server to each table
+    private final ConcurrentMap<UUID, Long> resultCacheWatermarks = new ConcurrentHashMap<>();
+    // commit timestamp of the last commit made through this server which may have written to any table
+    private final AtomicLong resultCacheWatermark = new AtomicLong();
+    private final AtomicLong resultCacheEpoch = new AtomicLong();
+    // results read before this epoch are stale for every table
+    private final AtomicLong resultCacheClearEpoch = new AtomicLong();
+    // results read before the epoch of a table are stale for that table
+    private final ConcurrentMap<UUID, Long> resultCacheTableEpochs = new ConcurrentHashMap<>();
     private DataDictionary dd;
 
     @SuppressFBWarnings(value = "MS_PKGPROTECT", justification = "DB-9844")
     private static final String [] cacheNames = new String[] {"oidTdCache", "nameTdCache", "spsNameCache", "sequenceGeneratorCache", "permissionsCache", "partitionStatisticsCache",
             "firstColumnStatsCache", "storedPreparedStatementCache", "conglomerateCache", "statementCache", "databaseCache", "schemaCache", "aliasDescriptorCache", "roleCache", "defaultRoleCache", "roleGrantCache",
-            "tokenCache", "propertyCache", "conglomerateDescriptorCache", "oldSchemaCache", "catalogVersionCache", "txnAwareConglomerateCache", "constraintDescriptorListCache"};
+            "tokenCache", "propertyCache", "conglomerateDescriptorCache", "oldSchemaCache", "catalogVersionCache", "txnAwareConglomerateCache", "constraintDescriptorListCache",
+            "resultCache"};
 
     public static List<String> getCacheNames() {
         return Collections.unmodifiableList(Arrays.asList(cacheNames));
@@ -153,6 +169,12 @@ public class DataDictionaryCache {
                 Property.LANG_PROPERTY_CACHE_SIZE_DEFAULT);
         int constraintDescriptorListCacheSize = getCacheSize(startParams, Property.LANG_CONSTRAINT_CACHE_SIZE,
                 Property.LANG_CONSTRAINT_CACHE_SIZE_DEFAULT);
+        int resultCacheSize = getCacheSize(startParams, Property.LANG_RESULT_CACHE_SIZE,
+                Property.LANG_RESULT_CACHE_SIZE_DEFAULT);
+        int resultCacheTTL = getCacheSize(startParams, Property.LANG_RESULT_CACHE_TTL,
+                Property.LANG_RESULT_CACHE_TTL_DEFAULT);
+        resultCacheMaxRows = resultCacheSize == 0 ? 0 : getCacheSize(startParams, Property.LANG_RESULT_CACHE_MAX_ROWS,
+                Property.LANG_RESULT_CACHE_MAX_ROWS_DEFAULT);
 
         RemovalListener<Object,Dependent> dependentInvalidator = new RemovalListener<Object, Dependent>() {
             @Override
@@ -209,6 +231,10 @@ public class DataDictionaryCache {
                 (catalogVersionCacheSize).build(), catalogVersionCacheSize);
         constraintDescriptorListCache = new ManagedCache<>(CacheBuilder.newBuilder().recordStats().maximumSize
                 (constraintDescriptorListCacheSize).build(), constraintDescriptorListCacheSize);
+        CacheBuilder<Object, Object> resultCacheBuilder = CacheBuilder.newBuilder().recordStats().maximumSize(resultCacheSize);
+        if (resultCacheTTL > 0)
+            resultCacheBuilder.expireAfterWrite(resultCacheTTL, TimeUnit.SECONDS);
+        resultCache = new ManagedCache<>(resultCacheBuilder.build(), resultCacheSize);
         this.dd = dd;
     }
 
@@ -276,6 +302,17 @@ public class DataDictionaryCache {
         oidTdCache.invalidateAll();
     }
 
+    /**
+     * Remove the table descriptors of the tables of a schema, by name and by id.
+     */
+    public void tdCacheRemoveSchema(UUID schemaId) throws StandardException {
+        if (LOG.isDebugEnabled())
+            LOG.debug("tdCacheRemoveSchema " + schemaId);
+        nameTdCache.asMap().keySet().removeIf(key -> schemaId.equals(key.getSchemaId()));
+        oidTdCache.asMap().values().removeIf(td ->
+                td.getSchemaDescriptor() == null || schemaId.equals(td.getSchemaDescriptor().getUUID()));
+    }
+
     public List<PartitionStatisticsDescriptor> partitionStatisticsCacheFind(Long conglomID) throws StandardException {
         if (!dd.canReadCache(null))
             return null;
@@ -585,6 +622,7 @@ public class DataDictionaryCache {
         catalogVersionCache.invalidateAll();
         txnAwareConglomerateCache.invalidateAll();
         constraintDescriptorListCache.invalidateAll();
+        clearResultCache();
     }
 
     public void clearAliasCache() {
@@ -841,6 +879,131 @@ public class DataDictionaryCache {
         constraintDescriptorListCache.invalidateAll();
     }
 
+    /**
+     * @return the largest result, in rows, the result cache keeps, 0 if the result cache is disabled
+     */
+    public int getResultCacheMaxRows() {
+        return resultCacheMaxRows;
+    }
+
+    /**
+     * @return the current epoch of the result cache. Results read before a clear of the result cache, or before an
+     * invalidation of one of their tables, have an older epoch and are never served.
+     */
+    public long resultCacheEpoch() {
+        return resultCacheEpoch.get();
+    }
+
+    /**
+     * Look up the result of a statement for a transaction which began at {@code beginTimestamp}. The result is only
+     * returned if the transaction would read the same rows, that is if it began after the transaction which read them
+     * and no commit has been made to the tables they were read from since.
+     */
+    public ResultCacheValue resultCacheFind(ResultCacheKey key, long beginTimestamp) throws StandardException {
+        if (!dd.canReadCache(null))
+            return null;
+        ResultCacheValue value = resultCache.getIfPresent(key);
+        if (value == null)
+            return null;
+        if (!isCurrent(value)) {
+            resultCache.invalidate(key);
+            value = null;
+        } else if (beginTimestamp < value.getBeginTimestamp()) {
+            value = null; // the rows may include commits this transaction doesn't see
+        }
+        if (LOG.isDebugEnabled())
+            LOG.debug("resultCacheFind " + key + (value != null ? " found" : " null"));
+        return value;
+    }
+
+    public void resultCacheAdd(ResultCacheKey key, ResultCacheValue value) throws StandardException {
+        if (!dd.canWriteCache(null))
+            return;
+        if (LOG.isDebugEnabled())
+            LOG.debug("resultCacheAdd " + key + " : " + value.getRows().size() + " rows");
+        resultCache.put(key, value);
+        // a commit may have come in while the rows were read, it has already invalidated the cache
+        if (!isCurrent(value))
+            resultCache.invalidate(key);
+    }
+
+    public void resultCacheRemove(ResultCacheKey key) {
+        if (LOG.isDebugEnabled())
+            LOG.debug("resultCacheRemove " + key);
+        resultCache.invalidate(key);
+    }
+
+    /**
+     * Invalidate the results read from {@code tables} before a commit made to them through this server.
+     *
+     * @param tables the tables written by the committed transaction, null if it may have written to any table
+     */
+    public void resultCacheCommitted(Collection<UUID> tables, long commitTimestamp) {
+        if (LOG.isDebugEnabled())
+            LOG.debug("resultCacheCommitted " + tables + " at " + commitTimestamp);
+        // record the watermarks first, results added from now on are checked against them
+        if (tables == null) {
+            resultCacheWatermark.accumulateAndGet(commitTimestamp, Math::max);
+            resultCache.invalidateAll();
+            return;
+        }
+        for (UUID table : tables) {
+            resultCacheWatermarks.merge(table, commitTimestamp, Math::max);
+        }
+        if (resultCache.getSize() == 0)
+            return;
+        resultCache.asMap().values().removeIf(value -> {
+            for (UUID table : tables) {
+                if (value.reads(table))
+                    return true;
+            }
+            return false;
+        });
+    }
+
+    public void clearResultCache() {
+        if (LOG.isDebugEnabled())
+            LOG.debug("clearResultCache");
+        resultCacheClearEpoch.accumulateAndGet(resultCacheEpoch.incrementAndGet(), Math::max);
+        resultCache.invalidateAll();
+    }
+
+    /**
+     * Invalidate the results read from {@code tables}, for a change to them which doesn't go through the commits
+     * the cache tracks (e.g. TRUNCATE TABLE). Results read from other tables stay valid.
+     */
+    public void resultCacheInvalidate(Collection<UUID> tables) {
+        if (LOG.isDebugEnabled())
+            LOG.debug("resultCacheInvalidate " + tables);
+        long epoch = resultCacheEpoch.incrementAndGet();
+        for (UUID table : tables) {
+            resultCacheTableEpochs.merge(table, epoch, Math::max);
+        }
+        if (resultCache.getSize() == 0)
+            return;
+        resultCache.asMap().values().removeIf(value -> {
+            for (UUID table : tables) {
+                if (value.reads(table))
+                    return true;
+            }
+            return false;
+        });
+    }
+
+    private boolean isCurrent(ResultCacheValue value) {
+        if (value.getEpoch() < resultCacheClearEpoch.get() || resultCacheWatermark.get() > value.getBeginTimestamp())
+            return false;
+        for (UUID table : value.getTables()) {
+            Long watermark = resultCacheWatermarks.get(table);
+            if (watermark != null && watermark > value.getBeginTimestamp())
+                return false;
+            Long epoch = resultCacheTableEpochs.get(table);
+            if (epoch != null && epoch > value.getEpoch())
+                return false;
+        }
+        return true;
+    }
+
     @MXBean
     @SuppressWarnings("UnusedDeclaration")
     public interface DataDictionaryCacheIFace {
@@ -851,7 +1014,7 @@ public class DataDictionaryCache {
         try{
             ManagedCache [] mc = new ManagedCache[] {oidTdCache, nameTdCache, spsNameCache, sequenceGeneratorCache, permissionsCache, partitionStatisticsCache, firstColumnStatsCache, storedPreparedStatementCache,
                     conglomerateCache, statementCache, databaseCache, schemaCache, aliasDescriptorCache, roleCache, defaultRoleCache, roleGrantCache, tokenCache, propertyCache, conglomerateDescriptorCache,
-                    oidSchemaCache, catalogVersionCache, txnAwareConglomerateCache, constraintDescriptorListCache};
+                    oidSchemaCache, catalogVersionCache, txnAwareConglomerateCache, constraintDescriptorListCache, resultCache};
             //Passing in objects from mc array and names of objects from cacheNames array (static above)
             for(int i = 0; i < mc.length; i++){
                 ObjectName cacheName = new ObjectName("com.splicemachine.db.impl.sql.catalog:type="+cacheNames[i]);
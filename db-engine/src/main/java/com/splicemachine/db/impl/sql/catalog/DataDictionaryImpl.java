@@ -32,6 +32,7 @@
 package com.splicemachine.db.impl.sql.catalog;
 
 import com.splicemachine.db.catalog.AliasInfo;
+import com.splicemachine.db.catalog.Dependable;
 import com.splicemachine.db.catalog.DependableFinder;
 import com.splicemachine.db.catalog.TypeDescriptor;
 import com.splicemachine.db.catalog.UUID;
@@ -3521,6 +3522,24 @@ public abstract class DataDictionaryImpl extends BaseDataDictionary{
         return td.getViewDescriptor();
     }
 
+    @Override
+    public List<ViewDescriptor> getMaterializedViewDescriptors(TableDescriptor td,
+                                                               TransactionController tc) throws StandardException{
+        List<ViewDescriptor> materializedViews=new ArrayList<>();
+        for(DependencyDescriptor dependency : getProvidersDescriptorList(td.getObjectID().toString())){
+            if(!Dependable.VIEW.equals(dependency.getDependentFinder().getSQLObjectType()))
+                continue;
+            TableDescriptor view=getTableDescriptor(dependency.getUUID(),tc);
+            if(view==null)
+                continue;
+            ViewDescriptor vd=getViewDescriptor(view);
+            // the storage table of a materialized view is one of its providers too
+            if(vd!=null && vd.isMaterialized() && td.getUUID().equals(vd.getMaterializedViewInfo().getBaseTableId()))
+                materializedViews.add(vd);
+        }
+        return materializedViews;
+    }
+
     /**
      * Get the information for the view from sys.sysviews.
      *
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.catalog;
+
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Identifies the result of one execution of a statement in the result cache: the compiled plan, identified by the
+ * name of its generated activation class, which changes on every (re)compilation, the user running it and the
+ * values of its parameters.
+ */
+public final class ResultCacheKey {
+    private final String plan;
+    private final String userId;
+    private final DataValueDescriptor[] parameters;
+    private final int hashCode;
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "the parameters are clones owned by the key")
+    public ResultCacheKey(String plan, String userId, DataValueDescriptor[] parameters) {
+        this.plan = plan;
+        this.userId = userId;
+        this.parameters = parameters;
+        this.hashCode = Objects.hash(plan, userId) * 31 + Arrays.hashCode(parameters);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ResultCacheKey)) return false;
+        ResultCacheKey that = (ResultCacheKey) o;
+        return hashCode == that.hashCode &&
+                plan.equals(that.plan) &&
+                Objects.equals(userId, that.userId) &&
+                Arrays.equals(parameters, that.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultCacheKey{plan=" + plan + ", userId=" + userId + ", parameters=" + Arrays.toString(parameters) + "}";
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.catalog;
+
+import com.splicemachine.db.catalog.UUID;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.util.List;
+
+/**
+ * The rows returned by a statement, as read by a transaction which began at {@code beginTimestamp}. They stay
+ * valid until a commit is made to one of the tables they were read from.
+ */
+public final class ResultCacheValue {
+    private final List<ExecRow> rows;
+    private final UUID[] tables;
+    private final long beginTimestamp;
+    private final long epoch;
+
+    /**
+     * @param rows           the rows returned by the statement
+     * @param tables         the tables read by the statement
+     * @param beginTimestamp the begin timestamp of the transaction which read the rows
+     * @param epoch          the epoch of the result cache when the transaction started reading them,
+     *                       see {@link DataDictionaryCache#resultCacheEpoch()}
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "Intentional")
+    public ResultCacheValue(List<ExecRow> rows, UUID[] tables, long beginTimestamp, long epoch) {
+        this.rows = rows;
+        this.tables = tables;
+        this.beginTimestamp = beginTimestamp;
+        this.epoch = epoch;
+    }
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "Intentional")
+    public List<ExecRow> getRows() {
+        return rows;
+    }
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "Intentional")
+    public UUID[] getTables() {
+        return tables;
+    }
+
+    public long getBeginTimestamp() {
+        return beginTimestamp;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    boolean reads(UUID table) {
+        for (UUID t : tables) {
+            if (t.equals(table))
+                return true;
+        }
+        return false;
+    }
+}
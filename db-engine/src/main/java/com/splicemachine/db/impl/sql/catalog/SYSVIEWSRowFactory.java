@@ -45,6 +45,7 @@ import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.DataValueFactory;
 import com.splicemachine.db.iapi.types.SQLChar;
 import com.splicemachine.db.iapi.types.TypeId;
+import com.splicemachine.db.iapi.types.UserType;
 
 /**
  * Factory for creating a SYSVIEWS row.
@@ -55,11 +56,12 @@ public class SYSVIEWSRowFactory extends CatalogRowFactory
 {
 	private  static final String	TABLENAME_STRING = "SYSVIEWS";
 
-	protected static final int		SYSVIEWS_COLUMN_COUNT = 4;
 	protected static final int		SYSVIEWS_TABLEID = 1;
 	protected static final int		SYSVIEWS_VIEWDEFINITION = 2;
 	protected static final int		SYSVIEWS_CHECKOPTION = 3;
 	protected static final int		SYSVIEWS_COMPILATION_SCHEMAID = 4;
+	public static final int		SYSVIEWS_MATERIALIZEDVIEW = 5;
+	protected static final int		SYSVIEWS_COLUMN_COUNT = SYSVIEWS_MATERIALIZEDVIEW;
 
 	// Column widths
 	protected static final int		SYSVIEWS_TABLEID_WIDTH = 36;
@@ -118,6 +120,7 @@ public class SYSVIEWSRowFactory extends CatalogRowFactory
 		String					viewText = null;
 		String	   				checkSType = null;
 		int	   					checkIType;
+		MaterializedViewInfo	materializedViewInfo = null;
 
 		if (td != null)
 		{
@@ -156,6 +159,7 @@ public class SYSVIEWSRowFactory extends CatalogRowFactory
 
 			UUID tmpId = vd.getCompSchemaId();
 			compSchemaId = (tmpId == null) ? null : tmpId.toString();
+			materializedViewInfo = vd.getMaterializedViewInfo();
 		}
 
 		/* Insert info into sysviews */
@@ -180,6 +184,9 @@ public class SYSVIEWSRowFactory extends CatalogRowFactory
 		/* 4th column is COMPILATIONSCHEMAID (UUID - char(36)) */
 		row.setColumn(SYSVIEWS_COMPILATION_SCHEMAID, new SQLChar(compSchemaId));
 
+		/* 5th column is MATERIALIZEDVIEW (user type MaterializedViewInfo) */
+		row.setColumn(SYSVIEWS_MATERIALIZEDVIEW, new UserType(materializedViewInfo));
+
 		return row;
 	}
     
@@ -261,6 +268,13 @@ public class SYSVIEWSRowFactory extends CatalogRowFactory
 		/* now build and return the descriptor */
 		vd = ddg.newViewDescriptor(tableUUID, null, viewDefinition, 
 				checkIType, compSchemaUUID);
+
+		/* 5th column is MATERIALIZEDVIEW (user type MaterializedViewInfo), missing before the upgrade */
+		if (row.nColumns() >= SYSVIEWS_MATERIALIZEDVIEW)
+		{
+			col = row.getColumn(SYSVIEWS_MATERIALIZEDVIEW);
+			vd.setMaterializedViewInfo((MaterializedViewInfo) col.getObject());
+		}
 		return vd;
 	}
 
@@ -279,7 +293,8 @@ public class SYSVIEWSRowFactory extends CatalogRowFactory
                         false, TypeId.LONGVARCHAR_MAXWIDTH),
                 SystemColumnImpl.getIndicatorColumn("CHECKOPTION"),
                 SystemColumnImpl.getUUIDColumn("COMPILATIONSCHEMAID", true),
-                        
+                SystemColumnImpl.getJavaColumn("MATERIALIZEDVIEW",
+                        "com.splicemachine.db.iapi.sql.dictionary.MaterializedViewInfo", true),
             };
 	}
 }
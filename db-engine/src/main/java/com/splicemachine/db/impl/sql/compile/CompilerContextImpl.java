@@ -146,6 +146,9 @@ public class CompilerContextImpl extends ContextImpl
         nextOJLevel = 1;
         outerJoinFlatteningDisabled = false;
         ssqFlatteningForUpdateDisabled = false;
+        resultCacheRequested = false;
+        resultCacheDisabled = false;
+        resultCacheTables.clear();
     }
 
     //
@@ -1337,6 +1340,9 @@ public class CompilerContextImpl extends ContextImpl
     private HashMap referencedSequences;
     private DataSetProcessorType dataSetProcessorType = DEFAULT_OLTP;
     private boolean compilingTrigger = false;
+    private boolean resultCacheRequested = false;
+    private boolean resultCacheDisabled = false;
+    private final Set<UUID> resultCacheTables = new HashSet<>();
 
     public SparkExecutionType getSparkExecutionType() {
         return sparkExecutionType;
@@ -1386,4 +1392,30 @@ public class CompilerContextImpl extends ContextImpl
         compilingTrigger = newVal;
     }
 
+    @Override
+    public void setResultCacheHint(boolean cacheResults) {
+        if (cacheResults)
+            resultCacheRequested = true;
+        else
+            resultCacheDisabled = true;
+    }
+
+    @Override
+    public void disableResultCache() {
+        resultCacheDisabled = true;
+    }
+
+    @Override
+    public void addResultCacheTable(UUID tableId) {
+        resultCacheTables.add(tableId);
+    }
+
+    @Override
+    public UUID[] getResultCacheTables() {
+        // NEXT VALUE FOR returns a different value on every execution
+        if (!resultCacheRequested || resultCacheDisabled || compilingTrigger || referencedSequences != null)
+            return null;
+        return resultCacheTables.toArray(new UUID[resultCacheTables.size()]);
+    }
+
 } // end of class CompilerContextImpl
@@ -71,6 +71,8 @@ public class CreateIndexNode extends DDLStatementNode
     TableName               indexName;
     TableName               tableName;
     Vector<IndexExpression> expressionList;
+    ResultColumnList        includeColumnList;
+    int                     numIncludedColumns;
     String[]                involvedColumnNames = null;
     boolean[]               isAscending;
     int[]                   boundColumnIDs;
@@ -104,6 +106,8 @@ public class CreateIndexNode extends DDLStatementNode
      * @param tableName         The name of the table the index will be on
      * @param expressionList    A list of index key expressions, in the order they
      *                            appear in the index.
+     * @param includeColumnList The columns listed in the INCLUDE clause, stored in the
+     *                            index row value after the key columns, or null.
      * @param properties        The optional properties list associated with the index.
      *
      * @exception StandardException        Thrown on error
@@ -114,6 +118,7 @@ public class CreateIndexNode extends DDLStatementNode
                     Object indexName,
                     Object tableName,
                     Object expressionList,
+                    Object includeColumnList,
                     Object excludeNulls,
                     Object excludeDefaults,
                     Object preSplit,
@@ -137,6 +142,7 @@ public class CreateIndexNode extends DDLStatementNode
         this.indexName = (TableName) indexName;
         this.tableName = (TableName) tableName;
         this.expressionList = (Vector<IndexExpression>) expressionList;
+        this.includeColumnList = (ResultColumnList) includeColumnList;
         this.properties = (Properties) properties;
         this.excludeNulls = (Boolean) excludeNulls;
         this.excludeDefaults = (Boolean) excludeDefaults;
@@ -244,9 +250,11 @@ public class CreateIndexNode extends DDLStatementNode
                         involvedColumnNames[i], tableName);
             }
             boundColumnIDs[ i ] = columnDescriptor.getPosition();
-            
+
             // set this only once -- if just one column does is missing "not null" constraint in schema
-            uniqueWithDuplicateNulls = (! uniqueWithDuplicateNulls && (unique && ! columnDescriptor.hasNonNullDefault()));
+            // included columns are not part of the key, so they don't take part in uniqueness checks
+            if (i < columnCount - numIncludedColumns)
+                uniqueWithDuplicateNulls = (! uniqueWithDuplicateNulls && (unique && ! columnDescriptor.hasNonNullDefault()));
 
             // Don't allow a column to be created on a non-orderable type
             if ( ! columnDescriptor.getType().getTypeId().orderable(getClassFactory()))
@@ -472,6 +480,7 @@ public class CreateIndexNode extends DDLStatementNode
                 involvedColumnNames,
                 indexColumnTypes,
                 isAscending,
+                numIncludedColumns,
                 false,
                 null,
                 excludeNulls,
@@ -502,9 +511,13 @@ public class CreateIndexNode extends DDLStatementNode
                 throws StandardException
     {
         int size = expressionList.size();
-        isAscending = new boolean[size];
+        numIncludedColumns = includeColumnList == null ? 0 : includeColumnList.size();
+        isAscending = new boolean[size + numIncludedColumns];
 
         if (onExpression) {
+            if (numIncludedColumns > 0) {
+                throw StandardException.newException(SQLState.NOT_IMPLEMENTED, "INCLUDE columns on an index on expressions");
+            }
             CollectNodesVisitor cnv = new CollectNodesVisitor(ColumnReference.class);
             Vector<ColumnReference> columnReferenceList = new Vector<>();
             for (int i = 0; i < size; i++) {
@@ -528,8 +541,8 @@ public class CreateIndexNode extends DDLStatementNode
             columnNameSet.toArray(involvedColumnNames);
         }
         else {
-            Hashtable    ht = new Hashtable(size + 2, (float) .999);
-            involvedColumnNames = new String[size];
+            Hashtable    ht = new Hashtable(size + numIncludedColumns + 2, (float) .999);
+            involvedColumnNames = new String[size + numIncludedColumns];
 
             for (int index = 0; index < size; index++) {
                 IndexExpression ie = (IndexExpression) expressionList.get(index);
@@ -543,6 +556,18 @@ public class CreateIndexNode extends DDLStatementNode
                     throw StandardException.newException(SQLState.LANG_DUPLICATE_COLUMN_NAME_CREATE_INDEX, involvedColumnNames[index]);
                 }
             }
+
+            // INCLUDE columns go after the key columns; their order in the index value doesn't matter
+            for (int index = size; index < involvedColumnNames.length; index++) {
+                involvedColumnNames[index] = includeColumnList.elementAt(index - size).getName();
+                isAscending[index] = true;
+
+                Object object = ht.put(involvedColumnNames[index], involvedColumnNames[index]);
+
+                if (object != null && ((String) object).equals(involvedColumnNames[index])) {
+                    throw StandardException.newException(SQLState.LANG_DUPLICATE_COLUMN_NAME_CREATE_INDEX, involvedColumnNames[index]);
+                }
+            }
         }
     }
 
@@ -74,6 +74,8 @@ public class CreateViewNode extends DDLStatementNode
     private boolean hasJDBClimitClause; // true if using JDBC limit/offset escape syntax
     private boolean isRecursive;
     private boolean isDynamic;  // true if this node is created for a CTE
+    private boolean isMaterialized;
+    private MaterializedViewDefinition materializedViewDefinition;
 
     /**
      * Initializer for a CreateViewNode
@@ -105,6 +107,31 @@ public class CreateViewNode extends DDLStatementNode
                    Object isRecursive,
                    Object isDynamic)
         throws StandardException
+    {
+        init(newObjectName, resultColumns, queryExpression, checkOption, qeText, orderCols, offset, fetchFirst,
+                hasJDBClimitClause, isRecursive, isDynamic, Boolean.FALSE);
+    }
+
+    /**
+     * Initializer for a CreateViewNode, see above.
+     *
+     * @param isMaterialized    True for CREATE MATERIALIZED VIEW
+     *
+     * @exception StandardException        Thrown on error
+     */
+    public void init(Object newObjectName,
+                   Object resultColumns,
+                   Object     queryExpression,
+                   Object checkOption,
+                   Object qeText,
+                   Object orderCols,
+                   Object offset,
+                   Object fetchFirst,
+                   Object hasJDBClimitClause,
+                   Object isRecursive,
+                   Object isDynamic,
+                   Object isMaterialized)
+        throws StandardException
     {
         initAndCheck(newObjectName);
         this.resultColumns = (ResultColumnList) resultColumns;
@@ -117,6 +144,7 @@ public class CreateViewNode extends DDLStatementNode
         this.hasJDBClimitClause = hasJDBClimitClause != null && (Boolean) hasJDBClimitClause;
         this.isRecursive = isRecursive != null && (Boolean) isRecursive;
         this.isDynamic = isDynamic != null && (Boolean) isDynamic;
+        this.isMaterialized = isMaterialized != null && (Boolean) isMaterialized;
 
         implicitCreateSchema = true;
     }
@@ -144,7 +172,7 @@ public class CreateViewNode extends DDLStatementNode
 
     public String statementToString()
     {
-        return "CREATE VIEW";
+        return isMaterialized ? "CREATE MATERIALIZED VIEW" : "CREATE VIEW";
     }
 
     /**
@@ -197,6 +225,15 @@ public class CreateViewNode extends DDLStatementNode
         ResultColumnList            qeRCL;
         String                        duplicateColName;
 
+        /* Check the shape of a materialized view before binding, binding rewrites the query */
+        if (isMaterialized) {
+            if (isRecursive || orderByList != null || offset != null || fetchFirst != null) {
+                throw StandardException.newException(SQLState.NOT_IMPLEMENTED,
+                        "materialized view with RECURSIVE, ORDER BY, OFFSET or FETCH");
+            }
+            materializedViewDefinition = MaterializedViewDefinition.analyze(queryExpression);
+        }
+
         /* Parameters not allowed in create view */
         if (!isDynamic) {
             HasNodeVisitor visitor = new HasNodeVisitor(ParameterNode.class);
@@ -260,6 +297,10 @@ public class CreateViewNode extends DDLStatementNode
         // System columns should only include visible columns DERBY-4230
         colInfos = new ColumnInfo[queryExpression.getResultColumns().visibleSize()];
         genColumnInfos(colInfos);
+
+        if (isMaterialized) {
+            materializedViewDefinition.bind(queryExpression);
+        }
     }
 
     /**
@@ -493,7 +534,19 @@ public class CreateViewNode extends DDLStatementNode
         /* RESOLVE - need to build up dependendencies and store them away through
          * the constant action.
          */
-        return    getGenericConstantActionFactory().getCreateViewConstantAction(getSchemaDescriptor().getSchemaName(),
+        String schemaName = getSchemaDescriptor().getSchemaName();
+        if (isMaterialized) {
+            String storageTableName = MaterializedViewDefinition.storageTableName(getRelativeName());
+            return getGenericConstantActionFactory().getCreateMaterializedViewConstantAction(schemaName,
+                                              getRelativeName(),
+                                              qeText,
+                                              colInfos,
+                                              providerInfos,
+                                              storageTableName,
+                                              materializedViewDefinition.getCreateStorageText(schemaName, storageTableName),
+                                              materializedViewDefinition.getInfo());
+        }
+        return    getGenericConstantActionFactory().getCreateViewConstantAction(schemaName,
                                               getRelativeName(),
                                               TableDescriptor.VIEW_TYPE,
                                               qeText,
@@ -549,6 +602,11 @@ public class CreateViewNode extends DDLStatementNode
       */
     public ResultSetNode getParsedQueryExpression() { return queryExpression; }
 
+    /**
+     * @return true if this is a CREATE MATERIALIZED VIEW statement
+     */
+    public boolean isMaterialized() { return isMaterialized; }
+
 
     /*
      * These methods are used by execution
@@ -221,6 +221,11 @@ public class CursorNode extends DMLStatementNode{
             orderByList.pullUpOrderByColumns(resultSet);
         }
 
+        // Read aggregates from a materialized view when there's one matching the query
+        if(canReadMaterializedView()){
+            MaterializedViewDefinition.rewriteQuery((SelectNode)resultSet);
+        }
+
         getCompilerContext().pushCurrentPrivType(getPrivType());
         try{
             FromList fromList = new FromList(getNodeFactory().doJoinOrderOptimization(), getContextManager());
@@ -355,6 +360,26 @@ public class CursorNode extends DMLStatementNode{
         }
     }
 
+    /**
+     * The query can be rewritten to read a materialized view as long as nothing refers to the tables in its FROM
+     * clause by name. Privileges are checked on the tables of the query, so the rewrite is skipped with SQL
+     * authorization on.
+     */
+    private boolean canReadMaterializedView() throws StandardException{
+        if(!(resultSet instanceof SelectNode) || updateMode==UPDATE || getLanguageConnectionContext().usesSqlAuthorization()){
+            return false;
+        }
+        if(orderByList!=null){
+            for(int i=0;i<orderByList.size();i++){
+                ValueNode expression=orderByList.getOrderByColumn(i).getColumnExpression();
+                if(expression instanceof ColumnReference && ((ColumnReference)expression).getTableName()!=null){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * Return true if the node references SESSION schema tables (temporary or permanent)
      *
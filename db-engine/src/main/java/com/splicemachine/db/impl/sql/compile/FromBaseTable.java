@@ -529,7 +529,8 @@ public class FromBaseTable extends FromTable {
                     // if it's an expression-based index and not covering, nothing can be assumed
                     // for the row ordering of base columns
                 } else {
-                    for (int i = 0; i < baseColumnPositions.length; i++) {
+                    // INCLUDE columns follow the key columns in the index row but are not ordered
+                    for (int i = 0; i < irg.numberOfOrderedColumns(); i++) {
                         int rowOrderDirection = isAscending[i] ? RowOrdering.ASCENDING : RowOrdering.DESCENDING;
                         setRowOrderingForColumn(baseColumnPositions[i], rowOrderDirection, rowOrdering, predList);
                     }
@@ -890,11 +891,14 @@ public class FromBaseTable extends FromTable {
                 case "unboundedtimetravel":
                     // no op since parseBoolean never throw
                     break;
+                case "resultcache":
+                    getCompilerContext().setResultCacheHint(Boolean.parseBoolean(StringUtil.SQLToUpperCase(value)));
+                    break;
                 default:
                     throw StandardException.newException(SQLState.LANG_INVALID_FROM_TABLE_PROPERTY,key,
                             "index, constraint, joinStrategy, useSpark, useOLAP, skipStats, splits, " +
                                     "useDefaultRowcount, defaultSelectivityFactor, broadcastCrossRight," +
-                                    "unboundedTimeTravel");
+                                    "unboundedTimeTravel, resultCache");
             }
 
             /* If user specified a non-null constraint name(DERBY-1707), then
@@ -2098,6 +2102,17 @@ public class FromBaseTable extends FromTable {
 
 
                 cvn=(CreateViewNode)parseStatement(vd.getViewText(),false);
+                // a stale materialized view is computed from its base table, as a plain view
+                if(vd.isMaterialized() && !vd.getMaterializedViewInfo().isStale()){
+                    // the storage table is written by the pipeline of the base table, which the statement doesn't read
+                    compilerContext.disableResultCache();
+                    // read the partial aggregates kept up to date in the storage table
+                    MaterializedViewInfo materializedViewInfo=vd.getMaterializedViewInfo();
+                    TableDescriptor storageTd=dataDictionary.getTableDescriptor(materializedViewInfo.getStorageTableId(),
+                            getLanguageConnectionContext().getTransactionCompile());
+                    cvn=(CreateViewNode)parseStatement(MaterializedViewDefinition.fromInfo(materializedViewInfo)
+                            .getStorageViewText(tableDescriptor,storageTd.getName()),false);
+                }
 
                 if (cvn.isRecursive()) {
                     cvn.replaceSelfReferenceForRecursiveView(tableDescriptor);
@@ -2182,6 +2197,10 @@ public class FromBaseTable extends FromTable {
         }else{
             /* This represents a table - query is dependent on the TableDescriptor */
             compilerContext.createDependency(tableDescriptor);
+            if(tableDescriptor.isExternal())
+                compilerContext.disableResultCache();
+            else
+                compilerContext.addResultCacheTable(tableDescriptor.getUUID());
 
             long heapConglomerateId = tableDescriptor.getHeapConglomerateId();
             /* Get the base conglomerate descriptor */
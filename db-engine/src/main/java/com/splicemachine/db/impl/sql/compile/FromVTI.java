@@ -627,6 +627,8 @@ public class FromVTI extends FromTable implements VTIEnvironment {
         /* Assign the tableNumber.  (All other work done in bindVTITables() */
         if (tableNumber == -1)  // allow re-bind, in which case use old number
             tableNumber = getCompilerContext().getNextTableNumber();
+        // the rows of a table function don't come from tables we can track commits to
+        getCompilerContext().disableResultCache();
         return this;
     }
 
@@ -0,0 +1,491 @@
+/*
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Some parts of this source code are based on Apache Derby, and the following notices apply to
+ * Apache Derby:
+ *
+ * Apache Derby is a subproject of the Apache DB project, and is licensed under
+ * the Apache License, Version 2.0 (the "License"); you may not use these files
+ * except in compliance with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * Splice Machine, Inc. has modified the Apache Derby code in this file.
+ *
+ * All such Splice Machine modifications are Copyright 2012 - 2020 Splice Machine, Inc.,
+ * and are licensed to you under the GNU Affero General Public License.
+ */
+
+package com.splicemachine.db.impl.sql.compile;
+
+import com.splicemachine.db.catalog.UUID;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.reference.SQLState;
+import com.splicemachine.db.iapi.sql.compile.C_NodeTypes;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.dictionary.*;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.util.IdUtil;
+import splice.com.google.common.cache.Cache;
+import splice.com.google.common.cache.CacheBuilder;
+
+import java.sql.Types;
+import java.util.*;
+
+import static com.splicemachine.db.iapi.sql.compile.AggregateDefinition.FunctionType;
+
+/**
+ * The definition of a materialized aggregate view: a single table aggregate query of the form
+ * <pre>
+ *     SELECT g1, ..., gn, SUM(c), COUNT(c), COUNT(*), ...
+ *     FROM T
+ *     GROUP BY g1, ..., gn
+ * </pre>
+ * The view's state is kept in a storage table named after the view (see {@link #storageTableName}) which holds
+ * partial aggregates: every write to T appends one row per affected group with the change it made to each aggregate,
+ * and reading the view folds those rows back into one per group. What each storage column holds, and which storage
+ * column each view column is read from, is recorded in the view's {@link MaterializedViewInfo} in the dictionary.
+ * The storage columns are simply named after their position.
+ * <p>
+ * Averages can't be folded this way and are not supported. Neither are MIN and MAX, which can't be taken back when a
+ * row is updated or deleted, DISTINCT aggregates, WHERE and HAVING clauses, joins or expressions.
+ */
+public class MaterializedViewDefinition {
+    /* Function of each storage table column, shared with the write pipeline */
+    public static final int GROUP_COLUMN = 0;
+    public static final int SUM = 1;
+    public static final int COUNT = 2;
+    public static final int COUNT_STAR = 3;
+
+    private static final String STORAGE_TABLE_SUFFIX = "_MV";
+    /*
+     * The materialized views over each base table, by table descriptor. The data dictionary hands out a new
+     * descriptor once the table's dependents change, e.g. when a materialized view is created, so the entry of the
+     * old one is simply no longer looked up and goes away with it.
+     */
+    private static final Cache<TableDescriptor, List<MaterializedView>> MATERIALIZED_VIEWS =
+            CacheBuilder.newBuilder().weakKeys().build();
+
+    private static class MaterializedView {
+        final UUID viewId;
+        final MaterializedViewDefinition definition;
+
+        MaterializedView(UUID viewId, MaterializedViewDefinition definition) {
+            this.viewId = viewId;
+            this.definition = definition;
+        }
+    }
+
+    private static class Column {
+        final int function;
+        final String baseColumn; // null for COUNT(*)
+        DataTypeDescriptor type;
+
+        Column(int function, String baseColumn) {
+            this.function = function;
+            this.baseColumn = baseColumn;
+        }
+
+        boolean sameAs(int function, String baseColumn) {
+            return this.function == function && Objects.equals(this.baseColumn, baseColumn);
+        }
+    }
+
+    private final List<String> groupColumns;
+    /* One entry per column of the view */
+    private final List<Column> selectColumns;
+    /* One entry per column of the storage table */
+    private final List<Column> storageColumns;
+
+    private MaterializedViewDefinition(List<String> groupColumns, List<Column> selectColumns) {
+        this.groupColumns = groupColumns;
+        this.selectColumns = selectColumns;
+        this.storageColumns = new ArrayList<>();
+        for (String groupColumn : groupColumns) {
+            addStorageColumn(GROUP_COLUMN, groupColumn);
+        }
+        addStorageColumn(COUNT_STAR, null);
+        for (Column column : selectColumns) {
+            if (column.function == SUM) {
+                // needed to tell an empty sum (NULL) from a zero one
+                addStorageColumn(COUNT, column.baseColumn);
+            }
+            if (column.function != GROUP_COLUMN) {
+                addStorageColumn(column.function, column.baseColumn);
+            }
+        }
+    }
+
+    private MaterializedViewDefinition(MaterializedViewInfo info) {
+        this.groupColumns = new ArrayList<>();
+        this.selectColumns = new ArrayList<>();
+        this.storageColumns = new ArrayList<>();
+        for (int i = 0; i < info.getStorageColumnCount(); i++) {
+            Column column = new Column(info.getStorageFunction(i), info.getStorageBaseColumn(i));
+            storageColumns.add(column);
+            if (column.function == GROUP_COLUMN) {
+                groupColumns.add(column.baseColumn);
+            }
+        }
+        for (int i = 0; i < info.getViewColumnCount(); i++) {
+            selectColumns.add(storageColumns.get(info.getViewColumn(i)));
+        }
+    }
+
+    private void addStorageColumn(int function, String baseColumn) {
+        if (storageColumnIndex(function, baseColumn) < 0) {
+            storageColumns.add(new Column(function, baseColumn));
+        }
+    }
+
+    private int storageColumnIndex(int function, String baseColumn) {
+        for (int i = 0; i < storageColumns.size(); i++) {
+            if (storageColumns.get(i).sameAs(function, baseColumn)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the definition of the materialized view described by {@code info}
+     */
+    public static MaterializedViewDefinition fromInfo(MaterializedViewInfo info) {
+        return new MaterializedViewDefinition(info);
+    }
+
+    /**
+     * @return the description of this view to keep in the dictionary, without the ids of its tables
+     */
+    public MaterializedViewInfo getInfo() {
+        int[] functions = new int[storageColumns.size()];
+        String[] baseColumns = new String[storageColumns.size()];
+        for (int i = 0; i < functions.length; i++) {
+            functions[i] = storageColumns.get(i).function;
+            baseColumns[i] = storageColumns.get(i).baseColumn;
+        }
+        int[] viewColumns = new int[selectColumns.size()];
+        for (int i = 0; i < viewColumns.length; i++) {
+            Column column = selectColumns.get(i);
+            viewColumns[i] = storageColumnIndex(column.function, column.baseColumn);
+        }
+        return new MaterializedViewInfo(functions, baseColumns, viewColumns);
+    }
+
+    /**
+     * Check that the (unbound) query of a view can be materialized.
+     *
+     * @throws StandardException NOT_IMPLEMENTED if it can't
+     */
+    public static MaterializedViewDefinition analyze(ResultSetNode query) throws StandardException {
+        MaterializedViewDefinition definition = analyzeOrNull(query);
+        if (definition == null) {
+            throw StandardException.newException(SQLState.NOT_IMPLEMENTED,
+                    "materialized view other than SUM and COUNT of the columns of a single table grouped by columns of that table");
+        }
+        return definition;
+    }
+
+    private static MaterializedViewDefinition analyzeOrNull(ResultSetNode query) {
+        if (!(query instanceof SelectNode)) {
+            return null;
+        }
+        SelectNode select = (SelectNode) query;
+        if (select.getFromList().size() != 1 || !(select.getFromList().elementAt(0) instanceof FromBaseTable)
+                || select.getWhereClause() != null || select.hasHavingClause() || select.hasDistinct()
+                || select.hasWindows() || select.getOrderByList() != null) {
+            return null;
+        }
+
+        List<String> groupColumns = new ArrayList<>();
+        GroupByList groupByList = select.getGroupByList();
+        if (groupByList != null) {
+            if (groupByList.isRollup()) {
+                return null;
+            }
+            for (int i = 0; i < groupByList.size(); i++) {
+                ValueNode expression = groupByList.getGroupByColumn(i).getColumnExpression();
+                if (!(expression instanceof ColumnReference)) {
+                    return null;
+                }
+                String name = ((ColumnReference) expression).getColumnName();
+                if (!groupColumns.contains(name)) {
+                    groupColumns.add(name);
+                }
+            }
+        }
+
+        List<Column> selectColumns = new ArrayList<>();
+        for (ResultColumn rc : select.getResultColumns()) {
+            if (rc instanceof AllResultColumn) {
+                return null;
+            }
+            ValueNode expression = rc.getExpression();
+            if (expression instanceof ColumnReference) {
+                String name = ((ColumnReference) expression).getColumnName();
+                if (!groupColumns.contains(name)) {
+                    return null;
+                }
+                selectColumns.add(new Column(GROUP_COLUMN, name));
+            } else if (expression instanceof AggregateNode) {
+                Column column = aggregateColumn((AggregateNode) expression);
+                if (column == null) {
+                    return null;
+                }
+                selectColumns.add(column);
+            } else {
+                return null;
+            }
+        }
+        return new MaterializedViewDefinition(groupColumns, selectColumns);
+    }
+
+    private static Column aggregateColumn(AggregateNode aggregate) {
+        FunctionType type = aggregate.getType();
+        if (type == null || aggregate.isDistinct() || aggregate.isWindowFunction()) {
+            return null;
+        }
+        ValueNode operand = aggregate.getOperand();
+        if (type == FunctionType.COUNT_STAR_FUNCTION) {
+            return new Column(COUNT_STAR, null);
+        }
+        if (!(operand instanceof ColumnReference)) {
+            return null;
+        }
+        String name = ((ColumnReference) operand).getColumnName();
+        switch (type) {
+            case SUM_FUNCTION:
+                return new Column(SUM, name);
+            case COUNT_FUNCTION:
+                return new Column(COUNT, name);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Check the base table and pick up the column types from the bound query of the view.
+     */
+    void bind(ResultSetNode boundQuery) throws StandardException {
+        SelectNode select = (SelectNode) boundQuery;
+        Object fromTable = select.getFromList().elementAt(0);
+        TableDescriptor td = fromTable instanceof FromBaseTable ? ((FromBaseTable) fromTable).getTableDescriptor() : null;
+        // views are expanded to subqueries, and external tables don't go through the write pipeline
+        if (td == null || td.getTableType() != TableDescriptor.BASE_TABLE_TYPE || td.isExternal()) {
+            throw StandardException.newException(SQLState.NOT_IMPLEMENTED, "materialized view over a view or an external table");
+        }
+
+        GroupByList groupByList = select.getGroupByList();
+        if (groupByList != null) {
+            for (int i = 0; i < groupByList.size(); i++) {
+                ValueNode expression = groupByList.getGroupByColumn(i).getColumnExpression();
+                Column column = storageColumns.get(storageColumnIndex(GROUP_COLUMN, ((ColumnReference) expression).getColumnName()));
+                if (column.type == null) {
+                    column.type = expression.getTypeServices();
+                }
+            }
+        }
+        ResultColumnList rcl = select.getResultColumns();
+        for (int i = 0; i < selectColumns.size(); i++) {
+            Column column = selectColumns.get(i);
+            column.type = rcl.elementAt(i).getType();
+            Column storageColumn = storageColumns.get(storageColumnIndex(column.function, column.baseColumn));
+            if (storageColumn.type == null) {
+                storageColumn.type = column.type;
+            }
+        }
+        DataTypeDescriptor countType = DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT);
+        for (Column column : storageColumns) {
+            if (column.function == COUNT || column.function == COUNT_STAR) {
+                column.type = countType;
+            }
+        }
+    }
+
+    /**
+     * @return the text of the CREATE TABLE statement for the storage table
+     */
+    public String getCreateStorageText(String schemaName, String storageTableName) {
+        StringBuilder sb = new StringBuilder("CREATE TABLE ").append(IdUtil.mkQualifiedName(schemaName, storageTableName)).append(" (");
+        for (int i = 0; i < storageColumns.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(storageColumnName(i)).append(' ').append(storageColumns.get(i).type.getSQLstring());
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * @return the text of a CREATE VIEW statement equivalent to the materialized view {@code view},
+     * that reads the view from its storage table
+     */
+    public String getStorageViewText(TableDescriptor view, String storageTableName) {
+        ColumnDescriptorList viewColumns = view.getColumnDescriptorList();
+        StringBuilder sb = new StringBuilder("CREATE VIEW ")
+                .append(IdUtil.mkQualifiedName(view.getSchemaName(), view.getName())).append(" AS SELECT ");
+        for (int i = 0; i < selectColumns.size(); i++) {
+            Column column = selectColumns.get(i);
+            ColumnDescriptor cd = viewColumns.elementAt(i);
+            if (i > 0) {
+                sb.append(", ");
+            }
+            String storageColumn = storageColumnName(storageColumnIndex(column.function, column.baseColumn));
+            switch (column.function) {
+                case GROUP_COLUMN:
+                    sb.append(storageColumn);
+                    break;
+                case SUM:
+                    sb.append("CAST(CASE WHEN SUM(")
+                            .append(storageColumnName(storageColumnIndex(COUNT, column.baseColumn)))
+                            .append(") = 0 THEN NULL ELSE SUM(").append(storageColumn).append(") END AS ")
+                            .append(cd.getType().getSQLstring()).append(')');
+                    break;
+                default:
+                    sb.append("CAST(COALESCE(SUM(").append(storageColumn).append("), 0) AS ")
+                            .append(cd.getType().getSQLstring()).append(')');
+            }
+            sb.append(" AS ").append(IdUtil.normalToDelimited(cd.getColumnName()));
+        }
+        sb.append(" FROM ").append(IdUtil.mkQualifiedName(view.getSchemaName(), storageTableName));
+        if (!groupColumns.isEmpty()) {
+            String separator = " GROUP BY ";
+            for (String groupColumn : groupColumns) {
+                sb.append(separator).append(storageColumnName(storageColumnIndex(GROUP_COLUMN, groupColumn)));
+                separator = ", ";
+            }
+            // groups whose rows have all been deleted
+            sb.append(" HAVING SUM(").append(storageColumnName(storageColumnIndex(COUNT_STAR, null))).append(") <> 0");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Rewrite an unbound aggregate query over a base table to read a materialized view over that table with the same
+     * grouping columns and which computes all the aggregates of the query. Queries with access path hints on the table
+     * are left alone, and so are stale views, which are read from the base table anyway.
+     *
+     * @return true if the query was rewritten
+     */
+    static boolean rewriteQuery(SelectNode select) throws StandardException {
+        MaterializedViewDefinition query = analyzeOrNull(select);
+        if (query == null) {
+            return false;
+        }
+        FromBaseTable baseTable = (FromBaseTable) select.getFromList().elementAt(0);
+        if (baseTable.getTableProperties() != null) {
+            return false;
+        }
+        TableName tableName = baseTable.getTableNameField();
+        SchemaDescriptor sd = select.getSchemaDescriptor(null, tableName.getSchemaName(), false);
+        if (sd == null) {
+            return false;
+        }
+        TableDescriptor td = select.getTableDescriptor(tableName.getTableName(), sd);
+        if (td == null || td.getTableType() != TableDescriptor.BASE_TABLE_TYPE) {
+            return false;
+        }
+
+        DataDictionary dd = select.getDataDictionary();
+        LanguageConnectionContext lcc = select.getLanguageConnectionContext();
+        for (MaterializedView materializedView : getMaterializedViews(select, td)) {
+            // the view may have been dropped or gone stale since
+            TableDescriptor view = dd.getTableDescriptor(materializedView.viewId, lcc.getTransactionCompile());
+            ViewDescriptor vd = view == null ? null : dd.getViewDescriptor(view);
+            if (vd == null || !vd.isMaterialized() || vd.getMaterializedViewInfo().isStale()) {
+                continue;
+            }
+            if (query.rewriteTo(select, materializedView.definition, view)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the materialized views over the base table {@code td}, read from the dictionary once per table
+     * descriptor
+     */
+    private static List<MaterializedView> getMaterializedViews(SelectNode select, TableDescriptor td)
+            throws StandardException {
+        List<MaterializedView> materializedViews = MATERIALIZED_VIEWS.getIfPresent(td);
+        if (materializedViews != null) {
+            return materializedViews;
+        }
+        DataDictionary dd = select.getDataDictionary();
+        LanguageConnectionContext lcc = select.getLanguageConnectionContext();
+        materializedViews = new ArrayList<>();
+        for (ViewDescriptor vd : dd.getMaterializedViewDescriptors(td, lcc.getTransactionCompile())) {
+            materializedViews.add(new MaterializedView(vd.getUUID(), fromInfo(vd.getMaterializedViewInfo())));
+        }
+        MATERIALIZED_VIEWS.put(td, materializedViews);
+        return materializedViews;
+    }
+
+    private boolean rewriteTo(SelectNode select, MaterializedViewDefinition materializedView, TableDescriptor view)
+            throws StandardException {
+        if (!new HashSet<>(groupColumns).equals(new HashSet<>(materializedView.groupColumns))) {
+            return false;
+        }
+        ColumnDescriptorList viewColumns = view.getColumnDescriptorList();
+        ColumnDescriptor[] targets = new ColumnDescriptor[selectColumns.size()];
+        for (int i = 0; i < targets.length; i++) {
+            Column column = selectColumns.get(i);
+            for (int j = 0; j < materializedView.selectColumns.size() && targets[i] == null; j++) {
+                Column viewColumn = materializedView.selectColumns.get(j);
+                if (column.function == viewColumn.function && Objects.equals(column.baseColumn, viewColumn.baseColumn)) {
+                    targets[i] = viewColumns.elementAt(j);
+                }
+            }
+            if (targets[i] == null) {
+                return false;
+            }
+        }
+
+        TableName viewName = (TableName) select.getNodeFactory().getNode(C_NodeTypes.TABLE_NAME,
+                view.getSchemaName(), view.getName(), select.getContextManager());
+        FromBaseTable fromView = (FromBaseTable) select.getNodeFactory().getNode(C_NodeTypes.FROM_BASE_TABLE,
+                viewName, null, null, null, select.getContextManager());
+        select.getFromList().setElementAt(fromView, 0);
+        select.setGroupByList(null);
+        ResultColumnList rcl = select.getResultColumns();
+        for (int i = 0; i < targets.length; i++) {
+            ValueNode reference = (ValueNode) select.getNodeFactory().getNode(C_NodeTypes.COLUMN_REFERENCE,
+                    targets[i].getColumnName(), null, select.getContextManager());
+            if (selectColumns.get(i).function != GROUP_COLUMN) {
+                // keeps the generated name of the column
+                reference = (ValueNode) select.getNodeFactory().getNode(C_NodeTypes.CAST_NODE,
+                        reference, targets[i].getType(), select.getContextManager());
+            }
+            rcl.elementAt(i).setExpression(reference);
+        }
+        return true;
+    }
+
+    /**
+     * @return the name of the table holding the state of the materialized view {@code viewName}
+     */
+    public static String storageTableName(String viewName) {
+        return viewName + STORAGE_TABLE_SUFFIX;
+    }
+
+    /**
+     * @return the name of the storage table column at {@code position}, 0-based
+     */
+    public static String storageColumnName(int position) {
+        return "C" + (position + 1);
+    }
+}
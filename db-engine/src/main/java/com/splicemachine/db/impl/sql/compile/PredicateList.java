@@ -700,7 +700,8 @@ public class PredicateList extends QueryTreeNodeVector<Predicate> implements Opt
             ColumnReference indexCol=null;
             int[] baseColumnPositions = irg == null ? null : irg.baseColumnPositions();
             if (!isBetween && baseColumnPositions != null) {
-                for (indexPosition = 0; indexPosition < baseColumnPositions.length; indexPosition++) {
+                // only key columns can be used for start/stop keys, INCLUDE columns are stored in the row value
+                for (indexPosition = 0; indexPosition < irg.numberOfOrderedColumns(); indexPosition++) {
                     if (isIn) {
                         if (inNode.getLeftOperand() instanceof ColumnReference) {
                             indexCol = (ColumnReference) inNode.getLeftOperand();
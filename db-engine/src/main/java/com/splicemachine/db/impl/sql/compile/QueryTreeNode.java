@@ -1010,6 +1010,32 @@ public abstract class QueryTreeNode implements Node, Visitable{
         }
     }
 
+    @Override
+    public void init(Object arg1,
+                     Object arg2,
+                     Object arg3,
+                     Object arg4,
+                     Object arg5,
+                     Object arg6,
+                     Object arg7,
+                     Object arg8,
+                     Object arg9,
+                     Object arg10,
+                     Object arg11,
+                     Object arg12,
+                     Object arg13,
+                     Object arg14,
+                     Object arg15,
+                     Object arg16,
+                     Object arg17,
+                     Object arg18,
+                     Object arg19,
+                     Object arg20) throws StandardException{
+        if(SanityManager.DEBUG){
+            SanityManager.THROWASSERT("Twenty-argument init() not implemented for "+getClass().getName());
+        }
+    }
+
     public TableName makeTableName ( String schemaName, String flatName ) throws StandardException{
         return new TableName(schemaName, flatName, getContextManager());
     }
@@ -1294,6 +1294,7 @@ public class TableElementList extends QueryTreeNodeVector {
                     columnNames,
                     new DataTypeDescriptor[]{},
                     isAscending,
+                    0,
                     isConstraint,
                     cdn.getBackingIndexUUID(),
                     excludeNulls,
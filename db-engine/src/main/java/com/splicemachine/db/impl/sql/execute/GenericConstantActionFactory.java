@@ -183,6 +183,8 @@ public abstract class GenericConstantActionFactory {
      * @param tableId           UUID of table.
      * @param columnNames       Names of the columns in the index, in order
      * @param isAscending       Array of booleans telling asc/desc on each column
+     * @param numIncludedColumns Number of trailing columns in columnNames that are stored in the
+     *                          index row value (INCLUDE columns) rather than in the index key
      * @param isConstraint      TRUE if index is backing up a constraint, else FALSE
      * @param conglomerateUUID  ID of conglomerate
      * @param properties        The optional properties list associated with the index.
@@ -200,6 +202,7 @@ public abstract class GenericConstantActionFactory {
             String[] columnNames,
             DataTypeDescriptor[] indexColumnTypes,
             boolean[] isAscending,
+            int numIncludedColumns,
             boolean isConstraint,
             UUID conglomerateUUID,
             boolean excludeNulls,
@@ -376,6 +379,29 @@ public abstract class GenericConstantActionFactory {
         ProviderInfo[]  providerInfo,
         UUID            compSchemaId);
 
+    /**
+     *    Make the ConstantAction for a CREATE MATERIALIZED VIEW statement.
+     *
+     *  @param schemaName    Name of the schema that the view lives in.
+     *  @param tableName    Name of the view.
+     *    @param viewText        Text of query expression for view definition
+     *  @param columnInfo    Information on all the columns in the view.
+     *  @param providerInfo Information on all the Providers
+     *  @param storageTableName    Name of the table holding the state of the view.
+     *  @param createStorageText    Text of the CREATE TABLE statement for the storage table.
+     *  @param materializedViewInfo    Mapping of the columns of the view to those of the storage table.
+     */
+    public abstract ConstantAction getCreateMaterializedViewConstantAction
+    (
+        String            schemaName,
+        String            tableName,
+        String            viewText,
+        ColumnInfo[]    columnInfo,
+        ProviderInfo[]  providerInfo,
+        String            storageTableName,
+        String            createStorageText,
+        MaterializedViewInfo    materializedViewInfo);
+
 
 
     /**
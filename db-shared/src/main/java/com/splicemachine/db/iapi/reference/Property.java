@@ -640,6 +640,32 @@ public interface Property {
     String  LANG_CONSTRAINT_CACHE_SIZE = "derby.language.constraintCacheSize";
     int     LANG_CONSTRAINT_CACHE_SIZE_DEFAULT =1024;
 
+    /**
+     * The number of statement results kept in the result cache of the data dictionary. Only the results of
+     * queries with the resultCache=true hint are cached, 0 disables the cache.  Database.  Static.
+     * <p>
+     * Undocumented.
+     */
+    String  LANG_RESULT_CACHE_SIZE = "derby.language.resultCacheSize";
+    int     LANG_RESULT_CACHE_SIZE_DEFAULT =128;
+
+    /**
+     * The largest result, in rows, kept in the result cache.  Database.  Static.
+     * <p>
+     * Undocumented.
+     */
+    String  LANG_RESULT_CACHE_MAX_ROWS = "derby.language.resultCacheMaxRows";
+    int     LANG_RESULT_CACHE_MAX_ROWS_DEFAULT =1000;
+
+    /**
+     * The number of seconds a result stays in the result cache. Commits made through other servers don't
+     * invalidate the results cached on this one, so this bounds how stale a cached result can be.  Database.  Static.
+     * <p>
+     * Undocumented.
+     */
+    String  LANG_RESULT_CACHE_TTL = "derby.language.resultCacheTTL";
+    int     LANG_RESULT_CACHE_TTL_DEFAULT =60;
+
     /**
      * Name of the implementation of SequencePreallocator which is used
      * to tune how many values Derby pre-allocates for identity columns
@@ -968,6 +994,18 @@ public interface Property {
      */
     String DRDA_PROP_KEEPALIVE = "derby.drda.keepAlive";
 
+    /**
+     * db.drda.nio
+     *
+     *<BR>
+     * If true, sessions waiting for their next request are handed over to
+     * a selector thread instead of holding a connection thread each. Ignored
+     * when db.drda.sslMode is not off.
+     *<BR>
+     * Default: false
+     */
+    String DRDA_PROP_NIO = "derby.drda.nio";
+
 
     /**
      * db.drda.streamOutBufferSize
@@ -1095,6 +1133,15 @@ public interface Property {
 
     String BULK_IMPORT_SAMPLE_FRACTION = "splice.bulkImport.sample.fraction";
 
+    String BULK_IMPORT_SINGLE_PASS = "splice.bulkImport.singlePass";
+
+    /**
+     * When a batch executed as a single statement fails, execute its elements again one at a time up to the
+     * failing one, so the BatchUpdateException carries the update counts of the elements preceding it. This
+     * doubles the work of a failed batch, so it is off by default.
+     */
+    String BATCH_ELEMENT_UPDATE_COUNTS = "splice.execution.batchElementUpdateCounts";
+
     /**
      * The version of spark the current running splice
      * version was compiled against.  Normally, this will
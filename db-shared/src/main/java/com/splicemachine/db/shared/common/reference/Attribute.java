@@ -310,6 +310,28 @@ public interface Attribute {
      */
     String JDBC_DB2_COMPATIBLE_MODE = "jdbcDb2CompatibleMode";
 
+    /**
+     * Request the next query block of forward-only result sets while the
+     * application reads the rows of the current one.
+     * Client driver attribute.
+     */
+    String QUERY_PREFETCH = "queryPrefetch";
+
+    /**
+     * Bytes of query blocks a result set may hold when queryPrefetch is set.
+     * Query blocks of long scans grow up to half of it.
+     * Client driver attribute.
+     */
+    String QUERY_PREFETCH_MEMORY = "queryPrefetchMemory";
+
+    /**
+     * Execute the batches of prepared statements as a single statement under
+     * autocommit too. A failing element then fails the whole batch, which is
+     * not continued past it.
+     * Client driver attribute.
+     */
+    String SINGLE_STATEMENT_BATCH = "singleStatementBatch";
+
 }
 
 
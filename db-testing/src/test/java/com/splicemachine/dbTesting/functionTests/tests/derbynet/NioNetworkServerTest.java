@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.dbTesting.functionTests.tests.derbynet;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import com.splicemachine.db.iapi.reference.Property;
+import com.splicemachine.dbTesting.junit.BaseJDBCTestCase;
+import com.splicemachine.dbTesting.junit.SystemPropertyTestSetup;
+import com.splicemachine.dbTesting.junit.TestConfiguration;
+
+/**
+ * Runs the network server tests with derby.drda.nio=true, so the sessions
+ * waiting for their next request are parked on the session selector instead
+ * of holding a connection thread, and checks that many idle sessions parked
+ * at once keep working.
+ */
+public class NioNetworkServerTest extends BaseJDBCTestCase
+{
+    private static final int SESSIONS = 50;
+
+    public NioNetworkServerTest(String name)
+    {
+        super(name);
+    }
+
+    /**
+     * Open many connections, each one idle while the others run a request,
+     * then use them again in a different order.
+     */
+    public void testManyIdleSessions() throws SQLException
+    {
+        Statement s = createStatement();
+        s.executeUpdate("create table nio_t(a int, b varchar(100))");
+        List<Connection> connections = new ArrayList<Connection>();
+        try {
+            for (int i = 0; i < SESSIONS; i++) {
+                Connection c = openDefaultConnection();
+                connections.add(c);
+                PreparedStatement ps =
+                    c.prepareStatement("insert into nio_t values (?, ?)");
+                ps.setInt(1, i);
+                ps.setString(2, "session " + i);
+                assertUpdateCount(ps, 1);
+                ps.close();
+            }
+            for (int i = SESSIONS - 1; i >= 0; i--) {
+                PreparedStatement ps = connections.get(i).prepareStatement(
+                    "select b from nio_t where a = ?");
+                ps.setInt(1, i);
+                ResultSet rs = ps.executeQuery();
+                assertTrue(rs.next());
+                assertEquals("session " + i, rs.getString(1));
+                assertFalse(rs.next());
+                rs.close();
+                ps.close();
+            }
+            // a session closed while parked doesn't affect the others
+            connections.remove(0).close();
+            for (Connection c : connections) {
+                ResultSet rs = c.createStatement().executeQuery(
+                    "select count(*) from nio_t");
+                assertTrue(rs.next());
+                assertEquals(SESSIONS, rs.getInt(1));
+                rs.close();
+            }
+        } finally {
+            for (Connection c : connections)
+                c.close();
+            s.executeUpdate("drop table nio_t");
+            s.close();
+        }
+    }
+
+    public static Test suite()
+    {
+        TestSuite suite = new TestSuite("NioNetworkServerTest");
+        suite.addTest(TestConfiguration.clientServerSuite(
+            NioNetworkServerTest.class));
+        suite.addTest(TestConfiguration.clientServerSuite(
+            PrepareStatementTest.class));
+        suite.addTest(BadConnectionTest.suite());
+        suite.addTest(DRDAProtocolTest.suite());
+
+        Properties properties = new Properties();
+        properties.setProperty(Property.DRDA_PROP_NIO, "true");
+        return new SystemPropertyTestSetup(suite, properties);
+    }
+}
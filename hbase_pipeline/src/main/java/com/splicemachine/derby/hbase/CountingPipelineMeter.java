@@ -23,6 +23,7 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class CountingPipelineMeter implements PipelineMeter{
     private final AtomicLong rejectedCount = new AtomicLong(0l);
+    private final AtomicLong coalescedCount = new AtomicLong(0l);
 
     private final AtomicLong successCounter = new AtomicLong(0l);
     private final AtomicLong failedCounter = new AtomicLong(0l);
@@ -63,4 +64,14 @@ public class CountingPipelineMeter implements PipelineMeter{
     public long rejectedCount(){
         return rejectedCount.get();
     }
+
+    @Override
+    public void coalesced(int numRows){
+        coalescedCount.addAndGet(numRows);
+    }
+
+    @Override
+    public long coalescedCount(){
+        return coalescedCount.get();
+    }
 }
@@ -32,6 +32,7 @@ import com.splicemachine.si.impl.Transaction;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.server.*;
 import com.splicemachine.si.impl.server.CompactionContext;
+import com.splicemachine.storage.ZoneMap;
 import com.splicemachine.utils.SpliceLogUtils;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.commons.io.FileUtils;
@@ -91,6 +92,8 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
     private static String hostName;
     private boolean isSpark;
     private final boolean allowSpark;
+    // zone maps of the files being written, added to their file info when they are committed
+    private final Map<CellSink, ZoneMap.Builder> zoneMapBuilders = new ConcurrentHashMap<>();
 
     private static final String TABLE_DISPLAY_NAME_ATTR = SIConstants.TABLE_DISPLAY_NAME_ATTR;
     private static final String INDEX_DISPLAY_NAME_ATTR = SIConstants.INDEX_DISPLAY_NAME_ATTR;
@@ -123,6 +126,9 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
         if (request instanceof SpliceCompactionRequest) {
             writer.appendFileInfo(SPLICE_COMPACTION_EVENT_KEY, filesToBytes((SpliceCompactionRequest) request));
         }
+        ZoneMap.Builder zoneMapBuilder = zoneMapBuilders.remove(writer);
+        if (zoneMapBuilder != null)
+            ZoneMaps.write(writer, zoneMapBuilder);
         return super.commitWriter(writer, fd, request);
     }
 
@@ -435,6 +441,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
         // we have to use a do/while loop.
         List<Cell> cells = new ArrayList<>();
         boolean hasMore;
+        ZoneMap.Builder zoneMapBuilder = SpliceCompactionUtils.needsSI(store.getTableName()) ? ZoneMaps.newBuilder(conf) : null;
         ScannerContext scannerContext = ScannerContext.newBuilder().setBatchLimit(compactionKVMax).build();
         do {
             hasMore = scanner.next(cells, scannerContext);
@@ -447,6 +454,8 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                     CellUtil.setSequenceId(c, 0);
                 }
                 writer.append(c);
+                if (zoneMapBuilder != null)
+                    ZoneMaps.add(zoneMapBuilder, c);
                 long len = 0;
                 // AbstractSICompactionScanner could eliminate the cells completely during compaction making the output
                 // byte size potentially zero. Therefore, we query the size of the input cells before compaction directly
@@ -485,6 +494,8 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
             }
             cells.clear();
         } while (hasMore);
+        if (zoneMapBuilder != null)
+            zoneMapBuilders.put(writer, zoneMapBuilder);
         progress.complete();
         return true;
     }
@@ -20,18 +20,24 @@ import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.server.FlushLifeCycleTrackerWithConfig;
 import com.splicemachine.si.impl.server.PurgeConfigBuilder;
+import com.splicemachine.storage.ZoneMap;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.monitoring.MonitoredTask;
+import org.apache.hadoop.hbase.regionserver.CellSink;
 import org.apache.hadoop.hbase.regionserver.DefaultStoreFlusher;
 import org.apache.hadoop.hbase.regionserver.FlushLifeCycleTracker;
 import org.apache.hadoop.hbase.regionserver.HStore;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
 import org.apache.hadoop.hbase.regionserver.MemStoreSnapshot;
+import org.apache.hadoop.hbase.regionserver.StoreFileWriter;
 import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * We use this class to pass the PurgeConfig down the stack to flush logic in SIObserver.
@@ -39,10 +45,36 @@ import java.util.List;
 public class SpliceDefaultFlusher extends DefaultStoreFlusher {
     private static final Logger LOG = Logger.getLogger(SpliceDefaultFlusher.class);
 
+    // zone maps of the files being flushed, added to their file info once all cells are written
+    private final Map<CellSink, ZoneMap.Builder> zoneMapBuilders = new ConcurrentHashMap<>();
+
     public SpliceDefaultFlusher(Configuration conf, HStore store) throws IOException {
         super(conf, store);
     }
 
+    @Override
+    protected void performFlush(InternalScanner scanner, CellSink sink, long smallestReadPoint,
+                                ThroughputController throughputController) throws IOException {
+        ZoneMap.Builder zoneMapBuilder = SpliceCompactionUtils.needsSI(store.getTableName()) ? ZoneMaps.newBuilder(conf) : null;
+        if (zoneMapBuilder == null) {
+            super.performFlush(scanner, sink, smallestReadPoint, throughputController);
+            return;
+        }
+        super.performFlush(scanner, cell -> {
+            ZoneMaps.add(zoneMapBuilder, cell);
+            sink.append(cell);
+        }, smallestReadPoint, throughputController);
+        zoneMapBuilders.put(sink, zoneMapBuilder);
+    }
+
+    @Override
+    protected void finalizeWriter(StoreFileWriter writer, long cacheFlushSeqNum, MonitoredTask status) throws IOException {
+        ZoneMap.Builder zoneMapBuilder = zoneMapBuilders.remove(writer);
+        if (zoneMapBuilder != null)
+            ZoneMaps.write(writer, zoneMapBuilder);
+        super.finalizeWriter(writer, cacheFlushSeqNum, status);
+    }
+
     @Override
     public List<Path> flushSnapshot(MemStoreSnapshot snapshot, long cacheFlushId,
                                     MonitoredTask status, ThroughputController throughputController,
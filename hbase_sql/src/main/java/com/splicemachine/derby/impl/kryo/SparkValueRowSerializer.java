@@ -51,31 +51,40 @@ import java.util.Arrays;
 import java.util.concurrent.ExecutionException;
 
 /**
+ * Each row is written with its format ids, so that it can be read on its own: Spark relocates the serialized
+ * records of a shuffle between partitions, which rules out writing the format once per stream. What is shared
+ * between the rows of a format is the work of encoding and decoding them, see {@link RowFormat}.
+ *
  * @author Scott Fines
  * Created on: 10/10/13
  */
 public abstract class SparkValueRowSerializer<T extends ExecRow> extends Serializer<T> {
     private static Logger LOG = Logger.getLogger(SparkValueRowSerializer.class);
     private static ClassFactory cf;
-    private LoadingCache<IntArray, DescriptorSerializer[]> serializersCache = CacheBuilder.newBuilder().maximumSize(10).build(
-            new CacheLoader<IntArray, DescriptorSerializer[]>() {
+    private LoadingCache<IntArray, RowFormat> formatsCache = CacheBuilder.newBuilder().maximumSize(10).build(
+            new CacheLoader<IntArray, RowFormat>() {
                 @Override
-                public DescriptorSerializer[] load(IntArray intArray) {
-                    DataValueDescriptor[] dvds = new DataValueDescriptor[intArray.array.length];
-                    for (int i =0;i<intArray.array.length;i++) {
-                        dvds[i] = getDVD(intArray.array[i]);
-                    }
-                    return VersionedSerializers.latestVersion(false).getSerializers(dvds);
+                public RowFormat load(IntArray intArray) {
+                    return new RowFormat(intArray.array);
                 }
             }
     );
+    /*
+     * The rows of a shuffle or a broadcast almost always share their format, so the format of the last row is
+     * checked before hashing the format ids for the cache
+     */
+    private RowFormat lastFormat;
+    /*
+     * A user type column may serialize a row of its own with this serializer, in which case the nested row
+     * can't use the encoders of the format, which are in use by the outer row
+     */
+    private boolean inUse;
 
     static {
         cf = new ReflectClassesJava2();
     }
 
-    private void writeDvds(Kryo kryo, Output output, DataValueDescriptor[] dvds) {
-        int[] formatIds = EngineUtils.getFormatIds(dvds);
+    private void writeDvds(Kryo kryo, Output output, DataValueDescriptor[] dvds, int[] formatIds) {
         output.writeInt(formatIds.length, true);
         try {
             for (int i = 0; i < formatIds.length; ++i) {
@@ -126,23 +135,30 @@ public abstract class SparkValueRowSerializer<T extends ExecRow> extends Seriali
 
     @Override
     public void write(Kryo kryo, Output output, T object) {
-        writeDvds(kryo, output, object.getRowArray());
-        DataHash encoder = getEncoder(object.getRowArray());
-        encoder.setRow(object);
+        boolean reuse = !inUse;
+        inUse = true;
         try {
+            int[] formatIds = EngineUtils.getFormatIds(object.getRowArray());
+            writeDvds(kryo, output, object.getRowArray(), formatIds);
+            DataHash encoder = getEncoder(getFormat(formatIds), reuse);
+            encoder.setRow(object);
             encodeObject(kryo, output, encoder, object.getKey());
             DataValueDescriptor[] baseRowCols = object.getBaseRowCols();
             if(baseRowCols == null) {
                 output.writeBoolean(false);
             } else {
                 output.writeBoolean(true);
-                writeDvds(kryo, output, baseRowCols);
-                DataHash baseRowEncoder = getEncoder(baseRowCols);
+                formatIds = EngineUtils.getFormatIds(baseRowCols);
+                writeDvds(kryo, output, baseRowCols, formatIds);
+                DataHash baseRowEncoder = getEncoder(getFormat(formatIds), reuse);
                 baseRowEncoder.setRow(new ValueRow(baseRowCols));
                 encodeObject(kryo, output, baseRowEncoder, null); // not 100%
             }
         } catch (Exception e) {
             SpliceLogUtils.logAndThrowRuntime(LOG, "Exception while serializing row " + object, e);
+        } finally {
+            if (reuse)
+                inUse = false;
         }
     }
 
@@ -150,14 +166,11 @@ public abstract class SparkValueRowSerializer<T extends ExecRow> extends Seriali
     DataValueDescriptor[] readDvds(Input input, int size) {
 
         int[] formatIds = new int[size];
-        ExecRow execRow = new ValueRow(size);
-
-        DataValueDescriptor[] rowTemplate = execRow.getRowArray();
+        Object[] userTypes = null;
 
         try {
             for (int i = 0; i < size; ++i) {
                 formatIds[i] = input.readInt(true);
-                rowTemplate[i] = getDVD(formatIds[i]);
                 if (formatIds[i] == StoredFormatIds.SQL_USERTYPE_ID_V3) {
                     if (!input.readBoolean()) {
                         // This is a UDT or UDA
@@ -166,13 +179,21 @@ public abstract class SparkValueRowSerializer<T extends ExecRow> extends Seriali
                         input.read(bytes, 0, len);
                         ByteArrayInputStream in = new ByteArrayInputStream(bytes);
                         UDTInputStream inputStream = new UDTInputStream(in, cf);
-                        Object o = inputStream.readObject();
-                        rowTemplate[i].setValue(o);
+                        if (userTypes == null)
+                            userTypes = new Object[size];
+                        userTypes[i] = inputStream.readObject();
                         inputStream.close();
                     }
                 }
             }
-            return execRow.getRowArray();
+            DataValueDescriptor[] rowTemplate = getFormat(formatIds).newRow();
+            if (userTypes != null) {
+                for (int i = 0; i < size; ++i) {
+                    if (userTypes[i] != null)
+                        rowTemplate[i].setValue(userTypes[i]);
+                }
+            }
+            return rowTemplate;
         } catch (Exception e) {
             throw new RuntimeException(Throwables.getRootCause(e));
         }
@@ -209,11 +230,12 @@ public abstract class SparkValueRowSerializer<T extends ExecRow> extends Seriali
         int size = input.readInt(true);
 
         T instance = newType(size);
-        DataValueDescriptor[] rowTemplate = readDvds(input, size);
-        instance.setRowArray(rowTemplate);
-        KeyHashDecoder decoder = getEncoder(rowTemplate).getDecoder();
-
+        boolean reuse = !inUse;
+        inUse = true;
         try {
+            DataValueDescriptor[] rowTemplate = readDvds(input, size);
+            instance.setRowArray(rowTemplate);
+            KeyHashDecoder decoder = getDecoder(getFormat(EngineUtils.getFormatIds(rowTemplate)), reuse);
             decode(decoder, input, instance);
 
             // read base row if exists
@@ -223,13 +245,16 @@ public abstract class SparkValueRowSerializer<T extends ExecRow> extends Seriali
                 ValueRow baseRow = new ValueRow(size);
                 rowTemplate = readDvds(input, size);
                 baseRow.setRowArray(rowTemplate);
-                decoder = getEncoder(rowTemplate).getDecoder();
+                decoder = getDecoder(getFormat(EngineUtils.getFormatIds(rowTemplate)), reuse);
                 decode(decoder, input, baseRow);
                 instance.setBaseRowCols(baseRow.getRowArray());
             }
 
         } catch (StandardException e) {
             SpliceLogUtils.logAndThrowRuntime(LOG, "Exception while deserializing row with template " + instance, e);
+        } finally {
+            if (reuse)
+                inUse = false;
         }
         return instance;
     }
@@ -245,18 +270,61 @@ public abstract class SparkValueRowSerializer<T extends ExecRow> extends Seriali
     protected abstract T newType(int size);
 
 
-    private DataHash getEncoder(DataValueDescriptor[] dvds) {
-        int[] formatIds = EngineUtils.getFormatIds(dvds);
-        int[] rowColumns = IntArrays.count(formatIds.length);
-        DescriptorSerializer[] serializers;
-        try {
-            serializers = serializersCache.get(new IntArray(formatIds));
-        } catch (ExecutionException e) {
-            LOG.error("Error loading serializers from serializersCache", e);
-            serializers = VersionedSerializers.latestVersion(false).getSerializers(dvds);
+    private RowFormat getFormat(int[] formatIds) {
+        RowFormat format = lastFormat;
+        if (format == null || !Arrays.equals(format.formatIds, formatIds)) {
+            try {
+                format = formatsCache.get(new IntArray(formatIds));
+            } catch (ExecutionException e) {
+                LOG.error("Error loading row format from formatsCache", e);
+                format = new RowFormat(formatIds);
+            }
+            lastFormat = format;
+        }
+        return format;
+    }
+
+    private static DataHash getEncoder(RowFormat format, boolean reuse) {
+        return reuse ? format.encoder : format.newEncoder();
+    }
+
+    private static KeyHashDecoder getDecoder(RowFormat format, boolean reuse) {
+        return reuse ? format.decoder : format.newEncoder().getDecoder();
+    }
+
+    /**
+     * The serializers, encoder, decoder and null template of the rows with the same column types, which are
+     * built once instead of for every row.
+     */
+    private static class RowFormat {
+        private final int[] formatIds;
+        private final DataValueDescriptor[] template;
+        private final DescriptorSerializer[] serializers;
+        private final DataHash encoder;
+        private final KeyHashDecoder decoder;
+
+        RowFormat(int[] formatIds) {
+            this.formatIds = formatIds;
+            this.template = new DataValueDescriptor[formatIds.length];
+            for (int i = 0; i < formatIds.length; i++) {
+                template[i] = getDVD(formatIds[i]);
+            }
+            this.serializers = VersionedSerializers.latestVersion(false).getSerializers(template);
+            this.encoder = newEncoder();
+            this.decoder = encoder.getDecoder();
+        }
+
+        DataHash newEncoder() {
+            return BareKeyHash.encoder(IntArrays.count(formatIds.length), null, serializers);
         }
 
-        return BareKeyHash.encoder(rowColumns, null, serializers);
+        DataValueDescriptor[] newRow() {
+            DataValueDescriptor[] row = new DataValueDescriptor[template.length];
+            for (int i = 0; i < template.length; i++) {
+                row[i] = template[i].getNewNull();
+            }
+            return row;
+        }
     }
 
     private static class IntArray {
@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.splicemachine.derby.impl.load;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.util.IdUtil;
+import com.splicemachine.db.impl.jdbc.EmbedConnection;
+import com.splicemachine.db.impl.load.ColumnInfo;
+import com.splicemachine.derby.impl.kryo.KryoSerialization;
+import com.splicemachine.derby.stream.spark.KafkaReadFunction;
+import com.splicemachine.derby.vti.IngestBatchVTI;
+import com.splicemachine.tools.EmbedConnectionMaker;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.apache.log4j.Logger;
+import splice.com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingests the partitions of a Kafka topic into a table, with one consumer thread for each share of the partitions.
+ * <p/>
+ * Each consumer writes micro-batches of at most {@code batchSize} records, or of the records received within
+ * {@code batchInterval} ms. The rows of a batch are inserted with one INSERT ... SELECT from an
+ * {@link IngestBatchVTI}, so they go through the write pipeline like any other insert, and the next offset of each
+ * partition of the batch is written to the offsets table in the same transaction, conditionally on the offset the
+ * batch was read from. On failure the transaction is rolled back, the offsets are read again from the offsets table
+ * and the consumer seeks back to them, so every record is written exactly once even if another consumer of the same
+ * partitions committed in the meantime.
+ */
+class KafkaIngestJob {
+    private static final Logger LOG = Logger.getLogger(KafkaIngestJob.class);
+
+    private static final int MAX_CONSECUTIVE_FAILURES = 10;
+    private static final long MAX_RETRY_WAIT = 10_000L;
+    private static final long THROUGHPUT_WINDOW = 10_000L;
+    private static final int MAX_ERROR_LENGTH = 256;
+
+    enum State { RUNNING, STOPPED, FAILED }
+
+    private final String jobId;
+    private final String schemaName;
+    private final String tableName;
+    private final String topicName;
+    private final String bootstrapServers;
+    private final List<List<TopicPartition>> assignments;
+    private final int batchSize;
+    private final long batchInterval;
+    private final String insertColumns;
+    private final String vtiColumns;
+    private final String offsetsTable;
+    private final long startTime = System.currentTimeMillis();
+
+    private final ExecutorService executor;
+    private final Map<TopicPartition, Long> offsetLag = new ConcurrentHashMap<>();
+    // commit time and row count of the batches of the last THROUGHPUT_WINDOW ms
+    private final ArrayDeque<long[]> recentBatches = new ArrayDeque<>();
+    private long rowsIngested;
+    private long batches;
+    private volatile long lagMillis;
+    private volatile String lastError;
+    private volatile State state = State.RUNNING;
+    private volatile boolean stopped;
+
+    KafkaIngestJob(String jobId, String schemaName, String tableName, String topicName, String bootstrapServers,
+                   List<List<TopicPartition>> assignments, int batchSize, long batchInterval,
+                   ColumnInfo columnInfo) {
+        this.jobId = jobId;
+        this.schemaName = schemaName;
+        this.tableName = tableName;
+        this.topicName = topicName;
+        this.bootstrapServers = bootstrapServers;
+        this.assignments = assignments;
+        this.batchSize = batchSize;
+        this.batchInterval = batchInterval;
+        this.insertColumns = columnInfo.getInsertColumnNames();
+        this.vtiColumns = columnInfo.getImportAsColumns();
+        this.offsetsTable = IdUtil.mkQualifiedName(schemaName, KafkaIngestManager.OFFSETS_TABLE);
+        this.executor = Executors.newFixedThreadPool(assignments.size(),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("kafka-ingest-" + jobId + "-%d").build());
+    }
+
+    void start() {
+        for (int i = 0; i < assignments.size(); i++) {
+            executor.submit(new Worker(assignments.get(i), jobId + "-" + i));
+        }
+    }
+
+    /**
+     * Stops the consumers, waiting for the batches being written to commit or roll back.
+     */
+    void stop() throws InterruptedException {
+        stopped = true;
+        executor.shutdown();
+        if (!executor.awaitTermination(batchInterval + 60_000L, TimeUnit.MILLISECONDS)) {
+            LOG.warn("Kafka ingest job " + jobId + " didn't stop in time, interrupting it");
+            executor.shutdownNow();
+        }
+        if (state == State.RUNNING)
+            state = State.STOPPED;
+    }
+
+    String getSchemaName() {
+        return schemaName;
+    }
+
+    String getTableName() {
+        return tableName;
+    }
+
+    String getTopicName() {
+        return topicName;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    synchronized KafkaIngestJobInfo getInfo() {
+        long now = System.currentTimeMillis();
+        expireBatches(now);
+        long windowRows = 0;
+        for (long[] batch : recentBatches) {
+            windowRows += batch[1];
+        }
+        long window = Math.max(1L, Math.min(THROUGHPUT_WINDOW, now - startTime));
+        long lag = 0;
+        for (long partitionLag : offsetLag.values()) {
+            lag += partitionLag;
+        }
+        int partitions = 0;
+        for (List<TopicPartition> assignment : assignments) {
+            partitions += assignment.size();
+        }
+        return new KafkaIngestJobInfo(jobId, schemaName, tableName, topicName, partitions, state.name(), startTime,
+                rowsIngested, batches, windowRows * 1000L / window, lag, lagMillis, lastError);
+    }
+
+    private synchronized void batchCommitted(int rows, long commitTime, long lastRecordTimestamp) {
+        rowsIngested += rows;
+        batches++;
+        recentBatches.addLast(new long[]{commitTime, rows});
+        expireBatches(commitTime);
+        if (lastRecordTimestamp >= 0)
+            lagMillis = Math.max(0L, commitTime - lastRecordTimestamp);
+    }
+
+    private void expireBatches(long now) {
+        while (!recentBatches.isEmpty() && recentBatches.peekFirst()[0] < now - THROUGHPUT_WINDOW) {
+            recentBatches.removeFirst();
+        }
+    }
+
+    private void failed(Exception e) {
+        String message = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+        lastError = message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private Properties consumerProperties() {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        String consumerId = "splice-kafka-ingest-" + jobId;
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, consumerId);
+        props.put(ConsumerConfig.CLIENT_ID_CONFIG, consumerId + "-" + Thread.currentThread().getName());
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, IntegerDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        // offsets are stored with the rows, never by Kafka
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Integer.toString(batchSize));
+        return props;
+    }
+
+    private class Worker implements Runnable {
+        private final List<TopicPartition> partitions;
+        private final String batchKey;
+        // the offsets stored in the offsets table
+        private final Map<TopicPartition, Long> committed = new HashMap<>();
+
+        Worker(List<TopicPartition> partitions, String batchKey) {
+            this.partitions = partitions;
+            this.batchKey = batchKey;
+        }
+
+        @Override
+        public void run() {
+            Properties dbProperties = new Properties();
+            dbProperties.put(EmbedConnection.INTERNAL_CONNECTION, "true");
+            KryoSerialization kryo = new KryoSerialization();
+            kryo.init();
+            try (Connection conn = new EmbedConnectionMaker().createNew(dbProperties);
+                 KafkaConsumer<Integer, byte[]> consumer = new KafkaConsumer<>(consumerProperties())) {
+                conn.setAutoCommit(false);
+                consumer.assign(partitions);
+                readOffsets(conn);
+                seekToCommitted(consumer);
+                ingest(conn, consumer, kryo);
+            } catch (Exception e) {
+                if (stopped)
+                    return;
+                LOG.error("Kafka ingest job " + jobId + " failed", e);
+                failed(e);
+                state = State.FAILED;
+            } finally {
+                kryo.close();
+            }
+        }
+
+        private void ingest(Connection conn, KafkaConsumer<Integer, byte[]> consumer, KryoSerialization kryo)
+                throws SQLException, InterruptedException {
+            String insertSql = "INSERT INTO " + IdUtil.mkQualifiedName(schemaName, tableName) + " (" + insertColumns + ")" +
+                    " --splice-properties useSpark=false\n" +
+                    " SELECT * FROM new " + IngestBatchVTI.class.getName() + "('" + batchKey + "')" +
+                    " AS ingestVTI (" + vtiColumns + ")";
+            try (PreparedStatement insert = conn.prepareStatement(insertSql);
+                 PreparedStatement updateOffset = conn.prepareStatement("UPDATE " + offsetsTable +
+                         " SET NEXT_OFFSET = ? WHERE TABLE_NAME = ? AND TOPIC_NAME = ? AND PARTITION_ID = ?" +
+                         " AND NEXT_OFFSET = ?");
+                 PreparedStatement insertOffset = conn.prepareStatement("INSERT INTO " + offsetsTable +
+                         " (TABLE_NAME, TOPIC_NAME, PARTITION_ID, NEXT_OFFSET) VALUES (?, ?, ?, ?)")) {
+                int failures = 0;
+                boolean resync = false;
+                while (!stopped) {
+                    List<ExecRow> rows = new ArrayList<>(batchSize);
+                    Map<TopicPartition, Long> nextOffsets = new HashMap<>();
+                    long lastRecordTimestamp = -1L;
+                    try {
+                        if (resync) {
+                            // the offsets table is the only source of truth, the batch may have been written anyway
+                            readOffsets(conn);
+                            seekToCommitted(consumer);
+                            resync = false;
+                        }
+                        long deadline = System.currentTimeMillis() + batchInterval;
+                        long remaining = batchInterval;
+                        while (rows.size() < batchSize && remaining > 0 && !stopped) {
+                            for (ConsumerRecord<Integer, byte[]> record : consumer.poll(Duration.ofMillis(remaining))) {
+                                rows.add(decode(kryo, record.value()));
+                                nextOffsets.put(new TopicPartition(record.topic(), record.partition()), record.offset() + 1);
+                                lastRecordTimestamp = Math.max(lastRecordTimestamp, record.timestamp());
+                            }
+                            remaining = deadline - System.currentTimeMillis();
+                        }
+                        if (!rows.isEmpty()) {
+                            writeBatch(conn, insert, updateOffset, insertOffset, rows, nextOffsets);
+                            batchCommitted(rows.size(), System.currentTimeMillis(), lastRecordTimestamp);
+                        }
+                        updateLag(consumer);
+                        failures = 0;
+                    } catch (Exception e) {
+                        failures++;
+                        LOG.warn("Kafka ingest job " + jobId + " failed to write a batch, attempt " + failures, e);
+                        failed(e);
+                        rollback(conn);
+                        if (failures >= MAX_CONSECUTIVE_FAILURES) {
+                            state = State.FAILED;
+                            return;
+                        }
+                        Thread.sleep(Math.min(MAX_RETRY_WAIT, failures * 1000L));
+                        resync = true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Records are either rows, as written by EXPORT_KAFKA, or {@link KafkaReadFunction.Message}s.
+         */
+        private ExecRow decode(KryoSerialization kryo, byte[] value) {
+            Object decoded = kryo.deserialize(value);
+            if (decoded instanceof KafkaReadFunction.Message)
+                return ((KafkaReadFunction.Message) decoded).vr();
+            return (ExecRow) decoded;
+        }
+
+        private void writeBatch(Connection conn, PreparedStatement insert, PreparedStatement updateOffset,
+                                PreparedStatement insertOffset, List<ExecRow> rows,
+                                Map<TopicPartition, Long> nextOffsets) throws SQLException {
+            IngestBatchVTI.register(batchKey, rows);
+            try {
+                insert.executeUpdate();
+            } finally {
+                IngestBatchVTI.unregister(batchKey);
+            }
+            for (Map.Entry<TopicPartition, Long> offset : nextOffsets.entrySet()) {
+                int partition = offset.getKey().partition();
+                Long expected = committed.get(offset.getKey());
+                if (expected != null) {
+                    updateOffset.setLong(1, offset.getValue());
+                    updateOffset.setString(2, tableName);
+                    updateOffset.setString(3, topicName);
+                    updateOffset.setInt(4, partition);
+                    updateOffset.setLong(5, expected);
+                    if (updateOffset.executeUpdate() != 1)
+                        throw new SQLException("The offset of partition " + partition + " of topic " + topicName +
+                                " for table " + tableName + " is no longer " + expected + ", another consumer has" +
+                                " ingested it");
+                } else {
+                    // fails on the primary key if another consumer has stored an offset since they were read
+                    insertOffset.setString(1, tableName);
+                    insertOffset.setString(2, topicName);
+                    insertOffset.setInt(3, partition);
+                    insertOffset.setLong(4, offset.getValue());
+                    insertOffset.executeUpdate();
+                }
+            }
+            conn.commit();
+            committed.putAll(nextOffsets);
+        }
+
+        private void readOffsets(Connection conn) throws SQLException {
+            committed.clear();
+            try (PreparedStatement ps = conn.prepareStatement("SELECT PARTITION_ID, NEXT_OFFSET FROM " + offsetsTable +
+                    " WHERE TABLE_NAME = ? AND TOPIC_NAME = ?")) {
+                ps.setString(1, tableName);
+                ps.setString(2, topicName);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        TopicPartition partition = new TopicPartition(topicName, rs.getInt(1));
+                        if (partitions.contains(partition))
+                            committed.put(partition, rs.getLong(2));
+                    }
+                }
+            }
+            conn.commit();
+        }
+
+        private void seekToCommitted(KafkaConsumer<Integer, byte[]> consumer) {
+            List<TopicPartition> uncommitted = new ArrayList<>();
+            for (TopicPartition partition : partitions) {
+                Long offset = committed.get(partition);
+                if (offset == null)
+                    uncommitted.add(partition);
+                else
+                    consumer.seek(partition, offset);
+            }
+            if (!uncommitted.isEmpty())
+                consumer.seekToBeginning(uncommitted);
+        }
+
+        private void updateLag(KafkaConsumer<Integer, byte[]> consumer) {
+            for (Map.Entry<TopicPartition, Long> end : consumer.endOffsets(partitions).entrySet()) {
+                offsetLag.put(end.getKey(), Math.max(0L, end.getValue() - consumer.position(end.getKey())));
+            }
+        }
+
+        private void rollback(Connection conn) {
+            try {
+                conn.rollback();
+            } catch (SQLException e) {
+                LOG.warn("Could not roll back a batch of Kafka ingest job " + jobId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.splicemachine.derby.impl.load;
+
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.reference.SQLState;
+import com.splicemachine.db.iapi.util.IdUtil;
+import com.splicemachine.db.impl.jdbc.EmbedConnection;
+import com.splicemachine.db.impl.load.ColumnInfo;
+import com.splicemachine.hbase.ZkUtils;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.tools.EmbedConnectionMaker;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.apache.log4j.Logger;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooDefs;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Jobs are registered in ZooKeeper with an ephemeral node per table and topic, so only one job of the cluster
+ * ingests a topic into a table. The node goes away with the server running the job.
+ */
+public class KafkaIngestManagerImpl implements KafkaIngestManager {
+    private static final Logger LOG = Logger.getLogger(KafkaIngestManagerImpl.class);
+
+    private final ConcurrentMap<String, KafkaIngestJob> jobs = new ConcurrentHashMap<>();
+
+    @Override
+    public synchronized String start(String schemaName, String tableName, String topicName, int parallelism) throws StandardException {
+        String jobId = UUID.randomUUID().toString();
+        String registration = registrationPath(schemaName, tableName, topicName);
+        register(registration, jobId, topicName);
+        boolean started = false;
+        try {
+            String id = start(jobId, schemaName, tableName, topicName, parallelism);
+            started = true;
+            return id;
+        } finally {
+            if (!started)
+                unregister(registration, jobId);
+        }
+    }
+
+    private String start(String jobId, String schemaName, String tableName, String topicName, int parallelism) throws StandardException {
+        SConfiguration config = SIDriver.driver().getConfiguration();
+        String bootstrapServers = config.getKafkaBootstrapServers();
+        List<List<TopicPartition>> assignments = assignPartitions(bootstrapServers, topicName, parallelism);
+        if (assignments.isEmpty())
+            throw StandardException.newException(SQLState.LANG_INVALID_FUNCTION_ARGUMENT, topicName, "SYSCS_START_KAFKA_INGEST");
+
+        ColumnInfo columnInfo;
+        Properties dbProperties = new Properties();
+        dbProperties.put(EmbedConnection.INTERNAL_CONNECTION, "true");
+        try (Connection conn = new EmbedConnectionMaker().createNew(dbProperties)) {
+            createOffsetsTable(conn, schemaName);
+            columnInfo = new ColumnInfo(conn, schemaName, tableName, null);
+        } catch (SQLException e) {
+            throw StandardException.plainWrapException(e);
+        }
+
+        KafkaIngestJob job = new KafkaIngestJob(jobId, schemaName, tableName, topicName, bootstrapServers, assignments,
+                config.getKafkaIngestBatchSize(), config.getKafkaIngestBatchInterval(), columnInfo);
+        jobs.put(jobId, job);
+        job.start();
+        return jobId;
+    }
+
+    @Override
+    public boolean stop(String jobId) throws StandardException {
+        KafkaIngestJob job = jobs.remove(jobId);
+        if (job == null)
+            return false;
+        try {
+            job.stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw StandardException.plainWrapException(e);
+        } finally {
+            unregister(registrationPath(job.getSchemaName(), job.getTableName(), job.getTopicName()), jobId);
+        }
+        return true;
+    }
+
+    /**
+     * Take the registration of the table and topic for {@code jobId}. A registration held by a job of this server
+     * which is no longer running is taken over.
+     */
+    private void register(String path, String jobId, String topicName) throws StandardException {
+        try {
+            ZkUtils.recursiveSafeCreate(path.substring(0, path.lastIndexOf('/')), new byte[]{},
+                    ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+            while (true) {
+                try {
+                    ZkUtils.getRecoverableZooKeeper().create(path, Bytes.toBytes(jobId),
+                            ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+                    return;
+                } catch (KeeperException.NodeExistsException e) {
+                    String holder;
+                    try {
+                        holder = Bytes.toString(ZkUtils.getData(path));
+                    } catch (IOException ioe) {
+                        if (ioe.getCause() instanceof KeeperException.NoNodeException)
+                            continue; // released in the meantime
+                        throw ioe;
+                    }
+                    KafkaIngestJob job = jobs.get(holder);
+                    if (job == null || job.getState() == KafkaIngestJob.State.RUNNING)
+                        throw StandardException.newException(SQLState.LANG_INVALID_FUNCTION_ARGUMENT, topicName,
+                                "SYSCS_START_KAFKA_INGEST");
+                    // a failed job of this server
+                    jobs.remove(holder);
+                    ZkUtils.safeDelete(path, -1);
+                }
+            }
+        } catch (KeeperException | InterruptedException | IOException e) {
+            throw StandardException.plainWrapException(e);
+        }
+    }
+
+    private static void unregister(String path, String jobId) {
+        try {
+            byte[] holder = ZkUtils.getData(path);
+            if (holder != null && jobId.equals(Bytes.toString(holder)))
+                ZkUtils.safeDelete(path, -1);
+        } catch (Exception e) {
+            LOG.warn("Could not release the registration of Kafka ingest job " + jobId, e);
+        }
+    }
+
+    private static String registrationPath(String schemaName, String tableName, String topicName) throws StandardException {
+        try {
+            String key = URLEncoder.encode(IdUtil.mkQualifiedName(schemaName, tableName) + "@" + topicName, "UTF-8");
+            return SIDriver.driver().getConfiguration().getSpliceRootPath() + HConfiguration.KAFKA_INGEST_PATH + "/" + key;
+        } catch (UnsupportedEncodingException e) {
+            throw StandardException.plainWrapException(e);
+        }
+    }
+
+    @Override
+    public List<KafkaIngestJobInfo> getJobs() {
+        List<KafkaIngestJobInfo> infos = new ArrayList<>(jobs.size());
+        for (KafkaIngestJob job : jobs.values()) {
+            infos.add(job.getInfo());
+        }
+        return infos;
+    }
+
+    /**
+     * @return the partitions of the topic, dealt round robin to at most {@code parallelism} consumers
+     */
+    private static List<List<TopicPartition>> assignPartitions(String bootstrapServers, String topicName, int parallelism) {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.CLIENT_ID_CONFIG, "splice-kafka-ingest-" + UUID.randomUUID());
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, IntegerDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+
+        List<PartitionInfo> partitionInfos;
+        try (KafkaConsumer<Integer, byte[]> consumer = new KafkaConsumer<>(props)) {
+            partitionInfos = consumer.partitionsFor(topicName);
+        }
+        List<List<TopicPartition>> assignments = new ArrayList<>();
+        if (partitionInfos == null)
+            return assignments;
+        int consumers = Math.min(parallelism, partitionInfos.size());
+        for (int i = 0; i < consumers; i++) {
+            assignments.add(new ArrayList<>());
+        }
+        for (int i = 0; i < partitionInfos.size(); i++) {
+            assignments.get(i % consumers).add(new TopicPartition(topicName, partitionInfos.get(i).partition()));
+        }
+        return assignments;
+    }
+
+    private static void createOffsetsTable(Connection conn, String schemaName) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(null, schemaName, OFFSETS_TABLE, null)) {
+            if (rs.next())
+                return;
+        }
+        try (Statement s = conn.createStatement()) {
+            s.executeUpdate("CREATE TABLE " + IdUtil.mkQualifiedName(schemaName, OFFSETS_TABLE) + " (" +
+                    "TABLE_NAME VARCHAR(128) NOT NULL, " +
+                    "TOPIC_NAME VARCHAR(256) NOT NULL, " +
+                    "PARTITION_ID INT NOT NULL, " +
+                    "NEXT_OFFSET BIGINT NOT NULL, " +
+                    "PRIMARY KEY (TABLE_NAME, TOPIC_NAME, PARTITION_ID))");
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql;
+
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.derby.iapi.sql.ResultCacheWatermarks;
+import com.splicemachine.hbase.ZkUtils;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.driver.SIDriver;
+import org.apache.hadoop.hbase.zookeeper.RecoverableZooKeeper;
+import org.apache.log4j.Logger;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.Stat;
+import splice.com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the watermarks in ZooKeeper. Each table has a node holding the largest commit timestamp published for it,
+ * and a child per transaction which announced a commit to it. An announcement is withdrawn once its commit timestamp
+ * is published, and resolved from the state of its transaction if the server which made it went away.
+ *
+ * A commit waits only for its announcements, which are made with a single multi-op for all the tables it wrote to.
+ * The commit timestamps are published, and the announcements withdrawn, in the background, coalescing the commits to
+ * each table made in the meantime; until then the readers resolve the announcements themselves.
+ */
+@ThreadSafe
+public class ZkResultCacheWatermarks implements ResultCacheWatermarks{
+    private static final Logger LOG=Logger.getLogger(ZkResultCacheWatermarks.class);
+    private static final long PUBLISH_DELAY_MS=10L;
+
+    private final String watermarkPath;
+    /* the tables whose nodes are known to exist, they are never deleted */
+    private final Set<String> tableNodes=ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<Commit> commits=new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean publishScheduled=new AtomicBoolean(false);
+    private final ScheduledExecutorService publisher;
+
+    public ZkResultCacheWatermarks(){
+        watermarkPath=SIDriver.driver().getConfiguration().getSpliceRootPath()+HConfiguration.RESULT_CACHE_WATERMARK_PATH;
+        publisher=Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("resultCacheWatermarkPublisher").build());
+    }
+
+    @Override
+    public void beforeCommit(Collection<String> tables,long txnId) throws StandardException{
+        try{
+            List<Op> announcements=new ArrayList<>(tables.size());
+            for(String table : tables){
+                if(!tableNodes.contains(table)){
+                    ZkUtils.recursiveSafeCreate(tablePath(table),new byte[]{},ZooDefs.Ids.OPEN_ACL_UNSAFE,CreateMode.PERSISTENT);
+                    tableNodes.add(table);
+                }
+                announcements.add(Op.create(announcementPath(table,txnId),new byte[]{},
+                        ZooDefs.Ids.OPEN_ACL_UNSAFE,CreateMode.PERSISTENT));
+            }
+            ZkUtils.getRecoverableZooKeeper().getZooKeeper().multi(announcements);
+        }catch(KeeperException | InterruptedException e){
+            throw Exceptions.parseException(e);
+        }
+    }
+
+    @Override
+    public void afterCommit(Collection<String> tables,long txnId,long commitTimestamp){
+        for(String table : tables){
+            commits.add(new Commit(table,txnId,commitTimestamp));
+        }
+        if(publishScheduled.compareAndSet(false,true)){
+            publisher.schedule(this::publishCommits,PUBLISH_DELAY_MS,TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public boolean isCurrent(Collection<String> tables,long timestamp){
+        try{
+            List<String> keys=new ArrayList<>(tables);
+            keys.add(ALL_TABLES);
+            for(String table : keys){
+                if(!isCurrent(table,timestamp))
+                    return false;
+            }
+            return true;
+        }catch(IOException | KeeperException | InterruptedException e){
+            LOG.warn("Could not verify the result cache watermarks of "+tables,e);
+            return false;
+        }
+    }
+
+    private boolean isCurrent(String table,long timestamp) throws IOException, KeeperException, InterruptedException{
+        RecoverableZooKeeper rzk=ZkUtils.getRecoverableZooKeeper();
+        String path=tablePath(table);
+        List<String> announcements;
+        byte[] watermark;
+        try{
+            announcements=rzk.getChildren(path,false);
+            watermark=rzk.getData(path,false,null);
+        }catch(KeeperException.NoNodeException e){
+            return true; // never written through a server with a result cache
+        }
+        if(watermark!=null && watermark.length==Long.BYTES && Bytes.toLong(watermark)>timestamp)
+            return false;
+        for(String announcement : announcements){
+            long txnId=Long.parseLong(announcement);
+            TxnView txn=SIDriver.driver().getTxnSupplier().getTransaction(txnId);
+            Txn.State state=txn.getEffectiveState();
+            if(state==Txn.State.ROLLEDBACK){
+                ZkUtils.safeDelete(path+"/"+announcement,-1);
+            }else if(state==Txn.State.COMMITTED){
+                long commitTimestamp=txn.getEffectiveCommitTimestamp();
+                // its watermark is still queued, or the server which committed it went away
+                publish(table,commitTimestamp);
+                ZkUtils.safeDelete(path+"/"+announcement,-1);
+                if(commitTimestamp>timestamp)
+                    return false;
+            }else{
+                return false; // it may be committing right now
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Publish the largest commit timestamp queued for each table, then withdraw the announcements of the commits.
+     * The announcements of a table whose watermark can't be published are left for the readers to resolve.
+     */
+    private void publishCommits(){
+        publishScheduled.set(false);
+        Map<String,Long> watermarks=new HashMap<>();
+        List<Commit> published=new ArrayList<>();
+        Commit commit;
+        while((commit=commits.poll())!=null){
+            watermarks.merge(commit.table,commit.commitTimestamp,Math::max);
+            published.add(commit);
+        }
+        for(Iterator<Map.Entry<String,Long>> it=watermarks.entrySet().iterator();it.hasNext();){
+            Map.Entry<String,Long> watermark=it.next();
+            try{
+                publish(watermark.getKey(),watermark.getValue());
+            }catch(KeeperException | InterruptedException e){
+                LOG.warn("Could not publish the result cache watermark of "+watermark.getKey(),e);
+                it.remove();
+            }
+        }
+        for(Commit c : published){
+            if(!watermarks.containsKey(c.table))
+                continue;
+            try{
+                ZkUtils.safeDelete(announcementPath(c.table,c.txnId),-1);
+            }catch(KeeperException | InterruptedException e){
+                LOG.warn("Could not withdraw the result cache announcement of "+c.table+" for transaction "+c.txnId,e);
+            }
+        }
+    }
+
+    /**
+     * Raise the watermark of the table to {@code commitTimestamp}, if it's lower.
+     */
+    private void publish(String table,long commitTimestamp) throws KeeperException, InterruptedException{
+        RecoverableZooKeeper rzk=ZkUtils.getRecoverableZooKeeper();
+        String path=tablePath(table);
+        while(true){
+            Stat stat=new Stat();
+            byte[] watermark=rzk.getData(path,false,stat);
+            if(watermark!=null && watermark.length==Long.BYTES && Bytes.toLong(watermark)>=commitTimestamp)
+                return;
+            try{
+                rzk.setData(path,Bytes.toBytes(commitTimestamp),stat.getVersion());
+                return;
+            }catch(KeeperException.BadVersionException e){
+                // raised concurrently, check again
+            }
+        }
+    }
+
+    private String tablePath(String table){
+        return watermarkPath+"/"+table;
+    }
+
+    private String announcementPath(String table,long txnId){
+        return tablePath(table)+"/"+txnId;
+    }
+
+    private static class Commit{
+        private final String table;
+        private final long txnId;
+        private final long commitTimestamp;
+
+        private Commit(String table,long txnId,long commitTimestamp){
+            this.table=table;
+            this.txnId=txnId;
+            this.commitTimestamp=commitTimestamp;
+        }
+    }
+}
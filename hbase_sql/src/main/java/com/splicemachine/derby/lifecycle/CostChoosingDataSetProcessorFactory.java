@@ -31,9 +31,11 @@ import com.splicemachine.derby.impl.sql.execute.operations.SpliceBaseOperation;
 import com.splicemachine.derby.stream.control.ControlDataSetProcessor;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.DistributedDataSetProcessor;
+import com.splicemachine.derby.stream.iapi.RegionAggregateClient;
 import com.splicemachine.derby.stream.iapi.RemoteQueryClient;
 import com.splicemachine.derby.stream.spark.HregionDataSetProcessor;
 import com.splicemachine.derby.stream.spark.SparkDataSetProcessor;
+import com.splicemachine.hbase.HBaseRegionAggregateClient;
 import com.splicemachine.hbase.RegionServerLifecycleObserver;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.stream.RemoteQueryClientImpl;
@@ -148,4 +150,9 @@ public class CostChoosingDataSetProcessorFactory implements DataSetProcessorFact
         long rowsLimit = EngineDriver.driver().getConfiguration().getControlExecutionRowLimit();
         return new ControlExecutionLimiterImpl(rowsLimit);
     }
+
+    @Override
+    public RegionAggregateClient getRegionAggregateClient() {
+        return new HBaseRegionAggregateClient();
+    }
 }
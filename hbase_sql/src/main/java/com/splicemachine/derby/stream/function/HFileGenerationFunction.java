@@ -402,7 +402,8 @@ public abstract class HFileGenerationFunction implements MapPartitionsFunction<R
                 for (int i = 0; i < n; ++i) {
                     dvds[i] =  LazyDataValueFactory.getLazyNull(formatIds.get(i));
                 }
-                int[] pkCols = new int[execRow.nColumns()];
+                // INCLUDE columns are stored in the index value, not in the key
+                int[] pkCols = new int[execRow.nColumns() - idx.getNumIncludedColumns()];
                 for (int i = 0; i < pkCols.length; ++i) {
                     pkCols[i] = i+1;
                 }
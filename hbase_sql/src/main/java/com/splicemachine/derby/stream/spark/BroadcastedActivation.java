@@ -19,26 +19,49 @@ import com.splicemachine.db.iapi.services.property.PropertyUtil;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.db.impl.sql.GenericStorablePreparedStatement;
 import com.splicemachine.derby.impl.SpliceSpark;import com.splicemachine.derby.stream.ActivationHolder;
+import com.splicemachine.derby.serialization.SerializedStatementCache;
 import com.splicemachine.sparksql.SparkSQLUtilsImpl;
 import com.splicemachine.stream.QueryJob;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
+import splice.com.google.common.cache.Cache;
+import splice.com.google.common.cache.CacheBuilder;
+import splice.com.google.common.cache.RemovalListener;
 
 import java.io.*;
 import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Encapsulates and ActivationHolder and the Broadcast Spark object used to transfer it to all servers.
  * Makes it possible to (de)serialize only once the activation and operation tree.
  *
+ * The prepared statement is broadcast separately from the rest of the activation, and the broadcast is
+ * shared by every job whose statement has the same fingerprint. Repeated executions of the same plan
+ * only ship the (small) per-execution state, and executors deserialize each distinct statement once.
+ *
  * Created by dgomezferro on 1/14/16.
  */
 public class BroadcastedActivation implements Externalizable {
     private static ThreadLocal<ActivationHolderAndBytes> activationHolderTL =new ThreadLocal<>();
+    private static final int MAX_BROADCAST_STATEMENTS = 256;
+    /* Statement broadcasts on the driver, by fingerprint. Evicted broadcasts are only unpersisted
+     * from the executors, so running jobs can still fetch them from the driver. */
+    private static final Cache<SerializedStatementCache.Fingerprint, Broadcast<byte[]>> statementBroadcasts =
+            CacheBuilder.newBuilder()
+                    .maximumSize(MAX_BROADCAST_STATEMENTS)
+                    .expireAfterAccess(1, TimeUnit.HOURS)
+                    .removalListener((RemovalListener<SerializedStatementCache.Fingerprint, Broadcast<byte[]>>)
+                            notification -> notification.getValue().unpersist(false))
+                    .build();
     private byte[] serializedValue;
     private ActivationHolder activationHolder;
     private Broadcast<byte[]> bcast;
+    private SerializedStatementCache.Fingerprint statementFingerprint;
+    private Broadcast<byte[]> statementBcast;
     private boolean DB2VarcharCompatibilityMode = false;
     protected long conglomID = 0;
 
@@ -48,6 +71,9 @@ public class BroadcastedActivation implements Externalizable {
 
     public BroadcastedActivation (Activation activation, SpliceOperation root) {
         this.activationHolder = new ActivationHolder(activation, root);
+        SerializedStatementCache.SerializedStatement statement = serializeStatement();
+        this.statementFingerprint = statement.getFingerprint();
+        this.statementBcast = broadcastStatement(statement);
         this.serializedValue = writeActivationHolder();
         this.bcast = SpliceSpark.getContext().broadcast(serializedValue);
         try {
@@ -63,6 +89,8 @@ public class BroadcastedActivation implements Externalizable {
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeObject(statementFingerprint);
+        out.writeObject(statementBcast);
         out.writeObject(bcast);
         out.writeBoolean(DB2VarcharCompatibilityMode);
         out.writeLong(conglomID);
@@ -70,6 +98,8 @@ public class BroadcastedActivation implements Externalizable {
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        statementFingerprint = (SerializedStatementCache.Fingerprint) in.readObject();
+        statementBcast = (Broadcast<byte[]>) in.readObject();
         bcast = (Broadcast<byte[]>) in.readObject();
         serializedValue = bcast.getValue();
         ActivationHolderAndBytes ah= activationHolderTL.get();
@@ -87,16 +117,45 @@ public class BroadcastedActivation implements Externalizable {
         return activationHolder;
     }
 
+    private SerializedStatementCache.SerializedStatement serializeStatement() {
+        try {
+            return activationHolder.getObserverInstructions().getSerializedStatement();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Broadcast<byte[]> broadcastStatement(SerializedStatementCache.SerializedStatement statement) {
+        try {
+            return statementBroadcasts.get(statement.getFingerprint(),
+                    () -> SpliceSpark.getContext().broadcast(statement.getBytes()));
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     private byte[] writeActivationHolder(){
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try(ObjectOutputStream oos = new ObjectOutputStream(baos)){
-            oos.writeObject(activationHolder);
-        }catch(IOException e){
+            // the statement travels in its own broadcast, only write its fingerprint
+            SerializedStatementCache.writeOutOfBand(statementFingerprint, () -> {
+                oos.writeObject(activationHolder);
+                return null;
+            });
+        }catch(Exception e){
             throw new RuntimeException(e);
         }
         return baos.toByteArray();
     }
 
+    private GenericStorablePreparedStatement readStatement() throws IOException {
+        GenericStorablePreparedStatement statement = SerializedStatementCache.getIfPresent(statementFingerprint);
+        if (statement == null) {
+            statement = SerializedStatementCache.resolve(statementFingerprint, statementBcast.getValue());
+        }
+        return statement;
+    }
+
     private boolean isOlapWorker() {
         String threadName = Thread.currentThread().getName();
         return threadName.startsWith("olap-worker-");
@@ -105,8 +164,10 @@ public class BroadcastedActivation implements Externalizable {
     public ActivationHolderAndBytes readActivationHolder(){
         ByteArrayInputStream bais = new ByteArrayInputStream(serializedValue);
         try(ObjectInputStream ois = new ObjectInputStream(bais)){
+            ActivationHolder holder = SerializedStatementCache.readOutOfBand(statementFingerprint, readStatement(),
+                    () -> (ActivationHolder)ois.readObject());
             ActivationHolderAndBytes retval =
-                new ActivationHolderAndBytes((ActivationHolder)ois.readObject(),serializedValue);
+                new ActivationHolderAndBytes(holder,serializedValue);
 
             // Record the hash of user jars so we can detect later
             // if any were added during query execution.
@@ -121,7 +182,9 @@ public class BroadcastedActivation implements Externalizable {
                 }
             }
             return retval;
-        }catch(ClassNotFoundException | IOException e){
+        }catch(RuntimeException e){
+            throw e;
+        }catch(Exception e){
             throw new RuntimeException(e);
         }
     }
@@ -49,6 +49,8 @@ import com.splicemachine.storage.Partition;
 import com.splicemachine.utils.SpliceLogUtils;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.log4j.Logger;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.storage.StorageLevel;
 import scala.Tuple2;
 
 import java.io.*;
@@ -122,7 +124,8 @@ public class BulkInsertDataSetWriter extends BulkDataSetWriter implements DataSe
     }
 
     /**
-     *  1) Sample data to calculate key/value size and histogram for keys
+     *  1) Sample data to calculate key/value size and histogram for keys. In single pass mode, the encoded
+     *     key/values of the whole input are persisted first and sampled instead, and reused by step 3
      *  2) Calculate cut points and split table and indexes
      *  3) Read and encode data for table and indexes, hash to the partition where its rowkey falls into
      *  4) Sort keys in each partition and write to HFiles
@@ -170,12 +173,19 @@ public class BulkInsertDataSetWriter extends BulkDataSetWriter implements DataSe
                     allCongloms.add(searchCD.getConglomerateNumber());
                 }
             }
-            List<Tuple2<Long, byte[][]>> cutPoints = null;
-            if (!skipSampling) {
-                cutPoints = doSampling(activation, td, tentativeIndexList);
+            if (!skipSampling && !samplingOnly &&
+                    BulkLoadUtils.isSinglePass(activation.getLanguageConnectionContext())) {
+                doSinglePassWrite(activation, td, allCongloms, tentativeIndexList);
             }
-            if (!samplingOnly && !outputKeysOnly) {
-                doNormalWrite(allCongloms, tentativeIndexList, cutPoints);
+            else {
+                List<Tuple2<Long, byte[][]>> cutPoints = null;
+                if (!skipSampling) {
+                    cutPoints = doSampling(activation, td, tentativeIndexList);
+                }
+                if (!samplingOnly && !outputKeysOnly) {
+                    doNormalWrite(allCongloms, tentativeIndexList, cutPoints,
+                            dataSet.flatMap(getRowAndIndexGenerator(tentativeIndexList)));
+                }
             }
         }
         return getResultSet();
@@ -219,21 +229,65 @@ public class BulkInsertDataSetWriter extends BulkDataSetWriter implements DataSe
     }
 
 
-    private List<Tuple2<Long, byte[][]>> doSampling(Activation activation, TableDescriptor td,
-                                                    ArrayList<DDLMessage.TentativeIndex> tentativeIndexList)
+    /**
+     * Parses and encodes the input once. The key/values of the table and its indexes are checkpointed to the
+     * executors' local storage, then sampled to calculate the cut points, and written to HFiles.
+     *
+     * The checkpoint cuts the lineage of the key/values back to the input. Spark would otherwise recompute a
+     * lost block by parsing its input again, counting its rows and bad records a second time. A lost block
+     * fails the import instead, which hasn't loaded any HFile yet.
+     */
+    private void doSinglePassWrite(Activation activation, TableDescriptor td, List<Long> allCongloms,
+                                   ArrayList<DDLMessage.TentativeIndex> tentativeIndexList)
             throws StandardException
     {
-        List<Tuple2<Long, byte[][]>> cutPoints;
+        DataSet rowAndIndexes = dataSet.flatMap(getRowAndIndexGenerator(tentativeIndexList));
+        assert rowAndIndexes instanceof SparkDataSet;
+        JavaRDD rdd = ((SparkDataSet) rowAndIndexes).rdd;
+        rdd.persist(StorageLevel.MEMORY_AND_DISK_SER());
+        rdd.localCheckpoint();
+        try {
+            // the only pass over the input, its counters are those of the operation so they aren't reset
+            rdd.count();
+            initSampleFraction(activation);
+            List<Tuple2<Long, byte[][]>> cutPoints =
+                    getCutPoints(td, tentativeIndexList, rowAndIndexes.sampleWithoutReplacement(sampleFraction));
+            doNormalWrite(allCongloms, tentativeIndexList, cutPoints, rowAndIndexes);
+        } finally {
+            rowAndIndexes.unpersistIt();
+        }
+    }
+
+    private void initSampleFraction(Activation activation) throws StandardException {
         if (sampleFraction == 0) {
             LanguageConnectionContext lcc = activation.getLanguageConnectionContext();
             sampleFraction = BulkLoadUtils.getSampleFraction(lcc);
         }
+    }
+
+    private List<Tuple2<Long, byte[][]>> doSampling(Activation activation, TableDescriptor td,
+                                                    ArrayList<DDLMessage.TentativeIndex> tentativeIndexList)
+            throws StandardException
+    {
+        initSampleFraction(activation);
         DataSet sampledDataSet = dataSet.sampleWithoutReplacement(sampleFraction);
 
         // encode key/vale pairs for table and indexes
         RowAndIndexGenerator rowAndIndexGenerator = getRowAndIndexGenerator(tentativeIndexList);
         DataSet sampleRowAndIndexes = sampledDataSet.flatMap(rowAndIndexGenerator);
 
+        List<Tuple2<Long, byte[][]>> cutPoints = getCutPoints(td, tentativeIndexList, sampleRowAndIndexes);
+        operationContext.reset();
+        return cutPoints;
+    }
+
+    private List<Tuple2<Long, byte[][]>> getCutPoints(TableDescriptor td,
+                                                      ArrayList<DDLMessage.TentativeIndex> tentativeIndexList,
+                                                      DataSet sampleRowAndIndexes)
+            throws StandardException
+    {
+        List<Tuple2<Long, byte[][]>> cutPoints;
+
         // collect statistics for encoded key/value, include size and histgram
         RowKeyStatisticsFunction statisticsFunction =
                 new RowKeyStatisticsFunction(td.getHeapConglomerateId(), tentativeIndexList);
@@ -246,7 +300,6 @@ public class BulkInsertDataSetWriter extends BulkDataSetWriter implements DataSe
 
         // dump cut points to file system for reference
         ImportUtils.dumpCutPoints(cutPoints, bulkImportDirectory);
-        operationContext.reset();
         return cutPoints;
     }
 
@@ -285,7 +338,7 @@ public class BulkInsertDataSetWriter extends BulkDataSetWriter implements DataSe
     }
 
     private void doNormalWrite(List<Long> allCongloms, ArrayList<DDLMessage.TentativeIndex> tentativeIndexList,
-                               List<Tuple2<Long, byte[][]>> cutPoints) throws StandardException {
+                               List<Tuple2<Long, byte[][]>> cutPoints, DataSet rowAndIndexes) throws StandardException {
         // split table and indexes using the calculated cutpoints
         if (cutPoints != null && !cutPoints.isEmpty()) {
             BulkLoadUtils.splitTables(cutPoints);
@@ -295,7 +348,6 @@ public class BulkInsertDataSetWriter extends BulkDataSetWriter implements DataSe
         final List<BulkImportPartition> bulkImportPartitions =
                 getBulkImportPartitions(allCongloms, bulkImportDirectory);
 
-        RowAndIndexGenerator rowAndIndexGenerator = getRowAndIndexGenerator(tentativeIndexList);
         String compressionAlgorithm = HConfiguration.getConfiguration().getCompressionAlgorithm();
 
         // Write to HFile
@@ -303,7 +355,6 @@ public class BulkInsertDataSetWriter extends BulkDataSetWriter implements DataSe
                 new BulkInsertHFileGenerationFunction(operationContext, txn.getTxnId(),
                         heapConglom, compressionAlgorithm, bulkImportPartitions, pkCols, tableVersion, tentativeIndexList);
 
-        DataSet rowAndIndexes = dataSet.flatMap(rowAndIndexGenerator);
         assert rowAndIndexes instanceof SparkDataSet;
 
         partitionUsingRDDSortUsingDataFrame(bulkImportPartitions, rowAndIndexes, hfileGenerationFunction);
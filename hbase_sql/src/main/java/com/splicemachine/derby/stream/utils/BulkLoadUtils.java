@@ -197,4 +197,16 @@ public class BulkLoadUtils {
         return sampleFraction;
     }
 
+    /**
+     * @return whether a bulk import should parse its input once, persisting the encoded key/values which are
+     * sampled for split points and then written to HFiles
+     */
+    public static boolean isSinglePass(LanguageConnectionContext lcc) throws StandardException {
+        String singlePassString = PropertyUtil.getCachedDatabaseProperty(lcc, Property.BULK_IMPORT_SINGLE_PASS);
+        if (singlePassString != null) {
+            return Boolean.parseBoolean(singlePassString);
+        }
+        return HConfiguration.getConfiguration().getBulkImportSinglePass();
+    }
+
 }
@@ -0,0 +1,227 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.splicemachine.fs.s3;
+
+import io.airlift.log.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Objects.requireNonNull;
+import static splice.com.google.common.hash.Hashing.sha256;
+
+/**
+ * Blocks of S3 objects kept on the local disk, evicting the least recently used blocks past the maximum size.
+ * Blocks are keyed by the etag of their object, so the blocks of an overwritten object are never read again.
+ * Each cache keeps its blocks in a subdirectory of its own, removed when the process exits, so processes
+ * configured with the same directory never touch each other's blocks.
+ */
+public class PrestoS3BlockCache
+{
+    private static final Logger log = Logger.get(PrestoS3BlockCache.class);
+
+    private static final ConcurrentMap<CacheKey, PrestoS3BlockCache> CACHES = new ConcurrentHashMap<>();
+
+    private final File directory;
+    private final long maxSize;
+    private final PrestoS3FileSystemStats stats;
+
+    // the size of each cached block, in access order
+    private final LinkedHashMap<String, Long> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    /**
+     * @return the cache of a directory, shared by the file systems of all the buckets with the same maximum size
+     * and stats
+     */
+    public static PrestoS3BlockCache get(File directory, long maxSize, PrestoS3FileSystemStats stats)
+    {
+        return CACHES.computeIfAbsent(new CacheKey(directory.getAbsoluteFile(), maxSize, stats), key -> {
+            try {
+                return new PrestoS3BlockCache(key.directory, maxSize, stats);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    PrestoS3BlockCache(File directory, long maxSize, PrestoS3FileSystemStats stats)
+            throws IOException
+    {
+        requireNonNull(directory, "directory is null");
+        this.maxSize = maxSize;
+        this.stats = requireNonNull(stats, "stats is null");
+
+        createDirectories(directory.toPath());
+        this.directory = createTempDirectory(directory.toPath(), "blocks-").toFile();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::delete, "presto-s3-block-cache-cleanup"));
+    }
+
+    /**
+     * @return the subdirectory holding the blocks of this cache
+     */
+    File getDirectory()
+    {
+        return directory;
+    }
+
+    public static String blockKey(String bucket, String key, String etag, long start, long length)
+    {
+        return bucket + "/" + key + "@" + etag + "#" + start + "+" + length;
+    }
+
+    /**
+     * @return the data of the block, or null if it isn't cached
+     */
+    public byte[] get(String blockKey)
+    {
+        synchronized (this) {
+            if (blocks.get(blockKey) == null) {
+                stats.newBlockCacheMiss();
+                return null;
+            }
+        }
+        try {
+            byte[] data = Files.readAllBytes(file(blockKey).toPath());
+            stats.newBlockCacheHit();
+            return data;
+        }
+        catch (IOException e) {
+            // evicted while reading it
+            synchronized (this) {
+                Long length = blocks.remove(blockKey);
+                if (length != null) {
+                    size -= length;
+                }
+            }
+            stats.newBlockCacheMiss();
+            return null;
+        }
+    }
+
+    public void put(String blockKey, byte[] data)
+    {
+        if (data.length > maxSize) {
+            return;
+        }
+        synchronized (this) {
+            if (blocks.containsKey(blockKey)) {
+                return;
+            }
+        }
+        File file = file(blockKey);
+        try {
+            java.nio.file.Path temp = createTempFile(directory.toPath(), "block-", ".tmp");
+            Files.write(temp, data);
+            Files.move(temp, file.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        }
+        catch (IOException e) {
+            log.warn(e, "Could not cache block %s", blockKey);
+            return;
+        }
+        synchronized (this) {
+            Long previous = blocks.put(blockKey, (long) data.length);
+            if (previous != null) {
+                size -= previous;
+            }
+            size += data.length;
+            evict();
+        }
+    }
+
+    public synchronized long getSize()
+    {
+        return size;
+    }
+
+    private void evict()
+    {
+        Iterator<Map.Entry<String, Long>> iterator = blocks.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> block = iterator.next();
+            iterator.remove();
+            size -= block.getValue();
+            stats.newBlockCacheEviction();
+            File file = file(block.getKey());
+            if (!file.delete()) {
+                log.warn("Could not delete cached block: %s", file);
+            }
+        }
+    }
+
+    private File file(String blockKey)
+    {
+        return new File(directory, sha256().hashString(blockKey, UTF_8).toString());
+    }
+
+    private void delete()
+    {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    log.warn("Could not delete cached block: %s", file);
+                }
+            }
+        }
+        if (!directory.delete()) {
+            log.warn("Could not delete block cache directory: %s", directory);
+        }
+    }
+
+    private static final class CacheKey
+    {
+        private final File directory;
+        private final long maxSize;
+        private final PrestoS3FileSystemStats stats;
+
+        CacheKey(File directory, long maxSize, PrestoS3FileSystemStats stats)
+        {
+            this.directory = directory;
+            this.maxSize = maxSize;
+            this.stats = stats;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return directory.equals(other.directory) && maxSize == other.maxSize && stats == other.stats;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(directory, maxSize, System.identityHashCode(stats));
+        }
+    }
+}
@@ -35,6 +35,8 @@ import splice.com.google.common.annotations.VisibleForTesting;
 import splice.com.google.common.base.Throwables;
 import splice.com.google.common.collect.AbstractSequentialIterator;
 import splice.com.google.common.collect.Iterators;
+import splice.com.google.common.io.ByteStreams;
+import splice.com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.airlift.log.Logger;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
@@ -46,6 +48,10 @@ import org.apache.hadoop.util.Progressable;
 import java.io.*;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import static splice.aws.com.amazonaws.services.s3.Headers.UNENCRYPTED_CONTENT_LENGTH;
 import static splice.com.google.common.base.Preconditions.checkArgument;
 import static splice.com.google.common.base.Preconditions.checkState;
@@ -102,6 +108,10 @@ public class PrestoS3FileSystem
     public static final String S3_SSE_TYPE = "presto.s3.sse.type";
     public static final String S3_CREDENTIALS_PROVIDER = "presto.s3.credentials-provider";
     public static final String S3_USER_AGENT_PREFIX = "presto.s3.user-agent-prefix";
+    public static final String S3_READ_BLOCK_SIZE = "presto.s3.read.block-size";
+    public static final String S3_MAX_READ_AHEAD_BLOCKS = "presto.s3.read.max-read-ahead-blocks";
+    public static final String S3_BLOCK_CACHE_DIRECTORY = "presto.s3.block-cache.directory";
+    public static final String S3_BLOCK_CACHE_MAX_SIZE = "presto.s3.block-cache.max-size";
     public static final String S3_USER_AGENT_SUFFIX = "presto";
 
     private static final DataSize BLOCK_SIZE = new DataSize(32, MEGABYTE);
@@ -123,6 +133,10 @@ public class PrestoS3FileSystem
     private boolean sseEnabled;
     private PrestoS3SseType sseType;
     private String sseKmsKeyId;
+    private int readBlockSize;
+    private int maxReadAheadBlocks;
+    private ExecutorService readAheadExecutor;
+    private PrestoS3BlockCache blockCache;
 
     @Override
     public void initialize(URI uri, Configuration conf)
@@ -153,6 +167,17 @@ public class PrestoS3FileSystem
         this.sseType = PrestoS3SseType.valueOf(conf.get(S3_SSE_TYPE, PrestoS3SseType.S3.name()));
         this.sseKmsKeyId = conf.get(S3_SSE_KMS_KEY_ID, null);
         String userAgentPrefix = conf.get(S3_USER_AGENT_PREFIX, "");
+        this.readBlockSize = toIntExact(DataSize.valueOf(conf.get(S3_READ_BLOCK_SIZE, "8MB")).toBytes());
+        this.maxReadAheadBlocks = conf.getInt(S3_MAX_READ_AHEAD_BLOCKS, 4);
+        if (maxReadAheadBlocks > 0) {
+            this.readAheadExecutor = Executors.newCachedThreadPool(
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("presto-s3-read-ahead-%s").build());
+        }
+        String blockCacheDirectory = conf.get(S3_BLOCK_CACHE_DIRECTORY);
+        if (!isNullOrEmpty(blockCacheDirectory)) {
+            long blockCacheMaxSize = DataSize.valueOf(conf.get(S3_BLOCK_CACHE_MAX_SIZE, "10GB")).toBytes();
+            this.blockCache = PrestoS3BlockCache.get(new File(blockCacheDirectory), blockCacheMaxSize, STATS);
+        }
 
         ClientConfiguration configuration = new ClientConfiguration()
                 .withMaxErrorRetry(maxErrorRetries)
@@ -177,6 +202,9 @@ public class PrestoS3FileSystem
             super.close();
         }
         finally {
+            if (readAheadExecutor != null) {
+                readAheadExecutor.shutdownNow();
+            }
             if (s3 instanceof AmazonS3Client) {
                 ((AmazonS3Client) s3).shutdown();
             }
@@ -303,6 +331,19 @@ public class PrestoS3FileSystem
     public FSDataInputStream open(Path path, int bufferSize)
             throws IOException
     {
+        // client side encrypted objects can't be read by ranges
+        if (readAheadExecutor != null && !(s3 instanceof AmazonS3EncryptionClient)) {
+            ObjectMetadata metadata = getS3ObjectMetadata(path);
+            if (metadata == null) {
+                throw new FileNotFoundException("File does not exist: " + path);
+            }
+            return new FSDataInputStream(
+                    new BufferedFSInputStream(
+                            new PrestoS3BlockInputStream(s3, uri.getHost(), path, metadata.getETag(), metadata.getContentLength(),
+                                    readBlockSize, maxReadAheadBlocks, readAheadExecutor, blockCache,
+                                    maxAttempts, maxBackoffTime, maxRetryTime),
+                            bufferSize));
+        }
         return new FSDataInputStream(
                 new BufferedFSInputStream(
                         new PrestoS3InputStream(s3, uri.getHost(), path, maxAttempts, maxBackoffTime, maxRetryTime),
@@ -909,6 +950,230 @@ public class PrestoS3FileSystem
         }
     }
 
+    /**
+     * Reads an object by blocks fetched with ranged GETs. Blocks following the ones read sequentially are fetched in
+     * parallel ahead of the reads, with a window doubling while the reads stay sequential and dropped on a seek.
+     */
+    private static class PrestoS3BlockInputStream
+            extends FSInputStream
+    {
+        private final AmazonS3 s3;
+        private final String host;
+        private final Path path;
+        private final String etag;
+        private final long length;
+        private final int blockSize;
+        private final int maxReadAheadBlocks;
+        private final ExecutorService executor;
+        private final PrestoS3BlockCache blockCache;
+        private final int maxAttempts;
+        private final Duration maxBackoffTime;
+        private final Duration maxRetryTime;
+        private final Map<Long, Future<byte[]>> readAhead = new HashMap<>();
+
+        private boolean closed;
+        private long nextReadPosition;
+        private long currentBlock = -1;
+        private byte[] currentData;
+        private int readAheadBlocks;
+
+        public PrestoS3BlockInputStream(AmazonS3 s3, String host, Path path, String etag, long length, int blockSize,
+                int maxReadAheadBlocks, ExecutorService executor, PrestoS3BlockCache blockCache,
+                int maxAttempts, Duration maxBackoffTime, Duration maxRetryTime)
+        {
+            this.s3 = requireNonNull(s3, "s3 is null");
+            this.host = requireNonNull(host, "host is null");
+            this.path = requireNonNull(path, "path is null");
+            this.etag = etag;
+            this.length = length;
+
+            checkArgument(blockSize > 0, "blockSize must be positive");
+            this.blockSize = blockSize;
+            this.maxReadAheadBlocks = maxReadAheadBlocks;
+            this.executor = requireNonNull(executor, "executor is null");
+            this.blockCache = blockCache;
+
+            checkArgument(maxAttempts >= 0, "maxAttempts cannot be negative");
+            this.maxAttempts = maxAttempts;
+            this.maxBackoffTime = requireNonNull(maxBackoffTime, "maxBackoffTime is null");
+            this.maxRetryTime = requireNonNull(maxRetryTime, "maxRetryTime is null");
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+            for (Future<byte[]> block : readAhead.values()) {
+                block.cancel(true);
+            }
+            readAhead.clear();
+            currentData = null;
+        }
+
+        @Override
+        public void seek(long pos)
+        {
+            checkState(!closed, "already closed");
+            checkArgument(pos >= 0, "position is negative: %s", pos);
+
+            nextReadPosition = pos;
+        }
+
+        @Override
+        public long getPos()
+        {
+            return nextReadPosition;
+        }
+
+        @Override
+        public int read()
+        {
+            // This stream is wrapped with BufferedInputStream, so this method should never be called
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            checkState(!closed, "already closed");
+            if (nextReadPosition >= this.length) {
+                return -1;
+            }
+            long block = nextReadPosition / blockSize;
+            if (block != currentBlock) {
+                currentData = readBlock(block);
+            }
+            int blockOffset = toIntExact(nextReadPosition - block * blockSize);
+            int bytesRead = Math.min(length, currentData.length - blockOffset);
+            System.arraycopy(currentData, blockOffset, buffer, offset, bytesRead);
+            nextReadPosition += bytesRead;
+            return bytesRead;
+        }
+
+        @Override
+        public boolean seekToNewSource(long targetPos)
+        {
+            return false;
+        }
+
+        private byte[] readBlock(long block)
+                throws IOException
+        {
+            if (block == currentBlock + 1) {
+                readAheadBlocks = Math.min(maxReadAheadBlocks, max(1, readAheadBlocks * 2));
+            }
+            else {
+                readAheadBlocks = 0;
+            }
+            currentBlock = block;
+
+            Iterator<Map.Entry<Long, Future<byte[]>>> iterator = readAhead.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Future<byte[]>> entry = iterator.next();
+                if (entry.getKey() < block || entry.getKey() > block + readAheadBlocks) {
+                    entry.getValue().cancel(true);
+                    iterator.remove();
+                }
+            }
+            Future<byte[]> data = readAhead.remove(block);
+            for (long next = block + 1; next <= block + readAheadBlocks && next * blockSize < length; next++) {
+                if (!readAhead.containsKey(next)) {
+                    long nextBlock = next;
+                    readAhead.put(nextBlock, executor.submit(() -> fetchBlock(nextBlock)));
+                    STATS.newReadAheadBlock();
+                }
+            }
+            if (data == null) {
+                return fetchBlock(block);
+            }
+            try {
+                return data.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            catch (ExecutionException e) {
+                Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+                throw Throwables.propagate(e.getCause());
+            }
+        }
+
+        private byte[] fetchBlock(long block)
+                throws IOException
+        {
+            long start = block * blockSize;
+            long end = Math.min(start + blockSize, length);
+            String blockKey = PrestoS3BlockCache.blockKey(host, keyFromPath(path), etag, start, end - start);
+            if (blockCache != null && etag != null) {
+                byte[] data = blockCache.get(blockKey);
+                if (data != null) {
+                    return data;
+                }
+            }
+            byte[] data;
+            try {
+                data = retry()
+                        .maxAttempts(maxAttempts)
+                        .exponentialBackoff(BACKOFF_MIN_SLEEP, maxBackoffTime, maxRetryTime, 2.0)
+                        .stopOn(InterruptedException.class, UnrecoverableS3OperationException.class, AbortedException.class)
+                        .onRetry(STATS::newGetObjectRetry)
+                        .run("getS3ObjectRange", () -> {
+                            S3Object object;
+                            try {
+                                GetObjectRequest request = new GetObjectRequest(host, keyFromPath(path)).withRange(start, end - 1);
+                                if (etag != null) {
+                                    request.withMatchingETagConstraint(etag);
+                                }
+                                object = s3.getObject(request);
+                            }
+                            catch (RuntimeException e) {
+                                STATS.newGetObjectError();
+                                if (e instanceof AmazonS3Exception) {
+                                    switch (((AmazonS3Exception) e).getStatusCode()) {
+                                        case SC_FORBIDDEN:
+                                        case SC_NOT_FOUND:
+                                        case SC_BAD_REQUEST:
+                                            throw new UnrecoverableS3OperationException(path, e);
+                                    }
+                                }
+                                throw Throwables.propagate(e);
+                            }
+                            if (object == null) {
+                                // the etag constraint failed
+                                throw new UnrecoverableS3OperationException(path, new IOException("Object was modified while reading it"));
+                            }
+                            STATS.connectionOpened();
+                            try (InputStream in = object.getObjectContent()) {
+                                byte[] bytes = new byte[toIntExact(end - start)];
+                                ByteStreams.readFully(in, bytes);
+                                return bytes;
+                            }
+                            catch (Exception e) {
+                                STATS.newReadError(e);
+                                throw e;
+                            }
+                            finally {
+                                STATS.connectionReleased();
+                            }
+                        });
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Throwables.propagate(e);
+            }
+            catch (Exception e) {
+                Throwables.propagateIfInstanceOf(e, IOException.class);
+                throw Throwables.propagate(e);
+            }
+            if (blockCache != null && etag != null) {
+                blockCache.put(blockKey, data);
+            }
+            return data;
+        }
+    }
+
     private static class PrestoS3OutputStream
             extends FilterOutputStream
     {
@@ -44,6 +44,10 @@ public class PrestoS3FileSystemStats
     private final CounterStat getObjectRetries = new CounterStat();
     private final CounterStat getMetadataRetries = new CounterStat();
     private final CounterStat readRetries = new CounterStat();
+    private final CounterStat readAheadBlocks = new CounterStat();
+    private final CounterStat blockCacheHits = new CounterStat();
+    private final CounterStat blockCacheMisses = new CounterStat();
+    private final CounterStat blockCacheEvictions = new CounterStat();
 
     // see AWSRequestMetrics
     private final CounterStat awsRequestCount = new CounterStat();
@@ -206,6 +210,42 @@ public class PrestoS3FileSystemStats
         return readRetries;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getReadAheadBlocks()
+    {
+        return readAheadBlocks;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBlockCacheHits()
+    {
+        return blockCacheHits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBlockCacheMisses()
+    {
+        return blockCacheMisses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBlockCacheEvictions()
+    {
+        return blockCacheEvictions;
+    }
+
+    @Managed
+    public double getBlockCacheHitRate()
+    {
+        long hits = blockCacheHits.getTotalCount();
+        long lookups = hits + blockCacheMisses.getTotalCount();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
     public void connectionOpened()
     {
         activeConnections.update(1);
@@ -316,4 +356,24 @@ public class PrestoS3FileSystemStats
     {
         readRetries.update(1);
     }
+
+    public void newReadAheadBlock()
+    {
+        readAheadBlocks.update(1);
+    }
+
+    public void newBlockCacheHit()
+    {
+        blockCacheHits.update(1);
+    }
+
+    public void newBlockCacheMiss()
+    {
+        blockCacheMisses.update(1);
+    }
+
+    public void newBlockCacheEviction()
+    {
+        blockCacheEvictions.update(1);
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.hbase;
+
+import com.google.protobuf.ByteString;
+import com.splicemachine.coprocessor.SpliceMessage;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate.RegionAggregation;
+import com.splicemachine.derby.stream.iapi.RegionAggregateClient;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.storage.SkeletonHBaseClientPartition;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.hadoop.hbase.ipc.CoprocessorRpcUtils.BlockingRpcCallback;
+import org.apache.hadoop.hbase.ipc.ServerRpcController;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.log4j.Logger;
+import splice.com.google.common.base.Throwables;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the partial aggregation of a grouped aggregate through the <code>aggregate</code> call of the
+ * {@link RegionSizeEndpoint} of each region holding rows of the scan.
+ */
+public class HBaseRegionAggregateClient implements RegionAggregateClient {
+    private static final Logger LOG = Logger.getLogger(HBaseRegionAggregateClient.class);
+
+    @Override
+    public List<ExecRow> aggregate(String tableName, RegionAggregation aggregation) throws StandardException {
+        try (Partition p = SIDriver.driver().getTableFactory().getTable(tableName)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                aggregation.writeExternal(out);
+            }
+            SpliceMessage.SpliceRegionAggregateRequest message = SpliceMessage.SpliceRegionAggregateRequest.newBuilder()
+                    .setAggregation(ByteString.copyFrom(bytes.toByteArray()))
+                    .build();
+            DataScan scan = aggregation.getScanner().getScan();
+            Map<byte[], SpliceMessage.SpliceRegionAggregateResponse> responses =
+                    ((SkeletonHBaseClientPartition) p).coprocessorExec(SpliceMessage.SpliceDerbyCoprocessorService.class,
+                            scan.getStartKey(),
+                            scan.getStopKey(),
+                            instance -> {
+                                ServerRpcController controller = new ServerRpcController();
+                                BlockingRpcCallback<SpliceMessage.SpliceRegionAggregateResponse> rpcCallback = new BlockingRpcCallback<>();
+                                instance.aggregate(controller, message, rpcCallback);
+                                if (controller.failed()) {
+                                    Throwable t = Throwables.getRootCause(controller.getFailedOn());
+                                    if (t instanceof IOException) throw (IOException) t;
+                                    else throw new IOException(t);
+                                }
+                                return rpcCallback.get();
+                            });
+            if (!coversScan(responses.values(), scan)) {
+                // a region split or moved while the calls were made, and its rows may have been missed or counted
+                // twice
+                if (LOG.isDebugEnabled())
+                    SpliceLogUtils.debug(LOG, "the regions of %s didn't cover the scan", tableName);
+                return null;
+            }
+            List<ExecRow> rows = new ArrayList<>();
+            for (SpliceMessage.SpliceRegionAggregateResponse response : responses.values()) {
+                if (!response.hasRows()) {
+                    if (LOG.isDebugEnabled())
+                        SpliceLogUtils.debug(LOG, "a region of %s has too many groups to aggregate", tableName);
+                    return null;
+                }
+                rows.addAll(RegionAggregation.readRows(response.getRows().toByteArray()));
+            }
+            return rows;
+        } catch (Throwable t) {
+            throw Exceptions.parseException(t);
+        }
+    }
+
+    /**
+     * @return true if the ranges the regions aggregated follow each other from the start to the end of the scan,
+     *         without gaps or overlaps
+     */
+    static boolean coversScan(Collection<SpliceMessage.SpliceRegionAggregateResponse> responses, DataScan scan) {
+        List<SpliceMessage.SpliceRegionAggregateResponse> ranges = new ArrayList<>(responses.size());
+        for (SpliceMessage.SpliceRegionAggregateResponse response : responses) {
+            if (!response.hasStartKey() || !response.hasStopKey())
+                return false;
+            ranges.add(response);
+        }
+        ranges.sort((r1, r2) -> Bytes.compareTo(r1.getStartKey().toByteArray(), r2.getStartKey().toByteArray()));
+        ByteString next = toByteString(scan.getStartKey());
+        for (SpliceMessage.SpliceRegionAggregateResponse range : ranges) {
+            // an empty stop key is the end of the table, nothing can follow it
+            if (next == null || !range.getStartKey().equals(next))
+                return false;
+            next = range.getStopKey().isEmpty() ? null : range.getStopKey();
+        }
+        ByteString stop = toByteString(scan.getStopKey());
+        return stop.isEmpty() ? next == null : stop.equals(next);
+    }
+
+    private static ByteString toByteString(byte[] key) {
+        return key == null ? ByteString.EMPTY : ByteString.copyFrom(key);
+    }
+}
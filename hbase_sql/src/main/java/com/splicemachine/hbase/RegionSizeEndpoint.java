@@ -19,16 +19,28 @@ import com.google.protobuf.RpcCallback;
 import com.google.protobuf.RpcController;
 import com.google.protobuf.Service;
 import com.splicemachine.coprocessor.SpliceMessage;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate.RegionAggregation;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
+import com.splicemachine.metrics.Metrics;
 import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.storage.HScan;
+import com.splicemachine.storage.RegionDataScanner;
+import com.splicemachine.storage.RegionPartition;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.hadoop.hbase.CoprocessorEnvironment;
+import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.regionserver.*;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.log4j.Logger;
 import splice.com.google.common.collect.Lists;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessor;
 
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.Collection;
 import java.util.List;
 
@@ -105,8 +117,58 @@ public class RegionSizeEndpoint extends SpliceMessage.SpliceDerbyCoprocessorServ
         callback.run(writeResponse.build());
     }
 
+    @Override
+    public void aggregate(RpcController controller,
+                          SpliceMessage.SpliceRegionAggregateRequest request,
+                          RpcCallback<SpliceMessage.SpliceRegionAggregateResponse> callback) {
+        if (LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG, "aggregate");
+        SpliceMessage.SpliceRegionAggregateResponse.Builder writeResponse = SpliceMessage.SpliceRegionAggregateResponse.newBuilder();
+        try {
+            RegionAggregation aggregation = new RegionAggregation();
+            try (ObjectInputStream in = new ObjectInputStream(request.getAggregation().newInput())) {
+                aggregation.readExternal(in);
+            }
+            TableScannerBuilder builder = aggregation.getScanner();
+            Scan scan = regionScan(((HScan) builder.getScan()).unwrapDelegate());
+            long conglomId = Long.parseLong(region.getTableDescriptor().getTableName().getQualifierAsString());
+            RegionPartition partition = new RegionPartition(region);
+            builder.region(SIDriver.driver().transactionalPartition(conglomId, partition))
+                    .scan(new HScan(scan))
+                    .scanner(new RegionDataScanner(partition, region.getScanner(scan), Metrics.noOpMetricFactory()));
+            try (SITableScanner scanner = builder.build()) {
+                List<ExecRow> rows = aggregation.aggregate(scanner);
+                if (rows != null)
+                    writeResponse.setRows(ByteString.copyFrom(RegionAggregation.writeRows(rows)));
+            }
+            // the range this region answered for, the client checks that the regions covered the whole scan
+            writeResponse.setStartKey(ByteString.copyFrom(scan.getStartRow()))
+                    .setStopKey(ByteString.copyFrom(scan.getStopRow()));
+        } catch (Exception e) {
+            org.apache.hadoop.hbase.shaded.protobuf.ResponseConverter.setControllerException(controller,
+                    e instanceof IOException ? (IOException) e : new IOException(e));
+        }
+        callback.run(writeResponse.build());
+    }
+
     /* ****************************************************************************************************************/
     /*private helper methods*/
+
+    /**
+     * @return the part of the scan which falls into this region
+     */
+    private Scan regionScan(Scan scan) throws IOException {
+        Scan regionScan = new Scan(scan);
+        byte[] startRow = scan.getStartRow();
+        byte[] stopRow = scan.getStopRow();
+        byte[] regionStartKey = region.getRegionInfo().getStartKey();
+        byte[] regionStopKey = region.getRegionInfo().getEndKey();
+        if (startRow.length == 0 || Bytes.compareTo(regionStartKey, startRow) >= 0)
+            regionScan.withStartRow(regionStartKey);
+        if ((stopRow.length == 0 || Bytes.compareTo(regionStopKey, stopRow) <= 0) && regionStopKey.length > 0)
+            regionScan.withStopRow(regionStopKey);
+        return regionScan;
+    }
     private static List<byte[]> computeSplits(HRegion region, byte[] beginKey, byte[] endKey, int requestedSplits, long bytesPerSplit) throws IOException {
         return BytesCopyTaskSplitter.getCutPoints(region, beginKey, endKey, requestedSplits, bytesPerSplit);
     }
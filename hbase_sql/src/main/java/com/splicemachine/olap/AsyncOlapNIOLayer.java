@@ -26,6 +26,7 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.ExtensionRegistry;
 import com.splicemachine.derby.iapi.sql.olap.DistributedJob;
 import com.splicemachine.derby.iapi.sql.olap.OlapResult;
+import com.splicemachine.derby.serialization.SerializedStatementCache;
 import com.splicemachine.pipeline.Exceptions;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
@@ -41,6 +42,8 @@ import io.netty.handler.codec.protobuf.ProtobufEncoder;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import org.apache.log4j.Logger;
+import splice.com.google.common.cache.Cache;
+import splice.com.google.common.cache.CacheBuilder;
 import splice.com.google.common.util.concurrent.ExecutionList;
 import splice.com.google.common.util.concurrent.ListenableFuture;
 import splice.com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -51,6 +54,7 @@ import java.net.ConnectException;
 import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.*;
@@ -73,6 +77,13 @@ public class AsyncOlapNIOLayer implements JobExecutor{
     private final Object connectionLock = new Object();
     private final String queue;
     private volatile boolean connected = false;
+    /* Statements the OLAP server has received by value, jobs only reference them by fingerprint */
+    private final Cache<SerializedStatementCache.Fingerprint, Boolean> shippedStatements = CacheBuilder.newBuilder()
+            .maximumSize(512)
+            .build();
+    /* Serializes again the jobs whose statements the server didn't have, which may block, off Netty's IO threads */
+    private final ExecutorService resubmitExecutor = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("olapClientResubmit-%d").setDaemon(true).build());
 
     private ExtensionRegistry buildExtensionRegistry(){
         ExtensionRegistry er=ExtensionRegistry.newInstance();
@@ -101,6 +112,8 @@ public class AsyncOlapNIOLayer implements JobExecutor{
                 executorService.shutdown();
             HostAndPort hap = hostProvider.olapServerHost(queue);
             LOG.info("Connecting to " + hap);
+            // the server may be a new one, with an empty statement cache
+            shippedStatements.invalidateAll();
 
             try{
                 String root = HConfiguration.getConfiguration().getSpliceRootPath();
@@ -191,7 +204,7 @@ public class AsyncOlapNIOLayer implements JobExecutor{
         if (executorService != null) {
             executorService.shutdown();
         }
-
+        resubmitExecutor.shutdown();
     }
 
 
@@ -247,12 +260,48 @@ public class AsyncOlapNIOLayer implements JobExecutor{
         private volatile long tickTimeNanos=TimeUnit.MILLISECONDS.toNanos(1000L);
         private volatile long waitTimeMillis = 1000;
         private Timer keepAlive;
-        private final ByteString data;
+        private volatile ByteString data;
+        private final Set<SerializedStatementCache.Fingerprint> writtenByValue=ConcurrentHashMap.newKeySet();
+        private volatile boolean resubmitted=false;
 
         OlapFuture(DistributedJob job) throws IOException {
             this.job=job;
             // We serialize it here because this can sometimes block (subquery materialization), and we don't want to block Netty's IO threads
-            this.data=OlapSerializationUtils.encode(job);
+            this.data=OlapSerializationUtils.encode(job,fingerprint -> shippedStatements.getIfPresent(fingerprint)!=null,writtenByValue);
+        }
+
+        void submitted(){
+            for(SerializedStatementCache.Fingerprint fingerprint : writtenByValue){
+                shippedStatements.put(fingerprint,Boolean.TRUE);
+            }
+        }
+
+        /**
+         * The server doesn't have a statement we only referenced, submit the job again with every statement
+         * written by value.
+         *
+         * @return false if the job was already resubmitted, or the layer is shutting down
+         */
+        boolean resubmitByValue(){
+            if(resubmitted)
+                return false;
+            resubmitted=true;
+            shippedStatements.invalidateAll();
+            try{
+                resubmitExecutor.execute(() -> {
+                    try{
+                        writtenByValue.clear();
+                        data=OlapSerializationUtils.encode(job,fingerprint -> false,writtenByValue);
+                        doSubmit();
+                    }catch(Throwable t){
+                        fail(t);
+                        signal();
+                    }
+                });
+            }catch(RejectedExecutionException ree){
+                return false;
+            }
+            return true;
         }
 
         @Override
@@ -609,6 +658,7 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             if(or instanceof SubmittedResult) {
                 future.tickTimeNanos = TimeUnit.MILLISECONDS.toNanos(((SubmittedResult) or).getTickTime());
                 future.submitted = true;
+                future.submitted();
             }else{
                 Throwable t=or.getThrowable();
                 LOG.error("Job wasn't submitted, result: " + or);
@@ -627,9 +677,14 @@ public class AsyncOlapNIOLayer implements JobExecutor{
 
         @Override
         public void exceptionCaught(ChannelHandlerContext ctx,Throwable cause) throws Exception{
-            future.fail(cause);
             ctx.pipeline().remove(this); //we don't want this in the pipeline anymore
             channelPool.release(ctx.channel());
+            if(cause instanceof SerializedStatementCache.StatementNotCachedException && future.resubmitByValue()){
+                if(LOG.isDebugEnabled())
+                    LOG.debug("Resubmitting job "+future.job.getUniqueName()+" with its statement by value");
+                return;
+            }
+            future.fail(cause);
             future.signal();
         }
     }
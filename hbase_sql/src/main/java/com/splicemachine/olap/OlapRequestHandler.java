@@ -19,6 +19,7 @@ import splice.com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.concurrent.Clock;
 import com.splicemachine.derby.iapi.sql.olap.DistributedJob;
+import com.splicemachine.derby.serialization.SerializedStatementCache;
 import io.netty.channel.ChannelHandlerContext;
 import org.apache.log4j.Logger;
 
@@ -58,7 +59,16 @@ class OlapRequestHandler extends AbstractOlapHandler{
             return;
         }
         OlapMessage.Submit extension=jobRequest.getExtension(OlapMessage.Submit.command);
-        DistributedJob jr = OlapSerializationUtils.decode(extension.getCommandBytes());
+        DistributedJob jr;
+        try{
+            jr=OlapSerializationUtils.decode(extension.getCommandBytes());
+        }catch(SerializedStatementCache.StatementNotCachedException e){
+            // the client resubmits the job with the statement by value
+            if(LOG.isDebugEnabled())
+                LOG.debug("Job "+jobRequest.getUniqueName()+" references an unknown statement: "+e.getMessage());
+            ctx.channel().writeAndFlush(OlapSerializationUtils.buildError(e));
+            return;
+        }
         if(LOG.isTraceEnabled())
             LOG.trace("Submitting job request "+ jobRequest.getUniqueName());
 
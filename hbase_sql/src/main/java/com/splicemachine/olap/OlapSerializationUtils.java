@@ -17,8 +17,11 @@ package com.splicemachine.olap;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.ZeroCopyLiteralByteString;
 import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
+import com.splicemachine.derby.serialization.SerializedStatementCache;
 
 import java.io.*;
+import java.util.Collection;
+import java.util.function.Predicate;
 
 /**
  * @author Scott Fines
@@ -46,6 +49,22 @@ class OlapSerializationUtils{
         return ZeroCopyLiteralByteString.wrap(baos.toByteArray());
     }
 
+    /**
+     * Encodes a job writing the prepared statements the receiver already has by reference only, see
+     * {@link SerializedStatementCache#writeWithReferences(Predicate, Collection, java.util.concurrent.Callable)}.
+     */
+    static ByteString encode(Serializable se,
+                             Predicate<SerializedStatementCache.Fingerprint> byReference,
+                             Collection<SerializedStatementCache.Fingerprint> writtenByValue) throws IOException{
+        try{
+            return SerializedStatementCache.writeWithReferences(byReference,writtenByValue,() -> encode(se));
+        }catch(IOException | RuntimeException e){
+            throw e;
+        }catch(Exception e){
+            throw new IOException(e);
+        }
+    }
+
     static OlapMessage.Response buildError(Throwable throwable) throws IOException{
         OlapMessage.Response.Builder response = OlapMessage.Response.newBuilder();
 
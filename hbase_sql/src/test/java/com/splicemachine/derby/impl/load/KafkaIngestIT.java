@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.splicemachine.derby.impl.load;
+
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.kryo.KryoSerialization;
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceTableWatcher;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.test.SerialTest;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Runs against the Kafka broker of the test cluster, on localhost:9092.
+ */
+@Category({SerialTest.class})
+public class KafkaIngestIT {
+    public static final String CLASS_NAME = KafkaIngestIT.class.getSimpleName().toUpperCase();
+
+    private static final SpliceWatcher spliceClassWatcher = new SpliceWatcher(CLASS_NAME);
+    private static final SpliceSchemaWatcher spliceSchemaWatcher = new SpliceSchemaWatcher(CLASS_NAME);
+    private static final SpliceTableWatcher spliceTableWatcher = new SpliceTableWatcher("T", CLASS_NAME,
+            "(a int primary key, b varchar(20))");
+    private static final SpliceTableWatcher spliceTableWatcher2 = new SpliceTableWatcher("T2", CLASS_NAME,
+            "(a int primary key, b varchar(20))");
+
+    @ClassRule
+    public static TestRule chain = RuleChain.outerRule(spliceClassWatcher)
+            .around(spliceSchemaWatcher)
+            .around(spliceTableWatcher)
+            .around(spliceTableWatcher2);
+
+    @Rule
+    public SpliceWatcher methodWatcher = new SpliceWatcher(CLASS_NAME);
+
+    @Test
+    public void testIngestResumesFromCommittedOffsets() throws Exception {
+        String topic = "ingest-" + UUID.randomUUID();
+        produce(topic, 0, 100);
+
+        String jobId = startIngest(topic);
+        waitForRows(100);
+        try (ResultSet rs = methodWatcher.executeQuery("call SYSCS_UTIL.SYSCS_GET_KAFKA_INGEST_JOBS()")) {
+            boolean found = false;
+            while (rs.next()) {
+                if (rs.getString("JOB_ID").equals(jobId)) {
+                    found = true;
+                    Assert.assertEquals("RUNNING", rs.getString("STATE"));
+                    Assert.assertEquals(100, rs.getLong("ROWS_INGESTED"));
+                    Assert.assertEquals(0, rs.getLong("OFFSET_LAG"));
+                }
+            }
+            Assert.assertTrue("job " + jobId + " not listed", found);
+        }
+        methodWatcher.execute(String.format("call SYSCS_UTIL.SYSCS_STOP_KAFKA_INGEST('%s')", jobId));
+
+        // a new job only reads the records which weren't committed yet
+        produce(topic, 100, 50);
+        jobId = startIngest(topic);
+        try {
+            waitForRows(150);
+            Thread.sleep(2000);
+            Assert.assertEquals(150L, (long) methodWatcher.<Long>query("select count(*) from T"));
+            Assert.assertEquals(150L, (long) methodWatcher.<Long>query("select count(distinct a) from T"));
+            Assert.assertEquals(150L, (long) methodWatcher.<Long>query(String.format(
+                    "select sum(next_offset) from %s where topic_name = '%s'", KafkaIngestManager.OFFSETS_TABLE, topic)));
+        } finally {
+            methodWatcher.execute(String.format("call SYSCS_UTIL.SYSCS_STOP_KAFKA_INGEST('%s')", jobId));
+        }
+    }
+
+    @Test
+    public void testOneJobPerTableAndTopic() throws Exception {
+        String topic = "ingest-" + UUID.randomUUID();
+        produce(topic, 0, 10);
+
+        String jobId = startIngest("T2", topic);
+        try {
+            try {
+                startIngest("T2", topic);
+                Assert.fail("A second job ingesting the same topic into the same table was started");
+            } catch (SQLException e) {
+                Assert.assertEquals("22008", e.getSQLState());
+            }
+        } finally {
+            methodWatcher.execute(String.format("call SYSCS_UTIL.SYSCS_STOP_KAFKA_INGEST('%s')", jobId));
+        }
+        // stopping the job releases its registration
+        jobId = startIngest("T2", topic);
+        methodWatcher.execute(String.format("call SYSCS_UTIL.SYSCS_STOP_KAFKA_INGEST('%s')", jobId));
+    }
+
+    private String startIngest(String topic) throws Exception {
+        return startIngest("T", topic);
+    }
+
+    private String startIngest(String table, String topic) throws Exception {
+        try (ResultSet rs = methodWatcher.executeQuery(String.format(
+                "call SYSCS_UTIL.SYSCS_START_KAFKA_INGEST('%s', '%s', '%s', 2)", CLASS_NAME, table, topic))) {
+            Assert.assertTrue(rs.next());
+            return rs.getString(1);
+        }
+    }
+
+    private void waitForRows(long rows) throws Exception {
+        long count = 0;
+        for (int i = 0; i < 60 && count < rows; i++) {
+            Thread.sleep(1000);
+            count = methodWatcher.<Long>query("select count(*) from T");
+        }
+        Assert.assertEquals(rows, count);
+    }
+
+    private static void produce(String topic, int first, int count) throws Exception {
+        Properties props = new Properties();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, IntegerSerializer.class.getName());
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        KryoSerialization kryo = new KryoSerialization();
+        kryo.init();
+        try (KafkaProducer<Integer, byte[]> producer = new KafkaProducer<>(props)) {
+            for (int i = first; i < first + count; i++) {
+                ValueRow row = new ValueRow(2);
+                row.setColumn(1, new SQLInteger(i));
+                row.setColumn(2, new SQLVarchar("row" + i));
+                producer.send(new ProducerRecord<>(topic, i, kryo.serialize(row))).get();
+            }
+        } finally {
+            kryo.close();
+        }
+    }
+}
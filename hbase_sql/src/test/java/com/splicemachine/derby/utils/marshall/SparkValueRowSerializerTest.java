@@ -62,6 +62,31 @@ public class SparkValueRowSerializerTest {
         input.close();
     }
 
+    @Test
+    public void testEncodingDecodingRowsOfSeveralFormats() throws IOException, StandardException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Output output = new Output(out);
+
+        for (int i = 0; i < 100; i++) {
+            ExecRow row = getExecRow(i, 2 + i % 3);
+            row.setKey(new byte[]{(byte) i});
+            kryo.writeClassAndObject(output, row);
+        }
+        output.close();
+
+        InputStream in = new ByteArrayInputStream(out.toByteArray());
+        Input input = new Input(in);
+        for (int i = 0; i < 100; i++) {
+            ExecRow row = (ExecRow) kryo.readClassAndObject(input);
+            assertEquals(2 + i % 3, row.nColumns());
+            assertEquals(i, row.getRowArray()[0].getInt());
+            assertEquals(""+i, row.getRowArray()[1].getString());
+            assertEquals(i, row.getKey()[0]);
+        }
+        input.close();
+    }
+
     @Test
     public void testLongBufferedSumAggregator() throws IOException, StandardException {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.splicemachine.fs.s3;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PrestoS3BlockCacheTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testHitAndMiss()
+            throws Exception
+    {
+        PrestoS3FileSystemStats stats = new PrestoS3FileSystemStats();
+        PrestoS3BlockCache cache = new PrestoS3BlockCache(folder.newFolder(), 100, stats);
+        String key = PrestoS3BlockCache.blockKey("bucket", "table/part-0.parquet", "etag1", 0, 3);
+
+        assertNull(cache.get(key));
+        cache.put(key, new byte[] {1, 2, 3});
+        assertArrayEquals(new byte[] {1, 2, 3}, cache.get(key));
+        // a new version of the object doesn't read the old blocks
+        assertNull(cache.get(PrestoS3BlockCache.blockKey("bucket", "table/part-0.parquet", "etag2", 0, 3)));
+
+        assertEquals(1, stats.getBlockCacheHits().getTotalCount());
+        assertEquals(2, stats.getBlockCacheMisses().getTotalCount());
+        assertEquals(1.0 / 3, stats.getBlockCacheHitRate(), 0.0001);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed()
+            throws Exception
+    {
+        PrestoS3FileSystemStats stats = new PrestoS3FileSystemStats();
+        PrestoS3BlockCache cache = new PrestoS3BlockCache(folder.newFolder(), 20, stats);
+
+        cache.put("a", new byte[10]);
+        cache.put("b", new byte[10]);
+        cache.get("a");
+        cache.put("c", new byte[10]);
+
+        assertEquals(20, cache.getSize());
+        assertEquals(1, stats.getBlockCacheEvictions().getTotalCount());
+        assertNull(cache.get("b"));
+        assertArrayEquals(new byte[10], cache.get("a"));
+        assertArrayEquals(new byte[10], cache.get("c"));
+    }
+
+    @Test
+    public void testKeepsOtherFilesOfDirectory()
+            throws Exception
+    {
+        File directory = folder.newFolder();
+        File other = new File(directory, "other");
+        assertTrue(other.createNewFile());
+        PrestoS3BlockCache first = new PrestoS3BlockCache(directory, 100, new PrestoS3FileSystemStats());
+        first.put("a", new byte[] {1});
+        PrestoS3BlockCache second = new PrestoS3BlockCache(directory, 100, new PrestoS3FileSystemStats());
+
+        assertTrue(other.exists());
+        assertNotEquals(first.getDirectory(), second.getDirectory());
+        assertArrayEquals(new byte[] {1}, first.get("a"));
+        assertNull(second.get("a"));
+    }
+
+    @Test
+    public void testCachesOfDifferentStatsAreNotShared()
+            throws Exception
+    {
+        File directory = folder.newFolder();
+        PrestoS3FileSystemStats stats = new PrestoS3FileSystemStats();
+        PrestoS3BlockCache cache = PrestoS3BlockCache.get(directory, 100, stats);
+
+        assertSame(cache, PrestoS3BlockCache.get(directory, 100, stats));
+        assertNotSame(cache, PrestoS3BlockCache.get(directory, 100, new PrestoS3FileSystemStats()));
+        assertNotSame(cache, PrestoS3BlockCache.get(directory, 200, stats));
+    }
+}
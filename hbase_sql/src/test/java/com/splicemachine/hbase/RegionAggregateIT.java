@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.hbase;
+
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceUnitTest;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.homeless.TestUtils;
+import com.splicemachine.test.HBaseTestUtils;
+import com.splicemachine.test.SerialTest;
+import com.splicemachine.test.SlowTest;
+import com.splicemachine.test_tools.TableCreator;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.log4j.Logger;
+import org.junit.*;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.splicemachine.test_tools.Rows.row;
+import static com.splicemachine.test_tools.Rows.rows;
+
+/**
+ * Grouped aggregates computed on the regions in control mode, over a table with several regions and while its
+ * regions split and move. A region that splits or moves during the calls must not lose or double count rows.
+ */
+@Category({SlowTest.class, SerialTest.class})
+public class RegionAggregateIT extends SpliceUnitTest {
+    private static final Logger LOG = Logger.getLogger(RegionAggregateIT.class);
+    private static final String SCHEMA = RegionAggregateIT.class.getSimpleName().toUpperCase();
+    private static final int GROUPS = 7;
+    private static final int DOUBLINGS = 12;
+    private static final int ROWS = 10 << DOUBLINGS;
+
+    private static final SpliceWatcher spliceClassWatcher = new SpliceWatcher(SCHEMA);
+    private static final SpliceSchemaWatcher spliceSchemaWatcher = new SpliceSchemaWatcher(SCHEMA);
+
+    @ClassRule
+    public static TestRule chain = RuleChain.outerRule(spliceClassWatcher).around(spliceSchemaWatcher);
+
+    @Rule
+    public SpliceWatcher methodWatcher = new SpliceWatcher(SCHEMA);
+
+    @BeforeClass
+    public static void createData() throws Exception {
+        Connection conn = spliceClassWatcher.getOrCreateConnection();
+        new TableCreator(conn)
+                .withCreate("create table t (a int primary key, b int, c int)")
+                .withInsert("insert into t values(?,?,?)")
+                .withRows(rows(
+                        row(1, 1, 1), row(2, 2, 2), row(3, 3, 3), row(4, 4, 4), row(5, 5, 5),
+                        row(6, 6, 6), row(7, 0, 7), row(8, 1, 8), row(9, 2, 9), row(10, 3, 10)))
+                .create();
+        int factor = 10;
+        for (int i = 0; i < DOUBLINGS; i++) {
+            spliceClassWatcher.executeUpdate(format("insert into t select a + %d, mod(a + %d, %d), c + %d from t",
+                    factor, factor, GROUPS, factor));
+            factor = factor * 2;
+        }
+        /* split the table into multiple regions */
+        spliceClassWatcher.executeUpdate(format("CALL SYSCS_UTIL.SYSCS_SPLIT_TABLE_OR_INDEX_AT_POINTS('%s', '%s', null, '%s')",
+                SCHEMA, "T", "\\xC2\\x00,\\xC4\\x00,\\xC6\\x00,\\xC8\\x00"));
+    }
+
+    @Test
+    public void testAggregateOverSeveralRegions() throws Exception {
+        assertGroups();
+    }
+
+    @Test(timeout = 500000)
+    public void testAggregateWhileRegionsSplitAndMove() throws Exception {
+        HBaseTestingUtility testingUtility = new HBaseTestingUtility(HConfiguration.unwrapDelegate());
+        HBaseAdmin admin = testingUtility.getHBaseAdmin();
+        TableName tableName = TableName.valueOf(HConfiguration.getConfiguration().getNamespace(),
+                Long.toString(TestUtils.baseTableConglomerateId(methodWatcher.getOrCreateConnection(), SCHEMA, "T")));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean done = new AtomicBoolean(false);
+        try {
+            Future<?> changes = executor.submit(() -> {
+                for (int i = 0; i < 20 && !done.get(); i++) {
+                    try {
+                        if (i % 2 == 0) HBaseTestUtils.split(admin, tableName, LOG);
+                        else HBaseTestUtils.move(admin, tableName, LOG);
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        return null;
+                    } catch (Exception e) {
+                        LOG.warn("Exception splitting or moving regions", e);
+                    }
+                }
+                return null;
+            });
+            while (!changes.isDone()) {
+                assertGroups();
+            }
+            changes.get();
+        } finally {
+            done.set(true);
+            executor.shutdownNow();
+        }
+        assertGroups();
+    }
+
+    /**
+     * Every group must be returned once, with the aggregates of all its rows.
+     */
+    private void assertGroups() throws Exception {
+        long[] counts = new long[GROUPS];
+        long[] sums = new long[GROUPS];
+        for (int a = 1; a <= ROWS; a++) {
+            counts[a % GROUPS]++;
+            sums[a % GROUPS] += a;
+        }
+        String sql = "select b, count(*), sum(c), max(a) from t --splice-properties useSpark=false\n group by b order by b";
+        try (ResultSet rs = methodWatcher.executeQuery(sql)) {
+            for (int b = 0; b < GROUPS; b++) {
+                Assert.assertTrue("missing group " + b, rs.next());
+                Assert.assertEquals(b, rs.getInt(1));
+                Assert.assertEquals("count of group " + b, counts[b], rs.getLong(2));
+                Assert.assertEquals("sum of group " + b, sums[b], rs.getLong(3));
+                Assert.assertEquals("max of group " + b, ROWS - (ROWS - b) % GROUPS, rs.getInt(4));
+            }
+            Assert.assertFalse(rs.next());
+        }
+    }
+}
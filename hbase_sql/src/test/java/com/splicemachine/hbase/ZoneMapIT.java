@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.hbase;
+
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceUnitTest;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.derby.test.framework.TestConnection;
+import com.splicemachine.test.SerialTest;
+import com.splicemachine.test.SlowTest;
+import com.splicemachine.test_tools.TableCreator;
+import org.junit.*;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import splice.com.google.common.collect.Lists;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static com.splicemachine.test_tools.Rows.row;
+
+/**
+ * Scans with qualifiers the zone maps of the store files can check, over a table whose rows were updated after
+ * they were flushed, so the columns of a row are spread over several store files and the memstore. A zone map
+ * must never make a scan skip a row which satisfies the qualifiers.
+ */
+@RunWith(Parameterized.class)
+@Category({SlowTest.class, SerialTest.class})
+public class ZoneMapIT extends SpliceUnitTest {
+    private static final String SCHEMA = ZoneMapIT.class.getSimpleName().toUpperCase();
+    private static final int ROWS = 1000;
+    private static final LocalDate BASE_DATE = LocalDate.of(2020, 1, 1);
+    private static final LocalDateTime BASE_TIMESTAMP = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    private static final SpliceWatcher spliceClassWatcher = new SpliceWatcher(SCHEMA);
+
+    @ClassRule
+    public static SpliceSchemaWatcher spliceSchemaWatcher = new SpliceSchemaWatcher(SCHEMA);
+
+    @Rule
+    public SpliceWatcher methodWatcher = new SpliceWatcher(SCHEMA);
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        Collection<Object[]> params = Lists.newArrayListWithCapacity(2);
+        params.add(new Object[]{"false"});
+        params.add(new Object[]{"true"});
+        return params;
+    }
+
+    private String useSparkString;
+
+    public ZoneMapIT(String useSparkString) {
+        this.useSparkString = useSparkString;
+    }
+
+    /**
+     * The rows the table should hold, indexed by their primary key, null for a deleted row.
+     */
+    private static final Row[] expected = new Row[ROWS + 1];
+
+    private static class Row {
+        final int a;
+        Integer i;
+        Double d;
+        LocalDate dt;
+        LocalDateTime ts;
+
+        Row(int a) {
+            this.a = a;
+            this.i = a;
+            this.d = a * 1.5;
+            this.dt = BASE_DATE.plusDays(a);
+            this.ts = BASE_TIMESTAMP.plusHours(a).plusNanos(a * 1000L);
+        }
+    }
+
+    @BeforeClass
+    public static void createData() throws Exception {
+        TestConnection conn = spliceClassWatcher.getOrCreateConnection();
+        List<Iterable<Object>> rows = new ArrayList<>();
+        for (int a = 1; a <= ROWS; a++) {
+            Row r = new Row(a);
+            expected[a] = r;
+            rows.add(row(a, r.i, r.d, Date.valueOf(r.dt), Timestamp.valueOf(r.ts)));
+        }
+        new TableCreator(conn)
+                .withCreate("create table z (a int primary key, i int, d double, dt date, ts timestamp)")
+                .withInsert("insert into z values(?,?,?,?,?)")
+                .withRows(rows)
+                .create();
+        flush();
+
+        // move the integers and doubles of the first rows past those of every other row
+        try (PreparedStatement ps = conn.prepareStatement("update z set i = ?, d = ? where a = ?")) {
+            for (int a = 1; a <= 100; a++) {
+                expected[a].i = a + 10 * ROWS;
+                expected[a].d = -a * 1.5;
+                ps.setInt(1, expected[a].i);
+                ps.setDouble(2, expected[a].d);
+                ps.setInt(3, a);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        flush();
+
+        // move the dates and timestamps of the last rows before those of every other row
+        try (PreparedStatement ps = conn.prepareStatement("update z set dt = ?, ts = ? where a = ?")) {
+            for (int a = ROWS - 99; a <= ROWS; a++) {
+                expected[a].dt = BASE_DATE.minusDays(a);
+                expected[a].ts = BASE_TIMESTAMP.minusHours(a).plusNanos(a * 1000L);
+                ps.setDate(1, Date.valueOf(expected[a].dt));
+                ps.setTimestamp(2, Timestamp.valueOf(expected[a].ts));
+                ps.setInt(3, a);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        flush();
+
+        spliceClassWatcher.executeUpdate("update z set i = null, dt = null where mod(a, 10) = 0");
+        for (int a = 10; a <= ROWS; a += 10) {
+            expected[a].i = null;
+            expected[a].dt = null;
+        }
+        spliceClassWatcher.executeUpdate("delete from z where a between 500 and 509");
+        for (int a = 500; a <= 509; a++)
+            expected[a] = null;
+        flush();
+
+        // leave a last update in the memstore
+        spliceClassWatcher.executeUpdate("update z set i = 5000, d = 5000, dt = date('2030-01-01') where a = 250");
+        expected[250].i = 5000;
+        expected[250].d = 5000.0;
+        expected[250].dt = LocalDate.of(2030, 1, 1);
+    }
+
+    private static void flush() throws Exception {
+        spliceClassWatcher.execute(format("CALL SYSCS_UTIL.SYSCS_FLUSH_TABLE('%s', 'Z')", SCHEMA));
+    }
+
+    @Test
+    public void testIntegerQualifiers() throws Exception {
+        assertRows("i > 900", r -> r.i != null && r.i > 900);
+        assertRows("i between 200 and 300", r -> r.i != null && r.i >= 200 && r.i <= 300);
+        assertRows("i >= 10000", r -> r.i != null && r.i >= 10000);
+        assertRows("i = 50", r -> r.i != null && r.i == 50);
+        assertRows("i = 5000", r -> r.i != null && r.i == 5000);
+        assertRows("i < 5", r -> r.i != null && r.i < 5);
+    }
+
+    @Test
+    public void testDoubleQualifiers() throws Exception {
+        assertRows("d < 0", r -> r.d != null && r.d < 0);
+        assertRows("d > 1400.0", r -> r.d != null && r.d > 1400.0);
+        assertRows("d = 1500", r -> r.d != null && r.d == 1500.0);
+    }
+
+    @Test
+    public void testDateQualifiers() throws Exception {
+        assertRows("dt < date('2020-03-01')", r -> r.dt != null && r.dt.isBefore(LocalDate.of(2020, 3, 1)));
+        assertRows("dt >= date('2022-06-01')", r -> r.dt != null && !r.dt.isBefore(LocalDate.of(2022, 6, 1)));
+        assertRows("dt < date('2019-01-01')", r -> r.dt != null && r.dt.isBefore(LocalDate.of(2019, 1, 1)));
+        assertRows("dt = date('2030-01-01')", r -> r.dt != null && r.dt.equals(LocalDate.of(2030, 1, 1)));
+    }
+
+    @Test
+    public void testTimestampQualifiers() throws Exception {
+        LocalDateTime low = LocalDateTime.of(2020, 1, 5, 0, 0, 0, 123000);
+        LocalDateTime high = LocalDateTime.of(2020, 1, 20, 5, 0, 0, 5000);
+        assertRows("ts > timestamp('2020-01-05 00:00:00.000123') and ts <= timestamp('2020-01-20 05:00:00.000005')",
+                r -> r.ts != null && r.ts.isAfter(low) && !r.ts.isAfter(high));
+        assertRows("ts < timestamp('2019-12-31 00:00:00')",
+                r -> r.ts != null && r.ts.isBefore(LocalDateTime.of(2019, 12, 31, 0, 0)));
+    }
+
+    @Test
+    public void testNullQualifiers() throws Exception {
+        assertRows("i is null", r -> r.i == null);
+        assertRows("dt is not null and i < 100", r -> r.dt != null && r.i != null && r.i < 100);
+    }
+
+    /**
+     * The scan must return the count and the sum of the keys of the rows the qualifiers hold on.
+     */
+    private void assertRows(String where, Predicate<Row> qualifies) throws Exception {
+        long count = 0;
+        long sum = 0;
+        for (int a = 1; a <= ROWS; a++) {
+            if (expected[a] != null && qualifies.test(expected[a])) {
+                count++;
+                sum += a;
+            }
+        }
+        String sql = format("select count(*), sum(a) from z --splice-properties useSpark=%s\n where %s",
+                useSparkString, where);
+        try (ResultSet rs = methodWatcher.executeQuery(sql)) {
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(sql, count, rs.getLong(1));
+            Assert.assertEquals(sql, sum, count == 0 ? 0 : rs.getLong(2));
+        }
+    }
+}
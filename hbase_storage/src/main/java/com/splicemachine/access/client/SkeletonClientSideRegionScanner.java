@@ -15,6 +15,8 @@
 package com.splicemachine.access.client;
 
 import com.splicemachine.derby.hbase.KeyPrefixProbingFilter;
+import com.splicemachine.derby.hbase.ZoneMapFilter;
+import com.splicemachine.storage.ZonePredicate;
 import org.apache.hadoop.hbase.regionserver.*;
 import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.utils.SpliceLogUtils;
@@ -30,6 +32,7 @@ import org.apache.hadoop.hbase.client.IsolationLevel;
 import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.filter.FilterList;
 import org.apache.hadoop.hbase.filter.MultiRowRangeFilter;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.FSUtils;
@@ -206,7 +209,8 @@ public abstract class SkeletonClientSideRegionScanner implements RegionScanner{
             }
             memScannerList.add(getMemStoreScanner());
             this.region = openHRegion();
-            RegionScanner regionScanner = new CountingRegionScanner(HRegionUtil.getScanner(region, scan, memScannerList), region, scan);
+            Scan regionScan = addZoneMapFilter(scan);
+            RegionScanner regionScanner = new CountingRegionScanner(HRegionUtil.getScanner(region, regionScan, memScannerList), region, regionScan);
             if (flushed) {
                 if (scanner != null)
                     scanner.close();
@@ -236,6 +240,49 @@ public abstract class SkeletonClientSideRegionScanner implements RegionScanner{
         return response;
     }
 
+    /**
+     * @return a copy of {@code scan} with a {@link ZoneMapFilter} for the store files of the region, or {@code scan}
+     * itself if they can't skip anything
+     */
+    private Scan addZoneMapFilter(Scan scan) throws IOException {
+        byte[] zonePredicate = scan.getAttribute(SIConstants.ZONE_PREDICATE_ATTR);
+        HStore store = region.getStore(SIConstants.DEFAULT_FAMILY_BYTES);
+        if (zonePredicate == null || store == null)
+            return scan;
+        ZoneMapFilter zoneMapFilter = ZoneMapFilter.create(ZonePredicate.fromBytes(zonePredicate),
+                store.getStorefiles(), this::nextMemstoreRow);
+        if (zoneMapFilter == null)
+            return scan;
+        Scan regionScan = new Scan(scan);
+        regionScan.setFilter(scan.getFilter() == null ? zoneMapFilter :
+                new FilterList(FilterList.Operator.MUST_PASS_ALL, zoneMapFilter, scan.getFilter()));
+        return regionScan;
+    }
+
+    /**
+     * The memstore scanners are positioned at the first memstore cell not returned yet, which comes at or after the
+     * current row of the scan.
+     */
+    private byte[] nextMemstoreRow(byte[] row) {
+        byte[] next = null;
+        for (KeyValueScanner memScanner : memScannerList) {
+            Cell cell = memScanner.peek();
+            if (cell == null)
+                continue;
+            if (SpliceKVComparator.isSpecialTimestamp(cell)) {
+                // the second hold marks the end of the memstore rows
+                if (CellUtil.matchingFamily(cell, ClientRegionConstants.HOLD) &&
+                        cell.getTimestamp() == HConstants.LATEST_TIMESTAMP)
+                    continue;
+                return row;
+            }
+            if (next == null || Bytes.compareTo(cell.getRowArray(), cell.getRowOffset(), cell.getRowLength(),
+                    next, 0, next.length) < 0)
+                next = CellUtil.cloneRow(cell);
+        }
+        return next;
+    }
+
     private boolean matchingFamily(List<Cell> result, byte[] family) {
         return !result.isEmpty() && CellUtil.matchingFamily(result.get(0), family);
     }
@@ -282,6 +329,7 @@ public abstract class SkeletonClientSideRegionScanner implements RegionScanner{
         memScan.setAttribute(ClientRegionConstants.SPLICE_SCAN_MEMSTORE_PARTITION_END_KEY, hri.getEndKey());
         memScan.setAttribute(ClientRegionConstants.SPLICE_SCAN_MEMSTORE_PARTITION_SERVER,Bytes.toBytes(hostAndPort));
         memScan.setAttribute(SIConstants.SI_NEEDED,null);
+        memScan.setAttribute(SIConstants.ZONE_PREDICATE_ATTR,null);
         ResultScanner scanner=newScanner(memScan);
         // We want to request the first row from the Memstore scanner to make sure the region is
         // open and possible pending edits have been replayed. The MemstoreKeyValueScanner doest that for us.
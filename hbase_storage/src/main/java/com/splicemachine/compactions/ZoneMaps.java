@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.compactions;
+
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.storage.ZoneMap;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreFileWriter;
+import org.apache.log4j.Logger;
+import splice.com.google.common.cache.Cache;
+import splice.com.google.common.cache.CacheBuilder;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Writes the {@link ZoneMap} of the packed rows of a store file to its file info when it's flushed or compacted,
+ * and reads it back for scans.
+ */
+public class ZoneMaps {
+    private static final Logger LOG = Logger.getLogger(ZoneMaps.class);
+
+    /** Bytes of packed rows per zone, 0 disables zone maps */
+    public static final String SPLICE_ZONE_MAP_SIZE = "splice.zoneMap.size";
+    public static final long DEFAULT_ZONE_MAP_SIZE = 1024 * 1024;
+
+    /** Maximum number of columns tracked per store file */
+    public static final String SPLICE_ZONE_MAP_MAX_COLUMNS = "splice.zoneMap.maxColumns";
+    public static final int DEFAULT_ZONE_MAP_MAX_COLUMNS = 16;
+
+    private static final long CACHE_SIZE = 64 * 1024 * 1024;
+
+    // store file names are unique, and files are never modified once written
+    private static final Cache<String, Optional<ZoneMap>> cache = CacheBuilder.newBuilder()
+            .maximumWeight(CACHE_SIZE)
+            .weigher((String path, Optional<ZoneMap> zoneMap) -> (int) Math.min(Integer.MAX_VALUE,
+                    path.length() + zoneMap.map(ZoneMap::estimatedSize).orElse(0L)))
+            .build();
+
+    private ZoneMaps() {
+    }
+
+    /**
+     * @return a builder for the zone map of a new store file, or null if zone maps are disabled
+     */
+    public static ZoneMap.Builder newBuilder(Configuration conf) {
+        long zoneSize = conf.getLong(SPLICE_ZONE_MAP_SIZE, DEFAULT_ZONE_MAP_SIZE);
+        int maxColumns = conf.getInt(SPLICE_ZONE_MAP_MAX_COLUMNS, DEFAULT_ZONE_MAP_MAX_COLUMNS);
+        if (zoneSize <= 0 || maxColumns <= 0)
+            return null;
+        return new ZoneMap.Builder(zoneSize, maxColumns);
+    }
+
+    /**
+     * Add a cell written to the store file, only packed rows are taken into account.
+     */
+    public static void add(ZoneMap.Builder builder, Cell cell) {
+        if (cell.getTypeByte() == KeyValue.Type.Put.getCode() &&
+                CellUtil.matchingFamily(cell, SIConstants.DEFAULT_FAMILY_BYTES) &&
+                CellUtil.matchingQualifier(cell, SIConstants.PACKED_COLUMN_BYTES)) {
+            builder.add(cell.getRowArray(), cell.getRowOffset(), cell.getRowLength(),
+                    cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+        }
+    }
+
+    public static void write(StoreFileWriter writer, ZoneMap.Builder builder) throws IOException {
+        ZoneMap zoneMap = builder.build();
+        if (zoneMap != null)
+            writer.appendFileInfo(SpliceCompaction.SPLICE_ZONE_MAP_KEY, zoneMap.toBytes());
+    }
+
+    /**
+     * @return the zone map of {@code file}, or null if it doesn't have one
+     */
+    public static ZoneMap read(HStoreFile file) {
+        try {
+            return cache.get(file.getPath().toString(), () -> {
+                byte[] data = file.getMetadataValue(SpliceCompaction.SPLICE_ZONE_MAP_KEY);
+                return data == null ? Optional.<ZoneMap>empty() : Optional.of(ZoneMap.fromBytes(data));
+            }).orElse(null);
+        } catch (ExecutionException e) {
+            SpliceLogUtils.warn(LOG, "Could not read zone map of %s: %s", file.getPath(), e.getCause());
+            return null;
+        }
+    }
+}
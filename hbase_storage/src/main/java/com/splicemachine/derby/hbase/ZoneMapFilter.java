@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.hbase;
+
+import com.splicemachine.access.client.SpliceKVComparator;
+import com.splicemachine.compactions.ZoneMaps;
+import com.splicemachine.storage.ZoneMap;
+import com.splicemachine.storage.ZonePredicate;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.PrivateCellUtil;
+import org.apache.hadoop.hbase.filter.FilterBase;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.apache.hadoop.hbase.filter.Filter.ReturnCode.INCLUDE;
+import static org.apache.hadoop.hbase.filter.Filter.ReturnCode.NEXT_ROW;
+import static org.apache.hadoop.hbase.filter.Filter.ReturnCode.SEEK_NEXT_USING_HINT;
+
+/**
+ * A server side {@link org.apache.hadoop.hbase.filter.Filter} which skips the row ranges of the store files of a
+ * region whose {@link ZoneMap zone maps} tell that no row can satisfy the {@link ZonePredicate} of the scan.
+ *
+ * The ranges which may match are computed once when the scan is opened, from the store files the scanner reads.
+ * Rows outside of them can still come from the memstore, so before skipping a range the filter asks a
+ * {@link MemstoreProbe} for the next row in the memstore and never seeks past it. Like
+ * {@link KeyPrefixProbingFilter}, the skipping is done by returning {@link ReturnCode#SEEK_NEXT_USING_HINT}.
+ *
+ * The filter only removes rows which can't match, the rows it lets through are still qualified by the scan.
+ */
+public class ZoneMapFilter extends FilterBase {
+
+    public interface MemstoreProbe {
+        /**
+         * @return the first row at or after {@code row} in the memstore, {@code row} itself if it can't be told,
+         * or null if there are none
+         */
+        byte[] nextRow(byte[] row) throws IOException;
+    }
+
+    // sorted and disjoint inclusive ranges of rows which may match
+    private final byte[][] firstRows;
+    private final byte[][] lastRows;
+    private final MemstoreProbe memstoreProbe;
+    private ReturnCode currentReturnCode = INCLUDE;
+    private Cell nextCellHint;
+    private boolean done;
+
+    private ZoneMapFilter(List<byte[][]> ranges, MemstoreProbe memstoreProbe) {
+        this.firstRows = new byte[ranges.size()][];
+        this.lastRows = new byte[ranges.size()][];
+        for (int i = 0; i < ranges.size(); i++) {
+            firstRows[i] = ranges.get(i)[0];
+            lastRows[i] = ranges.get(i)[1];
+        }
+        this.memstoreProbe = memstoreProbe;
+    }
+
+    /**
+     * @return a filter for a scan of {@code storeFiles} with {@code predicate}, or null if the zone maps of the files
+     * can't skip anything
+     */
+    public static ZoneMapFilter create(ZonePredicate predicate, Collection<HStoreFile> storeFiles,
+                                       MemstoreProbe memstoreProbe) throws IOException {
+        if (predicate.isEmpty() || storeFiles.isEmpty())
+            return null;
+        List<ZoneMap> zoneMaps = new ArrayList<>(storeFiles.size());
+        List<byte[][]> unmapped = new ArrayList<>();
+        for (HStoreFile file : storeFiles) {
+            ZoneMap zoneMap = ZoneMaps.read(file);
+            if (zoneMap != null) {
+                zoneMaps.add(zoneMap);
+            } else {
+                Optional<Cell> first = file.getFirstKey();
+                Optional<Cell> last = file.getLastKey();
+                if (first.isPresent() && last.isPresent())
+                    unmapped.add(new byte[][]{CellUtil.cloneRow(first.get()), CellUtil.cloneRow(last.get())});
+            }
+        }
+        if (zoneMaps.isEmpty())
+            return null;
+
+        // The versions of a row can be spread over several files, each condition has to be checked on its own
+        List<byte[][]> ranges = null;
+        for (int condition = 0; condition < predicate.size(); condition++) {
+            List<byte[][]> matching = new ArrayList<>(unmapped);
+            for (ZoneMap zoneMap : zoneMaps) {
+                for (ZoneMap.Zone zone : zoneMap.getZones()) {
+                    if (predicate.mayMatch(condition, zoneMap, zone))
+                        matching.add(new byte[][]{zone.getFirstRow(), zone.getLastRow()});
+                }
+            }
+            matching = union(matching);
+            ranges = ranges == null ? matching : intersect(ranges, matching);
+        }
+        return new ZoneMapFilter(ranges, memstoreProbe);
+    }
+
+    private static List<byte[][]> union(List<byte[][]> ranges) {
+        ranges.sort((a, b) -> Bytes.compareTo(a[0], b[0]));
+        List<byte[][]> result = new ArrayList<>(ranges.size());
+        byte[][] current = null;
+        for (byte[][] range : ranges) {
+            if (current != null && Bytes.compareTo(range[0], current[1]) <= 0) {
+                if (Bytes.compareTo(range[1], current[1]) > 0)
+                    current[1] = range[1];
+            } else {
+                current = new byte[][]{range[0], range[1]};
+                result.add(current);
+            }
+        }
+        return result;
+    }
+
+    private static List<byte[][]> intersect(List<byte[][]> left, List<byte[][]> right) {
+        List<byte[][]> result = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < left.size() && j < right.size()) {
+            byte[][] l = left.get(i);
+            byte[][] r = right.get(j);
+            byte[] first = Bytes.compareTo(l[0], r[0]) >= 0 ? l[0] : r[0];
+            byte[] last = Bytes.compareTo(l[1], r[1]) <= 0 ? l[1] : r[1];
+            if (Bytes.compareTo(first, last) <= 0)
+                result.add(new byte[][]{first, last});
+            if (Bytes.compareTo(l[1], r[1]) <= 0)
+                i++;
+            else
+                j++;
+        }
+        return result;
+    }
+
+    @Override
+    public ReturnCode filterCell(final Cell ignored) throws IOException {
+        return currentReturnCode;
+    }
+
+    @Override
+    public boolean filterRowKey(Cell firstRowCell) throws IOException {
+        if (SpliceKVComparator.isSpecialTimestamp(firstRowCell)) {
+            currentReturnCode = INCLUDE;
+            return false;
+        }
+        byte[] rowArr = firstRowCell.getRowArray();
+        int offset = firstRowCell.getRowOffset();
+        int length = firstRowCell.getRowLength();
+
+        // the first range which doesn't end before the row
+        int low = 0;
+        int high = lastRows.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Bytes.compareTo(lastRows[mid], 0, lastRows[mid].length, rowArr, offset, length) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        if (low < firstRows.length &&
+                Bytes.compareTo(firstRows[low], 0, firstRows[low].length, rowArr, offset, length) <= 0) {
+            currentReturnCode = INCLUDE;
+            return false;
+        }
+
+        byte[] row = CellUtil.cloneRow(firstRowCell);
+        byte[] next = low < firstRows.length ? firstRows[low] : null;
+        byte[] memstoreRow = memstoreProbe.nextRow(row);
+        if (memstoreRow != null) {
+            if (Bytes.compareTo(memstoreRow, row) <= 0) {
+                currentReturnCode = INCLUDE;
+                return false;
+            }
+            if (next == null || Bytes.compareTo(memstoreRow, next) < 0)
+                next = memstoreRow;
+        }
+        if (next == null) {
+            done = true;
+            currentReturnCode = NEXT_ROW;
+            return true;
+        }
+        nextCellHint = PrivateCellUtil.createFirstOnRow(next, 0, (short) next.length);
+        currentReturnCode = SEEK_NEXT_USING_HINT;
+        return false;
+    }
+
+    @Override
+    public boolean filterAllRemaining() throws IOException {
+        return done;
+    }
+
+    @Override
+    public Cell getNextCellHint(Cell currentCell) {
+        return nextCellHint;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ZoneMapFilter[ranges=%d]", firstRows.length);
+    }
+}
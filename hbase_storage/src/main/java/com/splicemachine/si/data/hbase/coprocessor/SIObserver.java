@@ -15,6 +15,7 @@
 package com.splicemachine.si.data.hbase.coprocessor;
 
 import com.splicemachine.access.HConfiguration;
+import com.splicemachine.access.client.ClientRegionConstants;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.access.configuration.HBaseConfiguration;
 import com.splicemachine.compactions.SpliceCompaction;
@@ -24,6 +25,7 @@ import com.splicemachine.constants.EnvUtils;
 import com.splicemachine.coprocessor.SpliceMessage;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.conn.Authorizer;
+import com.splicemachine.derby.hbase.ZoneMapFilter;
 import com.splicemachine.hbase.CellUtils;
 import com.splicemachine.hbase.SICompactionScanner;
 import com.splicemachine.hbase.ZkUtils;
@@ -198,6 +200,8 @@ public class SIObserver implements RegionObserver, Coprocessor, RegionCoprocesso
                 assert (scan.getMaxVersions()==Integer.MAX_VALUE);
                 addSIFilterToScan(scan);
             }
+            if (tableEnvMatch && scan.getAttribute(SIConstants.ZONE_PREDICATE_ATTR) != null)
+                addZoneMapFilterToScan((HRegion) e.getEnvironment().getRegion(), scan);
             if (tableEnvMatch && hasToken(scan)) {
                 aclCheck(scan);
             } else {
@@ -493,6 +497,22 @@ public class SIObserver implements RegionObserver, Coprocessor, RegionCoprocesso
         scan.setFilter(newFilter);
     }
 
+    protected void addZoneMapFilterToScan(HRegion hRegion, Scan scan) throws IOException{
+        HStore store = hRegion.getStore(SIConstants.DEFAULT_FAMILY_BYTES);
+        if (scan.isReversed() || store == null ||
+                scan.getAttribute(ClientRegionConstants.SPLICE_SCAN_MEMSTORE_ONLY) != null)
+            return;
+        ZonePredicate predicate = ZonePredicate.fromBytes(scan.getAttribute(SIConstants.ZONE_PREDICATE_ATTR));
+        Set<HStoreFile> storeFiles = new HashSet<>(store.getStorefiles());
+        ZoneMapFilter zoneMapFilter = ZoneMapFilter.create(predicate, storeFiles,
+                row -> HRegionUtil.nextMemstoreRow(store, storeFiles, row));
+        if (zoneMapFilter == null)
+            return;
+        Filter currentFilter = scan.getFilter();
+        scan.setFilter(currentFilter == null ? zoneMapFilter :
+                new FilterList(FilterList.Operator.MUST_PASS_ALL, zoneMapFilter, currentFilter));
+    }
+
     protected Filter makeSIFilter(TxnView txn, Filter currentFilter, EntryPredicateFilter predicateFilter, boolean countStar) throws IOException{
         TxnFilter txnFilter=region.packedFilter(txn,predicateFilter,countStar);
         @SuppressWarnings("unchecked") SIFilterPacked siFilter=new SIFilterPacked(txnFilter);
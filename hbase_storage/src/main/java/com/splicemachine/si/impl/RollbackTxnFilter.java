@@ -25,6 +25,7 @@ import com.splicemachine.storage.*;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.PrivateCellUtil;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.filter.FilterBase;
 import org.apache.hadoop.hbase.util.Bytes;
@@ -40,15 +41,36 @@ public class RollbackTxnFilter extends FilterBase {
     private List<DataMutation> mutations;
     private OperationFactory opFactory;
     private TxnSupplier txnSupplier;
+    /* the rows to filter, in ascending order, or null for all rows */
+    private List<ByteSlice> rows;
+    private int rowIndex;
+    private Cell nextCellHint;
 
     public RollbackTxnFilter(TxnSupplier txnSupplier, List<DataMutation> mutations) {
+        this(SIDriver.driver().baseOperationFactory(), txnSupplier, mutations, null);
+    }
+
+    /**
+     * Only returns, and rolls back cells of, the rows in {@code sortedRows}, seeking from one to the next. The other
+     * rows scanned are skipped without looking up their transactions.
+     *
+     * @param sortedRows the rows to filter, in ascending order, may contain duplicates
+     */
+    public RollbackTxnFilter(OperationFactory opFactory, TxnSupplier txnSupplier, List<DataMutation> mutations,
+                             List<ByteSlice> sortedRows) {
         this.mutations = mutations;
-        opFactory = SIDriver.driver().baseOperationFactory();
+        this.opFactory = opFactory;
         this.txnSupplier = txnSupplier;
+        this.rows = sortedRows;
     }
 
     @Override
     public Filter.ReturnCode filterCell(Cell keyValue){
+        if (rows != null) {
+            Filter.ReturnCode code = seekToRow(keyValue);
+            if (code != null)
+                return code;
+        }
         DataCell data = new HCell(keyValue);
         long txnId = data.version();
         try {
@@ -95,6 +117,30 @@ public class RollbackTxnFilter extends FilterBase {
         }
     }
 
+    /**
+     * @return null if the cell belongs to one of the rows, otherwise how to skip to the next one
+     */
+    private Filter.ReturnCode seekToRow(Cell cell) {
+        while (rowIndex < rows.size()) {
+            ByteSlice row = rows.get(rowIndex);
+            int cmp = Bytes.compareTo(cell.getRowArray(), cell.getRowOffset(), cell.getRowLength(),
+                    row.array(), row.offset(), row.length());
+            if (cmp == 0)
+                return null;
+            if (cmp < 0) {
+                nextCellHint = PrivateCellUtil.createFirstOnRow(row.array(), row.offset(), (short) row.length());
+                return ReturnCode.SEEK_NEXT_USING_HINT;
+            }
+            rowIndex++;
+        }
+        return ReturnCode.NEXT_ROW;
+    }
+
+    @Override
+    public Cell getNextCellHint(Cell currentCell) {
+        return nextCellHint;
+    }
+
     public List<DataMutation> getMutations() {
         return mutations;
     }
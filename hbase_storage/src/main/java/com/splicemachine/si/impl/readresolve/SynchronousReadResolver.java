@@ -30,12 +30,14 @@ import org.apache.hadoop.hbase.NotServingRegionException;
 import org.apache.hadoop.hbase.RegionTooBusyException;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Durability;
+import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.exceptions.ConnectionClosingException;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Read-Resolver which resolves elements synchronously on the calling thread.
@@ -124,6 +126,56 @@ public class SynchronousReadResolver implements KeyedReadResolver{
         }
     }
 
+    @Override
+    public int resolve(Partition region,List<ByteSlice> rowKeys,long txnId,TxnSupplier supplier,RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+        if(rowKeys.isEmpty()) return 0;
+        try{
+            TxnView transaction=supplier.getTransaction(txnId);
+            Mutation[] mutations=null;
+            if(transaction.getEffectiveState()==Txn.State.ROLLEDBACK){
+                mutations=new Mutation[rowKeys.size()];
+                for(int i=0;i<mutations.length;i++){
+                    mutations[i]=rolledbackDelete(rowKeys.get(i),txnId);
+                }
+            }else{
+                TxnView t=transaction;
+                while(t.getState()==Txn.State.COMMITTED){
+                    t=t.getParentTxnView();
+                }
+                if(t==Txn.ROOT_TRANSACTION){
+                    long commitTimestamp=transaction.getEffectiveCommitTimestamp();
+                    mutations=new Mutation[rowKeys.size()];
+                    for(int i=0;i<mutations.length;i++){
+                        mutations[i]=committedPut(rowKeys.get(i),txnId,commitTimestamp);
+                    }
+                }
+            }
+            int resolved=0;
+            if(mutations!=null){
+                trafficControl.acquire(mutations.length);
+                try{
+                    if(resolveBatch(region,mutations,failOnError))
+                        resolved=mutations.length;
+                }finally{
+                    trafficControl.release(mutations.length);
+                }
+            }
+            for(int i=0;i<rowKeys.size();i++){
+                status.rowResolved();
+            }
+            return resolved;
+        }catch(IOException e){
+            LOG.info("Unable to fetch transaction for id "+txnId+", will not resolve",e);
+            if(failOnError)
+                throw new RuntimeException(e);
+            return 0;
+        }catch(InterruptedException e){
+            LOG.debug("Interrupted which performing read resolution, will not resolve");
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
     public void resolveCommitted(Partition region,ByteSlice rowKey,long txnId,long commitTimestamp,boolean failOnError){
         assert region instanceof RegionPartition: "Not on a region!";
         /*
@@ -134,13 +186,7 @@ public class SynchronousReadResolver implements KeyedReadResolver{
         if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
             return; //do nothing if we are closing or rollforward is disabled
 
-        Put put=new Put(rowKey.getByteCopy());
-        put.addColumn(SIConstants.DEFAULT_FAMILY_BYTES,
-                SIConstants.COMMIT_TIMESTAMP_COLUMN_BYTES,txnId,
-                Bytes.toBytes(commitTimestamp));
-        put.setAttribute(SIConstants.SI_EXEMPT,SIConstants.TRUE_BYTES);
-        put.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
-        put.setDurability(Durability.SKIP_WAL);
+        Put put=committedPut(rowKey,txnId,commitTimestamp);
         try{
             ((RegionPartition)region).unwrapDelegate().put(put);
         }catch(IOException e){
@@ -163,6 +209,52 @@ public class SynchronousReadResolver implements KeyedReadResolver{
         if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
             return; //do nothing if we are closing
 
+        Delete delete=rolledbackDelete(rowKey,txnId);
+        try{
+            ((RegionPartition)region).unwrapDelegate().delete(delete);
+        }catch(IOException ioe){
+            LOG.info("Exception encountered when attempting to resolve a row as rolled back",ioe);
+            if(failOnError)
+                throw new RuntimeException(ioe);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private boolean resolveBatch(Partition region,Mutation[] mutations,boolean failOnError){
+        assert region instanceof RegionPartition: "Not on a region!";
+        /*
+         * Write all the resolutions of the group in a single batch: they bypass SI and the WAL,
+         * and the region only has to go through the memstore once for the whole group.
+         */
+        if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
+            return false; //do nothing if we are closing or rollforward is disabled
+        try{
+            ((RegionPartition)region).unwrapDelegate().batchMutate(mutations);
+            return true;
+        }catch(IOException e){
+            if(!(e instanceof RegionTooBusyException) && !(e instanceof NotServingRegionException)
+                    &&  !(e instanceof ConnectionClosingException)){
+                LOG.info("Exception encountered when attempting to resolve a batch of rows",e);
+                if(failOnError)
+                    throw new RuntimeException(e);
+            }
+            return false;
+        }
+    }
+
+    private static Put committedPut(ByteSlice rowKey,long txnId,long commitTimestamp){
+        Put put=new Put(rowKey.getByteCopy());
+        put.addColumn(SIConstants.DEFAULT_FAMILY_BYTES,
+                SIConstants.COMMIT_TIMESTAMP_COLUMN_BYTES,txnId,
+                Bytes.toBytes(commitTimestamp));
+        put.setAttribute(SIConstants.SI_EXEMPT,SIConstants.TRUE_BYTES);
+        put.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
+        put.setDurability(Durability.SKIP_WAL);
+        return put;
+    }
+
+    private static Delete rolledbackDelete(ByteSlice rowKey,long txnId){
         Delete delete=new Delete(rowKey.getByteCopy(),txnId)
                 .addColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.FK_COUNTER_COLUMN_BYTES,txnId)
                 .addColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.FIRST_OCCURRENCE_TOKEN_COLUMN_BYTES,txnId)
@@ -171,12 +263,6 @@ public class SynchronousReadResolver implements KeyedReadResolver{
                 .addColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.COMMIT_TIMESTAMP_COLUMN_BYTES,txnId);
         delete.setDurability(Durability.SKIP_WAL);
         delete.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
-        try{
-            ((RegionPartition)region).unwrapDelegate().delete(delete);
-        }catch(IOException ioe){
-            LOG.info("Exception encountered when attempting to resolve a row as rolled back",ioe);
-            if(failOnError)
-                throw new RuntimeException(ioe);
-        }
+        return delete;
     }
 }
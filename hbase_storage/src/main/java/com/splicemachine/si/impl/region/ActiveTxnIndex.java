@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.region;
+
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.primitives.Bytes;
+
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory index of the transactions of a transaction table region which may still be active,
+ * keyed by begin timestamp.
+ * <p/>
+ * The index is a superset of the active transactions: every transaction which is active (or a committed
+ * child whose global commit timestamp isn't known yet) is in it, but an entry may be stale when it raced with
+ * a commit, a rollback or a timeout. Readers must therefore check the transaction row of each entry, and
+ * remove the entries which turn out not to be active.
+ */
+class ActiveTxnIndex{
+    private static final byte[] NO_TABLES=new byte[0];
+
+    private final ConcurrentSkipListMap<Long, Entry> entries=new ConcurrentSkipListMap<>();
+    private volatile boolean loaded=false;
+
+    static final class Entry{
+        final boolean child;
+        /* the destination tables, as stored in the destination table column */
+        final byte[] destinationTables;
+
+        Entry(boolean child,byte[] destinationTables){
+            this.child=child;
+            this.destinationTables=destinationTables==null?NO_TABLES:destinationTables;
+        }
+
+        boolean writesTo(byte[] destinationTable){
+            if(destinationTable==null) return true;
+            MultiFieldDecoder decoder=MultiFieldDecoder.wrap(destinationTables);
+            while(decoder.available()){
+                int off=decoder.offset();
+                decoder.skip();
+                int length=decoder.offset()-off-1;
+                if(Bytes.equals(destinationTable,0,destinationTable.length,destinationTables,off,length))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    boolean isLoaded(){
+        return loaded;
+    }
+
+    void markLoaded(){
+        loaded=true;
+    }
+
+    /**
+     * Adds a transaction, or updates its destination tables. Destination tables are only ever added to
+     * a transaction, so the longest list seen wins over lists read before it was elevated.
+     */
+    void add(long txnId,boolean child,byte[] destinationTables){
+        entries.merge(txnId,new Entry(child,destinationTables),ActiveTxnIndex::merge);
+    }
+
+    void addDestinationTables(long txnId,byte[] destinationTables){
+        add(txnId,false,destinationTables);
+    }
+
+    /**
+     * A committed child remains visible as active until the global commit timestamp of its parent chain
+     * is known, so only top-level transactions leave the index when they commit.
+     */
+    void commit(long txnId){
+        entries.computeIfPresent(txnId,(id,entry) -> entry.child?entry:null);
+    }
+
+    void remove(long txnId){
+        entries.remove(txnId);
+    }
+
+    private static Entry merge(Entry current,Entry update){
+        byte[] destinationTables=update.destinationTables.length>=current.destinationTables.length
+                ?update.destinationTables:current.destinationTables;
+        return new Entry(current.child || update.child,destinationTables);
+    }
+
+    NavigableMap<Long, Entry> range(long afterTs,long beforeTs){
+        if(afterTs>beforeTs) return new ConcurrentSkipListMap<>();
+        return entries.subMap(afterTs,true,beforeTs,true);
+    }
+}
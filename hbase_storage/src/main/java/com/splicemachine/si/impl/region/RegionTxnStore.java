@@ -44,7 +44,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
@@ -66,6 +68,7 @@ public class RegionTxnStore implements TxnPartition{
     private final long keepAliveTimeoutMs;
     private final Clock clock;
     private final Durability durability;
+    private final ActiveTxnIndex activeTxns=new ActiveTxnIndex();
 
     public RegionTxnStore(HRegion region,
                           TxnSupplier txnSupplier,
@@ -169,6 +172,7 @@ public class RegionTxnStore implements TxnPartition{
         put.setDurability(durability);
         put.addColumn(FAMILY,destTableQualifier,newBytes);
         region.put(put);
+        activeTxns.addDestinationTables(txnId,newBytes);
     }
 
     protected byte[] getRowKey(long txnId){
@@ -251,6 +255,7 @@ public class RegionTxnStore implements TxnPartition{
         Put put=newTransactionDecoder.encodeForPut(txn,getRowKey(txn.getTxnId()),clock);
         put.setDurability(durability);
         region.put(put);
+        activeTxns.add(txn.getTxnId(),txn.getParentTxnid()>0,txn.getDestinationTables().toByteArray());
     }
 
     @Override
@@ -262,6 +267,7 @@ public class RegionTxnStore implements TxnPartition{
         put.addColumn(FAMILY,V2TxnDecoder.COMMIT_QUALIFIER_BYTES,Encoding.encode(commitTs));
         put.addColumn(FAMILY,V2TxnDecoder.STATE_QUALIFIER_BYTES,Txn.State.COMMITTED.encode());
         region.put(put);
+        activeTxns.commit(txnId);
     }
 
     @Override
@@ -270,6 +276,7 @@ public class RegionTxnStore implements TxnPartition{
         put.setDurability(durability);
         put.addColumn(FAMILY,V2TxnDecoder.GLOBAL_COMMIT_QUALIFIER_BYTES,Encoding.encode(globalCommitTs));
         region.put(put);
+        activeTxns.remove(txnId);
     }
 
     @Override
@@ -298,6 +305,7 @@ public class RegionTxnStore implements TxnPartition{
         put.addColumn(FAMILY,V2TxnDecoder.COMMIT_QUALIFIER_BYTES,Encoding.encode(-1));
         put.addColumn(FAMILY,V2TxnDecoder.GLOBAL_COMMIT_QUALIFIER_BYTES,Encoding.encode(-1));
         region.put(put);
+        activeTxns.remove(txnId);
     }
 
     @Override
@@ -326,52 +334,84 @@ public class RegionTxnStore implements TxnPartition{
         return new ScanIterator(scanner);
     }
 
+    /**
+     * Served from the in-memory index of active transactions, so only the rows of the transactions
+     * which may still be active are read, instead of every transaction in the range.
+     */
     @Override
     public Source<TxnMessage.Txn> getActiveTxns(long afterTs,long beforeTs,byte[] destinationTable) throws IOException{
         if(LOG.isTraceEnabled())
             SpliceLogUtils.trace(LOG,"getActiveTxns afterTs=%d, beforeTs=%s",afterTs,beforeTs);
-        Scan scan = setupScanOnRange(afterTs, beforeTs);
-        scan.setFilter(new ActiveTxnFilter(beforeTs,afterTs,destinationTable,clock,keepAliveTimeoutMs));
-
-        final RegionScanner scanner=region.getScanner(scan);
-        return new ScanIterator(scanner){
-
-            @Override
-            protected TxnMessage.Txn decode(List<Cell> data) throws IOException{
-                TxnMessage.Txn txn = super.decode(data);
-                if(txn==null) return null;
-
-                /*
-                 * In normal circumstances, we would say that this transaction is active
-                 * (since it passed the ActiveTxnFilter).
-                 *
-                 * However, a child transaction may need to be returned even though
-                 * he is committed, because a parent along the chain remains active. In this case,
-                 * we need to resolve the effective commit timestamp of the parent, and if that value
-                 * is -1, then we return it. Otherwise, just mark the child transaction with a global
-                 * commit timestamp and move on.
-                 */
+        loadActiveTxns();
+        return new ActiveTxnIterator(activeTxns.range(afterTs,beforeTs).entrySet().iterator(),destinationTable);
+    }
 
-                long parentTxnId=txn.getInfo().getParentTxnid();
-                if(parentTxnId<0){
-                    //we are a top-level transaction
-                    return txn;
+    /**
+     * Rebuilds the index of active transactions with a single scan of the region, the first time it's
+     * needed after the region is opened. Transactions recorded meanwhile are added to the index by
+     * {@link #recordTransaction(TxnMessage.TxnInfo)}, so the scan only has to find the older ones.
+     */
+    private void loadActiveTxns() throws IOException{
+        if(activeTxns.isLoaded()) return;
+        synchronized(activeTxns){
+            if(activeTxns.isLoaded()) return;
+            Scan scan=setupScanOnRange(0,Long.MAX_VALUE);
+            scan.setFilter(new ActiveTxnFilter(Long.MAX_VALUE,0,null,clock,keepAliveTimeoutMs));
+            int count=0;
+            try(Source<TxnMessage.Txn> txns=new ScanIterator(region.getScanner(scan))){
+                while(txns.hasNext()){
+                    TxnMessage.TxnInfo info=txns.next().getInfo();
+                    activeTxns.add(info.getTxnId(),info.getParentTxnid()>0,info.getDestinationTables().toByteArray());
+                    count++;
                 }
+            }
+            activeTxns.markLoaded();
+            if(LOG.isDebugEnabled())
+                SpliceLogUtils.debug(LOG,"Loaded %d active transactions of region %s",count,region.getRegionInfo().getRegionNameAsString());
+        }
+    }
 
-                switch(txnSupplier.getTransaction(parentTxnId).getEffectiveState()){
-                    case ACTIVE:
-                        return txn;
-                    case ROLLEDBACK:
-                        resolver.resolveTimedOut(RegionTxnStore.this,txn);
-                        return null;
-                    case COMMITTED:
-                        resolver.resolveGlobalCommitTimestamp(RegionTxnStore.this,txn);
-                        return null;
-                }
+    /**
+     * @return the transaction if it's still active, null otherwise
+     */
+    private TxnMessage.Txn resolveActive(TxnMessage.Txn txn) throws IOException{
+        if(txn==null) return null;
 
+        /*
+         * A child transaction may need to be returned even though
+         * he is committed, because a parent along the chain remains active. In this case,
+         * we need to resolve the effective commit timestamp of the parent, and if that value
+         * is -1, then we return it. Otherwise, just mark the child transaction with a global
+         * commit timestamp and move on.
+         */
+        long parentTxnId=txn.getInfo().getParentTxnid();
+        switch(Txn.State.fromInt(txn.getState())){
+            case ACTIVE:
+                break;
+            case COMMITTED:
+                if(parentTxnId>0 && txn.getGlobalCommitTs()<0)
+                    break;
+                return null;
+            default:
+                return null;
+        }
+        if(parentTxnId<0){
+            //we are a top-level transaction
+            return txn;
+        }
+
+        switch(txnSupplier.getTransaction(parentTxnId).getEffectiveState()){
+            case ACTIVE:
                 return txn;
-            }
-        };
+            case ROLLEDBACK:
+                resolver.resolveTimedOut(RegionTxnStore.this,txn);
+                return null;
+            case COMMITTED:
+                resolver.resolveGlobalCommitTimestamp(RegionTxnStore.this,txn);
+                return null;
+        }
+
+        return txn;
     }
 
     public Txn.State adjustStateForTimeout(Txn.State currentState,Cell keepAliveCell){
@@ -484,6 +524,51 @@ public class RegionTxnStore implements TxnPartition{
         }
     }
 
+    /**
+     * Reads the row of each indexed transaction, dropping the index entries of the transactions
+     * which turn out to have committed, rolled back or timed out.
+     */
+    private class ActiveTxnIterator implements Source<TxnMessage.Txn>{
+        private final Iterator<Map.Entry<Long, ActiveTxnIndex.Entry>> candidates;
+        private final byte[] destinationTable;
+        private TxnMessage.Txn next;
+
+        ActiveTxnIterator(Iterator<Map.Entry<Long, ActiveTxnIndex.Entry>> candidates,byte[] destinationTable){
+            this.candidates=candidates;
+            this.destinationTable=destinationTable;
+        }
+
+        @Override
+        public boolean hasNext() throws IOException{
+            while(next==null && candidates.hasNext()){
+                Map.Entry<Long, ActiveTxnIndex.Entry> candidate=candidates.next();
+                if(!candidate.getValue().writesTo(destinationTable)) continue;
+
+                long txnId=candidate.getKey();
+                Result result=region.get(new Get(getRowKey(txnId)));
+                TxnMessage.Txn txn=null;
+                if(result!=null && !result.isEmpty())
+                    txn=resolveActive(decode(txnId,result));
+                if(txn==null)
+                    activeTxns.remove(txnId);
+                next=txn;
+            }
+            return next!=null;
+        }
+
+        @Override
+        public TxnMessage.Txn next() throws IOException{
+            if(!hasNext()) throw new NoSuchElementException();
+            TxnMessage.Txn n=next;
+            next=null;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException{
+        }
+    }
+
     private class ScanIterator implements Source<TxnMessage.Txn>{
         private final RegionScanner regionScanner;
         protected TxnMessage.Txn next;
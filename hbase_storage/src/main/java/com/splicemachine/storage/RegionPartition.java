@@ -26,7 +26,9 @@ import com.splicemachine.metrics.MetricFactory;
 import com.splicemachine.metrics.Metrics;
 import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.storage.util.MeasuredListScanner;
+import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.Pair;
+import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.NotServingRegionException;
 import org.apache.hadoop.hbase.client.*;
 import org.apache.hadoop.hbase.regionserver.*;
@@ -199,6 +201,65 @@ public class RegionPartition implements Partition{
         }
     }
 
+    /**
+     * Fetches all the rows with a single region scanner, seeking forward from one row to the next,
+     * instead of opening a scanner per row as {@link #getLatest(byte[], DataResult, Object)} does.
+     * The filter skips the rows in between, so only the requested rows are rolled back.
+     */
+    @Override
+    public List<DataResult> getLatest(List<ByteSlice> sortedKeys,Object obj) throws IOException{
+        if(sortedKeys.size()<2)
+            return Partition.super.getLatest(sortedKeys,obj);
+
+        assert obj instanceof ConflictRollForward;
+        ConflictRollForward conflictRollForward = (ConflictRollForward)obj;
+        Scan scan=new Scan()
+                .withStartRow(sortedKeys.get(0).getByteCopy())
+                .withStopRow(sortedKeys.get(sortedKeys.size()-1).getByteCopy(),true)
+                .readVersions(1);
+        scan.setFilter(new RollbackTxnFilter(conflictRollForward.getOpFactory(), conflictRollForward.getTxnSupplier(),
+                conflictRollForward.getMutations(), sortedKeys));
+
+        List<DataResult> results=new ArrayList<>(sortedKeys.size());
+        try(RegionScanner scanner=region.getScanner(scan)){
+            List<Cell> current=null;
+            boolean more=true;
+            for(ByteSlice key : sortedKeys){
+                if(current!=null && !current.isEmpty()){
+                    int cmp=compareRow(current.get(0),key);
+                    if(cmp==0){
+                        //duplicate key
+                        results.add(new HResult(Result.create(current)));
+                        continue;
+                    }else if(cmp>0){
+                        //the scanner is already past this row, so it doesn't exist
+                        results.add(new HResult(Result.EMPTY_RESULT));
+                        continue;
+                    }
+                }
+                if(!more){
+                    results.add(new HResult(Result.EMPTY_RESULT));
+                    continue;
+                }
+                current=new ArrayList<>();
+                more=scanner.next(current);
+                if(!current.isEmpty() && compareRow(current.get(0),key)==0)
+                    results.add(new HResult(Result.create(current)));
+                else
+                    results.add(new HResult(Result.EMPTY_RESULT));
+            }
+            return results;
+        }catch(NotServingRegionException | ConnectionClosingException | AssertionError | NullPointerException nsre){
+            throw new HNotServingRegion(nsre.getMessage());
+        }catch(WrongRegionException wre){
+            throw new HWrongRegion(wre.getMessage());
+        }
+    }
+
+    private static int compareRow(Cell cell,ByteSlice key){
+        return Bytes.compareTo(cell.getRowArray(),cell.getRowOffset(),cell.getRowLength(),key.array(),key.offset(),key.length());
+    }
+
     @Override
     public DataResult getLatest(byte[] rowKey,byte[] family,DataResult previous) throws IOException{
         Get g=new Get(rowKey);
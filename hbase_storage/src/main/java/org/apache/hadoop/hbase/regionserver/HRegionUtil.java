@@ -22,9 +22,11 @@ import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.utils.Pair;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
 import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.hadoop.hbase.client.RegionInfo;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.io.hfile.HFile;
@@ -277,6 +279,33 @@ public class HRegionUtil {
         return false;
     }
 
+    /**
+     * @return the first row at or after {@code row} in the memstore of {@code store}, null if there are none, or
+     * {@code row} itself if rows might have moved from the memstore to store files other than {@code storeFiles}
+     */
+    public static byte[] nextMemstoreRow(HStore store, Collection<HStoreFile> storeFiles, byte[] row) {
+        if (!(store.memstore instanceof DefaultMemStore))
+            return row;
+        Cell first = KeyValueUtil.createFirstOnRow(row);
+        Cell active = firstCell(getKvset(store), first);
+        Cell snapshot = firstCell(getSnapshot(store), first);
+        // check the store files after the memstore, a flush adds the new file before clearing the snapshot
+        if (!storeFiles.containsAll(store.getStorefiles()))
+            return row;
+        Cell next = active == null ? snapshot :
+                (snapshot == null || CellComparator.getInstance().compareRows(active, snapshot) <= 0 ? active : snapshot);
+        return next == null ? null : CellUtil.cloneRow(next);
+    }
+
+    private static Cell firstCell(Segment segment, Cell from) {
+        try {
+            SortedSet<Cell> cellSet = segment.tailSet(from);
+            return cellSet.isEmpty() ? null : cellSet.first();
+        } catch (NoSuchElementException ignored) {
+            return null;
+        }
+    }
+
     public static Segment getKvset(HStore store) {
         return ((DefaultMemStore) store.memstore).active;
     }
@@ -331,6 +331,66 @@ public class RegionTxnStoreTest{
         assertEquals("Incorrect length!",0,activeTxnIds.length);
     }
 
+    @Test
+    public void testActiveTransactionsAreReloadedWhenTheRegionIsReopened() throws Exception{
+        HRegion region=MockRegionUtils.getMockRegion();
+        RegionTxnStore store=new RegionTxnStore(region,txnSupplier, getNullTransactionResolver(),Long.MAX_VALUE,clock){
+            @Override
+            protected byte[] getRowKey(long txnId){
+                byte[] rowKey = new byte[9];
+                Bytes.longToBytes(txnId, rowKey, 1);
+                return rowKey;
+            }
+        };
+
+        TxnMessage.TxnInfo.Builder builder=TxnMessage.TxnInfo.newBuilder()
+                .setAllowsWrites(true)
+                .setIsAdditive(true)
+                .setIsolationLevel(Txn.IsolationLevel.SNAPSHOT_ISOLATION.getLevel())
+                .setDestinationTables(ByteString.copyFrom(Encoding.encodeBytesUnsorted(Bytes.toBytes("1234"))));
+        store.recordTransaction(builder.setTxnId(1).setBeginTs(1).build());
+        store.recordTransaction(builder.setTxnId(2).setBeginTs(2).build());
+        store.recordTransaction(builder.setTxnId(3).setBeginTs(3).build());
+        store.addDestinationTable(2,Encoding.encodeBytesUnsorted(Bytes.toBytes("3124")));
+        store.recordCommit(3,4l);
+
+        RegionTxnStore reopened=new RegionTxnStore(region,txnSupplier, getNullTransactionResolver(),Long.MAX_VALUE,clock){
+            @Override
+            protected byte[] getRowKey(long txnId){
+                byte[] rowKey = new byte[9];
+                Bytes.longToBytes(txnId, rowKey, 1);
+                return rowKey;
+            }
+        };
+        Assert.assertArrayEquals("Incorrect listing!",new long[]{1,2},reopened.getActiveTxnIds(0,5,null));
+        Assert.assertArrayEquals("Incorrect listing!",new long[]{2},
+                reopened.getActiveTxnIds(0,5,Encoding.encodeBytesUnsorted(Bytes.toBytes("3124"))));
+
+        reopened.recordRollback(1);
+        Assert.assertArrayEquals("Incorrect listing!",new long[]{2},reopened.getActiveTxnIds(0,5,null));
+    }
+
+    @Test
+    public void testGetActiveTransactionsFiltersOutTimedOutTxns() throws Exception{
+        HRegion region=MockRegionUtils.getMockRegion();
+        RegionTxnStore store=new RegionTxnStore(region,txnSupplier, getNullTransactionResolver(),100,clock);
+
+        TxnMessage.TxnInfo info=TxnMessage.TxnInfo.newBuilder()
+                .setTxnId(1)
+                .setBeginTs(1)
+                .setAllowsWrites(true)
+                .setIsAdditive(true)
+                .setIsolationLevel(Txn.IsolationLevel.SNAPSHOT_ISOLATION.getLevel())
+                .setDestinationTables(ByteString.copyFrom(Bytes.toBytes("1234")))
+                .build();
+        store.recordTransaction(info);
+        Assert.assertArrayEquals("Incorrect listing!",new long[]{1},store.getActiveTxnIds(0,2,null));
+
+        clock.sleep(200,TimeUnit.MILLISECONDS);
+        long[] activeTxnIds=store.getActiveTxnIds(0,2,null);
+        assertEquals("Incorrect length!",0,activeTxnIds.length);
+    }
+
     protected TransactionResolver getNullTransactionResolver(){
         TransactionResolver resolver=mock(TransactionResolver.class);
         doNothing().when(resolver).resolveGlobalCommitTimestamp(any(TxnPartition.class),any(TxnMessage.Txn.class));
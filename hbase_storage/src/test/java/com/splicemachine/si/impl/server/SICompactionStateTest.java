@@ -49,7 +49,7 @@ public class SICompactionStateTest {
 
         IgnoreTxnSupplier ignoreTxnSupplier = new IgnoreTxnSupplier() {
             @Override
-            public boolean shouldIgnore(Long txnId) throws IOException { return txnId > 0x400L && txnId < 0x600L; }
+            public boolean shouldIgnore(long txnId) throws IOException { return txnId > 0x400L && txnId < 0x600L; }
             @Override
             public void refresh() {}
         };
@@ -83,7 +83,7 @@ public class SICompactionStateTest {
 
         IgnoreTxnSupplier ignoreTxnSupplier = new IgnoreTxnSupplier() {
             @Override
-            public boolean shouldIgnore(Long txnId) throws IOException { return txnId > 0x400L && txnId < 0x600L; }
+            public boolean shouldIgnore(long txnId) throws IOException { return txnId > 0x400L && txnId < 0x600L; }
             @Override
             public void refresh() {}
         };
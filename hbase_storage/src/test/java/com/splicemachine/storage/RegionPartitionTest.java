@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.si.api.data.OperationFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.server.ConflictRollForward;
+import com.splicemachine.utils.ByteSlice;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for fetching the latest version of several rows with a single region scanner.
+ */
+public class RegionPartitionTest{
+    private static final long COMMITTED_TXN=0x100L;
+    private static final long ROLLED_BACK_TXN=0x200L;
+
+    private final NavigableMap<byte[], List<Cell>> rows=new TreeMap<>(Bytes.BYTES_COMPARATOR);
+
+    @Test
+    public void getLatestReturnsSparseMissingAndDuplicateKeysInOrder() throws Exception{
+        addRow("a",COMMITTED_TXN);
+        addRow("b",COMMITTED_TXN);
+        addRow("c",COMMITTED_TXN);
+        addRow("f",COMMITTED_TXN);
+        addRow("k",COMMITTED_TXN);
+
+        // "d" and "z" don't exist, "b" and "f" exist but aren't requested, the second "c" is a mutation
+        // sharing the lock of the first one
+        List<DataResult> results=getLatest(newConflictRollForward(mock(OperationFactory.class)),
+                "a","c","c","d","k","z");
+
+        Assert.assertEquals(6,results.size());
+        assertRow("a",results.get(0));
+        assertRow("c",results.get(1));
+        assertRow("c",results.get(2));
+        Assert.assertTrue("d doesn't exist",results.get(3).isEmpty());
+        assertRow("k",results.get(4));
+        Assert.assertTrue("z doesn't exist",results.get(5).isEmpty());
+    }
+
+    @Test
+    public void getLatestOnlyRollsBackRequestedRows() throws Exception{
+        addRow("a",COMMITTED_TXN);
+        addRow("b",ROLLED_BACK_TXN);
+        addRow("c",ROLLED_BACK_TXN);
+        addRow("d",ROLLED_BACK_TXN);
+        addRow("e",COMMITTED_TXN);
+
+        OperationFactory opFactory=mock(OperationFactory.class);
+        when(opFactory.newDelete(any(ByteSlice.class))).thenReturn(mock(DataDelete.class));
+        ConflictRollForward conflictRollForward=newConflictRollForward(opFactory);
+        List<DataResult> results=getLatest(conflictRollForward,"a","c","e");
+
+        Assert.assertEquals(3,results.size());
+        assertRow("a",results.get(0));
+        Assert.assertTrue("c was rolled back",results.get(1).isEmpty());
+        assertRow("e",results.get(2));
+
+        ArgumentCaptor<ByteSlice> deleted=ArgumentCaptor.forClass(ByteSlice.class);
+        verify(opFactory,times(1)).newDelete(deleted.capture());
+        Assert.assertEquals("c",Bytes.toString(deleted.getValue().getByteCopy()));
+        Assert.assertEquals(1,conflictRollForward.getMutations().size());
+    }
+
+    private void addRow(String row,long txnId){
+        byte[] key=Bytes.toBytes(row);
+        List<Cell> cells=new ArrayList<>();
+        cells.add(new KeyValue(key,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,txnId,key));
+        rows.put(key,cells);
+    }
+
+    private List<DataResult> getLatest(ConflictRollForward conflictRollForward,String... keys) throws Exception{
+        HRegion region=mock(HRegion.class);
+        when(region.getScanner(any(Scan.class))).thenAnswer(new Answer<RegionScanner>(){
+            @Override
+            public RegionScanner answer(InvocationOnMock invocation) throws Throwable{
+                return newScanner((Scan)invocation.getArguments()[0]);
+            }
+        });
+        List<ByteSlice> sortedKeys=new ArrayList<>(keys.length);
+        for(String key : keys){
+            sortedKeys.add(ByteSlice.wrap(Bytes.toBytes(key)));
+        }
+        return new RegionPartition(region).getLatest(sortedKeys,conflictRollForward);
+    }
+
+    private static ConflictRollForward newConflictRollForward(OperationFactory opFactory) throws Exception{
+        TxnView committed=mock(TxnView.class);
+        when(committed.getEffectiveState()).thenReturn(Txn.State.COMMITTED);
+        TxnView rolledBack=mock(TxnView.class);
+        when(rolledBack.getEffectiveState()).thenReturn(Txn.State.ROLLEDBACK);
+        TxnSupplier txnSupplier=mock(TxnSupplier.class);
+        when(txnSupplier.getTransaction(COMMITTED_TXN)).thenReturn(committed);
+        when(txnSupplier.getTransaction(ROLLED_BACK_TXN)).thenReturn(rolledBack);
+        return new ConflictRollForward(opFactory,txnSupplier);
+    }
+
+    /**
+     * A scanner over {@link #rows} honouring the bounds of the scan and the seek hints of its filter.
+     */
+    private RegionScanner newScanner(final Scan scan) throws Exception{
+        final Filter filter=scan.getFilter();
+        final byte[][] position={scan.getStartRow()};
+        RegionScanner scanner=mock(RegionScanner.class);
+        when(scanner.next(anyListOf(Cell.class))).thenAnswer(new Answer<Boolean>(){
+            @Override
+            @SuppressWarnings("unchecked")
+            public Boolean answer(InvocationOnMock invocation) throws Throwable{
+                List<Cell> results=(List<Cell>)invocation.getArguments()[0];
+                Map.Entry<byte[], List<Cell>> row=rows.ceilingEntry(position[0]);
+                while(row!=null && inScan(row.getKey())){
+                    position[0]=Bytes.add(row.getKey(),new byte[]{0});
+                    boolean skipRow=false;
+                    for(Cell cell : row.getValue()){
+                        Filter.ReturnCode code=filter.filterCell(cell);
+                        if(code==Filter.ReturnCode.INCLUDE){
+                            results.add(cell);
+                        }else if(code==Filter.ReturnCode.SEEK_NEXT_USING_HINT){
+                            position[0]=CellUtil.cloneRow(filter.getNextCellHint(cell));
+                            skipRow=true;
+                            break;
+                        }else if(code==Filter.ReturnCode.NEXT_ROW){
+                            skipRow=true;
+                            break;
+                        }
+                    }
+                    // like a region scanner, go on to the next row if all the cells were filtered out
+                    if(!skipRow && !results.isEmpty()){
+                        Map.Entry<byte[], List<Cell>> next=rows.ceilingEntry(position[0]);
+                        return next!=null && inScan(next.getKey());
+                    }
+                    row=rows.ceilingEntry(position[0]);
+                }
+                return false;
+            }
+
+            private boolean inScan(byte[] row){
+                int cmp=Bytes.compareTo(row,scan.getStopRow());
+                return cmp<0 || (cmp==0 && scan.includeStopRow());
+            }
+        });
+        return scanner;
+    }
+
+    private static void assertRow(String expected,DataResult result){
+        Assert.assertFalse(expected+" exists",result.isEmpty());
+        Assert.assertEquals(1,result.size());
+        DataCell cell=result.iterator().next();
+        Assert.assertEquals(expected,Bytes.toString(cell.key()));
+    }
+}
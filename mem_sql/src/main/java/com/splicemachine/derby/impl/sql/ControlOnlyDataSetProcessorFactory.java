@@ -25,6 +25,7 @@ import com.splicemachine.derby.impl.sql.execute.operations.SpliceBaseOperation;
 import com.splicemachine.derby.stream.control.ControlDataSetProcessor;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.DistributedDataSetProcessor;
+import com.splicemachine.derby.stream.iapi.RegionAggregateClient;
 import com.splicemachine.derby.stream.iapi.RemoteQueryClient;
 import com.splicemachine.derby.stream.utils.ForwardingDataSetProcessor;
 import com.splicemachine.procedures.external.GetSchemaExternalResult;
@@ -124,6 +125,11 @@ public class ControlOnlyDataSetProcessorFactory implements DataSetProcessorFacto
         return ControlExecutionLimiter.NO_OP;
     }
 
+    @Override
+    public RegionAggregateClient getRegionAggregateClient() {
+        return RegionAggregateClient.NOT_SUPPORTED;
+    }
+
     private static class DistributedWrapper extends ForwardingDataSetProcessor implements DistributedDataSetProcessor{
         public DistributedWrapper(ControlDataSetProcessor cdsp){
             super(cdsp);
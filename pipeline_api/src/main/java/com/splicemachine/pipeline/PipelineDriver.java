@@ -165,6 +165,7 @@ public class PipelineDriver{
         double get5MThroughput();
         double get15MThroughput();
         long getTotalRejected();
+        long getTotalCoalesced();
     }
 
 
@@ -182,6 +183,7 @@ public class PipelineDriver{
         @Override public double get5MThroughput(){ return pipelineMeter.fiveMThroughput(); }
         @Override public double get15MThroughput(){ return pipelineMeter.fifteenMThroughput(); }
         @Override public long getTotalRejected(){ return pipelineMeter.rejectedCount(); }
+        @Override public long getTotalCoalesced(){ return pipelineMeter.coalescedCount(); }
 
         @Override
         public void setMaxIndependentWriteThreads(int newMaxIndependentWriteThreads){
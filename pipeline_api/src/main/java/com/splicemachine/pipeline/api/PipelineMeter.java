@@ -33,4 +33,11 @@ public interface PipelineMeter{
     double oneMThroughput();
 
     long rejectedCount();
+
+    /**
+     * @param numRows the number of rows folded into another write to the same row
+     */
+    void coalesced(int numRows);
+
+    long coalescedCount();
 }
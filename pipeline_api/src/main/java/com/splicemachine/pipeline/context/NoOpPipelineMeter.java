@@ -35,4 +35,7 @@ public class NoOpPipelineMeter implements PipelineMeter{
     @Override public double fiveMThroughput(){ return 0; }
     @Override public double oneMThroughput(){ return 0; }
     @Override public long rejectedCount(){ return 0; }
+
+    @Override public void coalesced(int numRows){ }
+    @Override public long coalescedCount(){ return 0; }
 }
@@ -17,8 +17,10 @@ package com.splicemachine.pipeline.writehandler;
 import com.splicemachine.access.api.NotServingPartitionException;
 import com.splicemachine.access.api.RegionBusyException;
 import com.splicemachine.access.api.WrongPartitionException;
+import com.splicemachine.access.configuration.PipelineConfiguration;
 import com.splicemachine.concurrent.ResettableCountDownLatch;
 import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.PipelineDriver;
 import com.splicemachine.pipeline.api.*;
 import com.splicemachine.pipeline.constraint.BatchConstraintChecker;
 import com.splicemachine.pipeline.client.WriteResult;
@@ -26,6 +28,7 @@ import com.splicemachine.pipeline.context.WriteContext;
 import com.splicemachine.si.api.server.TransactionalRegion;
 import com.splicemachine.si.api.txn.WriteConflict;
 import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.storage.MutationStatus;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
@@ -35,10 +38,7 @@ import splice.com.google.common.collect.Lists;
 import splice.com.google.common.collect.Maps;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.IdentityHashMap;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 
 import static com.splicemachine.storage.util.UpdateUtils.updateFromWrite;
 
@@ -52,6 +52,7 @@ public class PartitionWriteHandler implements WriteHandler {
     protected List<KVPair> mutations = Lists.newArrayList();
     protected ResettableCountDownLatch writeLatch;
     protected BatchConstraintChecker constraintChecker;
+    protected final boolean coalesceRowMutations;
 
     /*
      * A Map from the modified KVPair (i.e. the actual update) to the
@@ -60,17 +61,39 @@ public class PartitionWriteHandler implements WriteHandler {
      */
     protected final IdentityHashMap<KVPair, KVPair> writeToOriginalMap= Maps.newIdentityHashMap();
 
+    /*
+     * When several mutations to the same row are folded into one (see RowMutationCoalescer), the
+     * write is mapped to the original of the latest mutation above, and to the originals of the
+     * earlier ones here, so that all of them get the result of the write.
+     */
+    protected final IdentityHashMap<KVPair, List<KVPair>> writeToFoldedOriginalsMap = Maps.newIdentityHashMap();
+
     public PartitionWriteHandler(TransactionalRegion region,
                                  ResettableCountDownLatch writeLatch,
                                  BatchConstraintChecker constraintChecker) {
+        this(region, writeLatch, constraintChecker, defaultCoalesceRowMutations());
+    }
+
+    public PartitionWriteHandler(TransactionalRegion region,
+                                 ResettableCountDownLatch writeLatch,
+                                 BatchConstraintChecker constraintChecker,
+                                 boolean coalesceRowMutations) {
         if (LOG.isDebugEnabled())
             SpliceLogUtils.debug(LOG, "regionWriteHandler create");
         this.region = region;
         this.writeLatch = writeLatch;
         this.constraintChecker = constraintChecker;
+        this.coalesceRowMutations = coalesceRowMutations;
         this.mutations = Lists.newArrayList();
     }
 
+    private static boolean defaultCoalesceRowMutations() {
+        SIDriver driver = SIDriver.driver();
+        return driver != null ?
+                driver.getConfiguration().getCoalesceRowMutations() :
+                PipelineConfiguration.DEFAULT_COALESCE_ROW_MUTATIONS;
+    }
+
     @Override
     public void next(KVPair kvPair, WriteContext ctx) {
         /*
@@ -129,10 +152,12 @@ public class PartitionWriteHandler implements WriteHandler {
                 return ctx.canRun(original(input));
             }
         });
+        Collection<KVPair> toWrite = filteredMutations;
         try {
+            toWrite = coalesce(filteredMutations);
             if (LOG.isTraceEnabled())
-                SpliceLogUtils.trace(LOG, "Flush Writing rows=%d, table=%s", filteredMutations.size(), region.getTableName());
-            doWrite(ctx, filteredMutations);
+                SpliceLogUtils.trace(LOG, "Flush Writing rows=%d, table=%s", toWrite.size(), region.getTableName());
+            doWrite(ctx, toWrite);
         } catch (IOException wce) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("flush, ", wce);
@@ -140,24 +165,24 @@ public class PartitionWriteHandler implements WriteHandler {
             Throwable t = ctx.exceptionFactory().processPipelineException(wce);
             if(t instanceof WriteConflict){
                 WriteResult result=new WriteResult(Code.WRITE_CONFLICT,wce.getMessage());
-                for(KVPair mutation : filteredMutations){
-                    ctx.result(original(mutation),result);
+                for(KVPair mutation : toWrite){
+                    result(ctx, mutation, result);
                 }
             }else if(t instanceof NotServingPartitionException){
                 WriteResult result = WriteResult.notServingRegion();
-                for (KVPair mutation : filteredMutations) {
-                    ctx.result(original(mutation), result);
+                for (KVPair mutation : toWrite) {
+                    result(ctx, mutation, result);
                 }
             }else if(t instanceof RegionBusyException){
                 WriteResult result = WriteResult.regionTooBusy();
-                for (KVPair mutation : filteredMutations) {
-                    ctx.result(original(mutation), result);
+                for (KVPair mutation : toWrite) {
+                    result(ctx, mutation, result);
                 }
             }else if(t instanceof WrongPartitionException){
                 //this shouldn't happen, but just in case
                 WriteResult result = WriteResult.wrongRegion();
-                for (KVPair mutation : filteredMutations) {
-                    ctx.result(original(mutation), result);
+                for (KVPair mutation : toWrite) {
+                    result(ctx, mutation, result);
                 }
             } else{
                 /*
@@ -169,12 +194,13 @@ public class PartitionWriteHandler implements WriteHandler {
                  */
                 LOG.error("Unexpected exception", wce);
                 WriteResult result=WriteResult.failed(wce.getClass().getSimpleName()+":"+wce.getMessage());
-                for(KVPair mutation : filteredMutations){
-                    ctx.result(original(mutation),result);
+                for(KVPair mutation : toWrite){
+                    result(ctx, mutation, result);
                 }
             }
         } finally {
             filteredMutations.clear();
+            writeToFoldedOriginalsMap.clear();
         }
     }
 
@@ -182,6 +208,71 @@ public class PartitionWriteHandler implements WriteHandler {
         return writeToOriginalMap.get(mutation);
     }
 
+    private List<KVPair> foldedOriginals(KVPair mutation) {
+        List<KVPair> folded = writeToFoldedOriginalsMap.get(mutation);
+        return folded == null ? Collections.<KVPair>emptyList() : folded;
+    }
+
+    private void result(WriteContext ctx, KVPair mutation, WriteResult result) {
+        ctx.result(original(mutation), result);
+        for (KVPair folded : foldedOriginals(mutation)) {
+            ctx.result(folded, result);
+        }
+    }
+
+    private void failed(WriteContext ctx, KVPair mutation, WriteResult result) {
+        ctx.failed(original(mutation), result);
+        for (KVPair folded : foldedOriginals(mutation)) {
+            ctx.failed(folded, result);
+        }
+    }
+
+    private void success(WriteContext ctx, KVPair mutation) {
+        ctx.success(original(mutation));
+        for (KVPair folded : foldedOriginals(mutation)) {
+            ctx.success(folded);
+        }
+    }
+
+    private void notRun(WriteContext ctx, KVPair mutation) {
+        ctx.notRun(original(mutation));
+        for (KVPair folded : foldedOriginals(mutation)) {
+            ctx.notRun(folded);
+        }
+    }
+
+    /**
+     * Folds mutations to the same row into a single one, and records which originals each folded
+     * mutation stands for.
+     */
+    private Collection<KVPair> coalesce(Collection<KVPair> toProcess) throws IOException {
+        if (!coalesceRowMutations || toProcess.size() < 2)
+            return toProcess;
+        RowMutationCoalescer coalescer = new RowMutationCoalescer(toProcess.size());
+        List<KVPair> coalesced = coalescer.coalesce(toProcess);
+        int folded = coalescer.foldedCount();
+        if (folded == 0)
+            return toProcess;
+
+        for (KVPair mutation : coalesced) {
+            List<KVPair> sources = coalescer.sources(mutation);
+            if (sources == null)
+                continue;
+            List<KVPair> originals = new ArrayList<>(sources.size() - 1);
+            for (int i = 0; i < sources.size() - 1; i++) {
+                originals.add(original(sources.get(i)));
+            }
+            writeToOriginalMap.put(mutation, original(sources.get(sources.size() - 1)));
+            writeToFoldedOriginalsMap.put(mutation, originals);
+        }
+        if (LOG.isTraceEnabled())
+            SpliceLogUtils.trace(LOG, "Coalesced %d mutations into %d, table=%s", toProcess.size(), coalesced.size(), region.getTableName());
+        PipelineDriver driver = PipelineDriver.driver();
+        if (driver != null)
+            driver.meter().coalesced(folded);
+        return coalesced;
+    }
+
     private void doWrite(WriteContext ctx, Collection<KVPair> toProcess) throws IOException {
         assert toProcess!=null; //won't ever happen, but it's a nice safety check
         if (LOG.isTraceEnabled())
@@ -210,19 +301,19 @@ public class PartitionWriteHandler implements WriteHandler {
             MutationStatus stat = statusIter.next();
             KVPair mutation = mutationIter.next();
             if(stat.isNotRun())
-                ctx.notRun(original(mutation));
+                notRun(ctx, mutation);
             else if(stat.isSuccess()){
-                ctx.success(original(mutation));
+                success(ctx, mutation);
             } else{
                 //assume it's a failure
                 //see if it's due to constraints, otherwise just pass it through
                 if (constraintChecker != null && constraintChecker.matches(stat)) {
-                    ctx.result(original(mutation), constraintChecker.asWriteResult(stat));
+                    result(ctx, mutation, constraintChecker.asWriteResult(stat));
                 }else if (stat.errorMessage().contains("Write conflict")) {
                     WriteResult conflict = new WriteResult(Code.WRITE_CONFLICT,stat.errorMessage());
-                    ctx.result(original(mutation), conflict);
+                    result(ctx, mutation, conflict);
                 }else {
-                    ctx.failed(original(mutation), WriteResult.failed(stat.errorMessage()));
+                    failed(ctx, mutation, WriteResult.failed(stat.errorMessage()));
                 }
                 failed++;
             }
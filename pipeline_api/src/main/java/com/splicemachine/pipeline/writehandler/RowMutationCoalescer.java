@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.writehandler;
+
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.storage.util.UpdateUtils;
+import com.splicemachine.utils.ByteSlice;
+import splice.com.google.common.collect.Lists;
+import splice.com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Folds mutations to the same row within a single bulk write into a single mutation, so that hot rows
+ * only go through conflict detection and the WAL/memstore once per bulk write.
+ *
+ * All the mutations of a bulk write belong to the same transaction, so the last write wins. Only folds
+ * that cannot change the outcome of conflict detection or constraint checks are performed:
+ * <ul>
+ *     <li>an UPDATE following an INSERT, UPSERT or UPDATE is merged into it (the later column values win,
+ *     the earlier write type is kept)</li>
+ *     <li>an UPSERT following an UPSERT is merged into it</li>
+ *     <li>a DELETE following an UPDATE replaces it</li>
+ * </ul>
+ * Anything else (two INSERTs, which must fail on the unique constraint, or a DELETE following an INSERT)
+ * is written as-is.
+ */
+class RowMutationCoalescer {
+    /* Position in the coalesced list of the latest mutation for each row */
+    private final Map<ByteSlice, Integer> rowPositions;
+    /* For each mutation produced by folding, the input mutations it stands for, from oldest to newest */
+    private final IdentityHashMap<KVPair, List<KVPair>> sources = Maps.newIdentityHashMap();
+    private int foldedCount;
+
+    RowMutationCoalescer(int expectedSize) {
+        this.rowPositions = Maps.newHashMapWithExpectedSize(expectedSize);
+    }
+
+    List<KVPair> coalesce(Collection<KVPair> mutations) throws IOException {
+        List<KVPair> coalesced = Lists.newArrayListWithCapacity(mutations.size());
+        for (KVPair mutation : mutations) {
+            ByteSlice row = mutation.rowKeySlice();
+            Integer position = rowPositions.get(row);
+            KVPair folded = position == null ? null : fold(coalesced.get(position), mutation);
+            if (folded == null) {
+                rowPositions.put(row, coalesced.size());
+                coalesced.add(mutation);
+            } else {
+                KVPair previous = coalesced.get(position);
+                List<KVPair> foldedSources = sources.remove(previous);
+                if (foldedSources == null) {
+                    foldedSources = Lists.newArrayListWithCapacity(2);
+                    foldedSources.add(previous);
+                }
+                foldedSources.add(mutation);
+                sources.put(folded, foldedSources);
+                coalesced.set(position, folded);
+                foldedCount++;
+            }
+        }
+        return coalesced;
+    }
+
+    /**
+     * @return the input mutations a coalesced mutation stands for, from oldest to newest,
+     * or null if it wasn't produced by folding
+     */
+    List<KVPair> sources(KVPair coalesced) {
+        return sources.get(coalesced);
+    }
+
+    /**
+     * @return the number of input mutations that were folded into another one
+     */
+    int foldedCount() {
+        return foldedCount;
+    }
+
+    /**
+     * @return the mutation that has the same effect as {@code previous} followed by {@code next},
+     * or null if they can't be folded
+     */
+    private static KVPair fold(KVPair previous, KVPair next) throws IOException {
+        KVPair.Type previousType = previous.getType();
+        switch (next.getType()) {
+            case UPDATE:
+                if (previousType == KVPair.Type.INSERT
+                        || previousType == KVPair.Type.UPSERT
+                        || previousType == KVPair.Type.UPDATE) {
+                    return merge(previous, next, previousType);
+                }
+                return null;
+            case UPSERT:
+                if (previousType == KVPair.Type.UPSERT) {
+                    return merge(previous, next, previousType);
+                }
+                return null;
+            case DELETE:
+                return previousType == KVPair.Type.UPDATE ? next : null;
+            default:
+                return null;
+        }
+    }
+
+    private static KVPair merge(KVPair previous, KVPair next, KVPair.Type type) throws IOException {
+        ByteSlice rowKey = next.rowKeySlice();
+        byte[] value = next.valueSlice().getByteCopy();
+        KVPair merged = new KVPair(rowKey.array(), rowKey.offset(), rowKey.length(), value, 0, value.length, type);
+        UpdateUtils.mergeUpdate(merged, previous);
+        return merged;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.writehandler;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryEncoder;
+import com.splicemachine.storage.index.BitIndex;
+import com.splicemachine.utils.ByteSlice;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+@Category(ArchitectureIndependent.class)
+public class RowMutationCoalescerTest {
+    private static final KryoPool kp = new KryoPool(1);
+
+    @Test
+    public void testDistinctRowsAreNotCoalesced() throws Exception {
+        KVPair a = encode("a", KVPair.Type.INSERT, 1, null);
+        KVPair b = encode("b", KVPair.Type.INSERT, 2, null);
+
+        RowMutationCoalescer coalescer = new RowMutationCoalescer(2);
+        List<KVPair> result = coalescer.coalesce(Arrays.asList(a, b));
+
+        Assert.assertEquals(Arrays.asList(a, b), result);
+        Assert.assertEquals(0, coalescer.foldedCount());
+        Assert.assertNull(coalescer.sources(a));
+    }
+
+    @Test
+    public void testUpdatesAreMergedIntoInsert() throws Exception {
+        KVPair insert = encode("a", KVPair.Type.INSERT, 1, 10);
+        KVPair other = encode("b", KVPair.Type.INSERT, 2, 20);
+        KVPair update1 = encode("a", KVPair.Type.UPDATE, 3, null);
+        KVPair update2 = encode("a", KVPair.Type.UPDATE, null, 30);
+
+        RowMutationCoalescer coalescer = new RowMutationCoalescer(4);
+        List<KVPair> result = coalescer.coalesce(Arrays.asList(insert, other, update1, update2));
+
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals(2, coalescer.foldedCount());
+        KVPair merged = result.get(0);
+        Assert.assertSame(other, result.get(1));
+        Assert.assertEquals(KVPair.Type.INSERT, merged.getType());
+        Assert.assertArrayEquals(insert.getRowKey(), merged.getRowKey());
+        Assert.assertEquals(Arrays.asList(insert, update1, update2), coalescer.sources(merged));
+        Assert.assertArrayEquals(new int[]{3, 30}, decode(merged));
+    }
+
+    @Test
+    public void testDeleteReplacesUpdate() throws Exception {
+        KVPair update = encode("a", KVPair.Type.UPDATE, 1, null);
+        KVPair delete = encode("a", KVPair.Type.DELETE, null, null);
+
+        RowMutationCoalescer coalescer = new RowMutationCoalescer(2);
+        List<KVPair> result = coalescer.coalesce(Arrays.asList(update, delete));
+
+        Assert.assertEquals(1, result.size());
+        Assert.assertSame(delete, result.get(0));
+        Assert.assertEquals(Arrays.asList(update, delete), coalescer.sources(delete));
+    }
+
+    @Test
+    public void testConflictingWritesAreNotCoalesced() throws Exception {
+        KVPair insert1 = encode("a", KVPair.Type.INSERT, 1, null);
+        KVPair insert2 = encode("a", KVPair.Type.INSERT, 2, null);
+        KVPair delete = encode("a", KVPair.Type.DELETE, null, null);
+
+        RowMutationCoalescer coalescer = new RowMutationCoalescer(3);
+        List<KVPair> result = coalescer.coalesce(Arrays.asList(insert1, insert2, delete));
+
+        Assert.assertEquals(Arrays.asList(insert1, insert2, delete), result);
+        Assert.assertEquals(0, coalescer.foldedCount());
+    }
+
+    private static KVPair encode(String row, KVPair.Type type, Integer first, Integer second) throws IOException {
+        BitSet setCols = new BitSet(2);
+        BitSet scalarCols = new BitSet(2);
+        BitSet empty = new BitSet();
+        if (first != null) {
+            setCols.set(0);
+            scalarCols.set(0);
+        }
+        if (second != null) {
+            setCols.set(1);
+            scalarCols.set(1);
+        }
+        EntryEncoder ee = EntryEncoder.create(kp, 2, setCols, scalarCols, empty, empty);
+        MultiFieldEncoder encoder = ee.getEntryEncoder();
+        if (first != null)
+            encoder.encodeNext(first);
+        if (second != null)
+            encoder.encodeNext(second);
+        return new KVPair(Encoding.encode(row), ee.encode(), type);
+    }
+
+    private static int[] decode(KVPair kvPair) throws IOException {
+        ByteSlice value = kvPair.valueSlice();
+        EntryDecoder decoder = new EntryDecoder(value.array(), value.offset(), value.length());
+        BitIndex index = decoder.getCurrentIndex();
+        MultiFieldDecoder fieldDecoder = decoder.getEntryDecoder();
+        int[] fields = new int[index.cardinality()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fieldDecoder.decodeNextInt();
+        }
+        return fields;
+    }
+}
@@ -145,6 +145,10 @@ public interface SConfiguration {
 
     String getKafkaBootstrapServers();
 
+    int getKafkaIngestBatchSize();
+
+    long getKafkaIngestBatchInterval();
+
     // OperationConfiguration
     int getSequenceBlockSize();
 
@@ -192,6 +196,8 @@ public interface SConfiguration {
 
     double getBulkImportSampleFraction();
 
+    boolean getBulkImportSinglePass();
+
     String getAuthorizationScheme();
 
     String getRangerServiceName();
@@ -396,6 +402,10 @@ public interface SConfiguration {
 
     long getControlExecutionRowLimit();
 
+    long getTriggerRowsSpillThreshold();
+
+    int getRegionAggregateMaxGroups();
+
     String getOlapLog4jConfig();
 
     Map<String, String> getOlapServerIsolatedRoles();
@@ -425,4 +435,10 @@ public interface SConfiguration {
     String getOlapServerMode();
 
     boolean getSparkAccumulatorsEnabled();
+
+    boolean getCoalesceRowMutations();
+
+    boolean getBatchConflictDetection();
+
+    int getReadResolverBatchSize();
 }
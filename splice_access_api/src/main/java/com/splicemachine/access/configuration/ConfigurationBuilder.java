@@ -220,9 +220,12 @@ public class ConfigurationBuilder {
     public boolean resolutionOnFlushes;
     public int olapClientRetries;
     public double bulkImportSampleFraction;
+    public boolean bulkImportSinglePass;
     public int bulkImportTasksPerRegion;
     public int regionToLoadPerTask;
     public long controlExecutionRowLimit;
+    public long triggerRowsSpillThreshold;
+    public int regionAggregateMaxGroups;
     public int olapShufflePartitions;
     public boolean sparkAccumulatorsEnabled;
     public String olapLog4jConfig;
@@ -234,6 +237,11 @@ public class ConfigurationBuilder {
     public boolean olapCompactionAutomaticallyPurgeOldUpdates;
     public String olapServerMode;
     public Durability durability;
+    public boolean coalesceRowMutations;
+    public boolean batchConflictDetection;
+    public int readResolverBatchSize;
+    public int kafkaIngestBatchSize;
+    public long kafkaIngestBatchInterval;
 
 
     /**
@@ -137,6 +137,18 @@ public class HBaseConfiguration implements ConfigurationDefault {
     public static final String MAX_EXECUTOR_CORES = "/maxExecutorCores";
 
 
+    /**
+     * Path in ZooKeeper for the watermarks of the commits made to tables, which verify the result caches.
+     * Defaults to /resultCacheWatermarks
+     */
+    public static final String RESULT_CACHE_WATERMARK_PATH = "/resultCacheWatermarks";
+
+    /**
+     * Path in ZooKeeper for registering the Kafka ingest jobs of the cluster.
+     * Defaults to /kafkaIngest
+     */
+    public static final String KAFKA_INGEST_PATH = "/kafkaIngest";
+
     public static final String DDL_PATH="/ddl";
     public static final String DDL_CHANGE_PATH="/ddlChange";
 
@@ -218,6 +230,20 @@ public class HBaseConfiguration implements ConfigurationDefault {
     public static final String KAFKA_BOOTSTRAP_SERVERS = "splice.kafka.bootstrapServers";
     public static final String DEFAULT_KAFKA_BOOTSTRAP_SERVERS = "localhost:9092";
 
+    /**
+     * The maximum number of records a Kafka ingest job writes to its table in one transaction.
+     * Defaults to 1000
+     */
+    public static final String KAFKA_INGEST_BATCH_SIZE = "splice.kafka.ingest.batchSize";
+    public static final int DEFAULT_KAFKA_INGEST_BATCH_SIZE = 1000;
+
+    /**
+     * The maximum time (in ms) a Kafka ingest job waits for records before writing a partial batch.
+     * Defaults to 1000 ms
+     */
+    public static final String KAFKA_INGEST_BATCH_INTERVAL = "splice.kafka.ingest.batchInterval";
+    public static final long DEFAULT_KAFKA_INGEST_BATCH_INTERVAL = 1000L;
+
     /**
      * The Path in zookeeper for storing the maximum reserved timestamp
      * from the ZkTimestampSource implementation.
@@ -322,5 +348,7 @@ public class HBaseConfiguration implements ConfigurationDefault {
         builder.replicationMonitorInterval = configurationSource.getInt(SPLICE_REPLICATION_MONITOR_INTERVAL, DEFAULT_SPLICE_REPLICATION_MONITOR_INTERVAL);
         builder.replicationHealthcheckScript = configurationSource.getString(SPLICE_REPLICATION_HEALTHCHECKSCRIPT, null);
         builder.kafkaBootstrapServers = configurationSource.getString(KAFKA_BOOTSTRAP_SERVERS, System.getProperty(KAFKA_BOOTSTRAP_SERVERS, DEFAULT_KAFKA_BOOTSTRAP_SERVERS));
+        builder.kafkaIngestBatchSize = configurationSource.getInt(KAFKA_INGEST_BATCH_SIZE, DEFAULT_KAFKA_INGEST_BATCH_SIZE);
+        builder.kafkaIngestBatchInterval = configurationSource.getLong(KAFKA_INGEST_BATCH_INTERVAL, DEFAULT_KAFKA_INGEST_BATCH_INTERVAL);
     }
 }
@@ -142,6 +142,14 @@ public class PipelineConfiguration implements ConfigurationDefault {
     public static final String BULK_IMPORT_SAMPLE_FRACTION = "splice.bulkImport.sample.fraction";
     private static final double DEFAULT_BULK_IMPORT_SAMPLE_FRACTION = 0.005d;
 
+    /**
+     * If true, bulk imports which sample their input parse it once: the encoded key/values of the table and its
+     * indexes are persisted to the executors' local storage, sampled for split points and then written to HFiles.
+     * Defaults to false
+     */
+    public static final String BULK_IMPORT_SINGLE_PASS = "splice.bulkImport.singlePass";
+    private static final boolean DEFAULT_BULK_IMPORT_SINGLE_PASS = false;
+
     public static final String BULK_IMPORT_TASKS_PER_REGION = "splice.bulkImport.tasks.perRegion";
     private static final int DEFAULT_BULK_IMPORT_TASKS_PER_REGION = 1;
 
@@ -149,6 +157,13 @@ public class PipelineConfiguration implements ConfigurationDefault {
     private static final int DEFAULT_REGION_TOLOAD_PER_TASK = 30;
 
 
+    /**
+     * If true, the region side of the write pipeline folds mutations to the same row within a single bulk
+     * write into one mutation before conflict detection and apply. Defaults to true
+     */
+    public static final String COALESCE_ROW_MUTATIONS = "splice.writer.coalesceRowMutations";
+    public static final boolean DEFAULT_COALESCE_ROW_MUTATIONS = true;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.maxIndependentWriteThreads = configurationSource.getInt(MAX_INDEPENDENT_WRITE_THREADS, DEFAULT_MAX_INDEPENDENT_WRITE_THREADS);
@@ -169,7 +184,9 @@ public class PipelineConfiguration implements ConfigurationDefault {
         builder.startupLockWaitPeriod = configurationSource.getLong(STARTUP_LOCK_WAIT_PERIOD, DEFAULT_STARTUP_LOCK_PERIOD);
 
         builder.bulkImportSampleFraction = configurationSource.getDouble(BULK_IMPORT_SAMPLE_FRACTION, DEFAULT_BULK_IMPORT_SAMPLE_FRACTION);
+        builder.bulkImportSinglePass = configurationSource.getBoolean(BULK_IMPORT_SINGLE_PASS, DEFAULT_BULK_IMPORT_SINGLE_PASS);
         builder.bulkImportTasksPerRegion = configurationSource.getInt(BULK_IMPORT_TASKS_PER_REGION, DEFAULT_BULK_IMPORT_TASKS_PER_REGION);
         builder.regionToLoadPerTask = configurationSource.getInt(REGION_TOLOAD_PER_TASK, DEFAULT_REGION_TOLOAD_PER_TASK);
+        builder.coalesceRowMutations = configurationSource.getBoolean(COALESCE_ROW_MUTATIONS, DEFAULT_COALESCE_ROW_MUTATIONS);
     }
 }
@@ -109,6 +109,8 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int replicationMonitorInterval;
     private final  String replicationHealthcheckScript;
     private final String kafkaBootstrapServers;
+    private final int kafkaIngestBatchSize;
+    private final long kafkaIngestBatchInterval;
 
     // OperationConfiguration
     private final  int sequenceBlockSize;
@@ -145,6 +147,7 @@ public final class SConfigurationImpl implements SConfiguration {
     private final boolean olapCompactionBlocking;
     private final boolean resolutionOnFlushes;
     private final double bulkImportSampleFraction;
+    private final boolean bulkImportSinglePass;
     private final int bulkImportTasksPerRegion;
     private final int regionToLoadPerTask;
     private final int rollForwardQueueSize;
@@ -226,6 +229,8 @@ public final class SConfigurationImpl implements SConfiguration {
     private final String storageFactoryHome;
     private final int nestedLoopJoinBatchSize;
     private final long controlExecutionRowLimit;
+    private final long triggerRowsSpillThreshold;
+    private final int regionAggregateMaxGroups;
     private final int maxCheckTableErrors;
     private final int recursiveQueryIterationLimit;
     private String metadataRestrictionEnabled;
@@ -253,6 +258,9 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  long regionMaxFileSize;
     private final  long tableSplitSleepInterval;
     private final  int splitsPerRegionMin;
+    private final boolean coalesceRowMutations;
+    private final boolean batchConflictDetection;
+    private final int readResolverBatchSize;
 
     // Gateway to hadoop config
     private final ConfigurationSource configSource;
@@ -477,6 +485,14 @@ public final class SConfigurationImpl implements SConfiguration {
     public String getKafkaBootstrapServers() {
         return kafkaBootstrapServers;
     }
+    @Override
+    public int getKafkaIngestBatchSize() {
+        return kafkaIngestBatchSize;
+    }
+    @Override
+    public long getKafkaIngestBatchInterval() {
+        return kafkaIngestBatchInterval;
+    }
 
     // OperationConfiguration
     @Override
@@ -561,6 +577,11 @@ public final class SConfigurationImpl implements SConfiguration {
         return bulkImportSampleFraction;
     }
 
+    @Override
+    public boolean getBulkImportSinglePass() {
+        return bulkImportSinglePass;
+    }
+
     @Override
     public int getBulkImportTasksPerRegion() {
         return bulkImportTasksPerRegion;
@@ -1074,6 +1095,8 @@ public final class SConfigurationImpl implements SConfiguration {
         hbaseSecurityAuthorization = builder.hbaseSecurityAuthorization;
         hbaseSecurityAuthentication = builder.hbaseSecurityAuthentication;
         kafkaBootstrapServers = builder.kafkaBootstrapServers;
+        kafkaIngestBatchSize = builder.kafkaIngestBatchSize;
+        kafkaIngestBatchInterval = builder.kafkaIngestBatchInterval;
         debugDumpBindTree = builder.debugDumpBindTree;
         debugDumpClassFile = builder.debugDumpClassFile;
         debugDumpOptimizedTree = builder.debugDumpOptimizedTree;
@@ -1157,7 +1180,10 @@ public final class SConfigurationImpl implements SConfiguration {
         storageFactoryHome = builder.storageFactoryHome;
         nestedLoopJoinBatchSize = builder.nestedLoopJoinBatchSize;
         controlExecutionRowLimit = builder.controlExecutionRowLimit;
+        triggerRowsSpillThreshold = builder.triggerRowsSpillThreshold;
+        regionAggregateMaxGroups = builder.regionAggregateMaxGroups;
         bulkImportSampleFraction = builder.bulkImportSampleFraction;
+        bulkImportSinglePass = builder.bulkImportSinglePass;
         bulkImportTasksPerRegion = builder.bulkImportTasksPerRegion;
         regionToLoadPerTask = builder.regionToLoadPerTask;
         ignoreMissingTxns = builder.ignoreMissingTxns;
@@ -1173,6 +1199,9 @@ public final class SConfigurationImpl implements SConfiguration {
         nativeSparkAggregationMode = builder.nativeSparkAggregationMode;
         newMergeJoin = builder.newMergeJoin;
         foreignKeyChecker = builder.foreignKeyChecker;
+        coalesceRowMutations = builder.coalesceRowMutations;
+        batchConflictDetection = builder.batchConflictDetection;
+        readResolverBatchSize = builder.readResolverBatchSize;
     }
 
     private static final Logger LOG = Logger.getLogger("splice.config");
@@ -1286,6 +1315,16 @@ public final class SConfigurationImpl implements SConfiguration {
         return controlExecutionRowLimit;
     }
 
+    @Override
+    public long getTriggerRowsSpillThreshold() {
+        return triggerRowsSpillThreshold;
+    }
+
+    @Override
+    public int getRegionAggregateMaxGroups() {
+        return regionAggregateMaxGroups;
+    }
+
     @Override
     public int getMaxCheckTableErrors() {
         return maxCheckTableErrors;
@@ -1310,4 +1349,19 @@ public final class SConfigurationImpl implements SConfiguration {
     public CompilerContext.NewMergeJoinExecutionType getNewMergeJoin() {
         return newMergeJoin;
     }
+
+    @Override
+    public boolean getCoalesceRowMutations() {
+        return coalesceRowMutations;
+    }
+
+    @Override
+    public boolean getBatchConflictDetection() {
+        return batchConflictDetection;
+    }
+
+    @Override
+    public int getReadResolverBatchSize() {
+        return readResolverBatchSize;
+    }
 }
@@ -177,6 +177,22 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String DURABILITY = "splice.txn.durability";
     public static final String DEFAULT_DURABILITY = "SYNC";
 
+    /**
+     * If true, the latest versions of all the rows of a bulk write that need conflict detection are
+     * fetched in a single ordered pass over the region, instead of one read per row.
+     */
+    public static final String BATCH_CONFLICT_DETECTION = "splice.txn.batchConflictDetection";
+    public static final boolean DEFAULT_BATCH_CONFLICT_DETECTION = true;
+
+    /**
+     * The maximum number of queued read-resolution events the asynchronous read resolver drains and
+     * resolves as a single batch. Events in a batch are grouped by region and transaction, so that each
+     * transaction is looked up once and the commit timestamps of its rows are written in a single bulk
+     * mutation.
+     */
+    public static final String READ_RESOLVER_BATCH_SIZE = "splice.txn.readresolver.batchSize";
+    public static final int DEFAULT_READ_RESOLVER_BATCH_SIZE = 1024;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.completedTxnConcurrency  = configurationSource.getInt(completedTxnConcurrency, DEFAULT_COMPLETED_TRANSACTION_CONCURRENCY);
@@ -210,6 +226,8 @@ public class SIConfigurations implements ConfigurationDefault {
         builder.rollForwardSecondWait  = configurationSource.getInt(ROLLFORWARD_SECOND_WAIT, DEFAULT_ROLLFORWARD_SECOND_WAIT);
         builder.rollForwardFirstThreads  = configurationSource.getInt(ROLLFORWARD_FIRST_THREADS, DEFAULT_ROLLFORWARD_FIRST_THREADS);
         builder.rollForwardSecondThreads = configurationSource.getInt(ROLLFORWARD_SECOND_THREADS, DEFAULT_ROLLFORWARD_SECOND_THREADS);
+        builder.batchConflictDetection = configurationSource.getBoolean(BATCH_CONFLICT_DETECTION, DEFAULT_BATCH_CONFLICT_DETECTION);
+        builder.readResolverBatchSize = configurationSource.getInt(READ_RESOLVER_BATCH_SIZE, DEFAULT_READ_RESOLVER_BATCH_SIZE);
 
         String durability = configurationSource.getString(DURABILITY, DEFAULT_DURABILITY);
         try {
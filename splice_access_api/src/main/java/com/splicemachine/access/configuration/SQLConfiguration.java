@@ -225,6 +225,16 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String CONTROL_EXECUTION_ROWS_LIMIT = "splice.controlExecution.rowsLimit";
     private static final int DEFAULT_CONTROL_EXECUTION_ROWS_LIMIT = 1000000;
 
+    // Number of transition rows of a statement trigger kept in memory when it runs in control, the rest
+    // are spilled to a local temporary file. 0 keeps them all in memory.
+    public static final String TRIGGER_ROWS_SPILL_THRESHOLD = "splice.execution.triggerRowsSpillThreshold";
+    private static final int DEFAULT_TRIGGER_ROWS_SPILL_THRESHOLD = 100000;
+
+    // Maximum number of groups a region may hold while it computes the partial aggregates of a grouped
+    // aggregate running in control. Regions with more groups return the rows instead. 0 disables the pushdown.
+    public static final String REGION_AGGREGATE_MAX_GROUPS = "splice.execution.regionAggregateMaxGroups";
+    private static final int DEFAULT_REGION_AGGREGATE_MAX_GROUPS = 10000;
+
     public static final String MAX_CHECK_TABLE_ERRORS="splice.max.checktable.error";
     private static final int DEFAULT_MAX_CHECK_TABLE_ERRORS = 1000;
 
@@ -313,6 +323,8 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.partitionserverPort = configurationSource.getInt(PARTITIONSERVER_PORT, DEFAULT_PARTITIONSERVER_PORT);
         builder.nestedLoopJoinBatchSize = configurationSource.getInt(NESTEDLOOPJOIN_BATCH_SIZE, DEFAULT_NESTEDLOOPJOIN_BATCH_SIZE);
         builder.controlExecutionRowLimit = configurationSource.getLong(CONTROL_EXECUTION_ROWS_LIMIT, DEFAULT_CONTROL_EXECUTION_ROWS_LIMIT);
+        builder.triggerRowsSpillThreshold = configurationSource.getLong(TRIGGER_ROWS_SPILL_THRESHOLD, DEFAULT_TRIGGER_ROWS_SPILL_THRESHOLD);
+        builder.regionAggregateMaxGroups = configurationSource.getInt(REGION_AGGREGATE_MAX_GROUPS, DEFAULT_REGION_AGGREGATE_MAX_GROUPS);
 
         // Where to place jar files...
         String defaultStorageFactoryHome;
@@ -16,8 +16,10 @@ package com.splicemachine.storage;
 
 import com.splicemachine.kvpair.KVPair;
 import com.splicemachine.metrics.MetricFactory;
+import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.Pair;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
@@ -106,6 +108,24 @@ public interface Partition extends AutoCloseable{
      */
     DataResult getLatest(byte[] key,DataResult previous, Object obj) throws IOException;
 
+    /**
+     * Fetches the latest version of all present cells for several rows, with the same semantics as
+     * {@link #getLatest(byte[], DataResult, Object)}. Implementations may fetch all the rows in a single
+     * ordered pass over the partition.
+     *
+     * @param sortedKeys the row keys to fetch, in ascending order. May contain duplicates.
+     * @param obj A ConflictRollForward object to pass in active transaction cache and fetch rolled back cells
+     * @return one result per key, in the same order as the keys. Results are not reused between rows.
+     * @throws IOException if something goes wrong
+     */
+    default List<DataResult> getLatest(List<ByteSlice> sortedKeys, Object obj) throws IOException{
+        List<DataResult> results=new ArrayList<>(sortedKeys.size());
+        for(ByteSlice key : sortedKeys){
+            results.add(getLatest(key.getByteCopy(),null,obj));
+        }
+        return results;
+    }
+
     Lock getRowLock(byte[] key,int keyOff,int keyLen) throws IOException;
 
     DataResultScanner openResultScanner(DataScan scan,MetricFactory metricFactory) throws IOException;
@@ -112,7 +112,20 @@ public class UpdateUtils {
         if (update.getType() != KVPair.Type.UPDATE && update.getType() != KVPair.Type.UPSERT)
             return;
 
-        EntryDecoder dataDecoder = new EntryDecoder(data.valueArray(), data.valueOffset(), data.valueLength());
+        mergeValues(update, data.valueArray(), data.valueOffset(), data.valueLength());
+    }
+
+    /**
+     * Merges the values of an earlier write to the same row into {@code update}. Fields present in
+     * {@code update} take precedence, fields only present in {@code previous} are carried over.
+     */
+    public static void mergeUpdate(KVPair update, KVPair previous) throws IOException {
+        ByteSlice previousSlice = previous.valueSlice();
+        mergeValues(update, previousSlice.array(), previousSlice.offset(), previousSlice.length());
+    }
+
+    private static void mergeValues(KVPair update, byte[] dataArray, int dataOffset, int dataLength) throws IOException {
+        EntryDecoder dataDecoder = new EntryDecoder(dataArray, dataOffset, dataLength);
         BitIndex dataIndex = dataDecoder.getCurrentIndex();
         ByteSlice updateSlice = update.valueSlice();
         EntryDecoder updateDecoder = new EntryDecoder(updateSlice.array(), updateSlice.offset(), updateSlice.length());
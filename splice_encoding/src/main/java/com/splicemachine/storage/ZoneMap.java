@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.storage.index.BitIndex;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Min/max/null-count statistics of the scalar, float and double columns of the packed rows written to a store
+ * file. The file is divided into zones of consecutive rows, each one covering a few HFile blocks. Every version
+ * of every packed row in a zone contributes to its statistics, so any value visible to any transaction in the rows
+ * of a zone lies between its min and max. A scan whose qualifiers can't be satisfied by any value of a zone can
+ * skip the rows it covers, see {@link ZonePredicate}.
+ *
+ * Values are stored as longs: scalar columns hold the value as encoded by the column serializer, float and double
+ * columns hold the bits of the value as a double.
+ */
+public class ZoneMap {
+    private static final byte VERSION = 1;
+
+    private final int[] positions;
+    private final Encoding.SpliceEncodingKind[] kinds;
+    private final List<Zone> zones;
+
+    private ZoneMap(int[] positions, Encoding.SpliceEncodingKind[] kinds, List<Zone> zones) {
+        this.positions = positions;
+        this.kinds = kinds;
+        this.zones = zones;
+    }
+
+    public List<Zone> getZones() {
+        return zones;
+    }
+
+    /**
+     * @return the index of the statistics of the column at {@code position} in the packed rows, or -1 if it
+     * isn't tracked by this zone map
+     */
+    public int columnIndex(int position) {
+        for (int i = 0; i < positions.length; i++) {
+            if (positions[i] == position)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the encoding of the column at {@code columnIndex}, {@link Encoding.SpliceEncodingKind#OTHER} if its
+     * rows were written with different encodings
+     */
+    public Encoding.SpliceEncodingKind getKind(int columnIndex) {
+        return kinds[columnIndex];
+    }
+
+    /**
+     * @return a rough estimate of the heap used by this zone map
+     */
+    public long estimatedSize() {
+        long size = 64 + positions.length * 8L;
+        for (Zone zone : zones) {
+            size += 64 + zone.firstRow.length + zone.lastRow.length + zone.nonNull.length * 24L;
+        }
+        return size;
+    }
+
+    /**
+     * The statistics of a range of rows, from {@code firstRow} to {@code lastRow} inclusive.
+     */
+    public static class Zone {
+        private final byte[] firstRow;
+        private final byte[] lastRow;
+        private final long cells;
+        private final long[] nonNull;
+        private final long[] min;
+        private final long[] max;
+
+        Zone(byte[] firstRow, byte[] lastRow, long cells, long[] nonNull, long[] min, long[] max) {
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.cells = cells;
+            this.nonNull = nonNull;
+            this.min = min;
+            this.max = max;
+        }
+
+        public byte[] getFirstRow() {
+            return firstRow;
+        }
+
+        public byte[] getLastRow() {
+            return lastRow;
+        }
+
+        /**
+         * @return the number of packed row versions in the zone
+         */
+        public long getCells() {
+            return cells;
+        }
+
+        /**
+         * @return the number of packed row versions in the zone with a non null value for the column
+         */
+        public long getNonNullCount(int columnIndex) {
+            // columns which started to be tracked after this zone was closed were always null in it
+            return columnIndex < nonNull.length ? nonNull[columnIndex] : 0;
+        }
+
+        /**
+         * @return the number of packed row versions in the zone without a value for the column, either because
+         * it is null or because the version is a partial update which doesn't change it
+         */
+        public long getNullCount(int columnIndex) {
+            return cells - getNonNullCount(columnIndex);
+        }
+
+        public long getMin(int columnIndex) {
+            return min[columnIndex];
+        }
+
+        public long getMax(int columnIndex) {
+            return max[columnIndex];
+        }
+    }
+
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeInt(positions.length);
+            for (int i = 0; i < positions.length; i++) {
+                out.writeInt(positions[i]);
+                out.writeByte(kinds[i].ordinal());
+            }
+            out.writeInt(zones.size());
+            for (Zone zone : zones) {
+                writeRow(out, zone.firstRow);
+                writeRow(out, zone.lastRow);
+                out.writeLong(zone.cells);
+                out.writeInt(zone.nonNull.length);
+                for (int i = 0; i < zone.nonNull.length; i++) {
+                    out.writeLong(zone.nonNull[i]);
+                    if (zone.nonNull[i] > 0) {
+                        out.writeLong(zone.min[i]);
+                        out.writeLong(zone.max[i]);
+                    }
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    public static ZoneMap fromBytes(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        byte version = in.readByte();
+        if (version != VERSION)
+            throw new IOException("Unknown zone map version " + version);
+        int columns = in.readInt();
+        int[] positions = new int[columns];
+        Encoding.SpliceEncodingKind[] kinds = new Encoding.SpliceEncodingKind[columns];
+        for (int i = 0; i < columns; i++) {
+            positions[i] = in.readInt();
+            kinds[i] = Encoding.SpliceEncodingKind.values()[in.readByte()];
+        }
+        int size = in.readInt();
+        List<Zone> zones = new ArrayList<>(size);
+        for (int z = 0; z < size; z++) {
+            byte[] firstRow = readRow(in);
+            byte[] lastRow = readRow(in);
+            long cells = in.readLong();
+            int zoneColumns = in.readInt();
+            long[] nonNull = new long[zoneColumns];
+            long[] min = new long[zoneColumns];
+            long[] max = new long[zoneColumns];
+            for (int i = 0; i < zoneColumns; i++) {
+                nonNull[i] = in.readLong();
+                if (nonNull[i] > 0) {
+                    min[i] = in.readLong();
+                    max[i] = in.readLong();
+                }
+            }
+            zones.add(new Zone(firstRow, lastRow, cells, nonNull, min, max));
+        }
+        return new ZoneMap(positions, kinds, Collections.unmodifiableList(zones));
+    }
+
+    private static void writeRow(DataOutput out, byte[] row) throws IOException {
+        out.writeInt(row.length);
+        out.write(row);
+    }
+
+    private static byte[] readRow(DataInput in) throws IOException {
+        byte[] row = new byte[in.readInt()];
+        in.readFully(row);
+        return row;
+    }
+
+    /**
+     * Compares two values of a column with the given encoding.
+     */
+    static int compare(Encoding.SpliceEncodingKind kind, long left, long right) {
+        if (kind == Encoding.SpliceEncodingKind.SCALAR)
+            return Long.compare(left, right);
+        double l = Double.longBitsToDouble(left);
+        double r = Double.longBitsToDouble(right);
+        return l < r ? -1 : (l > r ? 1 : 0);
+    }
+
+    /**
+     * @return the bits of {@code value} as stored in zone maps, with -0.0 folded onto 0.0 since they compare equal
+     */
+    public static long doubleBits(double value) {
+        return Double.doubleToLongBits(value == 0d ? 0d : value);
+    }
+
+    /**
+     * Builds the zone map of a store file from the cells written to it, in row order.
+     */
+    public static class Builder {
+        private final long zoneSize;
+        private final int maxColumns;
+        private final EntryDecoder entryDecoder = new EntryDecoder();
+        private final int[] positions;
+        private final Encoding.SpliceEncodingKind[] kinds;
+        private int columns;
+        private final List<Zone> zones = new ArrayList<>();
+        private boolean failed;
+
+        private byte[] firstRow;
+        private byte[] lastRow;
+        private long cells;
+        private long bytes;
+        private final long[] nonNull;
+        private final long[] min;
+        private final long[] max;
+
+        /**
+         * @param zoneSize   the number of bytes of packed rows after which a new zone is started
+         * @param maxColumns the maximum number of columns tracked, the first ones found are kept
+         */
+        public Builder(long zoneSize, int maxColumns) {
+            this.zoneSize = zoneSize;
+            this.maxColumns = maxColumns;
+            this.positions = new int[maxColumns];
+            this.kinds = new Encoding.SpliceEncodingKind[maxColumns];
+            this.nonNull = new long[maxColumns];
+            this.min = new long[maxColumns];
+            this.max = new long[maxColumns];
+        }
+
+        /**
+         * Add a packed row version to the zone map. Rows must be added in sort order.
+         */
+        public void add(byte[] row, int rowOffset, int rowLength, byte[] value, int offset, int length) {
+            if (failed)
+                return;
+            boolean sameRow = lastRow != null && Bytes.equals(lastRow, 0, lastRow.length, row, rowOffset, rowLength);
+            if (!sameRow) {
+                if (bytes >= zoneSize)
+                    finishZone();
+                lastRow = Arrays.copyOfRange(row, rowOffset, rowOffset + rowLength);
+                if (firstRow == null)
+                    firstRow = lastRow;
+            }
+            cells++;
+            bytes += rowLength + length;
+            try {
+                accumulate(value, offset, length);
+            } catch (RuntimeException e) {
+                // not a packed row, we can't tell anything about this file
+                failed = true;
+            }
+        }
+
+        /**
+         * @return the zone map, or null if some of the rows couldn't be decoded
+         */
+        public ZoneMap build() {
+            if (failed)
+                return null;
+            finishZone();
+            return new ZoneMap(Arrays.copyOf(positions, columns), Arrays.copyOf(kinds, columns),
+                    Collections.unmodifiableList(zones));
+        }
+
+        private void accumulate(byte[] value, int offset, int length) {
+            entryDecoder.set(value, offset, length);
+            BitIndex index = entryDecoder.getCurrentIndex();
+            MultiFieldDecoder decoder = entryDecoder.getEntryDecoder();
+            for (int position = index.nextSetBit(0); position >= 0; position = index.nextSetBit(position + 1)) {
+                Encoding.SpliceEncodingKind kind = kindOf(index, position);
+                int column = kind == Encoding.SpliceEncodingKind.OTHER ? -1 : column(position, kind);
+                if (column < 0 || entryDecoder.nextIsNull(position)) {
+                    entryDecoder.seekForward(decoder, position);
+                    continue;
+                }
+                long v;
+                switch (kind) {
+                    case SCALAR:
+                        v = decoder.decodeNextLong();
+                        break;
+                    case FLOAT:
+                        v = doubleBits(decoder.decodeNextFloat());
+                        break;
+                    default:
+                        v = doubleBits(decoder.decodeNextDouble());
+                }
+                if (nonNull[column]++ == 0) {
+                    min[column] = max[column] = v;
+                } else if (compare(kind, v, min[column]) < 0) {
+                    min[column] = v;
+                } else if (compare(kind, v, max[column]) > 0) {
+                    max[column] = v;
+                }
+            }
+        }
+
+        private static Encoding.SpliceEncodingKind kindOf(BitIndex index, int position) {
+            if (index.isScalarType(position))
+                return Encoding.SpliceEncodingKind.SCALAR;
+            if (index.isFloatType(position))
+                return Encoding.SpliceEncodingKind.FLOAT;
+            if (index.isDoubleType(position))
+                return Encoding.SpliceEncodingKind.DOUBLE;
+            return Encoding.SpliceEncodingKind.OTHER;
+        }
+
+        private int column(int position, Encoding.SpliceEncodingKind kind) {
+            for (int i = 0; i < columns; i++) {
+                if (positions[i] == position) {
+                    if (kinds[i] == kind)
+                        return i;
+                    // written with different encodings, we can't compare its values anymore
+                    kinds[i] = Encoding.SpliceEncodingKind.OTHER;
+                    return -1;
+                }
+            }
+            if (columns == maxColumns)
+                return -1;
+            positions[columns] = position;
+            kinds[columns] = kind;
+            return columns++;
+        }
+
+        private void finishZone() {
+            if (cells > 0) {
+                zones.add(new Zone(firstRow, lastRow, cells, Arrays.copyOf(nonNull, columns),
+                        Arrays.copyOf(min, columns), Arrays.copyOf(max, columns)));
+            }
+            firstRow = lastRow = null;
+            cells = bytes = 0;
+            Arrays.fill(nonNull, 0);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.encoding.Encoding;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A conjunction of conditions on the columns of the packed rows of a table, which tells whether the rows of a
+ * {@link ZoneMap.Zone} can satisfy the qualifiers of a scan. Conditions are only ever used to skip rows, a row in a
+ * zone which may match still has to be qualified by the scan.
+ */
+public class ZonePredicate {
+    public enum Operator {EQ, NE, LT, LE, GT, GE, IS_NULL, IS_NOT_NULL}
+
+    private final List<Condition> conditions = new ArrayList<>();
+
+    private static class Condition {
+        final int position;
+        final Encoding.SpliceEncodingKind kind;
+        final Operator operator;
+        final long value;
+
+        Condition(int position, Encoding.SpliceEncodingKind kind, Operator operator, long value) {
+            this.position = position;
+            this.kind = kind;
+            this.operator = operator;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Add a comparison of the scalar column at {@code position} with {@code value}, as encoded by its serializer.
+     */
+    public ZonePredicate compareScalar(int position, Operator operator, long value) {
+        conditions.add(new Condition(position, Encoding.SpliceEncodingKind.SCALAR, operator, value));
+        return this;
+    }
+
+    /**
+     * Add a comparison of the float or double column at {@code position} with {@code value}.
+     */
+    public ZonePredicate compareDouble(int position, Encoding.SpliceEncodingKind kind, Operator operator, double value) {
+        assert kind == Encoding.SpliceEncodingKind.FLOAT || kind == Encoding.SpliceEncodingKind.DOUBLE;
+        conditions.add(new Condition(position, kind, operator, ZoneMap.doubleBits(value)));
+        return this;
+    }
+
+    /**
+     * Add an IS NULL or IS NOT NULL test of the column at {@code position}.
+     */
+    public ZonePredicate testNull(int position, boolean isNull) {
+        conditions.add(new Condition(position, Encoding.SpliceEncodingKind.OTHER,
+                isNull ? Operator.IS_NULL : Operator.IS_NOT_NULL, 0));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return conditions.isEmpty();
+    }
+
+    public int size() {
+        return conditions.size();
+    }
+
+    /**
+     * @return false if no row of {@code zone} can satisfy all the conditions. All the versions of a row in a store
+     * file are in the same zone, but the versions of a row in different files have to be checked one condition at
+     * a time, see {@link #mayMatch(int, ZoneMap, ZoneMap.Zone)}
+     */
+    public boolean mayMatch(ZoneMap zoneMap, ZoneMap.Zone zone) {
+        for (int i = 0; i < conditions.size(); i++) {
+            if (!mayMatch(i, zoneMap, zone))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return false if no row of {@code zone} can satisfy the condition at {@code index}
+     */
+    public boolean mayMatch(int index, ZoneMap zoneMap, ZoneMap.Zone zone) {
+        Condition condition = conditions.get(index);
+        int column = zoneMap.columnIndex(condition.position);
+        if (column < 0)
+            return true;
+        Encoding.SpliceEncodingKind kind = zoneMap.getKind(column);
+        if (kind == Encoding.SpliceEncodingKind.OTHER)
+            return true;
+        long nonNull = zone.getNonNullCount(column);
+        switch (condition.operator) {
+            case IS_NULL:
+                return zone.getNullCount(column) > 0;
+            case IS_NOT_NULL:
+                return nonNull > 0;
+            default:
+                if (kind != condition.kind)
+                    return true;
+                // nulls never satisfy a comparison
+                return nonNull > 0 && mayMatch(condition,
+                        ZoneMap.compare(kind, zone.getMin(column), condition.value),
+                        ZoneMap.compare(kind, zone.getMax(column), condition.value));
+        }
+    }
+
+    /**
+     * @param min the comparison of the minimum value of the zone with the value of the condition
+     * @param max the comparison of the maximum value of the zone with the value of the condition
+     */
+    private static boolean mayMatch(Condition condition, int min, int max) {
+        switch (condition.operator) {
+            case EQ:
+                return min <= 0 && max >= 0;
+            case NE:
+                return min != 0 || max != 0;
+            case LT:
+                return min < 0;
+            case LE:
+                return min <= 0;
+            case GT:
+                return max > 0;
+            case GE:
+                return max >= 0;
+            default:
+                return true;
+        }
+    }
+
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(conditions.size());
+            for (Condition condition : conditions) {
+                out.writeInt(condition.position);
+                out.writeByte(condition.kind.ordinal());
+                out.writeByte(condition.operator.ordinal());
+                out.writeLong(condition.value);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    public static ZonePredicate fromBytes(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        ZonePredicate predicate = new ZonePredicate();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            int position = in.readInt();
+            Encoding.SpliceEncodingKind kind = Encoding.SpliceEncodingKind.values()[in.readByte()];
+            Operator operator = Operator.values()[in.readByte()];
+            predicate.conditions.add(new Condition(position, kind, operator, in.readLong()));
+        }
+        return predicate;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class ZoneMapTest {
+    private static KryoPool defaultPool = new KryoPool(100);
+
+    /**
+     * Rows have a scalar column 0 equal to the row number, a double column 1 equal to the row number divided by
+     * two which is null on rows multiple of 10 and a string column 2.
+     */
+    private static ZoneMap buildZoneMap(int rows, long zoneSize, int maxColumns) throws Exception {
+        ZoneMap.Builder builder = new ZoneMap.Builder(zoneSize, maxColumns);
+        for (int i = 0; i < rows; i++) {
+            byte[] row = Bytes.toBytes(String.format("%05d", i));
+            byte[] value = encode(i, i % 10 == 0 ? null : i / 2d, "row" + i);
+            builder.add(row, 0, row.length, value, 0, value.length);
+        }
+        return builder.build();
+    }
+
+    private static byte[] encode(long scalar, Double d, String s) {
+        BitSet setBits = new BitSet(3);
+        setBits.set(0);
+        if (d != null)
+            setBits.set(1);
+        setBits.set(2);
+        BitSet scalarFields = new BitSet(3);
+        scalarFields.set(0);
+        BitSet doubleFields = new BitSet(3);
+        doubleFields.set(1);
+        EntryEncoder encoder = EntryEncoder.create(defaultPool, 3, setBits, scalarFields, new BitSet(3), doubleFields);
+        MultiFieldEncoder fields = encoder.getEntryEncoder();
+        fields.encodeNext(scalar);
+        if (d != null)
+            fields.encodeNext(d);
+        fields.encodeNext(s);
+        return encoder.encode();
+    }
+
+    private static int matchingZones(ZoneMap zoneMap, ZonePredicate predicate) {
+        int matching = 0;
+        for (ZoneMap.Zone zone : zoneMap.getZones()) {
+            if (predicate.mayMatch(zoneMap, zone))
+                matching++;
+        }
+        return matching;
+    }
+
+    @Test
+    public void tracksMinMaxAndNullsPerZone() throws Exception {
+        ZoneMap zoneMap = buildZoneMap(100, 200, 8);
+        List<ZoneMap.Zone> zones = zoneMap.getZones();
+        Assert.assertTrue("Expected several zones", zones.size() > 1);
+        Assert.assertEquals("The string column isn't tracked", -1, zoneMap.columnIndex(2));
+
+        int scalar = zoneMap.columnIndex(0);
+        int dbl = zoneMap.columnIndex(1);
+        Assert.assertEquals(Encoding.SpliceEncodingKind.SCALAR, zoneMap.getKind(scalar));
+        Assert.assertEquals(Encoding.SpliceEncodingKind.DOUBLE, zoneMap.getKind(dbl));
+
+        long cells = 0;
+        long nulls = 0;
+        long expectedMin = 0;
+        for (ZoneMap.Zone zone : zones) {
+            Assert.assertEquals(expectedMin, zone.getMin(scalar));
+            Assert.assertEquals(Bytes.toString(zone.getFirstRow()), String.format("%05d", zone.getMin(scalar)));
+            Assert.assertEquals(Bytes.toString(zone.getLastRow()), String.format("%05d", zone.getMax(scalar)));
+            Assert.assertEquals(zone.getCells(), zone.getNonNullCount(scalar));
+            expectedMin = zone.getMax(scalar) + 1;
+            cells += zone.getCells();
+            nulls += zone.getNullCount(dbl);
+        }
+        Assert.assertEquals(100, cells);
+        Assert.assertEquals(10, nulls);
+    }
+
+    @Test
+    public void predicatesSkipZones() throws Exception {
+        ZoneMap zoneMap = buildZoneMap(100, 200, 8);
+        int zones = zoneMap.getZones().size();
+
+        Assert.assertEquals(0, matchingZones(zoneMap, new ZonePredicate().compareScalar(0, ZonePredicate.Operator.EQ, 150)));
+        Assert.assertEquals(1, matchingZones(zoneMap, new ZonePredicate().compareScalar(0, ZonePredicate.Operator.EQ, 42)));
+        Assert.assertEquals(0, matchingZones(zoneMap, new ZonePredicate().compareScalar(0, ZonePredicate.Operator.LT, 0)));
+        Assert.assertEquals(1, matchingZones(zoneMap, new ZonePredicate().compareScalar(0, ZonePredicate.Operator.LE, 0)));
+        Assert.assertEquals(1, matchingZones(zoneMap, new ZonePredicate().compareScalar(0, ZonePredicate.Operator.GE, 99)));
+        Assert.assertEquals(0, matchingZones(zoneMap, new ZonePredicate().compareScalar(0, ZonePredicate.Operator.GT, 99)));
+        Assert.assertEquals(zones, matchingZones(zoneMap, new ZonePredicate().compareScalar(0, ZonePredicate.Operator.NE, 42)));
+
+        Assert.assertEquals(0, matchingZones(zoneMap, new ZonePredicate()
+                .compareDouble(1, Encoding.SpliceEncodingKind.DOUBLE, ZonePredicate.Operator.GT, 49.5)));
+        Assert.assertEquals(1, matchingZones(zoneMap, new ZonePredicate()
+                .compareDouble(1, Encoding.SpliceEncodingKind.DOUBLE, ZonePredicate.Operator.GE, 49.5)));
+
+        // conditions are and-ed
+        Assert.assertEquals(0, matchingZones(zoneMap, new ZonePredicate()
+                .compareScalar(0, ZonePredicate.Operator.LT, 10)
+                .compareScalar(0, ZonePredicate.Operator.GT, 90)));
+
+        // untracked columns and mismatched encodings never skip anything
+        Assert.assertEquals(zones, matchingZones(zoneMap, new ZonePredicate().compareScalar(2, ZonePredicate.Operator.EQ, 42)));
+        Assert.assertEquals(zones, matchingZones(zoneMap, new ZonePredicate()
+                .compareDouble(0, Encoding.SpliceEncodingKind.DOUBLE, ZonePredicate.Operator.EQ, -1)));
+
+        Assert.assertEquals(zones, matchingZones(zoneMap, new ZonePredicate().testNull(0, false)));
+        Assert.assertEquals(0, matchingZones(zoneMap, new ZonePredicate().testNull(0, true)));
+    }
+
+    @Test
+    public void limitsTrackedColumns() throws Exception {
+        ZoneMap zoneMap = buildZoneMap(10, 200, 1);
+        Assert.assertEquals(0, zoneMap.columnIndex(0));
+        Assert.assertEquals(-1, zoneMap.columnIndex(1));
+    }
+
+    @Test
+    public void roundTrips() throws Exception {
+        ZoneMap zoneMap = buildZoneMap(100, 200, 8);
+        ZoneMap copy = ZoneMap.fromBytes(zoneMap.toBytes());
+        Assert.assertEquals(zoneMap.getZones().size(), copy.getZones().size());
+        Assert.assertArrayEquals(zoneMap.getZones().get(1).getFirstRow(), copy.getZones().get(1).getFirstRow());
+
+        ZonePredicate predicate = ZonePredicate.fromBytes(new ZonePredicate()
+                .compareScalar(0, ZonePredicate.Operator.EQ, 42).toBytes());
+        Assert.assertEquals(1, matchingZones(copy, predicate));
+    }
+}
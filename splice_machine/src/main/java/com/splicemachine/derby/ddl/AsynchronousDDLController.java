@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 
@@ -36,7 +37,7 @@ import com.splicemachine.pipeline.Exceptions;
 /**
  * Used on the node where DDL changes are initiated to communicate changes to other nodes.
  */
-public class AsynchronousDDLController implements DDLController, CommunicationListener {
+public class AsynchronousDDLController implements DDLController, CommunicationListener, DDLCoordinationManagement {
 
     private static final Logger LOG = Logger.getLogger(AsynchronousDDLController.class);
 
@@ -51,6 +52,13 @@ public class AsynchronousDDLController implements DDLController, CommunicationLi
     private final Lock notificationLock;
     private final Condition notificationSignal;
 
+    private final AtomicLong acknowledgedChanges = new AtomicLong();
+    private final AtomicLong totalFailedChanges = new AtomicLong();
+    private final AtomicLong totalTimedOutChanges = new AtomicLong();
+    private final AtomicLong totalAcknowledgmentLatency = new AtomicLong();
+    private final AtomicLong maxAcknowledgmentLatency = new AtomicLong();
+    private volatile long lastAcknowledgmentLatency;
+
     public AsynchronousDDLController(DDLCommunicator communicator,
                                      LockFactory lockFactory,
                                      Clock clock,
@@ -79,6 +87,7 @@ public class AsynchronousDDLController implements DDLController, CommunicationLi
 
     @Override
     public String notifyMetadataChange(DDLChange change) throws StandardException {
+        long notifyTimestamp = clock.currentTimeMillis();
         String changeId = communicator.createChangeNode(change);
 
         long availableTime =maximumWaitTime;
@@ -90,11 +99,13 @@ public class AsynchronousDDLController implements DDLController, CommunicationLi
             finishedServers = communicator.completedListeners(changeId,this);
             if (finishedServers.containsAll(activeServers)) {
                 // everybody responded, leave loop
+                recordAcknowledgment(clock.currentTimeMillis() - notifyTimestamp);
                 return changeId;
             }
 
             for (String finishedServer: finishedServers) {
                 if (finishedServer.startsWith(DDLConfiguration.ERROR_TAG)) {
+                    totalFailedChanges.incrementAndGet();
                     String errorMessage = communicator.getErrorMessage(changeId,finishedServer);
                     throw StandardException.plainWrapException(new IOException(errorMessage));
                 }
@@ -115,6 +126,7 @@ public class AsynchronousDDLController implements DDLController, CommunicationLi
             elapsedTime+=(stopTimestamp-startTimestamp);
         }
 
+        totalTimedOutChanges.incrementAndGet();
         logMissingServers(changeId, activeServers, finishedServers);
         communicator.deleteChangeNode(changeId);
         throw ErrorState.DDL_TIMEOUT.newException(elapsedTime, maximumWaitTime);
@@ -139,8 +151,48 @@ public class AsynchronousDDLController implements DDLController, CommunicationLi
         }
     }
 
+    @Override
+    public long getTotalAcknowledgedChanges(){
+        return acknowledgedChanges.get();
+    }
+
+    @Override
+    public long getTotalFailedChanges(){
+        return totalFailedChanges.get();
+    }
+
+    @Override
+    public long getTotalTimedOutChanges(){
+        return totalTimedOutChanges.get();
+    }
+
+    @Override
+    public long getLastAcknowledgmentLatencyMs(){
+        return lastAcknowledgmentLatency;
+    }
+
+    @Override
+    public long getMaxAcknowledgmentLatencyMs(){
+        return maxAcknowledgmentLatency.get();
+    }
+
+    @Override
+    public double getAverageAcknowledgmentLatencyMs(){
+        long changes = acknowledgedChanges.get();
+        return changes==0 ? 0d : (double)totalAcknowledgmentLatency.get()/changes;
+    }
+
     /* ****************************************************************************************************************/
     /*private helper methods*/
+    private void recordAcknowledgment(long latency){
+        lastAcknowledgmentLatency = latency;
+        maxAcknowledgmentLatency.accumulateAndGet(latency, Math::max);
+        totalAcknowledgmentLatency.addAndGet(latency);
+        acknowledgedChanges.incrementAndGet();
+        if(LOG.isDebugEnabled())
+            LOG.debug(String.format("All servers acknowledged the change in %d ms", latency));
+    }
+
     private void logMissingServers(String changeId, Collection<String> activeServers,Collection<String> finishedServers){
         Collection<String> missingServers = new LinkedList<>();
         for(String activeServer:activeServers){
@@ -62,8 +62,10 @@ import org.apache.log4j.Logger;
 
 import java.io.*;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -457,9 +459,8 @@ public class DDLUtils {
             cache.oidSchemaCacheRemove(ProtoUtil.getDerbyUUID(uso.getSchemaUUID()));
             // clear permission cache as it has out-of-date permission info for the schema
             cache.clearPermissionCache();
-            // clear  TableDescriptor cache as it may reference the schema with an out-of-date authorization id
-            cache.clearOidTdCache();
-            cache.clearNameTdCache();
+            // remove the TableDescriptors of the schema, they reference it with an out-of-date authorization id
+            cache.tdCacheRemoveSchema(ProtoUtil.getDerbyUUID(uso.getSchemaUUID()));
         });
     }
 
@@ -467,6 +468,11 @@ public class DDLUtils {
         preIndex(change, dd, dm, DependencyManager.CREATE_INDEX, change.getTentativeIndex().getTable().getTableUuid());
     }
 
+    public static void preCreateMaterializedView(DDLMessage.DDLChange change, DataDictionary dd, DependencyManager dm) throws StandardException {
+        // statements over the base table may now be rewritten to read the materialized view
+        preIndex(change, dd, dm, DependencyManager.CREATE_INDEX, change.getMaterializedView().getTable().getTableUuid());
+    }
+
     public static void preDropIndex(DDLMessage.DDLChange change, DataDictionary dd, DependencyManager dm, LanguageConnectionContext lcc) throws StandardException {
         if (LOG.isDebugEnabled())
             SpliceLogUtils.debug(LOG,"preDropIndex with change=%s",change);
@@ -1028,6 +1034,9 @@ public class DDLUtils {
             case DROP_INDEX:
                 preDropIndex(change,dd,dm, lcc);
                 break;
+            case CREATE_MATERIALIZED_VIEW:
+                preCreateMaterializedView(change,dd,dm);
+                break;
             case DROP_SEQUENCE:
                 preDropSequence(change,dd,dm, lcc);
                 break;
@@ -1137,6 +1146,7 @@ public class DDLUtils {
                 break;
             case CREATE_ALIAS:
             case CREATE_VIEW:
+            case DROP_MATERIALIZED_VIEW:
                 break;
             case LEAVE_RESTORE_MODE:
                 preLeaveRestore(change, dd);
@@ -1153,4 +1163,76 @@ public class DDLUtils {
         }
 
     }
+
+    /**
+     * Invalidate the cached results a DDL change makes stale. Only the results read from the tables the change
+     * carries are dropped; changes which don't say which tables they affect clear the whole result cache.
+     */
+    public static void invalidateResultCache(DDLMessage.DDLChange change, DataDictionaryCache cache) {
+        Collection<UUID> tables = getAffectedTables(change);
+        if (tables == null)
+            cache.clearResultCache();
+        else if (!tables.isEmpty())
+            cache.resultCacheInvalidate(tables);
+    }
+
+    /**
+     * @return the tables whose contents or shape a DDL change affects, an empty collection if it affects none, or
+     * null if the change doesn't tell which ones
+     */
+    public static Collection<UUID> getAffectedTables(DDLMessage.DDLChange change) {
+        switch(change.getDdlChangeType()){
+            case CREATE_TABLE:
+            case CREATE_SCHEMA:
+            case CREATE_ROLE:
+            case CREATE_TRIGGER:
+            case ALTER_STATS:
+                return Collections.emptyList();
+            case MULTIPLE_CHANGES:
+                List<UUID> tables = new ArrayList<>();
+                for (DDLMessage.DDLChange subChange : change.getChangeList()) {
+                    Collection<UUID> subTables = getAffectedTables(subChange);
+                    if (subTables == null)
+                        return null;
+                    tables.addAll(subTables);
+                }
+                return tables;
+            case ALTER_TABLE:
+                return getDerbyUUIDs(change.getAlterTable().getTableIdList());
+            case RENAME_TABLE:
+                return Collections.singletonList(ProtoUtil.getDerbyUUID(change.getRenameTable().getTableId()));
+            case RENAME_COLUMN:
+                return Collections.singletonList(ProtoUtil.getDerbyUUID(change.getRenameColumn().getTableId()));
+            case RENAME_INDEX:
+                return Collections.singletonList(ProtoUtil.getDerbyUUID(change.getRenameIndex().getTableId()));
+            case DROP_INDEX:
+                return Collections.singletonList(ProtoUtil.getDerbyUUID(change.getDropIndex().getTableUUID()));
+            case DROP_TABLE:
+                return change.getDropTable().hasTableId()
+                        ? Collections.singletonList(ProtoUtil.getDerbyUUID(change.getDropTable().getTableId()))
+                        : null;
+            case TRUNCATE_TABLE:
+                return change.getTruncateTable().hasTableId()
+                        ? Collections.singletonList(ProtoUtil.getDerbyUUID(change.getTruncateTable().getTableId()))
+                        : null;
+            case CREATE_INDEX:
+                return change.getTentativeIndex().getTable().hasTableUuid()
+                        ? Collections.singletonList(ProtoUtil.getDerbyUUID(change.getTentativeIndex().getTable().getTableUuid()))
+                        : null;
+            case CREATE_MATERIALIZED_VIEW:
+                return change.getMaterializedView().getTable().hasTableUuid()
+                        ? Collections.singletonList(ProtoUtil.getDerbyUUID(change.getMaterializedView().getTable().getTableUuid()))
+                        : null;
+            default:
+                return null;
+        }
+    }
+
+    private static List<UUID> getDerbyUUIDs(List<DerbyMessage.UUID> uuids) {
+        List<UUID> result = new ArrayList<>(uuids.size());
+        for (DerbyMessage.UUID uuid : uuids) {
+            result.add(ProtoUtil.getDerbyUUID(uuid));
+        }
+        return result;
+    }
 }
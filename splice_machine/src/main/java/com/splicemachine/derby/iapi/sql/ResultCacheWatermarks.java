@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.iapi.sql;
+
+import com.splicemachine.db.iapi.error.StandardException;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Collection;
+
+/**
+ * Cluster-wide watermarks of the commits made to tables, so a server can verify that the results kept in its result
+ * cache are current even when the tables they were read from are written through other servers.
+ *
+ * A transaction which wrote to tables announces itself before it commits and publishes its commit timestamp after.
+ * An announcement outlives the server which made it, until the state of its transaction is resolved.
+ */
+@ThreadSafe
+public interface ResultCacheWatermarks{
+
+    /**
+     * The key of the writes which may have modified any table.
+     */
+    String ALL_TABLES="ALL";
+
+    /**
+     * Announce that the transaction {@code txnId}, which wrote to {@code tables}, is about to commit.
+     *
+     * @throws StandardException if the announcement can't be made, the transaction must not commit
+     */
+    void beforeCommit(Collection<String> tables,long txnId) throws StandardException;
+
+    /**
+     * Publish the commit timestamp of the transaction {@code txnId} as the watermark of {@code tables}, and withdraw
+     * its announcement. Both may happen after this returns, the announcement covers the commit until then.
+     */
+    void afterCommit(Collection<String> tables,long txnId,long commitTimestamp);
+
+    /**
+     * @return true if no transaction which wrote to {@code tables} committed after {@code timestamp}, false if one
+     * did or if it can't be verified
+     */
+    boolean isCurrent(Collection<String> tables,long timestamp);
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.iapi.sql;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+public class ResultCacheWatermarksService{
+    private static volatile ResultCacheWatermarks watermarks;
+
+    public static ResultCacheWatermarks loadWatermarks(){
+        ResultCacheWatermarks w=watermarks;
+        if(w==null){
+            w=loadWatermarksSync();
+        }
+        return w;
+    }
+
+    private static synchronized ResultCacheWatermarks loadWatermarksSync(){
+        ResultCacheWatermarks w=watermarks;
+        if(w==null){
+            ServiceLoader<ResultCacheWatermarks> load=ServiceLoader.load(ResultCacheWatermarks.class);
+            Iterator<ResultCacheWatermarks> iter=load.iterator();
+            if(!iter.hasNext())
+                throw new IllegalStateException("No ResultCacheWatermarks service found!");
+            w=watermarks=iter.next();
+            if(iter.hasNext())
+                throw new IllegalStateException("Only one ResultCacheWatermarks service is allowed!");
+        }
+        return w;
+    }
+}
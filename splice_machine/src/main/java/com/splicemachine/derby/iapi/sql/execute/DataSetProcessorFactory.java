@@ -20,6 +20,7 @@ import com.splicemachine.db.iapi.sql.conn.ControlExecutionLimiter;
 import com.splicemachine.derby.impl.sql.execute.operations.SpliceBaseOperation;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.DistributedDataSetProcessor;
+import com.splicemachine.derby.stream.iapi.RegionAggregateClient;
 import com.splicemachine.derby.stream.iapi.RemoteQueryClient;
 
 import javax.annotation.Nullable;
@@ -74,4 +75,9 @@ public interface DataSetProcessorFactory{
     RemoteQueryClient getRemoteQueryClient(SpliceBaseOperation operation);
 
     ControlExecutionLimiter getControlExecutionLimiter(Activation activation) throws StandardException;
+
+    /**
+     * @return the client aggregating the rows of a table on its regions, for grouped aggregates running in control
+     */
+    RegionAggregateClient getRegionAggregateClient();
 }
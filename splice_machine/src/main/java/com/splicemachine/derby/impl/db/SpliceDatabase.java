@@ -369,9 +369,13 @@ public class SpliceDatabase extends BasicDatabase{
                 DataDictionary dataDictionary=getDataDictionary();
                 DependencyManager dependencyManager=dataDictionary.getDependencyManager();
                 DDLUtils.dispatchChangeAction(change, dataDictionary, dependencyManager, null);
+                // DDL changes data without the commits the result cache tracks, e.g. TRUNCATE TABLE
+                DDLUtils.invalidateResultCache(change, dataDictionary.getDataDictionaryCache());
                 final List<DDLAction> ddlActions = new ArrayList<>();
                 ddlActions.add(new AddIndexToPipeline());
                 ddlActions.add(new DropIndexFromPipeline());
+                ddlActions.add(new AddMaterializedViewToPipeline());
+                ddlActions.add(new DropMaterializedViewFromPipeline());
                 ddlActions.add(new AddForeignKeyToPipeline());
                 ddlActions.add(new DropForeignKeyFromPipeline());
                 ddlActions.add(new AddUniqueConstraintToPipeline());
@@ -385,6 +389,7 @@ public class SpliceDatabase extends BasicDatabase{
             public void changeSuccessful(String changeId,DDLChange change) throws StandardException{
                 DataDictionary dataDictionary=getDataDictionary();
                 DependencyManager dependencyManager=dataDictionary.getDependencyManager();
+                DDLUtils.invalidateResultCache(change, dataDictionary.getDataDictionaryCache());
                 switch(change.getDdlChangeType()){
                     case NOTIFY_JAR_LOADER:
                         DDLUtils.postNotifyJarLoader(change,dataDictionary,dependencyManager);
@@ -39,6 +39,7 @@ import com.splicemachine.db.impl.sql.compile.DeleteNode;
 import com.splicemachine.db.impl.sql.compile.InsertNode;
 import com.splicemachine.db.impl.sql.execute.IteratorNoPutResultSet;
 import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.actions.CreateMaterializedViewConstantOperation;
 import com.splicemachine.derby.utils.DataDictionaryUtils;
 import com.splicemachine.derby.utils.EngineUtils;
 import com.splicemachine.derby.procedures.SpliceAdmin;
@@ -712,6 +713,10 @@ public class HdfsImport {
             try {
                 TableDescriptor td = DataDictionaryUtils.getTableDescriptor(lcc, schemaName, tableName);
                 tableName = td.getName();
+                // HFiles are loaded without going through the write pipeline, which maintains materialized views
+                if (bulkImportDirectory != null && !Boolean.parseBoolean(samplingOnly) && !Boolean.parseBoolean(outputKeysOnly)) {
+                    CreateMaterializedViewConstantOperation.markMaterializedViewsStale(lcc, td);
+                }
             }
             catch (StandardException e) {
                 throw new SQLException(e);
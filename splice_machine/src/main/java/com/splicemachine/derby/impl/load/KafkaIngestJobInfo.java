@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.load;
+
+/**
+ * A snapshot of the progress of a Kafka ingest job.
+ */
+public class KafkaIngestJobInfo {
+    private final String jobId;
+    private final String schemaName;
+    private final String tableName;
+    private final String topicName;
+    private final int partitions;
+    private final String state;
+    private final long startTime;
+    private final long rowsIngested;
+    private final long batches;
+    private final long rowsPerSecond;
+    private final long offsetLag;
+    private final long lagMillis;
+    private final String lastError;
+
+    public KafkaIngestJobInfo(String jobId, String schemaName, String tableName, String topicName, int partitions,
+                              String state, long startTime, long rowsIngested, long batches, long rowsPerSecond,
+                              long offsetLag, long lagMillis, String lastError) {
+        this.jobId = jobId;
+        this.schemaName = schemaName;
+        this.tableName = tableName;
+        this.topicName = topicName;
+        this.partitions = partitions;
+        this.state = state;
+        this.startTime = startTime;
+        this.rowsIngested = rowsIngested;
+        this.batches = batches;
+        this.rowsPerSecond = rowsPerSecond;
+        this.offsetLag = offsetLag;
+        this.lagMillis = lagMillis;
+        this.lastError = lastError;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getSchemaName() {
+        return schemaName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getTopicName() {
+        return topicName;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getRowsIngested() {
+        return rowsIngested;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * @return the rows written per second over the last batches
+     */
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    /**
+     * @return the number of records of the topic which are not written yet
+     */
+    public long getOffsetLag() {
+        return offsetLag;
+    }
+
+    /**
+     * @return the time between the append of the last written record to the topic and the commit of its batch
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
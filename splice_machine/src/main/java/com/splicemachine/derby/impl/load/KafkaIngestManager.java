@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.load;
+
+import com.splicemachine.db.iapi.error.StandardException;
+
+import java.util.List;
+
+/**
+ * Runs the continuous ingest jobs of this server, each of which consumes the partitions of a Kafka topic
+ * and writes its records to a table.
+ * <p/>
+ * Records are written in micro-batches, and the next offset of each partition is stored in the
+ * {@link #OFFSETS_TABLE} of the table's schema in the same transaction as the rows of the batch, so a
+ * job restarted after a failure resumes exactly where the last committed batch ended.
+ */
+public interface KafkaIngestManager {
+
+    String OFFSETS_TABLE = "KAFKA_INGEST_OFFSETS";
+
+    /**
+     * Starts ingesting a topic into a table.
+     *
+     * @param parallelism the maximum number of consumers, each assigned a share of the partitions of the topic
+     * @return the id of the new job
+     */
+    String start(String schemaName, String tableName, String topicName, int parallelism) throws StandardException;
+
+    /**
+     * Stops a job of this server, once its current batch is written or rolled back.
+     *
+     * @return false if the job doesn't run on this server
+     */
+    boolean stop(String jobId) throws StandardException;
+
+    List<KafkaIngestJobInfo> getJobs();
+}
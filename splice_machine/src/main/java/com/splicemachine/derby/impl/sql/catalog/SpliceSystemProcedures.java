@@ -222,6 +222,11 @@ public class SpliceSystemProcedures extends DefaultSystemProcedureGenerator {
          */
         com.splicemachine.derby.procedures.PipelineAdmin.addProcedures( procedures );
 
+        /*
+         * Procedures to run continuous Kafka ingest jobs
+         */
+        com.splicemachine.derby.procedures.KafkaIngestAdmin.addProcedures( procedures );
+
         /*
          * Procedure get exec service info
          */
@@ -661,6 +666,18 @@ public class SpliceSystemProcedures extends DefaultSystemProcedureGenerator {
             .varchar("ownerName", 128)
             .build());
 
+        // Stored procedure that folds the partial aggregates of a materialized view.
+        procedures.add(Procedure.newBuilder().name("SYSCS_FOLD_MATERIALIZED_VIEW")
+            .numOutputParams(0)
+            .numResultSets(0)
+            .ownerClass(spliceAdminClass)
+            .sqlControl(RoutineAliasInfo.MODIFIES_SQL_DATA)
+            .returnType(null)
+            .isDeterministic(false)
+            .varchar("schemaName", 128)
+            .varchar("viewName", 128)
+            .build());
+
         procedures.add(Procedure.newBuilder().name("SYSCS_GET_TABLE_COUNT")
                 .numOutputParams(0)
                 .numResultSets(1)
@@ -111,6 +111,7 @@ public class SpliceCatalogUpgradeScripts{
         addUpgradeScript(baseVersion4, 1992, new UpgradeScriptForTablePriorities(sdd, tc));
         addUpgradeScript(baseVersion4, BaseDataDictionary.SERDE_UPGRADE_SPRINT, new UpgradeStoredObjects(sdd, tc));
         addUpgradeScript(baseVersion4, 2023, new UpgradeFixIndexDescriptors(sdd, tc));
+        addUpgradeScript(baseVersion4, 2025, new UpgradeScriptForMaterializedViews(sdd, tc));
         // remember to add your script to SpliceCatalogUpgradeScriptsTest too, otherwise test fails
     }
 
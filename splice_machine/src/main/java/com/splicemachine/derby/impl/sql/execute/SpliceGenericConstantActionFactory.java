@@ -123,6 +123,7 @@ public abstract class SpliceGenericConstantActionFactory extends GenericConstant
                                                        String[] columnNames,
                                                        DataTypeDescriptor[] indexColumnTypes,
                                                        boolean[] isAscending,
+                                                       int numIncludedColumns,
                                                        boolean isConstraint,
                                                        UUID conglomerateUUID,
                                                        boolean excludeNulls,
@@ -144,7 +145,7 @@ public abstract class SpliceGenericConstantActionFactory extends GenericConstant
                                                        Properties properties){
         SpliceLogUtils.trace(LOG,"getCreateIndexConstantAction for index {%s.%s} on {%s.%s} with columnNames %s",schemaName,indexName,schemaName,tableName,Arrays.toString(columnNames));
         return new CreateIndexConstantOperation(forCreateTable,unique,uniqueWithDuplicateNulls,indexType, dbId, schemaName,
-                indexName,tableName,tableId,columnNames,indexColumnTypes,isAscending,isConstraint, conglomerateUUID, excludeNulls,
+                indexName,tableName,tableId,columnNames,indexColumnTypes,isAscending,numIncludedColumns,isConstraint, conglomerateUUID, excludeNulls,
                 excludeDefaults,preSplit,isLogicalKey,sampling,sampleFraction,splitKeyPath,hfilePath,columnDelimiter,characterDelimiter,
                 timestampFormat, dateFormat,timeFormat,exprTexts,exprBytecode,generatedClassNames,properties);
     }
@@ -236,6 +237,16 @@ public abstract class SpliceGenericConstantActionFactory extends GenericConstant
                 providerInfo,compSchemaId);
     }
 
+    @Override
+    public ConstantAction getCreateMaterializedViewConstantAction(String schemaName,String tableName,String viewText,
+                                                                  ColumnInfo[] columnInfo,ProviderInfo[] providerInfo,
+                                                                  String storageTableName,String createStorageText,
+                                                                  MaterializedViewInfo materializedViewInfo){
+        SpliceLogUtils.trace(LOG,"getCreateMaterializedViewConstantAction for {%s.%s} with view text {%s}",schemaName,tableName,viewText);
+        return new CreateMaterializedViewConstantOperation(schemaName,tableName,viewText,columnInfo,
+                providerInfo,storageTableName,createStorageText,materializedViewInfo);
+    }
+
     @Override
     public ConstantAction getDeleteConstantAction(long conglomId,
                                                   int tableType,StaticCompiledOpenConglomInfo heapSCOCI,
@@ -55,6 +55,7 @@ import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.storage.Partition;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.log4j.Logger;
+import splice.com.google.common.collect.Iterators;
 
 import static java.lang.String.format;
 
@@ -83,7 +84,8 @@ import static java.lang.String.format;
 * Currently only spark uses the temporary conglomerate,
 * though code-wise OLTP execution could also use it,
 * though for performance reasons and to avoid potential bugs due to extra complexity,
-* we only uses the in-memory cache on OLTP.
+* we only uses the in-memory cache on OLTP. Past spillToDiskThreshold rows, the
+* cache spills to a local file (see TriggerRowSpillFile) instead of growing the heap.
 * If we go above the OLTP execution threshold (10 million rows),
 * the trigger execution is rolled back by throwing a ResubmitDistributedException
 * and we re-run it in spark. The temporary trigger conglomerate is removed
@@ -116,6 +118,8 @@ public class TriggerRowHolderImpl implements TemporaryRowHolder, Externalizable
 
     int             overflowToConglomThreshold;
     int             switchToSparkThreshold;
+    int             spillToDiskThreshold = Integer.MAX_VALUE;
+    private TriggerRowSpillFile spillFile;
     boolean                     isSpark;  // Is the query executing on spark?
     private ExecRow execRowDefinition;
     private String  tableVersion;
@@ -150,6 +154,9 @@ public class TriggerRowHolderImpl implements TemporaryRowHolder, Externalizable
      * @param overflowToConglomThreshold on an attempt to insert
      *         this number of rows, the rows will be put
      *        into a temporary conglomerate.
+     * @param spillToDiskThreshold when executing on control, on an attempt
+     *        to insert this number of rows, the rows will be put into a
+     *        local temporary file.
      */
     public TriggerRowHolderImpl
     (
@@ -158,6 +165,7 @@ public class TriggerRowHolderImpl implements TemporaryRowHolder, Externalizable
             ResultDescription       resultDescription,
             int                     overflowToConglomThreshold,
             int                     switchToSparkThreshold,
+            int                     spillToDiskThreshold,
             ExecRow                 execRowDefinition,
             String                  tableVersion,
             boolean                 isSpark,
@@ -186,7 +194,10 @@ public class TriggerRowHolderImpl implements TemporaryRowHolder, Externalizable
         this.tec = tec;
         this.isSpark = isSpark;
 
-        int initialArraySize = overflowToConglomThreshold < 1 ? 1 : overflowToConglomThreshold;
+        this.spillToDiskThreshold = spillToDiskThreshold;
+        int initialArraySize = Math.min(overflowToConglomThreshold, spillToDiskThreshold);
+        if (initialArraySize < 1)
+            initialArraySize = 1;
         if (initialArraySize > 2000)
             initialArraySize = 2000;
         rowArray = new ExecRow[initialArraySize];
@@ -249,12 +260,19 @@ public class TriggerRowHolderImpl implements TemporaryRowHolder, Externalizable
         out.writeBoolean(isSpark);
         out.writeObject(execRowDefinition);
         out.writeUTF(tableVersion);
-        out.writeInt(lastArraySlot);
+        // Spilled rows are sent along with the in-memory ones
+        int spilledRows = spillFile == null ? 0 : spillFile.size();
+        out.writeInt(lastArraySlot + spilledRows);
         int numElements = lastArraySlot+1;
 
         if (lastArraySlot > -1)
             for (int i = 0; i < numElements; i++)
                 out.writeObject(rowArray[i]);
+        if (spilledRows > 0) {
+            Iterator<ExecRow> spilled = spillFile.iterator();
+            while (spilled.hasNext())
+                out.writeObject(spilled.next());
+        }
 
         out.writeInt(numRowsIn);
 
@@ -382,8 +400,26 @@ public class TriggerRowHolderImpl implements TemporaryRowHolder, Externalizable
             position = 0;
         }
     }
-    public InMemoryTriggerRowsIterator getCachedRowsIterator() {
-        return new InMemoryTriggerRowsIterator();
+    public Iterator<ExecRow> getCachedRowsIterator() throws StandardException {
+        if (spillFile == null)
+            return new InMemoryTriggerRowsIterator();
+        try {
+            return Iterators.concat(new InMemoryTriggerRowsIterator(), spillFile.iterator());
+        } catch (IOException e) {
+            throw StandardException.plainWrapException(e);
+        }
+    }
+
+    private void spill(ExecRow inputRow) throws StandardException {
+        try {
+            if (spillFile == null)
+                spillFile = new TriggerRowSpillFile();
+            // The row is serialized right away, no need to clone it
+            spillFile.write(inputRow);
+        } catch (IOException e) {
+            throw StandardException.plainWrapException(e);
+        }
+        numRowsIn++;
     }
 
     // Must use the version of insert that provides the KVPair.
@@ -420,14 +456,22 @@ public class TriggerRowHolderImpl implements TemporaryRowHolder, Externalizable
                 throw new ResubmitDistributedException();
             }
         }
+        if (!isSpark && numRowsIn >= spillToDiskThreshold) {
+            // Executing on control, the conglomerate is not needed by anyone else,
+            // so keep the rows which don't fit in memory in a local file.
+            spill(inputRow);
+            return;
+        }
         if (numRowsIn < overflowToConglomThreshold)
         {
             if (numRowsIn == rowArray.length) {
                 int lengthToCopy = rowArray.length;
+                int inMemoryLimit = isSpark ? overflowToConglomThreshold :
+                                    Math.min(overflowToConglomThreshold, spillToDiskThreshold);
                 // The following logic can grow the array twice if the initial array size is less than
-                // a fourth of the overflowToConglomThreshold.
-                int newSize = numRowsIn < overflowToConglomThreshold / 4 ? overflowToConglomThreshold / 4
-                              : overflowToConglomThreshold;
+                // a fourth of the inMemoryLimit.
+                int newSize = numRowsIn < inMemoryLimit / 4 ? inMemoryLimit / 4
+                              : inMemoryLimit;
                 ExecRow [] newRowArray = new ExecRow[newSize];
                 for (int i = 0; i < lengthToCopy; i++)
                     newRowArray[i] = rowArray[i];
@@ -543,6 +587,15 @@ public class TriggerRowHolderImpl implements TemporaryRowHolder, Externalizable
             }
         }
 
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                LOG.warn("Unable to close trigger rows spill file", e);
+            }
+            spillFile = null;
+        }
+
         if (conglomCreated)
             dropConglomerate();
         else {
@@ -566,7 +619,7 @@ public class TriggerRowHolderImpl implements TemporaryRowHolder, Externalizable
             return false;
         if (this.isSpark != isSpark)
             return false;
-        if (conglomCreated || pipelineBufferCreated)
+        if (conglomCreated || pipelineBufferCreated || spillFile != null)
             return false;
         if (numRowsIn != 0 || lastArraySlot != -1 || state != STATE_UNINIT)
             return false;
@@ -575,6 +628,7 @@ public class TriggerRowHolderImpl implements TemporaryRowHolder, Externalizable
     }
 
     public int getLastArraySlot() { return lastArraySlot; }
+    TriggerRowSpillFile getSpillFile() { return spillFile; }
     public void decrementLastArraySlot() { lastArraySlot--; }
     public int getState() { return state; }
     public void setState(int state) { this.state = state; }
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.pipeline.Exceptions;
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static java.lang.String.format;
+
+/**
+ * A local temporary file holding the trigger rows which don't fit in the memory of a
+ * {@link TriggerRowHolderImpl} executing on control. Rows are appended with Java serialization
+ * and read back through memory mapped windows of the file, so the rows of a statement never need
+ * a temporary conglomerate unless it runs on Spark.
+ */
+class TriggerRowSpillFile implements Closeable {
+    private static final Logger LOG = Logger.getLogger(TriggerRowSpillFile.class);
+
+    // Reset the stream every so often so it doesn't keep a reference to every row written
+    private static final int RESET_INTERVAL = 1024;
+    private static final long MAP_SIZE = 64L * 1024 * 1024;
+
+    private final File file;
+    private ObjectOutputStream out;
+    private int rows;
+    // iterators which may still hold the file open
+    private final List<SpilledRowsIterator> iterators = new ArrayList<>();
+
+    TriggerRowSpillFile() throws IOException {
+        file = File.createTempFile("splice-trigger-rows", ".tmp");
+        file.deleteOnExit();
+        out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    }
+
+    void write(ExecRow row) throws IOException {
+        out.writeObject(row);
+        if (++rows % RESET_INTERVAL == 0)
+            out.reset();
+    }
+
+    int size() {
+        return rows;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * @return an iterator over the rows written so far
+     */
+    Iterator<ExecRow> iterator() throws IOException {
+        out.flush();
+        SpilledRowsIterator iterator = new SpilledRowsIterator(rows);
+        iterators.add(iterator);
+        return iterator;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            for (SpilledRowsIterator iterator : iterators)
+                iterator.close();
+            iterators.clear();
+            out.close();
+        } finally {
+            if (!file.delete())
+                LOG.warn(format("Unable to delete trigger rows spill file %s", file));
+        }
+    }
+
+    private class SpilledRowsIterator implements Iterator<ExecRow>, Closeable {
+        private final int rowCount;
+        private int position;
+        private ObjectInputStream in;
+
+        SpilledRowsIterator(int rowCount) {
+            this.rowCount = rowCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < rowCount;
+        }
+
+        @Override
+        public ExecRow next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            try {
+                if (in == null)
+                    in = new ObjectInputStream(new MappedInputStream(file));
+                ExecRow row = (ExecRow) in.readObject();
+                if (++position == rowCount)
+                    close();
+                return row;
+            } catch (IOException | ClassNotFoundException e) {
+                throw Exceptions.getRuntimeException(StandardException.plainWrapException(e));
+            }
+        }
+
+        /**
+         * Release the mapping of the file, an iterator left before its end keeps it open otherwise.
+         */
+        @Override
+        public void close() throws IOException {
+            position = rowCount;
+            if (in != null) {
+                in.close();
+                in = null;
+            }
+        }
+    }
+
+    /**
+     * Reads a file through read only mappings of {@link #MAP_SIZE} bytes, so files larger than
+     * the 2GB limit of a single mapping can be read.
+     */
+    private static class MappedInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long length;
+        private long mapped;
+        private MappedByteBuffer buffer;
+
+        MappedInputStream(File file) throws IOException {
+            channel = new RandomAccessFile(file, "r").getChannel();
+            length = channel.size();
+        }
+
+        private boolean fill() throws IOException {
+            if (buffer != null && buffer.hasRemaining())
+                return true;
+            if (mapped >= length)
+                return false;
+            long size = Math.min(MAP_SIZE, length - mapped);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapped, size);
+            mapped += size;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill())
+                return -1;
+            return buffer.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (!fill())
+                return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            buffer = null;
+            channel.close();
+        }
+    }
+}
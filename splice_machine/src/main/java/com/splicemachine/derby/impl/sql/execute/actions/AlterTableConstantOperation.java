@@ -802,17 +802,20 @@ public class AlterTableConstantOperation extends IndexConstantOperation {
              * the index.  (The store doesn't preserve these.)
              */
         int indexRowLength = indexRows[index].nColumns();
+        // INCLUDE columns are part of the index row but not of the key
+        int keyRowLength = indexRowLength - cd.getIndexDescriptor().isAscending().length
+                + cd.getIndexDescriptor().numberOfOrderedColumns();
         properties.put("baseConglomerateId", Long.toString(newHeapConglom));
         if (cd.getIndexDescriptor().isUnique()) {
-            properties.put( "nUniqueColumns", Integer.toString(indexRowLength - 1));
+            properties.put( "nUniqueColumns", Integer.toString(keyRowLength - 1));
         } else {
-            properties.put( "nUniqueColumns", Integer.toString(indexRowLength));
+            properties.put( "nUniqueColumns", Integer.toString(keyRowLength));
         }
         if(cd.getIndexDescriptor().isUniqueWithDuplicateNulls()) {
             properties.put( "uniqueWithDuplicateNulls", Boolean.toString(true));
         }
         properties.put( "rowLocationColumn", Integer.toString(indexRowLength - 1));
-        properties.put("nKeyFields", Integer.toString(indexRowLength));
+        properties.put("nKeyFields", Integer.toString(keyRowLength));
 
         return properties;
     }
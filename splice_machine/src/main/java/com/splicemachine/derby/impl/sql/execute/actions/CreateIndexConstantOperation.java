@@ -176,6 +176,7 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
     private String[]             columnNames;
     private DataTypeDescriptor[] indexColumnTypes;
     private boolean[]            isAscending;
+    private int                  numIncludedColumns;
     private boolean              isConstraint;
     private UUID                 conglomerateUUID;
     private Properties           properties;
@@ -242,6 +243,9 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
      *                                       in order
      * @param isAscending                   Array of booleans telling asc/desc
      *                                       on each column
+     * @param numIncludedColumns            Number of trailing columns in columnNames
+     *                                       that are stored in the index row value
+     *                                       (INCLUDE columns) instead of the index key
      * @param isConstraint                  TRUE if index is backing up a
      *                                       constraint, else FALSE
      * @param conglomerateUUID              ID of conglomerate
@@ -263,6 +267,7 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
             String[]             columnNames,
             DataTypeDescriptor[] indexColumnTypes,
             boolean[]            isAscending,
+            int                  numIncludedColumns,
             boolean              isConstraint,
             UUID                 conglomerateUUID,
             boolean              excludeNulls,
@@ -291,6 +296,7 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
         this.columnNames                = columnNames;
         this.indexColumnTypes           = indexColumnTypes;
         this.isAscending                = isAscending;
+        this.numIncludedColumns         = numIncludedColumns;
         this.isConstraint               = isConstraint;
         this.conglomerateUUID           = conglomerateUUID;
         this.properties                 = properties;
@@ -354,6 +360,7 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
         this.indexType = irg.indexType();
         this.columnNames = srcCD.getColumnNames();
         this.isAscending = irg.isAscending();
+        this.numIncludedColumns = isAscending.length - irg.numberOfOrderedColumns();
         this.isConstraint = srcCD.isConstraint();
         this.conglomerateUUID = srcCD.getUUID();
         this.properties = properties;
@@ -474,7 +481,8 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
                 IndexRowGenerator irg = cd.getIndexDescriptor();
                 if (irg.isUnique() != unique ||
                         irg.excludeNulls() != excludeNulls ||
-                        irg.excludeDefaults() != excludeDefaults) {
+                        irg.excludeDefaults() != excludeDefaults ||
+                        irg.numberOfOrderedColumns() != numKeyColumns()) {
                     continue;
                 }
 
@@ -575,7 +583,7 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
                                     baseColumnLogicalPosition,
                                     indexColumnTypes,
                                     isAscending,
-                                    isAscending.length,excludeNulls,excludeDefaults,
+                                    numKeyColumns(),excludeNulls,excludeDefaults,
                                     exprTexts,
                                     exprBytecode,
                                     generatedClassNames);
@@ -735,7 +743,7 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
                                                    int[] baseColumnLogicalPosition,
                                                    @Nullable IndexRowGenerator existingGenerator,
                                                    boolean shareExisting) {
-        // For now, assume that all index columns are ordered columns
+        // Only key columns are ordered, INCLUDE columns come after them and are stored in the row value
         if (! shareExisting) {
             existingGenerator = new IndexRowGenerator(
                     indexType,
@@ -745,7 +753,7 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
                     baseColumnLogicalPosition,
                     indexColumnTypes,
                     isAscending,
-                    isAscending.length,
+                    numKeyColumns(),
                     excludeNulls,
                     excludeDefaults,
                     exprTexts,
@@ -755,15 +763,27 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
         return existingGenerator;
     }
 
-    private ColumnOrdering[] getColumnOrderings(int numIndexColumns) {
+    /**
+     * @return the number of index columns that are part of the index key, that is all
+     * index columns but the INCLUDE ones
+     */
+    private int numKeyColumns() {
+        return isAscending.length - numIncludedColumns;
+    }
+
+    private ColumnOrdering[] getColumnOrderings(int numKeyColumns) {
         ColumnOrdering[] order;
-        int numColumnOrderings = numIndexColumns;
+        int numColumnOrderings = numKeyColumns;
         if(!unique)
             numColumnOrderings++;
 
         order= new ColumnOrdering[numColumnOrderings];
-        for (int i=0; i < numColumnOrderings; i++) {
-            order[i] = new IndexColumnOrder(i, !(unique || i < numColumnOrderings - 1) || isAscending[i]);
+        for (int i=0; i < numKeyColumns; i++) {
+            order[i] = new IndexColumnOrder(i, isAscending[i]);
+        }
+        if(!unique) {
+            // the row location comes after the INCLUDE columns in the index row
+            order[numKeyColumns] = new IndexColumnOrder(isAscending.length, true);
         }
         return order;
     }
@@ -819,8 +839,8 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
         // The number of uniqueness columns must include the RowLocation
         // if the user did not specify a unique index.
         indexProperties.put("nUniqueColumns",
-                Integer.toString(unique ? isAscending.length :
-                        isAscending.length + 1));
+                Integer.toString(unique ? numKeyColumns() :
+                        numKeyColumns() + 1));
 
         if (uniqueWithDuplicateNulls) {
             // Derby made the distinction between "unique" and "uniqueWithDuplicateNulls"
@@ -836,7 +856,7 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
         // By convention, the row location column is the last column
         indexProperties.put("rowLocationColumn", Integer.toString(isAscending.length));
 
-        indexProperties.put("nKeyFields",Integer.toString(isAscending.length + 1));
+        indexProperties.put("nKeyFields",Integer.toString(numKeyColumns() + 1));
         return indexProperties;
     }
 
@@ -881,7 +901,7 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
              */
             int[] keyFormatIds = WriteReadUtils.getExecRowTypeFormatIds(indexTemplateRow);
             Conglomerate conglomerate = tc.createConglomerateAsync(td.isExternal(),indexType, indexTemplateRow.getRowArray(),
-                    getColumnOrderings(isAscending.length), keyFormatIds, indexRowGenerator.getColumnCollationIds(
+                    getColumnOrderings(numKeyColumns()), keyFormatIds, indexRowGenerator.getColumnCollationIds(
                             td.getColumnDescriptorList()), indexProperties, TransactionController.IS_DEFAULT,
                     splitKeys, Conglomerate.Priority.NORMAL);
             conglomerate.awaitCreation();
@@ -946,8 +966,9 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
             int[] indexCols = indexRowGenerator.baseColumnPositions();
             int[] allFormatIds = td.getFormatIds();
 
-            int[] indexFormatIds = new int[indexCols.length];
-            for (int i = 0; i < indexCols.length; ++i) {
+            // split keys only contain the key columns
+            int[] indexFormatIds = new int[indexRowGenerator.numberOfOrderedColumns()];
+            for (int i = 0; i < indexFormatIds.length; ++i) {
                 indexFormatIds[i] = allFormatIds[indexCols[i]-1];
             }
 
@@ -996,7 +1017,7 @@ public class CreateIndexConstantOperation extends IndexConstantOperation impleme
                 .forVersion(td.getVersion(), false)
                 .getSerializers(execRow.getRowArray());
         int[] rowColumns = IntArrays.count(execRow.nColumns());
-        boolean[] sortOrder = indexRowGenerator.isAscending();
+        boolean[] sortOrder = Arrays.copyOf(indexRowGenerator.isAscending(), execRow.nColumns());
         DataHash dataHash = BareKeyHash.encoder(rowColumns, sortOrder, serializers);
         return dataHash;
     }
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.actions;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.FormatableBitSet;
+import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.depend.DependencyManager;
+import com.splicemachine.db.iapi.sql.depend.ProviderInfo;
+import com.splicemachine.db.iapi.sql.dictionary.*;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.TransactionController;
+import com.splicemachine.db.impl.services.uuid.BasicUUID;
+import com.splicemachine.db.impl.sql.execute.ColumnInfo;
+import com.splicemachine.ddl.DDLMessage;
+import com.splicemachine.derby.ddl.DDLUtils;
+import com.splicemachine.derby.impl.sql.execute.index.MaterializedViewTransformer;
+import com.splicemachine.derby.impl.sql.execute.operations.ScanOperation;
+import com.splicemachine.derby.impl.store.access.SpliceTransactionManager;
+import com.splicemachine.derby.stream.function.KVPairFunction;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.DataSetProcessor;
+import com.splicemachine.derby.stream.iapi.ScanSetBuilder;
+import com.splicemachine.derby.stream.utils.StreamUtils;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.protobuf.ProtoUtil;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnLifecycleManager;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.utils.SpliceLogUtils;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.log4j.Logger;
+import splice.com.google.common.primitives.Ints;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+/**
+ * Describes the actions performed for a CREATE MATERIALIZED VIEW statement at execution time.
+ *
+ * On top of the view itself, a materialized view has a storage table holding the partial aggregates of the view,
+ * which the view reads from, see {@link com.splicemachine.db.impl.sql.compile.MaterializedViewDefinition}.
+ * The storage table is populated with the base table rows visible as of the commit of a tentative transaction, and
+ * the write pipeline of the base table takes care of the writes committed after that.
+ */
+public class CreateMaterializedViewConstantOperation extends CreateViewConstantOperation {
+    private static final Logger LOG = Logger.getLogger(CreateMaterializedViewConstantOperation.class);
+    private final String schemaName;
+    private final String tableName;
+    private final ProviderInfo[] providerInfo;
+    private final String storageTableName;
+    private final String createStorageText;
+    private final MaterializedViewInfo materializedViewInfo;
+
+    /**
+     *    Make the ConstantAction for a CREATE MATERIALIZED VIEW statement.
+     *
+     *  @param schemaName           name for the schema that view lives in.
+     *  @param tableName            Name of view.
+     *  @param viewText             Text of query expression for view definition
+     *  @param columnInfo           Information on all the columns in the table.
+     *  @param providerInfo         Information on all the Providers
+     *  @param storageTableName     Name of the table holding the state of the view
+     *  @param createStorageText    Text of the CREATE TABLE statement for the storage table
+     *  @param materializedViewInfo Mapping of the columns of the view to those of the storage table
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public CreateMaterializedViewConstantOperation(String schemaName, String tableName, String viewText,
+                                                   ColumnInfo[] columnInfo, ProviderInfo[] providerInfo,
+                                                   String storageTableName, String createStorageText,
+                                                   MaterializedViewInfo materializedViewInfo) {
+        super(schemaName, tableName, TableDescriptor.VIEW_TYPE, viewText, ViewDescriptor.NO_CHECK_OPTION,
+                columnInfo, providerInfo, null);
+        this.schemaName = schemaName;
+        this.tableName = tableName;
+        this.providerInfo = providerInfo;
+        this.storageTableName = storageTableName;
+        this.createStorageText = createStorageText;
+        this.materializedViewInfo = materializedViewInfo;
+    }
+
+    public String toString() {
+        return constructToString("CREATE MATERIALIZED VIEW ", tableName);
+    }
+
+    @Override
+    public void executeConstantAction(Activation activation) throws StandardException {
+        SpliceLogUtils.trace(LOG, "executeConstantAction for activation {%s}",activation);
+        LanguageConnectionContext lcc = activation.getLanguageConnectionContext();
+        DataDictionary dd = lcc.getDataDictionary();
+        DependencyManager dm = dd.getDependencyManager();
+        TransactionController tc = lcc.getTransactionExecute();
+
+        AlterTableConstantOperation.executeUpdate(lcc, createStorageText);
+        super.executeConstantAction(activation);
+
+        SchemaDescriptor sd = dd.getSchemaDescriptor(schemaName, tc, true);
+        TableDescriptor view = dd.getTableDescriptor(tableName, sd, tc);
+        TableDescriptor storageTd = dd.getTableDescriptor(storageTableName, sd, tc);
+        ViewDescriptor vd = dd.getViewDescriptor(view);
+        // the storage table can't be dropped on its own
+        dm.addDependency(vd, storageTd, lcc.getContextManager());
+
+        TableDescriptor baseTd = getBaseTableDescriptor(dd);
+
+        TxnView parentTxn = ((SpliceTransactionManager) tc).getActiveStateTxn();
+        try {
+            // the tentative transaction commit timestamp splits the writes between the population of the
+            // storage table and the write pipeline
+            TxnLifecycleManager lifecycleManager = SIDriver.driver().lifecycleManager();
+            ((Txn) parentTxn).forbidSubtransactions();
+            Txn tentativeTransaction = lifecycleManager.beginChildTransaction(parentTxn,
+                    "CreateMaterializedView".getBytes(Charset.defaultCharset().name()));
+            DDLMessage.DDLChange ddlChange = ProtoUtil.createMaterializedViewChange(tentativeTransaction.getTxnId(),
+                    lcc, baseTd, storageTd, vd.getMaterializedViewInfo(), tableName);
+            String changeId = DDLUtils.notifyMetadataChange(ddlChange);
+            tc.prepareDataDictionaryChange(changeId);
+            Txn populateTransaction = DDLUtils.getIndexTransaction(tc, tentativeTransaction,
+                    baseTd.getHeapConglomerateId(), tableName);
+            populate(baseTd, populateTransaction, tentativeTransaction.getCommitTimestamp(), ddlChange.getMaterializedView());
+            populateTransaction.commit();
+        } catch (IOException e) {
+            LOG.error("Couldn't start transaction for tentative DDL operation");
+            throw Exceptions.parseException(e);
+        }
+    }
+
+    @Override
+    protected MaterializedViewInfo getMaterializedViewInfo(DataDictionary dd,
+                                                           SchemaDescriptor sd,
+                                                           TransactionController tc) throws StandardException {
+        MaterializedViewInfo info = new MaterializedViewInfo(materializedViewInfo);
+        info.setBaseTableId(getBaseTableDescriptor(dd).getUUID());
+        info.setStorageTableId(dd.getTableDescriptor(storageTableName, sd, tc).getUUID());
+        return info;
+    }
+
+    private TableDescriptor getBaseTableDescriptor(DataDictionary dd) throws StandardException {
+        for (ProviderInfo info : providerInfo) {
+            Object provider = info.getDependableFinder().getDependable(dd, info.getObjectId());
+            if (provider instanceof TableDescriptor
+                    && ((TableDescriptor) provider).getTableType() == TableDescriptor.BASE_TABLE_TYPE) {
+                return (TableDescriptor) provider;
+            }
+        }
+        throw new IllegalStateException("No base table for materialized view " + tableName);
+    }
+
+    /**
+     * Mark the materialized views of a table stale, ahead of a write to the table that bypasses its write pipeline.
+     * Queries stop being rewritten onto the storage tables of the views until they are rebuilt by
+     * SYSCS_UTIL.SYSCS_FOLD_MATERIALIZED_VIEW. The change is made in the transaction of the caller.
+     *
+     * @param td the base table
+     */
+    public static void markMaterializedViewsStale(LanguageConnectionContext lcc, TableDescriptor td) throws StandardException {
+        DataDictionary dd = lcc.getDataDictionary();
+        for (ViewDescriptor vd : dd.getMaterializedViewDescriptors(td, lcc.getTransactionExecute())) {
+            if (!vd.getMaterializedViewInfo().isStale())
+                setStale(lcc, vd, true);
+        }
+    }
+
+    /**
+     * Mark a materialized view stale, or not, in the transaction of the caller.
+     */
+    public static void setStale(LanguageConnectionContext lcc, ViewDescriptor vd, boolean stale) throws StandardException {
+        DataDictionary dd = lcc.getDataDictionary();
+        TransactionController tc = lcc.getTransactionExecute();
+        MaterializedViewInfo info = new MaterializedViewInfo(vd.getMaterializedViewInfo());
+        info.setStale(stale);
+        TableDescriptor view = dd.getTableDescriptor(vd.getUUID(), tc);
+        TableDescriptor baseTd = dd.getTableDescriptor(info.getBaseTableId(), tc);
+
+        dd.startWriting(lcc);
+        // plans over the base table may have been rewritten onto the storage table
+        DependencyManager dm = dd.getDependencyManager();
+        long txnId = ((SpliceTransactionManager) tc).getActiveStateTxn().getTxnId();
+        for (TableDescriptor td : new TableDescriptor[]{view, baseTd}) {
+            dm.invalidateFor(td, DependencyManager.ALTER_TABLE, lcc);
+            tc.prepareDataDictionaryChange(DDLUtils.notifyMetadataChange(
+                    ProtoUtil.createAlterTable(txnId, (BasicUUID) td.getUUID())));
+        }
+        dd.dropViewDescriptor(vd, tc);
+        vd.setMaterializedViewInfo(info);
+        dd.addDescriptor(vd, view.getSchemaDescriptor(), DataDictionary.SYSVIEWS_CATALOG_NUM, true, tc, false);
+    }
+
+    /**
+     * Fold the base table rows visible as of the demarcation point into one storage row per group.
+     */
+    @SuppressWarnings("unchecked")
+    private void populate(TableDescriptor baseTd,
+                          Txn populateTransaction,
+                          long demarcationPoint,
+                          DDLMessage.MaterializedView materializedView) throws StandardException, IOException {
+        MaterializedViewTransformer transformer = new MaterializedViewTransformer(materializedView);
+        DDLMessage.Table table = materializedView.getTable();
+        int[] columnOrdering = Ints.toArray(table.getColumnOrderingList());
+        ExecRow template = transformer.getBaseTemplate();
+        int numColumns = template.nColumns();
+
+        // decode every column of the base table into its storage position
+        int[] baseColumnMap = new int[numColumns];
+        int[] rowDecodingMap = new int[numColumns];
+        FormatableBitSet accessedKeyCols = new FormatableBitSet(columnOrdering.length);
+        for (int i = 0; i < numColumns; i++) {
+            baseColumnMap[i] = i;
+            rowDecodingMap[i] = Ints.contains(columnOrdering, i) ? -1 : i;
+        }
+        for (int i = 0; i < columnOrdering.length; i++) {
+            accessedKeyCols.set(i);
+        }
+
+        // rows written before a column was added don't hold its default value
+        ExecRow defaultRow = template.getNewNullRow();
+        FormatableBitSet defaultValueMap = new FormatableBitSet(numColumns);
+        ColumnDescriptorList cdl = baseTd.getColumnDescriptorList();
+        for (int i = 0; i < cdl.size(); i++) {
+            ColumnDescriptor cd = cdl.elementAt(i);
+            if (cd.getDefaultValue() != null && !cd.isAutoincrement() && !cd.hasGenerationClause() && !cd.getType().isNullable()) {
+                defaultRow.setColumn(cd.getStoragePosition(), cd.getDefaultValue());
+                defaultValueMap.set(cd.getStoragePosition() - 1);
+            }
+        }
+
+        DataSetProcessor dsp = EngineDriver.driver().processorFactory().localProcessor(null, null);
+        ScanSetBuilder<ExecRow> builder = dsp.newScanSet(null, Long.toString(table.getConglomerate()));
+        builder.tableDisplayName(baseTd.getName())
+                .tableVersion(table.getTableVersion())
+                .transaction(populateTransaction)
+                .scan(DDLUtils.createFullScan())
+                .keyColumnEncodingOrder(columnOrdering)
+                .reuseRowLocation(false)
+                .rowDecodingMap(rowDecodingMap)
+                .keyColumnTypes(ScanOperation.getKeyFormatIds(columnOrdering, Ints.toArray(table.getFormatIdsList())))
+                .keyDecodingMap(ScanOperation.getKeyDecodingMap(accessedKeyCols, columnOrdering, baseColumnMap))
+                .accessedKeyColumns(accessedKeyCols)
+                .template(template)
+                .defaultRow(defaultRow, defaultValueMap)
+                .demarcationPoint(demarcationPoint);
+
+        String scope = getScopeName();
+        Iterator<ExecRow> rows = builder.buildDataSet(StreamUtils.getScopeString(this)).toLocalIterator();
+        while (rows.hasNext()) {
+            transformer.accumulate(rows.next(), false);
+        }
+        Iterator<KVPair> deltas = transformer.encodeDeltas().values().iterator();
+        if (!deltas.hasNext())
+            return;
+
+        Txn childTxn = SIDriver.driver().lifecycleManager().beginChildTransaction(populateTransaction,
+                Bytes.toBytes(Long.toString(materializedView.getConglomerate())));
+        DataSet<KVPair> storageRows = dsp.createDataSet(deltas);
+        storageRows.index(new KVPairFunction(), false, true, scope + ": Populate Materialized View")
+                .directWriteData()
+                .operationContext(builder.getOperationContext())
+                .destConglomerate(materializedView.getConglomerate())
+                .txn(childTxn)
+                .build()
+                .write();
+        childTxn.commit();
+    }
+
+    @Override
+    public String getScopeName() {
+        return String.format("Create Materialized View %s", tableName);
+    }
+}
@@ -19,6 +19,7 @@ import com.splicemachine.db.iapi.sql.dictionary.DataDescriptorGenerator;
 import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
 import com.splicemachine.db.iapi.sql.dictionary.ColumnDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.ColumnDescriptorList;
+import com.splicemachine.db.iapi.sql.dictionary.MaterializedViewInfo;
 import com.splicemachine.db.iapi.sql.dictionary.SchemaDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.ViewDescriptor;
@@ -199,9 +200,19 @@ public class CreateViewConstantOperation extends DDLConstantOperation {
         //store view's dependency on various privileges in the dependeny system
         storeViewTriggerDependenciesOnPrivileges(activation, vd);
 
+        vd.setMaterializedViewInfo(getMaterializedViewInfo(dd, sd, tc));
         dd.addDescriptor(vd, sd, DataDictionary.SYSVIEWS_CATALOG_NUM, true, tc, false);
     }
 
+    /**
+     * @return what makes the view a materialized view, null for a regular view
+     */
+    protected MaterializedViewInfo getMaterializedViewInfo(DataDictionary dd,
+                                                           SchemaDescriptor sd,
+                                                           TransactionController tc) throws StandardException {
+        return null;
+    }
+
     public String getScopeName() {
         return String.format("Create View %s", tableName);
     }
@@ -21,11 +21,13 @@ import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 import com.splicemachine.db.iapi.sql.depend.DependencyManager;
 import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
+import com.splicemachine.db.iapi.sql.dictionary.MaterializedViewInfo;
 import com.splicemachine.db.iapi.sql.dictionary.SchemaDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.ViewDescriptor;
 import com.splicemachine.db.iapi.sql.execute.ConstantAction;
 import com.splicemachine.db.iapi.store.access.TransactionController;
+import com.splicemachine.db.iapi.util.IdUtil;
 import com.splicemachine.db.impl.services.uuid.BasicUUID;
 import com.splicemachine.ddl.DDLMessage;
 import com.splicemachine.derby.impl.store.access.SpliceTransactionManager;
@@ -34,6 +36,7 @@ import org.apache.log4j.Logger;
 
 import com.splicemachine.utils.SpliceLogUtils;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -103,6 +106,14 @@ public class DropViewConstantOperation extends DDLConstantOperation {
                     generateDDLChanges(((SpliceTransactionManager) tc).getActiveStateTxn().getTxnId(), activation));
         }
         drop(lcc, sd, td, DependencyManager.DROP_VIEW, vd);
+        if (vd.isMaterialized()) {
+            // the view no longer depends on its storage table
+            TableDescriptor storageTd = dd.getTableDescriptor(vd.getMaterializedViewInfo().getStorageTableId(), tc);
+            if (storageTd != null) {
+                AlterTableConstantOperation.executeUpdate(lcc, "DROP TABLE " +
+                        IdUtil.mkQualifiedName(storageTd.getSchemaName(), storageTd.getName()));
+            }
+        }
     }
 
     public String getScopeName() {
@@ -131,7 +142,22 @@ public class DropViewConstantOperation extends DDLConstantOperation {
     @Override
     public List<DDLMessage.DDLChange> generateDDLChanges(long txnId, Activation activation) throws StandardException {
         TableDescriptor td = getTableDescriptor(activation);
-        return Collections.singletonList(ProtoUtil.dropView(txnId, (BasicUUID) td.getUUID()));
+        DDLMessage.DDLChange dropView = ProtoUtil.dropView(txnId, (BasicUUID) td.getUUID());
+        DataDictionary dd = activation.getLanguageConnectionContext().getDataDictionary();
+        ViewDescriptor vd = dd.getViewDescriptor(td);
+        if (vd == null || !vd.isMaterialized()) {
+            return Collections.singletonList(dropView);
+        }
+        // take the write handler of the view off the pipeline of the base table
+        TransactionController tc = activation.getLanguageConnectionContext().getTransactionExecute();
+        MaterializedViewInfo info = vd.getMaterializedViewInfo();
+        TableDescriptor storageTd = dd.getTableDescriptor(info.getStorageTableId(), tc);
+        TableDescriptor baseTd = dd.getTableDescriptor(info.getBaseTableId(), tc);
+        if (storageTd == null || baseTd == null) {
+            return Collections.singletonList(dropView);
+        }
+        return Arrays.asList(dropView, ProtoUtil.dropMaterializedView(txnId,
+                baseTd.getHeapConglomerateId(), storageTd.getHeapConglomerateId()));
     }
 
     /**
@@ -34,6 +34,7 @@ import com.splicemachine.db.iapi.store.access.ColumnOrdering;
 import com.splicemachine.db.iapi.store.access.ConglomerateController;
 import com.splicemachine.db.iapi.store.access.TransactionController;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.util.IdUtil;
 import com.splicemachine.db.impl.sql.execute.IndexColumnOrder;
 import com.splicemachine.protobuf.ProtoUtil;
 import com.splicemachine.si.constants.SIConstants;
@@ -89,6 +90,27 @@ public class TruncateTableConstantOperation extends AlterTableConstantOperation{
 
         adjustUDTDependencies(activation,null,false);
         truncateTable(td, activation);
+        truncateMaterializedViews(td, lcc);
+    }
+
+    /*
+     * The storage tables of the materialized views over the table are maintained by its write pipeline, which
+     * truncate bypasses. They are emptied with a plain delete, which keeps their conglomerates, and with them the
+     * write handlers of the views, in place.
+     */
+    private void truncateMaterializedViews(TableDescriptor td, LanguageConnectionContext lcc) throws StandardException {
+        DataDictionary dd = lcc.getDataDictionary();
+        TransactionController tc = lcc.getTransactionExecute();
+        for (ViewDescriptor vd : dd.getMaterializedViewDescriptors(td, tc)) {
+            TableDescriptor storageTd = dd.getTableDescriptor(vd.getMaterializedViewInfo().getStorageTableId(), tc);
+            if (storageTd != null) {
+                executeUpdate(lcc, "DELETE FROM " + IdUtil.mkQualifiedName(storageTd.getSchemaName(), storageTd.getName()));
+            }
+            // an empty storage table agrees with the empty base table
+            if (vd.getMaterializedViewInfo().isStale()) {
+                CreateMaterializedViewConstantOperation.setStale(lcc, vd, false);
+            }
+        }
     }
 
     /*
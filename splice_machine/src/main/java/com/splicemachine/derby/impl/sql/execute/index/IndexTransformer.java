@@ -49,6 +49,7 @@ import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.storage.*;
 import com.splicemachine.storage.index.BitIndex;
+import com.splicemachine.utils.ByteSlice;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.commons.lang.SerializationUtils;
 import splice.com.google.common.primitives.Ints;
@@ -71,10 +72,12 @@ import java.util.*;
  *
  * And
  *
- * indexValue = multiValueEncoding( encodeBytesUnsorted ( srcRowKey ))
+ * indexValue = multiValueEncoding( [inc1] ... [incM], encodeBytesUnsorted ( srcRowKey ))
  *
  * Where colN is an indexed column that may be encoded as part of srcRowKey or srcValue depending on if it is part of
- * a primary key in the source table.
+ * a primary key in the source table, and incM is an INCLUDE column of the index. INCLUDE columns are not part of the
+ * index key, they are always present in the index value (null columns are encoded as empty fields) so that an
+ * index-only scan can return them without going back to the base table.
  *
  * @author Scott Fines
  *         Date: 4/17/14
@@ -109,6 +112,9 @@ public class IndexTransformer {
     private boolean ignore;
     protected EntryDataHash entryEncoder;
     private final int numIndexExprs;
+    private final int numKeyColumns; // index columns stored in the index key
+    private final int numIncludedColumns; // index columns stored in the index value
+    private ByteSlice[] includedValues; // current values of the INCLUDE columns, null for NULL
     private final BaseExecutableIndexExpression[] executableExprs;
     private final LanguageConnectionContext lcc;
     private Map<Integer, Integer> columnStoragePositionMap = new HashMap<>();
@@ -138,6 +144,8 @@ public class IndexTransformer {
 
         }
         numIndexExprs = index.getNumExprs();
+        numIncludedColumns = index.getNumIncludedColumns();
+        numKeyColumns = numIndexExprs > 0 ? numIndexExprs : indexColsList.size() - numIncludedColumns;
         executableExprs = new BaseExecutableIndexExpression[numIndexExprs];
         if (numIndexExprs > 0) {
             List<Integer> formatIds = tentativeIndex.getIndex().getIndexColumnFormatIdsList();
@@ -246,8 +254,16 @@ public class IndexTransformer {
         EntryAccumulator keyAccumulator = getKeyAccumulator();
         keyAccumulator.reset();
         ignore = false;
+        clearIncludedValues();
         boolean hasNullKeyFields = false;
         for (int i = 0; i< execRow.nColumns();i++) {
+            if (isIncludedColumn(i)) {
+                if (execRow.getColumn(i+1) != null && !execRow.getColumn(i+1).isNull()) {
+                    byte[] data = indexRowSerializers[i].encodeDirect(execRow.getColumn(i+1),false);
+                    setIncludedValue(i, data, 0, data.length);
+                }
+                continue;
+            }
             if (execRow.getColumn(i+1) == null || execRow.getColumn(i+1).isNull()) {
                 if (i == 0 && excludeNulls) // Pass along null for exclusion...
                     return null;
@@ -270,11 +286,7 @@ public class IndexTransformer {
         //add the row key to the end of the index key if the index is not unique.
         byte[] srcRowKey = Encoding.encodeBytesUnsorted(execRow.getKey());
 
-        EntryEncoder rowEncoder = getRowEncoder();
-        MultiFieldEncoder entryEncoder = rowEncoder.getEntryEncoder();
-        entryEncoder.reset();
-        entryEncoder.setRawBytes(srcRowKey);
-        byte[] indexValue = rowEncoder.encode();
+        byte[] indexValue = getIndexValue(srcRowKey);
         byte[] indexRowKey;
         if (index.getUnique()) {
             boolean nonUnique = index.getUniqueWithDuplicateNulls() && (hasNullKeyFields || !keyAccumulator.isFinished());
@@ -339,6 +351,7 @@ public class IndexTransformer {
             baseRowSerializers = new DescriptorSerializer[decodedRow.nColumns()];
 
         ignore = false;
+        clearIncludedValues();
 
         /*
          * Handle index columns from the source table's primary key.
@@ -358,7 +371,9 @@ public class IndexTransformer {
                 if (numIndexExprs <= 0) {
                     int indexKeyPos = sourceKeyColumnPos < mainColToIndexPosMap.length ?
                             mainColToIndexPosMap[sourceKeyColumnPos] : -1;
-                    if (indexKeyPos >= 0) {
+                    if (isIncludedColumn(indexKeyPos)) {
+                        setIncludedValue(indexKeyPos, keyDecoder.array(), offset, length);
+                    } else if (indexKeyPos >= 0) {
                         /*
                          * since primary keys have an implicit NOT NULL constraint here, we don't need to check for it,
                          * and isNull==true would represent a programmer error, rather than an actual state the
@@ -406,6 +421,10 @@ public class IndexTransformer {
                         mainColToIndexPosMap[i] : -1;
                 if (keyColumnPos < 0) {
                     rowDecoder.seekForward(rowFieldDecoder, i);
+                } else if (isIncludedColumn(keyColumnPos)) {
+                    if (!isNull) {
+                        setIncludedValue(keyColumnPos, rowFieldDecoder.array(), offset, length);
+                    }
                 } else {
                     hasNullKeyFields = isNull || hasNullKeyFields;
                     if (!isNull) {
@@ -455,6 +474,9 @@ public class IndexTransformer {
                     DataValueDescriptor dvd = DataValueFactoryImpl.getNullDVDWithUCS_BASICcollation(formatId);
                     decodedRow.setColumn(srcColIndex + 1, dvd);
                     // No need to set ignore for excludeNulls here, will be handled by writeDirectIndex later.
+                } else if (isIncludedColumn(indexColumnPosition)) {
+                    // INCLUDE columns are not part of the key, the value is encoded with an empty field
+                    continue;
                 } else {
                     if (excludeNulls && indexColumnPosition == 0)
                         ignore = true;
@@ -486,11 +508,7 @@ public class IndexTransformer {
         //add the row key to the end of the index key
         byte[] srcRowKey = Encoding.encodeBytesUnsorted(mutation.getRowKey());
 
-        EntryEncoder rowEncoder = getRowEncoder();
-        MultiFieldEncoder entryEncoder = rowEncoder.getEntryEncoder();
-        entryEncoder.reset();
-        entryEncoder.setRawBytes(srcRowKey);
-        byte[] indexValue = rowEncoder.encode();
+        byte[] indexValue = getIndexValue(srcRowKey);
 
         byte[] indexRowKey;
         if (index.getUnique()) {
@@ -564,17 +582,76 @@ public class IndexTransformer {
     private EntryEncoder getRowEncoder() {
         if (indexValueEncoder == null) {
             BitSet nonNullFields = new BitSet();
+            BitSet scalarFields = new BitSet();
+            BitSet floatFields = new BitSet();
+            BitSet doubleFields = new BitSet();
             int highestSetPosition = 0;
             for (int keyColumn : mainColToIndexPosMap) {
                 if (keyColumn > highestSetPosition)
                     highestSetPosition = keyColumn;
             }
+            for (int pos = numKeyColumns; pos < numKeyColumns + numIncludedColumns; pos++) {
+                nonNullFields.set(pos);
+                int formatId = indexFormatIds[pos];
+                if (typeProvider.isScalar(formatId))
+                    scalarFields.set(pos);
+                else if (typeProvider.isFloat(formatId))
+                    floatFields.set(pos);
+                else if (typeProvider.isDouble(formatId))
+                    doubleFields.set(pos);
+            }
             nonNullFields.set(highestSetPosition + 1);
-            indexValueEncoder = EntryEncoder.create(SpliceKryoRegistry.getInstance(), 1, nonNullFields,
-                    new BitSet(), new BitSet(), new BitSet());
+            indexValueEncoder = EntryEncoder.create(SpliceKryoRegistry.getInstance(), numIncludedColumns + 1, nonNullFields,
+                    scalarFields, floatFields, doubleFields);
         }
         return indexValueEncoder;
     }
+
+    /**
+     * Encodes the index row value: the INCLUDE columns, if any, followed by the base table row key.
+     */
+    private byte[] getIndexValue(byte[] srcRowKey) {
+        EntryEncoder rowEncoder = getRowEncoder();
+        MultiFieldEncoder entryEncoder = rowEncoder.getEntryEncoder();
+        entryEncoder.reset();
+        for (int i = 0; i < numIncludedColumns; i++) {
+            ByteSlice value = includedValues[i];
+            if (value != null) {
+                entryEncoder.setRawBytes(value);
+                continue;
+            }
+            int formatId = indexFormatIds[numKeyColumns + i];
+            if (typeProvider.isDouble(formatId))
+                entryEncoder.encodeEmptyDouble();
+            else if (typeProvider.isFloat(formatId))
+                entryEncoder.encodeEmptyFloat();
+            else
+                entryEncoder.encodeEmpty();
+        }
+        entryEncoder.setRawBytes(srcRowKey);
+        return rowEncoder.encode();
+    }
+
+    /**
+     * @param indexPos 0-based position of a column in the index row
+     * @return true if the column is an INCLUDE column, stored in the index value rather than in the key
+     */
+    private boolean isIncludedColumn(int indexPos) {
+        return numIncludedColumns > 0 && indexPos >= numKeyColumns;
+    }
+
+    private void clearIncludedValues() {
+        if (numIncludedColumns == 0)
+            return;
+        if (includedValues == null)
+            includedValues = new ByteSlice[numIncludedColumns];
+        else
+            Arrays.fill(includedValues, null);
+    }
+
+    private void setIncludedValue(int indexPos, byte[] array, int offset, int length) {
+        includedValues[indexPos - numKeyColumns] = ByteSlice.wrap(array, offset, length);
+    }
     /**
      * because the field is NULL and it's source is the incoming mutation, we
      * still need to accumulate it. We must be careful, however, to accumulate the
@@ -695,7 +772,7 @@ public class IndexTransformer {
         if (indexKeyAccumulator == null) {
             BitSet keyFields = new BitSet();
             for (int keyColumn : mainColToIndexPosMap) {
-                if (keyColumn >= 0)
+                if (keyColumn >= 0 && !isIncludedColumn(keyColumn))
                     keyFields.set(keyColumn);
             }
             indexKeyAccumulator = new ByteEntryAccumulator(EntryPredicateFilter.emptyPredicate(), keyFields);
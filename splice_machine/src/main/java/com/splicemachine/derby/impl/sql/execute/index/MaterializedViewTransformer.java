@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.index;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.EngineDriver;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.DataValueFactoryImpl;
+import com.splicemachine.db.iapi.types.NumberDataValue;
+import com.splicemachine.db.impl.sql.compile.MaterializedViewDefinition;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.ddl.DDLMessage;
+import com.splicemachine.derby.ddl.DDLUtils;
+import com.splicemachine.derby.utils.marshall.*;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.context.WriteContext;
+import com.splicemachine.si.api.filter.TxnFilter;
+import com.splicemachine.si.api.server.TransactionalRegion;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.storage.*;
+import com.splicemachine.storage.index.BitIndex;
+import com.splicemachine.utils.ByteSlice;
+import com.splicemachine.utils.IntArrays;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import splice.com.google.common.primitives.Ints;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.splicemachine.db.impl.sql.compile.MaterializedViewDefinition.*;
+
+/**
+ * Folds base table rows into the partial aggregates of a materialized view, see {@link MaterializedViewDefinition}.
+ *
+ * Base rows are decoded into a row with one column per base table storage position, and added to (or removed from)
+ * the partial aggregates of their group. Each call to {@link #encodeDeltas()} then produces one storage table row per
+ * group touched since the previous call, holding the change to every aggregate of the group:
+ *
+ * [saltedRowKey, [g1 ... gN, COUNT(*), agg1 ... aggM]]
+ */
+@NotThreadSafe
+public class MaterializedViewTransformer {
+    private final DDLMessage.MaterializedView materializedView;
+    private final int[] columnFunctions;
+    private final int[] baseColumns; // 0-based base storage position of each storage column, -1 for COUNT(*)
+    private final int[] groupColumns; // 0-based positions of the group columns in the storage row
+    private final BitSet aggregatedColumns; // 0-based base storage positions the view reads
+    private final byte[] storageConglomBytes;
+    private final ExecRow baseTemplate;
+    private final ExecRow storageTemplate;
+    private final Map<ByteSlice, ExecRow> partials = new LinkedHashMap<>();
+
+    private KeyHashDecoder keyDecoder;
+    private EntryDataDecoder rowDecoder;
+    private KeyEncoder groupKeyEncoder;
+    private PairEncoder storageEncoder;
+    private ExecRow groupRow;
+    private DataGet baseGet;
+    private DataResult baseResult;
+
+    public MaterializedViewTransformer(DDLMessage.MaterializedView materializedView) {
+        this.materializedView = materializedView;
+        this.columnFunctions = Ints.toArray(materializedView.getColumnFunctionsList());
+        this.baseColumns = Ints.toArray(materializedView.getBaseColumnsList());
+        this.storageConglomBytes = DDLUtils.getIndexConglomBytes(materializedView.getConglomerate());
+        this.aggregatedColumns = new BitSet();
+        int numGroupColumns = 0;
+        for (int i = 0; i < columnFunctions.length; i++) {
+            if (baseColumns[i] >= 0)
+                aggregatedColumns.set(baseColumns[i]);
+            if (columnFunctions[i] == GROUP_COLUMN)
+                numGroupColumns++;
+        }
+        this.groupColumns = new int[numGroupColumns];
+        for (int i = 0, g = 0; i < columnFunctions.length; i++) {
+            if (columnFunctions[i] == GROUP_COLUMN)
+                groupColumns[g++] = i;
+        }
+        this.baseTemplate = newRow(Ints.toArray(materializedView.getBaseFormatIdsList()));
+        this.storageTemplate = newRow(Ints.toArray(materializedView.getFormatIdsList()));
+    }
+
+    private static ExecRow newRow(int[] formatIds) {
+        ExecRow row = new ValueRow(formatIds.length);
+        for (int i = 0; i < formatIds.length; i++) {
+            row.setColumn(i + 1, DataValueFactoryImpl.getNullDVDWithUCS_BASICcollation(formatIds[i]));
+        }
+        return row;
+    }
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP",justification = "Intentional")
+    public byte[] getStorageConglomBytes() {
+        return storageConglomBytes;
+    }
+
+    public String getViewName() {
+        return materializedView.getViewName();
+    }
+
+    /**
+     * @return a template row with one column per base table storage position
+     */
+    public ExecRow getBaseTemplate() {
+        return baseTemplate.getClone();
+    }
+
+    /**
+     * @return true if the update sets any base column the view groups by or aggregates. Primary key columns are
+     * never updated in place, so only the value needs to be looked at.
+     */
+    public boolean areAggregatedColumnsModified(KVPair update) {
+        EntryDecoder decoder = new EntryDecoder();
+        decoder.set(update.getValue());
+        BitIndex updateIndex = decoder.getCurrentIndex();
+        for (int i = updateIndex.nextSetBit(0); i >= 0; i = updateIndex.nextSetBit(i + 1)) {
+            if (aggregatedColumns.get(i))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Decode a complete base row, as written by an INSERT.
+     */
+    public ExecRow decode(KVPair row) throws StandardException {
+        return decode(row.getRowKey(), 0, row.getRowKey().length, row.getValue(), 0, row.getValue().length);
+    }
+
+    /**
+     * @return the base row {@code oldRow} with the columns set by {@code update} replaced
+     */
+    public ExecRow meld(ExecRow oldRow, KVPair update) throws StandardException {
+        ExecRow newRow = oldRow.getClone();
+        EntryDataDecoder decoder = getRowDecoder();
+        decoder.set(update.getValue(), 0, update.getValue().length);
+        decoder.decode(newRow);
+        return newRow;
+    }
+
+    /**
+     * Read the current version of the base row the mutation applies to.
+     *
+     * @return the decoded row, or null if there is none (it may have been deleted already)
+     */
+    public ExecRow fetchBaseRow(KVPair mutation, WriteContext ctx) throws IOException, StandardException {
+        baseGet = SIDriver.driver().getOperationFactory().newDataGet(ctx.getTxn(), mutation.getRowKey(), baseGet);
+        TransactionalRegion region = ctx.txnRegion();
+        TxnFilter txnFilter = region.packedFilter(ctx.getTxn(), EntryPredicateFilter.emptyPredicate(), false);
+        baseGet.setFilter(txnFilter);
+        baseResult = ctx.getRegion().get(baseGet, baseResult);
+        if (baseResult == null || baseResult.isEmpty())
+            return null;
+        DataCell cell = baseResult.userData();
+        if (cell == null)
+            return null;
+        return decode(cell.keyArray(), cell.keyOffset(), cell.keyLength(),
+                cell.valueArray(), cell.valueOffset(), cell.valueLength());
+    }
+
+    private ExecRow decode(byte[] key, int keyOffset, int keyLength,
+                           byte[] value, int valueOffset, int valueLength) throws StandardException {
+        ExecRow row = baseTemplate.getNewNullRow();
+        KeyHashDecoder kd = getKeyDecoder();
+        kd.set(key, keyOffset, keyLength);
+        kd.decode(row);
+        EntryDataDecoder rd = getRowDecoder();
+        rd.set(value, valueOffset, valueLength);
+        rd.decode(row);
+        return row;
+    }
+
+    /**
+     * Add the base row to the partial aggregates of its group, or remove it from them.
+     *
+     * @param baseRow a row with one column per base table storage position
+     * @param remove true if the row is being removed from the base table
+     * @return the key of the group the row belongs to
+     */
+    public ByteSlice accumulate(ExecRow baseRow, boolean remove) throws StandardException, IOException {
+        ExecRow group = getGroupRow();
+        for (int storageColumn : groupColumns) {
+            group.setColumn(storageColumn + 1, baseRow.getColumn(baseColumns[storageColumn] + 1));
+        }
+        ByteSlice groupKey = ByteSlice.wrap(getGroupKeyEncoder().getKey(group));
+        ExecRow partial = partials.get(groupKey);
+        if (partial == null) {
+            partial = storageTemplate.getNewNullRow();
+            for (int i = 0; i < columnFunctions.length; i++) {
+                if (columnFunctions[i] == GROUP_COLUMN)
+                    partial.getColumn(i + 1).setValue(group.getColumn(i + 1));
+                else if (columnFunctions[i] == COUNT || columnFunctions[i] == COUNT_STAR)
+                    partial.getColumn(i + 1).setValue(0L);
+            }
+            partials.put(groupKey, partial);
+        }
+
+        long increment = remove ? -1L : 1L;
+        for (int i = 0; i < columnFunctions.length; i++) {
+            DataValueDescriptor aggregate = partial.getColumn(i + 1);
+            DataValueDescriptor value = baseColumns[i] >= 0 ? baseRow.getColumn(baseColumns[i] + 1) : null;
+            switch (columnFunctions[i]) {
+                case COUNT_STAR:
+                    aggregate.setValue(aggregate.getLong() + increment);
+                    break;
+                case COUNT:
+                    if (!value.isNull())
+                        aggregate.setValue(aggregate.getLong() + increment);
+                    break;
+                case SUM:
+                    if (!value.isNull()) {
+                        NumberDataValue sum = (NumberDataValue) aggregate;
+                        NumberDataValue addend = (NumberDataValue) aggregate.getNewNull();
+                        addend.setValue(value);
+                        if (sum.isNull())
+                            sum.setValue(0);
+                        if (remove)
+                            sum.minus(sum, addend, sum);
+                        else
+                            sum.plus(sum, addend, sum);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return groupKey;
+    }
+
+    /**
+     * Encode the partial aggregates accumulated since the last call as storage table inserts, and start over.
+     *
+     * @return the storage row of each group, by group key
+     */
+    public Map<ByteSlice, KVPair> encodeDeltas() throws StandardException, IOException {
+        Map<ByteSlice, KVPair> deltas = new LinkedHashMap<>(partials.size());
+        PairEncoder encoder = getStorageEncoder();
+        for (Map.Entry<ByteSlice, ExecRow> entry : partials.entrySet()) {
+            deltas.put(entry.getKey(), encoder.encode(entry.getValue()));
+        }
+        partials.clear();
+        return deltas;
+    }
+
+    private KeyHashDecoder getKeyDecoder() {
+        if (keyDecoder == null) {
+            DDLMessage.Table table = materializedView.getTable();
+            if (table.getColumnOrderingCount() > 0) {
+                // Must use dense encodings in the key serializer (sparse = false)
+                DescriptorSerializer[] denseSerializers =
+                        VersionedSerializers.forVersion(table.getTableVersion(), false).getSerializers(baseTemplate);
+                keyDecoder = BareKeyHash.decoder(Ints.toArray(table.getColumnOrderingList()), null, denseSerializers);
+            } else {
+                keyDecoder = NoOpDataHash.instance().getDecoder();
+            }
+        }
+        return keyDecoder;
+    }
+
+    private EntryDataDecoder getRowDecoder() {
+        if (rowDecoder == null) {
+            DescriptorSerializer[] serializers =
+                    VersionedSerializers.forVersion(materializedView.getTable().getTableVersion(), true).getSerializers(baseTemplate);
+            rowDecoder = new EntryDataDecoder(IntArrays.count(baseTemplate.nColumns()), null, serializers);
+        }
+        return rowDecoder;
+    }
+
+    private ExecRow getGroupRow() {
+        if (groupRow == null)
+            groupRow = new ValueRow(storageTemplate.nColumns());
+        return groupRow;
+    }
+
+    private KeyEncoder getGroupKeyEncoder() {
+        if (groupKeyEncoder == null) {
+            DescriptorSerializer[] denseSerializers =
+                    VersionedSerializers.forVersion(materializedView.getStorageTableVersion(), false).getSerializers(storageTemplate);
+            groupKeyEncoder = KeyEncoder.bare(groupColumns, null, denseSerializers);
+        }
+        return groupKeyEncoder;
+    }
+
+    private PairEncoder getStorageEncoder() {
+        if (storageEncoder == null) {
+            // the storage table has no primary key, every delta goes to a new row
+            KeyEncoder keyEncoder = new KeyEncoder(new SaltedPrefix(EngineDriver.driver().newUUIDGenerator(100)),
+                    NoOpDataHash.INSTANCE, NoOpPostfix.INSTANCE);
+            DescriptorSerializer[] serializers =
+                    VersionedSerializers.forVersion(materializedView.getStorageTableVersion(), true).getSerializers(storageTemplate);
+            storageEncoder = new PairEncoder(keyEncoder,
+                    new EntryDataHash(IntArrays.count(storageTemplate.nColumns()), null, serializers), KVPair.Type.INSERT);
+        }
+        return storageEncoder;
+    }
+}
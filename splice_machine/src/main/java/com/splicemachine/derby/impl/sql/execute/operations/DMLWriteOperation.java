@@ -14,6 +14,7 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.db.catalog.UUID;
 import com.splicemachine.db.catalog.types.UserDefinedTypeIdImpl;
 import com.splicemachine.db.iapi.error.ExceptionSeverity;
 import com.splicemachine.db.iapi.error.StandardException;
@@ -28,7 +29,10 @@ import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.ResultColumnDescriptor;
 import com.splicemachine.db.iapi.sql.ResultDescription;
 import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.dictionary.ConstraintDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.ConstraintDescriptorList;
 import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
+import com.splicemachine.db.iapi.sql.dictionary.ReferencedKeyConstraintDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.SPSDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
@@ -37,6 +41,7 @@ import com.splicemachine.db.iapi.store.access.conglomerate.TransactionManager;
 import com.splicemachine.db.iapi.store.raw.Transaction;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.TypeId;
+import com.splicemachine.db.impl.sql.catalog.DataDictionaryCache;
 import com.splicemachine.db.impl.sql.execute.TriggerInfo;
 import com.splicemachine.db.impl.sql.execute.ValueRow;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
@@ -45,6 +50,7 @@ import com.splicemachine.derby.impl.SpliceMethod;
 import com.splicemachine.derby.impl.sql.execute.actions.WriteCursorConstantOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.iapi.DMLWriteInfo;
 import com.splicemachine.derby.impl.store.access.BaseSpliceTransaction;
+import com.splicemachine.derby.impl.store.access.SpliceTransaction;
 import com.splicemachine.derby.impl.store.access.SpliceTransactionManager;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
@@ -497,6 +503,7 @@ public abstract class DMLWriteOperation extends SpliceBaseOperation {
 
     @Override
     public void openCore() throws StandardException {
+        recordResultCacheWrite();
         super.openCore();
         /*
         We have to compute modifiedRowCount and badRecords here because if there's an Exception it has to
@@ -514,6 +521,41 @@ public abstract class DMLWriteOperation extends SpliceBaseOperation {
         }
     }
 
+    /**
+     * Record the write in the user transaction, its commit invalidates the results read from the target table kept
+     * in the result cache.
+     */
+    private void recordResultCacheWrite() throws StandardException {
+        LanguageConnectionContext lcc = activation.getLanguageConnectionContext();
+        DataDictionary dd = lcc.getDataDictionary();
+        DataDictionaryCache resultCache = dd.getDataDictionaryCache();
+        if (resultCache.getResultCacheMaxRows() == 0)
+            return;
+        WriteCursorConstantOperation constantAction = (WriteCursorConstantOperation) writeInfo.getConstantAction();
+        UUID target = constantAction == null ? null : constantAction.getTargetUUID();
+        // triggers and referential actions write to other tables
+        if (target != null && (constantAction.getTriggerInfo() != null || this instanceof DeleteOperation)) {
+            TableDescriptor td = dd.getTableDescriptor(target, lcc.getTransactionExecute());
+            if (td == null || constantAction.getTriggerInfo() != null || isReferenced(td))
+                target = null;
+        }
+        Transaction rawStoreXact = ((TransactionManager) lcc.getTransactionExecute()).getRawStoreXact();
+        if (rawStoreXact instanceof SpliceTransaction)
+            ((SpliceTransaction) rawStoreXact).addResultCacheWrite(resultCache, target);
+        else
+            resultCache.clearResultCache();
+    }
+
+    private static boolean isReferenced(TableDescriptor td) throws StandardException {
+        ConstraintDescriptorList cdl = td.getConstraintDescriptorList();
+        for (int i = 0; i < cdl.size(); i++) {
+            ConstraintDescriptor cd = cdl.elementAt(i);
+            if (cd instanceof ReferencedKeyConstraintDescriptor && ((ReferencedKeyConstraintDescriptor) cd).isReferenced())
+                return true;
+        }
+        return false;
+    }
+
     private long getModifiedRows() {
         long n = 0;
         if (modifiedRowCount != null && modifiedRowCount.length > 0) {
@@ -14,25 +14,33 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.loader.GeneratedMethod;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.compile.CompilerContext;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
 import com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate.DerbyGroupedAggregateContext;
 import com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate.GroupedAggregateContext;
+import com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate.RegionAggregation;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
 import com.splicemachine.derby.stream.function.*;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.derby.stream.iapi.PairDataSet;
+import com.splicemachine.derby.stream.iapi.ScanSetBuilder;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  *
@@ -61,6 +69,7 @@ public class GroupedAggregateOperation extends GenericAggregateOperation {
     private static final long serialVersionUID = 1l;
     private static Logger LOG = Logger.getLogger(GroupedAggregateOperation.class);
     protected boolean isRollup;
+    protected boolean isInSortedOrder;
     public GroupedAggregateContext groupedAggregateContext;
     protected static final String NAME = GroupedAggregateOperation.class.getSimpleName().replaceAll("Operation","");
 
@@ -92,6 +101,7 @@ public class GroupedAggregateOperation extends GenericAggregateOperation {
                                                                                          StandardException {
         super(s, aggregateItem, a, ra, resultSetNumber, optimizerEstimatedRowCount, optimizerEstimatedCost, nativeSparkMode);
         this.isRollup = isRollup;
+        this.isInSortedOrder = isInSortedOrder;
         this.groupedAggregateContext = groupedAggregateContext;
     }
 
@@ -145,18 +155,39 @@ public class GroupedAggregateOperation extends GenericAggregateOperation {
             throw new IllegalStateException("Operation is not open");
 
         OperationContext<GroupedAggregateOperation> operationContext = dsp.createOperationContext(this);
-        dsp.incrementOpDepth();
-        DataSet set = source.getDataSet(dsp);
+        DataSet set = regionAggregatedDataSet(dsp);
+        boolean regionAggregated = set != null;
+        if (!regionAggregated) {
+            dsp.incrementOpDepth();
+            set = source.getDataSet(dsp);
+            dsp.decrementOpDepth();
+        }
         DataSet sourceDS = set;
-        dsp.decrementOpDepth();
         DataSet dataSetWithNativeSparkAggregation = null;
 
         if (nativeSparkForced(dsp) && (isRollup || aggregates.length > 0))
             set = set.upgradeToSparkNativeDataSet(operationContext);
 
-        operationContext.pushScope();
-        set = set.map(new CountReadFunction(operationContext));
-        operationContext.popScope();
+        if (!regionAggregated) {
+            operationContext.pushScope();
+            set = set.map(new CountReadFunction(operationContext));
+            operationContext.popScope();
+        }
+
+        // The source returns the rows of each group together, merge them as they are read
+        if (!regionAggregated && isInSortedOrder && dsp.getType() == DataSetProcessor.Type.CONTROL && !isRollup &&
+                groupedAggregateContext.getNumDistinctAggregates() == 0 && readsInScanOrder(source)) {
+            operationContext.pushScopeForOp(OperationContext.Scope.REDUCE);
+            set = set.mapPartitions(new MergeOrderedAggregatesFlatMapFunction(operationContext,
+                    groupedAggregateContext.getGroupingKeys()));
+            operationContext.popScope();
+
+            operationContext.pushScopeForOp(OperationContext.Scope.FINALIZE);
+            DataSet set5 = set.map(new AggregateFinisherFunction(operationContext), true);
+            operationContext.popScope();
+            handleSparkExplain(set5, sourceDS, dsp);
+            return set5;
+        }
 
         // Have distinct Aggregates?
         boolean hasMultipleDistinct = false;
@@ -293,4 +324,81 @@ public class GroupedAggregateOperation extends GenericAggregateOperation {
         return set5;
     }
 
+    /**
+     * The optimizer considers the ordering of the leftmost table of a join only, but joins (and every other
+     * operation that partitions its input in control) may emit rows in a different order. Grouped rows are
+     * streamed only when they are read straight from a scan, through operations that keep their order.
+     *
+     * @return true if the rows of {@code op} are returned in the order of a single table or index scan
+     */
+    private static boolean readsInScanOrder(SpliceOperation op) {
+        while (true) {
+            if (op instanceof ProjectRestrictOperation)
+                op = ((ProjectRestrictOperation) op).getSource();
+            else if (op instanceof IndexRowToBaseRowOperation)
+                op = ((IndexRowToBaseRowOperation) op).getSource();
+            else if (op instanceof NormalizeOperation)
+                op = ((NormalizeOperation) op).getSource();
+            else
+                return op != null && op.getClass() == TableScanOperation.class;
+        }
+    }
+
+    /**
+     * Aggregate the rows of the base table on the regions holding them, when this operation runs in control over
+     * a projection of columns of a table scan, so only one partial aggregate row per group and region is read.
+     *
+     * @return the partial aggregate rows in the layout of the source rows, or null if the source must be read
+     */
+    private DataSet<ExecRow> regionAggregatedDataSet(DataSetProcessor dsp) throws StandardException {
+        int maxGroups = EngineDriver.driver().getConfiguration().getRegionAggregateMaxGroups();
+        if (dsp.getType() != DataSetProcessor.Type.CONTROL || dsp.isSparkExplain() || maxGroups <= 0 || isRollup ||
+                aggregates.length == 0 || groupedAggregateContext.getNumDistinctAggregates() > 0 ||
+                !(source instanceof ProjectRestrictOperation))
+            return null;
+        ProjectRestrictOperation projection = (ProjectRestrictOperation) source;
+        if (projection.getRestrictionMethodName() != null || projection.getSource().getClass() != TableScanOperation.class)
+            return null;
+        TableScanOperation tableScan = (TableScanOperation) projection.getSource();
+
+        int[] groupingKeys = groupedAggregateContext.getGroupingKeys();
+        int[] groupColumns = new int[groupingKeys.length];
+        for (int i = 0; i < groupingKeys.length; i++) {
+            groupColumns[i] = projection.projectMapping[groupingKeys[i]];
+            if (groupColumns[i] <= 0)
+                return null;
+        }
+        int[] inputColumns = new int[aggregates.length];
+        ExecAggregator[] aggregators = new ExecAggregator[aggregates.length];
+        for (int i = 0; i < aggregates.length; i++) {
+            if (aggregates[i].isDistinct())
+                return null;
+            int inputColumnId = aggregates[i].getInputColumnId();
+            aggregators[i] = aggregates[i].getAggregatorInstance(sourceExecIndexRow.getColumn(inputColumnId).getTypeFormatId());
+            if (!RegionAggregation.canPushDown(aggregators[i]))
+                return null;
+            inputColumns[i] = projection.projectMapping[inputColumnId - 1];
+            if (inputColumns[i] <= 0) {
+                // COUNT(*) doesn't look at its input
+                if (!(aggregators[i] instanceof CountAggregator) || !((CountAggregator) aggregators[i]).isCountStar())
+                    return null;
+                inputColumns[i] = groupColumns[0];
+            }
+        }
+
+        ScanSetBuilder<ExecRow> scanSet = tableScan.newScanSetBuilder(dsp);
+        if (!(scanSet instanceof TableScannerBuilder) || scanSet.getScan().isDescendingScan())
+            return null;
+        List<ExecRow> partials = EngineDriver.driver().processorFactory().getRegionAggregateClient().aggregate(
+                tableScan.getTableName(),
+                new RegionAggregation((TableScannerBuilder) scanSet, groupColumns, inputColumns, aggregators, maxGroups));
+        if (partials == null)
+            return null;
+        List<ExecRow> rows = new ArrayList<>(partials.size());
+        for (ExecRow partial : partials) {
+            rows.add(RegionAggregation.toSourceRow(partial, sourceExecIndexRow, groupingKeys, aggregates));
+        }
+        return dsp.createDataSet(rows.iterator());
+    }
+
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.catalog.UUID;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.ParameterValueSet;
+import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.impl.sql.catalog.DataDictionaryCache;
+import com.splicemachine.db.impl.sql.catalog.ResultCacheKey;
+import com.splicemachine.db.impl.sql.catalog.ResultCacheValue;
+import com.splicemachine.derby.iapi.sql.ResultCacheWatermarksService;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import splice.com.google.common.collect.Iterators;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The entry of a statement execution in the result cache of the data dictionary. Only the top operation of a
+ * statement compiled with the resultCache=true hint has one, and only when it runs in a read only transaction.
+ */
+class ResultCacheEntry {
+    private final DataDictionaryCache cache;
+    private final ResultCacheKey key;
+    private final UUID[] tables;
+    private final long beginTimestamp;
+    private final long epoch;
+
+    private ResultCacheEntry(DataDictionaryCache cache, ResultCacheKey key, UUID[] tables, long beginTimestamp) {
+        this.cache = cache;
+        this.key = key;
+        this.tables = tables;
+        this.beginTimestamp = beginTimestamp;
+        this.epoch = cache.resultCacheEpoch();
+    }
+
+    /**
+     * @return the result cache entry of the execution of {@code op}, or null if its results can't be cached
+     */
+    static ResultCacheEntry forOperation(SpliceBaseOperation op) throws StandardException {
+        Activation activation = op.getActivation();
+        UUID[] tables = activation.getPreparedStatement().getResultCacheTables();
+        if (tables == null || activation.getResultSet() != op || activation.isSubStatement())
+            return null;
+        LanguageConnectionContext lcc = activation.getLanguageConnectionContext();
+        DataDictionaryCache cache = lcc.getDataDictionary().getDataDictionaryCache();
+        if (cache.getResultCacheMaxRows() == 0)
+            return null;
+        // the results must not include uncommitted writes
+        TxnView txn = op.getCurrentTransaction();
+        if (txn.allowsWrites() || txn.getIsolationLevel() == Txn.IsolationLevel.READ_UNCOMMITTED)
+            return null;
+
+        ParameterValueSet pvs = activation.getParameterValueSet();
+        int parameterCount = pvs == null ? 0 : pvs.getParameterCount();
+        DataValueDescriptor[] parameters = new DataValueDescriptor[parameterCount];
+        for (int i = 0; i < parameterCount; i++) {
+            parameters[i] = pvs.getParameter(i).cloneValue(true);
+        }
+        // the activation class is generated anew by each compilation of the statement
+        ResultCacheKey key = new ResultCacheKey(activation.getClass().getName(),
+                lcc.getCurrentUserId(activation), parameters);
+        return new ResultCacheEntry(cache, key, tables, txn.getBeginTimestamp());
+    }
+
+    /**
+     * The local watermarks only see the commits made through this server, the cluster-wide watermarks are checked
+     * before the rows are served.
+     *
+     * @return the cached rows of the execution, or null if they aren't in the cache
+     */
+    Iterator<ExecRow> find() throws StandardException {
+        ResultCacheValue value = cache.resultCacheFind(key, beginTimestamp);
+        if (value == null)
+            return null;
+        Set<String> tableKeys = new TreeSet<>();
+        for (UUID table : tables) {
+            tableKeys.add(table.toString());
+        }
+        if (!ResultCacheWatermarksService.loadWatermarks().isCurrent(tableKeys, value.getBeginTimestamp())) {
+            cache.resultCacheRemove(key);
+            return null;
+        }
+        // the rows are shared with concurrent executions
+        return Iterators.transform(value.getRows().iterator(), ExecRow::getClone);
+    }
+
+    /**
+     * Read the rows of the execution from {@code rows} and add them to the cache, unless there are too many of them.
+     *
+     * @return the rows of the execution
+     */
+    Iterator<ExecRow> fill(Iterator<ExecRow> rows) throws StandardException {
+        int maxRows = cache.getResultCacheMaxRows();
+        List<ExecRow> result = new ArrayList<>();
+        while (rows.hasNext()) {
+            result.add(rows.next().getClone());
+            if (result.size() > maxRows)
+                return Iterators.concat(result.iterator(), rows);
+        }
+        cache.resultCacheAdd(key, new ResultCacheValue(result, tables, beginTimestamp, epoch));
+        return Iterators.transform(result.iterator(), ExecRow::getClone);
+    }
+}
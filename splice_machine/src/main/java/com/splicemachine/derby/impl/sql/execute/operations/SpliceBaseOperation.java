@@ -560,6 +560,15 @@ public abstract class SpliceBaseOperation implements SpliceOperation, ScopeNamed
 
     @Override
     public void openCore() throws StandardException{
+        ResultCacheEntry resultCacheEntry = isTopResultSet ? ResultCacheEntry.forOperation(this) : null;
+        if (resultCacheEntry != null) {
+            Iterator<ExecRow> cachedRows = resultCacheEntry.find();
+            if (cachedRows != null) {
+                reset();
+                execRowIterator = cachedRows;
+                return;
+            }
+        }
         DataSetProcessor dsp = EngineDriver.driver().processorFactory().chooseProcessor(activation, this);
         setTimeout();
         if (dsp.getType() == DataSetProcessor.Type.SPARK && !(isOlapServer() && activation.isSubStatement()) && !SpliceClient.isClient()) {
@@ -567,6 +576,17 @@ public abstract class SpliceBaseOperation implements SpliceOperation, ScopeNamed
         } else {
             openCore(dsp);
         }
+        if (resultCacheEntry != null) {
+            try {
+                execRowIterator = resultCacheEntry.fill(execRowIterator);
+            } catch (Exception e) {
+                checkInterruptedException(e);
+                StandardException se = Exceptions.parseException(e);
+                if (!(se instanceof ResubmitDistributedException))
+                    throw se;
+                resubmitDistributed((ResubmitDistributedException) se);
+            }
+        }
     }
 
     private void setTimeout() {
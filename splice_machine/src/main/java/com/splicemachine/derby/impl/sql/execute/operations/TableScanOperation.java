@@ -31,13 +31,16 @@ import com.splicemachine.derby.stream.function.SetCurrentLocatedRowAndRowKeyFunc
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.ScanSetBuilder;
+import com.splicemachine.derby.utils.Scans;
 import com.splicemachine.derby.utils.marshall.dvd.TypeProvider;
 import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
 import com.splicemachine.encoding.Encoding;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.ZonePredicate;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
@@ -359,18 +362,46 @@ public class TableScanOperation extends ScanOperation{
         dataScan.attachKeyPrefixFilter(firstKeyColumnEncodingKind);
     }
 
+    /**
+     * Pass the qualifiers of a base table scan which the zone maps of its store files can check down to the region
+     * servers, so they can skip the row ranges which can't satisfy them.
+     */
+    protected void attachZonePredicate(DataScan dataScan) throws StandardException {
+        if ((storedAs != null && !storedAs.isEmpty()) || scanInformation.isKeyed() || dataScan.isDescendingScan())
+            return;
+        ZonePredicate predicate = Scans.getZonePredicate(scanInformation.getScanQualifiers(), currentTemplate,
+                baseColumnMap, scanInformation.getDefaultValueMap(), tableVersion);
+        if (predicate == null)
+            return;
+        try {
+            dataScan.addAttribute(SIConstants.ZONE_PREDICATE_ATTR, predicate.toBytes());
+        } catch (IOException e) {
+            throw StandardException.plainWrapException(e);
+        }
+    }
+
     /**
      * @return the Table Scan Builder for creating the actual data set from a scan.
      */
     public DataSet<ExecRow> getTableScannerBuilder(DataSetProcessor dsp) throws StandardException{
-        TxnView txn = getCurrentTransaction();
         operationContext = dsp.createOperationContext(this);
+        return newScanSetBuilder(dsp)
+                .buildDataSet(this)
+                .map(new SetCurrentLocatedRowAndRowKeyFunction<>(operationContext));
+    }
+
+    /**
+     * @return the Scan Set Builder describing the scan of this operation, before any data set is built from it
+     */
+    public ScanSetBuilder<ExecRow> newScanSetBuilder(DataSetProcessor dsp) throws StandardException{
+        TxnView txn = getCurrentTransaction();
 
         // we currently don't support external tables in Control, so this shouldn't happen
         assert storedAs == null || !( dsp.getType() == DataSetProcessor.Type.CONTROL && !storedAs.isEmpty() )
                 : "tried to access external table " + tableDisplayName + ":" + tableName + " over control/OLTP";
 
         DataScan dataScan = getNonSIScan();
+        attachZonePredicate(dataScan);
         if (firstRowOfIndexPrefixIteration != null) {
             try {
                 attachKeyPrefixFilter(dataScan, firstRowOfIndexPrefixIteration.getColumn(1));
@@ -402,9 +433,7 @@ public class TableScanOperation extends ScanOperation{
                 .location(location)
                 .partitionByColumns(getPartitionColumnMap())
                 .defaultRow(defaultRow,scanInformation.getDefaultValueMap())
-                .ignoreRecentTransactions(isReadOnly(txn))
-                .buildDataSet(this)
-                .map(new SetCurrentLocatedRowAndRowKeyFunction<>(operationContext));
+                .ignoreRecentTransactions(isReadOnly(txn));
     }
 
     protected boolean isReadOnly(TxnView txn) {
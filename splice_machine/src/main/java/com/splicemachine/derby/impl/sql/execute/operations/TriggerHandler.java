@@ -202,6 +202,12 @@ public class TriggerHandler {
                  inMemoryLimit < 0 ? 0 :
                  inMemoryLimit;
 
+            // On control, the rows beyond this threshold are spilled to a local file
+            // instead of being held in memory.
+            long spillThreshold = EngineDriver.driver().getConfiguration().getTriggerRowsSpillThreshold();
+            int spillToDiskThreshold = spillThreshold <= 0 || spillThreshold > Integer.MAX_VALUE ?
+                                       Integer.MAX_VALUE : (int) spillThreshold;
+
             // Spark doesn't support use of an in-memory TriggerRowHolderImpl, so we
             // set overflowToConglomThreshold to zero and always use a conglomerate.
             if (this.isSpark) {
@@ -223,7 +229,7 @@ public class TriggerHandler {
             triggerRowHolder =
                 new TriggerRowHolderImpl(activation, properties, writeInfo.getResultDescription(),
                                          overflowToConglomThreshold, switchToSparkThreshold,
-                                         templateRow, tableVersion, this.isSpark, txn, token, ConglomID,
+                                         spillToDiskThreshold, templateRow, tableVersion, this.isSpark, txn, token, ConglomID,
                                           this.getTriggerExecutionContext());
         }
 
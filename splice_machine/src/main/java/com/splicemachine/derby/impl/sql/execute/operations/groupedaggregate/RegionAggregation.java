@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.UserType;
+import com.splicemachine.db.impl.sql.execute.AvgAggregator;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
+import com.splicemachine.db.impl.sql.execute.MaxMinAggregator;
+import com.splicemachine.db.impl.sql.execute.SumAggregator;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
+import com.splicemachine.derby.stream.iapi.DataSet;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The partial aggregation of a grouped aggregate over a base table scan, computed by each region over the rows
+ * it holds, after SI and the scan qualifiers have filtered them. The partial rows hold the grouping columns followed
+ * by one aggregator per aggregate, and are merged by the grouped aggregate like the rows of its source once their
+ * columns are moved to the position they have in the source rows.
+ *
+ * Only COUNT, SUM, MIN, MAX and AVG over columns of the scan are computed this way, since their aggregators can merge
+ * partial results and don't need the activation of the statement.
+ */
+public class RegionAggregation implements Externalizable {
+    private static final long serialVersionUID = 1l;
+
+    private TableScannerBuilder scanner;
+    private int[] groupColumns;
+    private SpliceGenericAggregator[] aggregates;
+    private int maxGroups;
+
+    public RegionAggregation() {
+    }
+
+    /**
+     * @param scanner the scan of the base table
+     * @param groupColumns the 1-based positions of the grouping columns in the rows of the scan
+     * @param inputColumns the 1-based positions of the input of the aggregates in the rows of the scan
+     * @param aggregators an aggregator set up for each aggregate, used to create the aggregators of each group
+     * @param maxGroups the number of groups past which a region gives up its partial aggregation
+     */
+    public RegionAggregation(TableScannerBuilder scanner, int[] groupColumns, int[] inputColumns,
+                             ExecAggregator[] aggregators, int maxGroups) {
+        this.scanner = scanner;
+        this.groupColumns = groupColumns;
+        this.maxGroups = maxGroups;
+        this.aggregates = new SpliceGenericAggregator[aggregators.length];
+        for (int i = 0; i < aggregators.length; i++) {
+            aggregates[i] = new SpliceGenericAggregator(aggregators[i], groupColumns.length + i + 1, inputColumns[i], 0);
+        }
+    }
+
+    /**
+     * @return true if the aggregator can merge partial results computed by the regions
+     */
+    public static boolean canPushDown(ExecAggregator aggregator) {
+        return aggregator instanceof CountAggregator || aggregator instanceof SumAggregator ||
+                aggregator instanceof MaxMinAggregator || aggregator instanceof AvgAggregator;
+    }
+
+    public TableScannerBuilder getScanner() {
+        return scanner;
+    }
+
+    /**
+     * Aggregate the rows returned by a scanner of one region.
+     *
+     * @return the partial aggregate rows, or null if the region holds more than the maximum number of groups
+     */
+    public List<ExecRow> aggregate(SITableScanner scanner) throws StandardException, IOException {
+        Map<ExecRow, ExecRow> groups = new HashMap<>();
+        ExecRow row;
+        while ((row = scanner.next()) != null) {
+            ExecRow key = new ValueRow(groupColumns.length);
+            for (int i = 0; i < groupColumns.length; i++) {
+                key.setColumn(i + 1, row.getColumn(groupColumns[i]));
+            }
+            ExecRow partial = groups.get(key);
+            if (partial == null) {
+                if (groups.size() >= maxGroups)
+                    return null;
+                // the scanner reuses the columns of its rows
+                ExecRow groupKey = new ValueRow(groupColumns.length);
+                partial = new ValueRow(groupColumns.length + aggregates.length);
+                for (int i = 0; i < groupColumns.length; i++) {
+                    DataValueDescriptor value = key.getColumn(i + 1).cloneValue(false);
+                    groupKey.setColumn(i + 1, value);
+                    partial.setColumn(i + 1, value);
+                }
+                for (int i = 0; i < aggregates.length; i++) {
+                    partial.setColumn(groupColumns.length + i + 1, new UserType());
+                }
+                groups.put(groupKey, partial);
+            }
+            for (SpliceGenericAggregator aggregate : aggregates) {
+                aggregate.accumulate(row, partial);
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Move the columns of a partial aggregate row to the position they have in the source rows of the grouped
+     * aggregate.
+     *
+     * @param partial a row returned by {@link #aggregate(SITableScanner)}
+     * @param template a row of the source of the grouped aggregate
+     * @param groupingKeys the 0-based positions of the grouping columns in the source rows
+     * @param sourceAggregates the aggregates of the grouped aggregate, in the order used by this aggregation
+     */
+    public static ExecRow toSourceRow(ExecRow partial, ExecRow template, int[] groupingKeys,
+                                      SpliceGenericAggregator[] sourceAggregates) throws StandardException {
+        ExecRow row = template.getNewNullRow();
+        for (int i = 0; i < groupingKeys.length; i++) {
+            row.setColumn(groupingKeys[i] + 1, partial.getColumn(i + 1));
+        }
+        for (int i = 0; i < sourceAggregates.length; i++) {
+            row.setColumn(sourceAggregates[i].getAggregatorColumnId(), partial.getColumn(groupingKeys.length + i + 1));
+        }
+        return row;
+    }
+
+    public static byte[] writeRows(List<ExecRow> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeInt(rows.size());
+            for (ExecRow row : rows) {
+                out.writeObject(row);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    public static List<ExecRow> readRows(byte[] bytes) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            int size = in.readInt();
+            List<ExecRow> rows = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                rows.add((ExecRow) in.readObject());
+            }
+            return rows;
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        scanner.writeExternal(out);
+        out.writeInt(groupColumns.length);
+        for (int groupColumn : groupColumns) {
+            out.writeInt(groupColumn);
+        }
+        out.writeInt(aggregates.length);
+        for (SpliceGenericAggregator aggregate : aggregates) {
+            out.writeObject(aggregate);
+        }
+        out.writeInt(maxGroups);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        // the builder of the scan is the one of the data set processor which ran the statement,
+        // only its description is needed here
+        scanner = new RegionScannerBuilder();
+        scanner.readExternal(in);
+        groupColumns = new int[in.readInt()];
+        for (int i = 0; i < groupColumns.length; i++) {
+            groupColumns[i] = in.readInt();
+        }
+        aggregates = new SpliceGenericAggregator[in.readInt()];
+        for (int i = 0; i < aggregates.length; i++) {
+            aggregates[i] = (SpliceGenericAggregator) in.readObject();
+        }
+        maxGroups = in.readInt();
+    }
+
+    private static class RegionScannerBuilder extends TableScannerBuilder<ExecRow> {
+        @Override
+        public DataSet<ExecRow> buildDataSet() {
+            throw new UnsupportedOperationException("the scan of a region aggregation is opened by the region");
+        }
+    }
+}
@@ -117,7 +117,8 @@ public class StoreCostControllerImpl implements StoreCostController {
             if (conglomerateDescriptor.getIndexDescriptor().isPrimaryKey())
                 conglomerateColumns = td.getNumberOfColumns();
             else
-                conglomerateColumns = conglomerateDescriptor.getIndexDescriptor().numberOfOrderedColumns();
+                // INCLUDE columns are stored in the index row as well
+                conglomerateColumns = conglomerateDescriptor.getIndexDescriptor().baseColumnPositions().length;
         } else {
             conglomerateColumns = (conglomerateDescriptor.getColumnNames() == null) ? 2 : conglomerateDescriptor.getColumnNames().length;
         }
@@ -14,9 +14,13 @@
 
 package com.splicemachine.derby.impl.store.access;
 
+import com.splicemachine.db.catalog.UUID;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.locks.CompatibilitySpace;
 import com.splicemachine.db.iapi.types.DataValueFactory;
+import com.splicemachine.db.impl.sql.catalog.DataDictionaryCache;
+import com.splicemachine.derby.iapi.sql.ResultCacheWatermarks;
+import com.splicemachine.derby.iapi.sql.ResultCacheWatermarksService;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnLifecycleManager;
@@ -26,9 +30,19 @@ import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class SpliceTransaction extends BaseSpliceTransaction<TransactionImpl> {
     private static Logger LOG=Logger.getLogger(SpliceTransaction.class);
+    // tables written by the transaction, whose cached results are invalidated on commit
+    private Set<UUID> modifiedTables;
+    private boolean modifiedUnknownTables;
+    private DataDictionaryCache resultCache;
 
     public SpliceTransaction(CompatibilitySpace compatibilitySpace,
                              SpliceTransactionFactory spliceTransactionFactory,
@@ -64,15 +78,72 @@ public class SpliceTransaction extends BaseSpliceTransaction<TransactionImpl> {
     @Override
     public void commit() throws StandardException{
         try {
+            Txn txn = transaction.getTxn();
+            Collection<String> watermarkTables = resultCacheWatermarkTables();
+            if (watermarkTables != null)
+                ResultCacheWatermarksService.loadWatermarks().beforeCommit(watermarkTables, txn.getTxnId());
             transaction.commit();
+            invalidateResultCache(txn, watermarkTables);
         } catch (IOException e) {
             throw Exceptions.parseException(e);
         }
     }
 
+    /**
+     * Record a write made by the transaction, its commit invalidates the results read from {@code table} kept in
+     * {@code resultCache}.
+     *
+     * @param table the table written to, or null if the write may have modified any table
+     */
+    public void addResultCacheWrite(DataDictionaryCache resultCache, UUID table){
+        this.resultCache = resultCache;
+        if(table==null){
+            modifiedUnknownTables = true;
+            return;
+        }
+        if(modifiedTables==null)
+            modifiedTables = new HashSet<>();
+        modifiedTables.add(table);
+    }
+
+    /**
+     * @return the keys of the tables whose watermarks the commit must publish for the result caches of the other
+     * servers, or null if the transaction didn't write to any table
+     */
+    private Collection<String> resultCacheWatermarkTables(){
+        if(resultCache==null || transaction.getTxn()==null)
+            return null;
+        if(modifiedUnknownTables || modifiedTables==null)
+            return Collections.singletonList(ResultCacheWatermarks.ALL_TABLES);
+        List<String> tables = new ArrayList<>(modifiedTables.size());
+        for(UUID table : modifiedTables){
+            tables.add(table.toString());
+        }
+        return tables;
+    }
+
+    private void invalidateResultCache(Txn txn, Collection<String> watermarkTables){
+        if(resultCache==null)
+            return;
+        long commitTimestamp = txn==null ? -1L : txn.getEffectiveCommitTimestamp();
+        if(watermarkTables!=null && commitTimestamp>0)
+            ResultCacheWatermarksService.loadWatermarks().afterCommit(watermarkTables, txn.getTxnId(), commitTimestamp);
+        if(commitTimestamp<=0)
+            resultCache.clearResultCache();
+        else
+            resultCache.resultCacheCommitted(modifiedUnknownTables ? null : modifiedTables, commitTimestamp);
+        clearResultCacheWrites();
+    }
+
+    private void clearResultCacheWrites(){
+        resultCache = null;
+        modifiedTables = null;
+        modifiedUnknownTables = false;
+    }
 
     public void abort() throws StandardException{
         SpliceLogUtils.debug(LOG,"abort");
+        clearResultCacheWrites();
         try{
             transaction.abort();
         }catch(Exception e){
@@ -30,6 +30,8 @@ import com.splicemachine.access.api.DatabaseVersion;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.reference.Property;
 import com.splicemachine.db.impl.jdbc.EmbedConnection;
+import com.splicemachine.derby.ddl.DDLController;
+import com.splicemachine.derby.ddl.DDLCoordinationManagement;
 import com.splicemachine.derby.ddl.DDLDriver;
 import com.splicemachine.derby.ddl.DDLEnvironmentLoader;
 import com.splicemachine.derby.impl.db.SpliceDatabase;
@@ -41,7 +43,10 @@ import com.splicemachine.pipeline.PipelineDriver;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryDriver;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryLoader;
 import com.splicemachine.pipeline.contextfactory.ReferenceCountingFactoryDriver;
+import com.splicemachine.si.api.readresolve.ReadResolverManagement;
 import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.si.impl.store.IgnoreTxnManagement;
+import com.splicemachine.si.impl.store.IgnoreTxnSupplier;
 import com.splicemachine.tools.EmbedConnectionMaker;
 import com.splicemachine.tools.version.ManifestReader;
 import com.splicemachine.utils.logging.LogManager;
@@ -143,7 +148,22 @@ public class EngineLifecycleService implements DatabaseLifecycleService{
 
             ObjectName rollforward = new ObjectName("com.splicemachine.si.api.rollforward:type=RollForward");
             mbs.registerMBean(SIDriver.driver().getRollForward(),rollforward);
+            ReadResolverManagement readResolver = SIDriver.driver().getReadResolverManagement();
+            if(readResolver!=null){
+                ObjectName readResolve = new ObjectName("com.splicemachine.si.api.readresolve:type=ReadResolver");
+                mbs.registerMBean(readResolver,readResolve);
+            }
+            IgnoreTxnSupplier ignoreTxn = SIDriver.driver().getIgnoreTxnSupplier();
+            if(ignoreTxn instanceof IgnoreTxnManagement){
+                ObjectName ignoreTxnName = new ObjectName("com.splicemachine.si.impl.store:type=IgnoreTxnSupplier");
+                mbs.registerMBean(ignoreTxn,ignoreTxnName);
+            }
             db.getDataDictionary().getDataDictionaryCache().registerJMX(mbs);
+            DDLController ddlController = DDLDriver.driver().ddlController();
+            if(ddlController instanceof DDLCoordinationManagement){
+                ObjectName ddlCoordination = new ObjectName("com.splicemachine.derby.ddl:type=DDLCoordination");
+                mbs.registerMBean(ddlController,ddlCoordination);
+            }
 
 
         }catch(InstanceAlreadyExistsException ignored){
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.procedures;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.access.util.NetworkUtils;
+import com.splicemachine.db.iapi.error.PublicAPI;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.impl.drda.RemoteUser;
+import com.splicemachine.db.impl.sql.catalog.Procedure;
+import com.splicemachine.derby.impl.load.KafkaIngestJobInfo;
+import com.splicemachine.derby.impl.load.KafkaIngestManager;
+import com.splicemachine.derby.impl.load.KafkaIngestService;
+import com.splicemachine.derby.utils.EngineUtils;
+import com.splicemachine.derby.utils.ResultHelper;
+import com.splicemachine.pipeline.Exceptions;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static com.splicemachine.db.shared.common.reference.SQLState.LANG_INVALID_FUNCTION_ARGUMENT;
+import static com.splicemachine.db.shared.common.reference.SQLState.LANG_NO_SUCH_RUNNING_OPERATION;
+
+/**
+ * Procedures to run continuous Kafka ingest jobs. A job runs on the server which started it, until it is
+ * stopped or the server goes down; starting it again resumes from the offsets committed with its last batch.
+ */
+public class KafkaIngestAdmin extends BaseAdminProcedures {
+
+    public static void addProcedures(List<Procedure> procedures) {
+        /*
+         * Procedure to start ingesting a Kafka topic into a table
+         */
+        procedures.add(Procedure.newBuilder().name("SYSCS_START_KAFKA_INGEST")
+                .varchar("schemaName", 128)
+                .varchar("tableName", 128)
+                .varchar("topicName", 256)
+                .integer("parallelism")
+                .numOutputParams(0)
+                .numResultSets(1)
+                .ownerClass(KafkaIngestAdmin.class.getCanonicalName())
+                .build().debugCheck());
+
+        /*
+         * Procedure to stop a Kafka ingest job
+         */
+        procedures.add(Procedure.newBuilder().name("SYSCS_STOP_KAFKA_INGEST")
+                .varchar("jobId", 128)
+                .numOutputParams(0)
+                .numResultSets(0)
+                .ownerClass(KafkaIngestAdmin.class.getCanonicalName())
+                .build().debugCheck());
+
+        /*
+         * Procedure to stop a Kafka ingest job of the local server
+         */
+        procedures.add(Procedure.newBuilder().name("SYSCS_STOP_KAFKA_INGEST_LOCAL")
+                .varchar("jobId", 128)
+                .numOutputParams(0)
+                .numResultSets(0)
+                .ownerClass(KafkaIngestAdmin.class.getCanonicalName())
+                .build().debugCheck());
+
+        /*
+         * Procedure to get the throughput and lag of the Kafka ingest jobs
+         */
+        procedures.add(Procedure.newBuilder().name("SYSCS_GET_KAFKA_INGEST_JOBS")
+                .numOutputParams(0)
+                .numResultSets(1)
+                .ownerClass(KafkaIngestAdmin.class.getCanonicalName())
+                .build().debugCheck());
+
+        /*
+         * Procedure to get the throughput and lag of the Kafka ingest jobs of the local server
+         */
+        procedures.add(Procedure.newBuilder().name("SYSCS_GET_KAFKA_INGEST_JOBS_LOCAL")
+                .numOutputParams(0)
+                .numResultSets(1)
+                .ownerClass(KafkaIngestAdmin.class.getCanonicalName())
+                .build().debugCheck());
+    }
+
+    static class KafkaIngestJobsResult extends ResultHelper {
+        public VarcharColumn colHostname, colJobId, colSchema, colTable, colTopic, colState, colLastError;
+        public IntegerColumn colPartitions;
+        public TimestampColumn colStartTime;
+        public BigintColumn colRows, colBatches, colRowsPerSecond, colOffsetLag, colLagMillis;
+        public KafkaIngestJobsResult() {
+            colHostname      = addVarchar("HOSTNAME", 120);
+            colJobId         = addVarchar("JOB_ID", 40);
+            colSchema        = addVarchar("SCHEMA_NAME", 128);
+            colTable         = addVarchar("TABLE_NAME", 128);
+            colTopic         = addVarchar("TOPIC_NAME", 256);
+            colPartitions    = addInteger("PARTITIONS");
+            colState         = addVarchar("STATE", 10);
+            colStartTime     = addTimestamp("START_TIME", 30);
+            colRows          = addBigint("ROWS_INGESTED", 12);
+            colBatches       = addBigint("BATCHES", 12);
+            colRowsPerSecond = addBigint("ROWS_PER_SECOND", 12);
+            colOffsetLag     = addBigint("OFFSET_LAG", 12);
+            colLagMillis     = addBigint("LAG_MILLIS", 12);
+            colLastError     = addVarchar("LAST_ERROR", 256);
+        }
+    }
+
+    public static void SYSCS_START_KAFKA_INGEST(String schemaName, String tableName, String topicName,
+                                                int parallelism, final ResultSet[] resultSet) throws SQLException {
+        if (topicName == null || topicName.trim().isEmpty())
+            throw PublicAPI.wrapStandardException(StandardException.newException(LANG_INVALID_FUNCTION_ARGUMENT,
+                    topicName, "SYSCS_START_KAFKA_INGEST"));
+        if (parallelism <= 0)
+            throw PublicAPI.wrapStandardException(StandardException.newException(LANG_INVALID_FUNCTION_ARGUMENT,
+                    parallelism, "SYSCS_START_KAFKA_INGEST"));
+        schemaName = EngineUtils.validateSchema(schemaName);
+        tableName = EngineUtils.validateTable(tableName);
+
+        String jobId;
+        try {
+            tableName = EngineUtils.verifyTableExists(getDefaultConn(), schemaName, tableName).getName();
+            jobId = getManager().start(schemaName, tableName, topicName.trim(), parallelism);
+        } catch (StandardException e) {
+            throw PublicAPI.wrapStandardException(e);
+        }
+
+        ResultHelper res = new ResultHelper();
+        ResultHelper.VarcharColumn colJobId = res.addVarchar("JOB_ID", 40);
+        res.newRow();
+        colJobId.set(jobId);
+        resultSet[0] = res.getResultSet();
+    }
+
+    public static void SYSCS_STOP_KAFKA_INGEST(final String jobId) throws SQLException {
+        String[] server = new String[1];
+        executeOnAllServers("call SYSCS_UTIL.SYSCS_GET_KAFKA_INGEST_JOBS_LOCAL()", (hostAndPort, connection, rs) -> {
+            while (rs.next()) {
+                if (rs.getString("JOB_ID").equals(jobId))
+                    server[0] = hostAndPort.toString();
+            }
+        });
+        if (server[0] == null)
+            throw PublicAPI.wrapStandardException(StandardException.newException(LANG_NO_SUCH_RUNNING_OPERATION, jobId));
+
+        try (Connection connection = RemoteUser.getConnection(server[0])) {
+            try (PreparedStatement ps = connection.prepareStatement("call SYSCS_UTIL.SYSCS_STOP_KAFKA_INGEST_LOCAL(?)")) {
+                ps.setString(1, jobId);
+                ps.execute();
+            }
+        }
+    }
+
+    public static void SYSCS_STOP_KAFKA_INGEST_LOCAL(final String jobId) throws SQLException {
+        try {
+            if (!getManager().stop(jobId))
+                throw StandardException.newException(LANG_NO_SUCH_RUNNING_OPERATION, jobId);
+        } catch (StandardException e) {
+            throw PublicAPI.wrapStandardException(e);
+        }
+    }
+
+    public static void SYSCS_GET_KAFKA_INGEST_JOBS(final ResultSet[] resultSet) throws SQLException {
+        KafkaIngestJobsResult res = new KafkaIngestJobsResult();
+        executeOnAllServers("call SYSCS_UTIL.SYSCS_GET_KAFKA_INGEST_JOBS_LOCAL()", (hostAndPort, connection, rs) -> {
+            while (rs.next()) {
+                res.newRowFromResultSet(rs);
+            }
+        });
+        resultSet[0] = res.getResultSet();
+    }
+
+    public static void SYSCS_GET_KAFKA_INGEST_JOBS_LOCAL(final ResultSet[] resultSet) throws SQLException {
+        SConfiguration config = EngineDriver.driver().getConfiguration();
+        String hostname = NetworkUtils.getHostname(config) + ":" + config.getNetworkBindPort();
+
+        KafkaIngestJobsResult res = new KafkaIngestJobsResult();
+        for (KafkaIngestJobInfo job : getManager().getJobs()) {
+            res.newRow();
+            res.colHostname.set(hostname);
+            res.colJobId.set(job.getJobId());
+            res.colSchema.set(job.getSchemaName());
+            res.colTable.set(job.getTableName());
+            res.colTopic.set(job.getTopicName());
+            res.colPartitions.set(job.getPartitions());
+            res.colState.set(job.getState());
+            res.colStartTime.set(new Timestamp(job.getStartTime()));
+            res.colRows.set(job.getRowsIngested());
+            res.colBatches.set(job.getBatches());
+            res.colRowsPerSecond.set(job.getRowsPerSecond());
+            res.colOffsetLag.set(job.getOffsetLag());
+            res.colLagMillis.set(job.getLagMillis());
+            res.colLastError.set(job.getLastError());
+        }
+        resultSet[0] = res.getResultSet();
+    }
+
+    private static KafkaIngestManager getManager() throws SQLException {
+        try {
+            return KafkaIngestService.getManager();
+        } catch (IllegalStateException e) {
+            throw PublicAPI.wrapStandardException(Exceptions.parseException(e));
+        }
+    }
+}
@@ -41,6 +41,7 @@ import com.splicemachine.db.iapi.sql.execute.ExecPreparedStatement;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.store.access.TransactionController;
 import com.splicemachine.db.iapi.types.*;
+import com.splicemachine.db.iapi.util.IdUtil;
 import com.splicemachine.db.impl.drda.RemoteUser;
 import com.splicemachine.db.impl.jdbc.*;
 import com.splicemachine.db.impl.jdbc.ResultSetBuilder.RowBuilder;
@@ -49,10 +50,12 @@ import com.splicemachine.db.impl.sql.GenericActivationHolder;
 import com.splicemachine.db.impl.sql.GenericColumnDescriptor;
 import com.splicemachine.db.impl.sql.GenericPreparedStatement;
 import com.splicemachine.db.impl.sql.catalog.*;
+import com.splicemachine.db.impl.sql.compile.MaterializedViewDefinition;
 import com.splicemachine.db.impl.sql.execute.IteratorNoPutResultSet;
 import com.splicemachine.db.impl.sql.execute.ValueRow;
 import com.splicemachine.ddl.DDLMessage;
 import com.splicemachine.derby.ddl.DDLUtils;
+import com.splicemachine.derby.impl.sql.execute.actions.CreateMaterializedViewConstantOperation;
 import com.splicemachine.derby.impl.store.access.SpliceTransactionManager;
 import com.splicemachine.derby.stream.ActivationHolder;
 import com.splicemachine.derby.utils.*;
@@ -1324,6 +1327,136 @@ public class SpliceAdmin extends BaseAdminProcedures {
         }
     }
 
+    /**
+     * Fold the partial aggregates in the storage table of a materialized view into one row per group, and drop the
+     * groups whose rows have all been deleted. Every write batch to the base table appends a row per group it
+     * touches, so this should be run periodically on views over frequently written tables.
+     *
+     * The rows are replaced in the transaction of the call, so deltas appended by writes that commit meanwhile are
+     * kept as they are. The folded rows are held in memory, one per group of the view.
+     *
+     * A stale view, whose base table was bulk imported since it was last folded, is rebuilt from the base table
+     * instead, and queries are rewritten onto it again once the call commits.
+     */
+    public static void SYSCS_FOLD_MATERIALIZED_VIEW(String schemaName, String viewName) throws SQLException {
+        schemaName = EngineUtils.validateSchema(schemaName);
+        viewName = EngineUtils.validateTable(viewName);
+        Connection conn = getDefaultConn();
+        LanguageConnectionContext lcc = ((EmbedConnection) conn).getLanguageConnection();
+        ViewDescriptor vd;
+        TableDescriptor storageTd;
+        TableDescriptor baseTd;
+        try {
+            TableDescriptor view = EngineUtils.verifyTableExists(conn, schemaName, viewName);
+            DataDictionary dd = lcc.getDataDictionary();
+            vd = view.getTableType() == TableDescriptor.VIEW_TYPE ? dd.getViewDescriptor(view) : null;
+            if (vd == null || !vd.isMaterialized()) {
+                throw StandardException.newException(SQLState.LANG_INVALID_FUNCTION_ARGUMENT,
+                        viewName, "SYSCS_FOLD_MATERIALIZED_VIEW");
+            }
+            TransactionController tc = lcc.getTransactionExecute();
+            storageTd = dd.getTableDescriptor(vd.getMaterializedViewInfo().getStorageTableId(), tc);
+            baseTd = dd.getTableDescriptor(vd.getMaterializedViewInfo().getBaseTableId(), tc);
+        } catch (StandardException e) {
+            throw PublicAPI.wrapStandardException(e);
+        }
+
+        MaterializedViewInfo info = vd.getMaterializedViewInfo();
+        String storageTable = IdUtil.mkQualifiedName(storageTd.getSchemaName(), storageTd.getName());
+        if (info.isStale()) {
+            rebuildMaterializedView(conn, info, storageTable,
+                    IdUtil.mkQualifiedName(baseTd.getSchemaName(), baseTd.getName()));
+            try {
+                CreateMaterializedViewConstantOperation.setStale(lcc, vd, false);
+            } catch (StandardException e) {
+                throw PublicAPI.wrapStandardException(e);
+            }
+            return;
+        }
+
+        int columnCount = info.getStorageColumnCount();
+        StringBuilder select = new StringBuilder("SELECT ");
+        StringBuilder groupBy = new StringBuilder();
+        StringBuilder insert = new StringBuilder("INSERT INTO ").append(storageTable).append(" VALUES (");
+        String countStar = null;
+        for (int i = 0; i < columnCount; i++) {
+            String column = MaterializedViewDefinition.storageColumnName(i);
+            String separator = i == 0 ? "" : ", ";
+            if (info.getStorageFunction(i) == MaterializedViewDefinition.GROUP_COLUMN) {
+                select.append(separator).append(column);
+                groupBy.append(groupBy.length() == 0 ? " GROUP BY " : ", ").append(column);
+            } else {
+                select.append(separator).append("SUM(").append(column).append(')');
+            }
+            if (info.getStorageFunction(i) == MaterializedViewDefinition.COUNT_STAR) {
+                countStar = column;
+            }
+            insert.append(separator).append('?');
+        }
+        select.append(" FROM ").append(storageTable).append(groupBy)
+                .append(" HAVING SUM(").append(countStar).append(") <> 0");
+        insert.append(')');
+
+        List<Object[]> groups = new ArrayList<>();
+        try (Statement s = conn.createStatement();
+             ResultSet rs = s.executeQuery(select.toString())) {
+            while (rs.next()) {
+                Object[] group = new Object[columnCount];
+                for (int i = 0; i < group.length; i++) {
+                    group[i] = rs.getObject(i + 1);
+                }
+                groups.add(group);
+            }
+        }
+        try (Statement s = conn.createStatement()) {
+            s.executeUpdate("DELETE FROM " + storageTable);
+        }
+        try (PreparedStatement ps = conn.prepareStatement(insert.toString())) {
+            for (Object[] group : groups) {
+                for (int i = 0; i < group.length; i++) {
+                    ps.setObject(i + 1, group[i]);
+                }
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Replace the rows of the storage table of a materialized view with the partial aggregates of the rows of its base
+     * table, one row per group.
+     */
+    private static void rebuildMaterializedView(Connection conn,
+                                                MaterializedViewInfo info,
+                                                String storageTable,
+                                                String baseTable) throws SQLException {
+        StringBuilder select = new StringBuilder("INSERT INTO ").append(storageTable).append(" SELECT ");
+        StringBuilder groupBy = new StringBuilder();
+        for (int i = 0; i < info.getStorageColumnCount(); i++) {
+            String separator = i == 0 ? "" : ", ";
+            String column = info.getStorageBaseColumn(i) == null ? null : IdUtil.normalToDelimited(info.getStorageBaseColumn(i));
+            switch (info.getStorageFunction(i)) {
+                case MaterializedViewDefinition.GROUP_COLUMN:
+                    select.append(separator).append(column);
+                    groupBy.append(groupBy.length() == 0 ? " GROUP BY " : ", ").append(column);
+                    break;
+                case MaterializedViewDefinition.SUM:
+                    select.append(separator).append("SUM(").append(column).append(')');
+                    break;
+                case MaterializedViewDefinition.COUNT:
+                    select.append(separator).append("COUNT(").append(column).append(')');
+                    break;
+                default:
+                    select.append(separator).append("COUNT(*)");
+            }
+        }
+        select.append(" FROM ").append(baseTable).append(groupBy).append(" HAVING COUNT(*) <> 0");
+        try (Statement s = conn.createStatement()) {
+            s.executeUpdate("DELETE FROM " + storageTable);
+            s.executeUpdate(select.toString());
+        }
+    }
+
     public static void SYSCS_RESTORE_DATABASE_OWNER() throws SQLException{
         LanguageConnectionContext lcc = ConnectionUtil.getCurrentLCC();
         TransactionController tc  = lcc.getTransactionExecute();
@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.serialization;
+
+import com.splicemachine.db.iapi.services.io.DataInputUtil;
+import com.splicemachine.db.iapi.services.loader.GeneratedClass;
+import com.splicemachine.db.impl.sql.GenericStorablePreparedStatement;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.log4j.Logger;
+import splice.com.google.common.cache.Cache;
+import splice.com.google.common.cache.CacheBuilder;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Content-addressed cache of the prepared statements shipped along with serialized activations.
+ *
+ * The prepared statement (execution constants, saved objects and the generated activation class) is
+ * by far the largest part of a serialized activation, and it is byte-for-byte identical across
+ * executions of the same plan. Statements are addressed by a digest of their serialized form, so
+ * that a receiver deserializes (and loads the generated class for) each distinct plan only once,
+ * and senders that know the receiver can resolve a plan out of band may ship the fingerprint alone.
+ *
+ * Cached statements are shared between activations the same way the embedded statement cache
+ * shares them between connections.
+ */
+public class SerializedStatementCache {
+    private static final Logger LOG = Logger.getLogger(SerializedStatementCache.class);
+
+    private static final int MAX_CACHED_STATEMENTS = 512;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final Cache<Fingerprint, GenericStorablePreparedStatement> statements = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_STATEMENTS)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .softValues()
+            .build();
+
+    /* Serialized form of the statements resolved from bytes, so they are never serialized (and digested) again
+     * when they are shipped further, e.g. from the OLAP server to its executors. Keyed by identity. */
+    private static final Cache<GenericStorablePreparedStatement, SerializedStatement> serializedForms =
+            CacheBuilder.newBuilder()
+                    .weakKeys()
+                    .build();
+
+    /* Serialized form of the statements serialized by this JVM, along with the activation class they were
+     * serialized with. A recompiled statement gets a new activation class (and new constants), and is serialized
+     * again. Keyed by identity. */
+    private static final Cache<GenericStorablePreparedStatement, SentStatement> sentForms =
+            CacheBuilder.newBuilder()
+                    .weakKeys()
+                    .build();
+
+    private static final AtomicLong hits = new AtomicLong(0);
+    private static final AtomicLong misses = new AtomicLong(0);
+
+    /*
+     * Statements shipped out of band for the activation currently being (de)serialized by this thread. When
+     * writing, only statements accepted by the predicate are written by reference; when reading, it pins the
+     * resolved statement so it can't be evicted before the activation is fully read.
+     */
+    private static final ThreadLocal<OutOfBandStatement> outOfBand = new ThreadLocal<>();
+
+    private SerializedStatementCache() {
+    }
+
+    /**
+     * Serializes the statement and computes its fingerprint, once per statement and activation class.
+     */
+    public static SerializedStatement serialize(GenericStorablePreparedStatement statement) throws IOException {
+        SerializedStatement known = serializedForms.getIfPresent(statement);
+        if (known != null)
+            return known;
+        GeneratedClass activationClass = statement.getLoadedActivationClass();
+        SentStatement sent = sentForms.getIfPresent(statement);
+        if (sent != null && activationClass != null && sent.activationClass == activationClass)
+            return sent.serialized;
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(statement);
+        }
+        byte[] bytes = baos.toByteArray();
+        SerializedStatement serialized = new SerializedStatement(Fingerprint.of(bytes), bytes);
+        // the statement may have been recompiled while it was serialized, and the old format is only written
+        // while upgrading
+        if (activationClass != null && statement.getLoadedActivationClass() == activationClass
+                && !DataInputUtil.shouldWriteOldFormat()) {
+            sentForms.put(statement, new SentStatement(activationClass, serialized));
+        }
+        return serialized;
+    }
+
+
+    /**
+     * Returns the cached statement for the given fingerprint, deserializing {@code bytes} only on a miss.
+     */
+    public static GenericStorablePreparedStatement resolve(Fingerprint fingerprint, byte[] bytes) throws IOException {
+        GenericStorablePreparedStatement statement = statements.getIfPresent(fingerprint);
+        if (statement != null) {
+            hits.incrementAndGet();
+            return statement;
+        }
+        misses.incrementAndGet();
+        try {
+            return statements.get(fingerprint, () -> {
+                GenericStorablePreparedStatement resolved = deserialize(bytes);
+                serializedForms.put(resolved, new SerializedStatement(fingerprint, bytes));
+                return resolved;
+            });
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * @return the cached statement for the given fingerprint, or null if it's not present.
+     */
+    public static GenericStorablePreparedStatement getIfPresent(Fingerprint fingerprint) {
+        GenericStorablePreparedStatement statement = statements.getIfPresent(fingerprint);
+        if (statement != null)
+            hits.incrementAndGet();
+        return statement;
+    }
+
+    /**
+     * Runs {@code action} (typically the serialization of an activation) writing the statement with the
+     * given fingerprint by reference only. The receiver must resolve it with
+     * {@link #readOutOfBand(Fingerprint, GenericStorablePreparedStatement, Callable)}.
+     */
+    public static <T> T writeOutOfBand(Fingerprint fingerprint, Callable<T> action) throws Exception {
+        return withOutOfBand(new OutOfBandStatement(fingerprint::equals, null, null, null), action);
+    }
+
+    /**
+     * Runs {@code action} (typically the serialization of a job submitted to a remote server) writing the
+     * statements accepted by {@code byReference} by reference only, and recording the fingerprints of the
+     * statements written by value in {@code writtenByValue}. The receiver resolves references from its cache
+     * and fails with {@link StatementNotCachedException} when it doesn't have the statement.
+     */
+    public static <T> T writeWithReferences(Predicate<Fingerprint> byReference,
+                                            Collection<Fingerprint> writtenByValue,
+                                            Callable<T> action) throws Exception {
+        return withOutOfBand(new OutOfBandStatement(byReference, writtenByValue, null, null), action);
+    }
+
+    /**
+     * Runs {@code action} (typically the deserialization of an activation) resolving references to the
+     * given fingerprint to {@code statement}.
+     */
+    public static <T> T readOutOfBand(Fingerprint fingerprint,
+                                      GenericStorablePreparedStatement statement,
+                                      Callable<T> action) throws Exception {
+        return withOutOfBand(new OutOfBandStatement(null, null, fingerprint, statement), action);
+    }
+
+    private static <T> T withOutOfBand(OutOfBandStatement statement, Callable<T> action) throws Exception {
+        OutOfBandStatement previous = outOfBand.get();
+        outOfBand.set(statement);
+        try {
+            return action.call();
+        } finally {
+            outOfBand.set(previous);
+        }
+    }
+
+    static boolean isShippedOutOfBand(Fingerprint fingerprint) {
+        OutOfBandStatement oob = outOfBand.get();
+        return oob != null && oob.byReference != null && oob.byReference.test(fingerprint);
+    }
+
+    static void writtenByValue(Fingerprint fingerprint) {
+        OutOfBandStatement oob = outOfBand.get();
+        if (oob != null && oob.writtenByValue != null)
+            oob.writtenByValue.add(fingerprint);
+    }
+
+    /**
+     * @return the serialized form of a statement resolved from bytes, or null if it wasn't
+     */
+    static SerializedStatement serializedFormOf(GenericStorablePreparedStatement statement) {
+        return serializedForms.getIfPresent(statement);
+    }
+
+    /**
+     * Resolves a statement written by reference.
+     *
+     * @throws StatementNotCachedException if the statement hasn't been shipped to this JVM
+     */
+    static GenericStorablePreparedStatement resolveReference(Fingerprint fingerprint) throws IOException {
+        OutOfBandStatement oob = outOfBand.get();
+        if (oob != null && oob.statement != null && oob.fingerprint.equals(fingerprint)) {
+            return oob.statement;
+        }
+        GenericStorablePreparedStatement statement = getIfPresent(fingerprint);
+        if (statement == null) {
+            throw new StatementNotCachedException(fingerprint);
+        }
+        return statement;
+    }
+
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    public static long size() {
+        return statements.size();
+    }
+
+    public static void invalidateAll() {
+        statements.invalidateAll();
+        serializedForms.invalidateAll();
+        sentForms.invalidateAll();
+    }
+
+    private static GenericStorablePreparedStatement deserialize(byte[] bytes) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (GenericStorablePreparedStatement) ois.readObject();
+        } catch (ClassNotFoundException e) {
+            LOG.error("Could not deserialize prepared statement", e);
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Digest of a serialized prepared statement.
+     */
+    public static final class Fingerprint implements Externalizable {
+        private static final long serialVersionUID = 1L;
+        private byte[] digest;
+        private int hashCode;
+
+        public Fingerprint() {
+        }
+
+        private Fingerprint(byte[] digest) {
+            this.digest = digest;
+            this.hashCode = Arrays.hashCode(digest);
+        }
+
+        public static Fingerprint of(byte[] bytes) {
+            try {
+                return new Fingerprint(MessageDigest.getInstance(DIGEST_ALGORITHM).digest(bytes));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        public static Fingerprint read(DataInput in) throws IOException {
+            byte[] digest = new byte[in.readUnsignedByte()];
+            in.readFully(digest);
+            return new Fingerprint(digest);
+        }
+
+        public void write(DataOutput out) throws IOException {
+            out.writeByte(digest.length);
+            out.write(digest);
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            write(out);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            digest = new byte[in.readUnsignedByte()];
+            in.readFully(digest);
+            hashCode = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Fingerprint)) return false;
+            return Arrays.equals(digest, ((Fingerprint) o).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < Math.min(digest.length, 8); i++) {
+                sb.append(String.format("%02x", digest[i]));
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final class OutOfBandStatement {
+        // writing
+        private final Predicate<Fingerprint> byReference;
+        private final Collection<Fingerprint> writtenByValue;
+        // reading
+        private final Fingerprint fingerprint;
+        private final GenericStorablePreparedStatement statement;
+
+        OutOfBandStatement(Predicate<Fingerprint> byReference,
+                           Collection<Fingerprint> writtenByValue,
+                           Fingerprint fingerprint,
+                           GenericStorablePreparedStatement statement) {
+            this.byReference = byReference;
+            this.writtenByValue = writtenByValue;
+            this.fingerprint = fingerprint;
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * A statement was written by reference, but the receiver doesn't have it in its cache. The sender must
+     * write it by value.
+     */
+    public static final class StatementNotCachedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public StatementNotCachedException(Fingerprint fingerprint) {
+            super("Prepared statement " + fingerprint + " was written by reference but is not available");
+        }
+    }
+
+    private static final class SentStatement {
+        private final GeneratedClass activationClass;
+        private final SerializedStatement serialized;
+
+        SentStatement(GeneratedClass activationClass, SerializedStatement serialized) {
+            this.activationClass = activationClass;
+            this.serialized = serialized;
+        }
+    }
+
+    /**
+     * A prepared statement in its serialized form, together with its fingerprint.
+     */
+    public static final class SerializedStatement {
+        private final Fingerprint fingerprint;
+        private final byte[] bytes;
+
+        SerializedStatement(Fingerprint fingerprint, byte[] bytes) {
+            this.fingerprint = fingerprint;
+            this.bytes = bytes;
+        }
+
+        public Fingerprint getFingerprint() {
+            return fingerprint;
+        }
+
+        @SuppressFBWarnings(value = "EI_EXPOSE_REP",justification = "Intentional")
+        public byte[] getBytes() {
+            return bytes;
+        }
+    }
+}
@@ -52,6 +52,10 @@ public class SpliceObserverInstructions implements Externalizable{
     protected SchemaDescriptor defaultSchemaDescriptor;
     protected String sessionUserName;
     private TriggerExecutionStack triggerStack;
+    private transient SerializedStatementCache.SerializedStatement serializedStatement;
+
+    private static final byte STATEMENT_BY_VALUE = 0;
+    private static final byte STATEMENT_BY_REFERENCE = 1;
 
     public SpliceObserverInstructions(){
         super();
@@ -74,7 +78,18 @@ public class SpliceObserverInstructions implements Externalizable{
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
         SpliceLogUtils.trace(LOG,"readExternal");
-        this.statement=(GenericStorablePreparedStatement)in.readObject();
+        byte statementMode=in.readByte();
+        SerializedStatementCache.Fingerprint fingerprint=SerializedStatementCache.Fingerprint.read(in);
+        if(statementMode==STATEMENT_BY_REFERENCE){
+            this.statement=SerializedStatementCache.resolveReference(fingerprint);
+            this.serializedStatement=SerializedStatementCache.serializedFormOf(statement);
+        }else{
+            byte[] statementBytes=new byte[in.readInt()];
+            in.readFully(statementBytes);
+            this.statement=SerializedStatementCache.resolve(fingerprint,statementBytes);
+            // keep what we received, shipping the statement further doesn't serialize it again
+            this.serializedStatement=new SerializedStatementCache.SerializedStatement(fingerprint,statementBytes);
+        }
         this.activationContext=(ActivationContext)in.readObject();
         this.sessionUserName=in.readUTF();
         this.defaultSchemaDescriptor=(SchemaDescriptor)in.readObject();
@@ -84,7 +99,17 @@ public class SpliceObserverInstructions implements Externalizable{
     @Override
     public void writeExternal(ObjectOutput out) throws IOException{
         SpliceLogUtils.trace(LOG,"writeExternal");
-        out.writeObject(statement);
+        SerializedStatementCache.SerializedStatement ss=getSerializedStatement();
+        if(SerializedStatementCache.isShippedOutOfBand(ss.getFingerprint())){
+            out.writeByte(STATEMENT_BY_REFERENCE);
+            ss.getFingerprint().write(out);
+        }else{
+            out.writeByte(STATEMENT_BY_VALUE);
+            ss.getFingerprint().write(out);
+            out.writeInt(ss.getBytes().length);
+            out.write(ss.getBytes());
+            SerializedStatementCache.writtenByValue(ss.getFingerprint());
+        }
         out.writeObject(activationContext);
         out.writeUTF(sessionUserName);
         out.writeObject(defaultSchemaDescriptor);
@@ -95,6 +120,16 @@ public class SpliceObserverInstructions implements Externalizable{
         return statement;
     }
 
+    /**
+     * @return the statement in its serialized form, computed once per instance
+     */
+    public SerializedStatementCache.SerializedStatement getSerializedStatement() throws IOException{
+        if(serializedStatement==null){
+            serializedStatement=SerializedStatementCache.serialize(statement);
+        }
+        return serializedStatement;
+    }
+
     public Activation getActivation(ActivationHolder holder,LanguageConnectionContext lcc) throws StandardException{
         try{
             GenericActivationHolder gah=(GenericActivationHolder)statement.getActivation(lcc,false);
@@ -200,12 +200,16 @@ public class ActivationHolder implements Externalizable {
         return operationsMap;
     }
 
-    @Override
-    public synchronized void writeExternal(ObjectOutput out) throws IOException {
+    public synchronized SpliceObserverInstructions getObserverInstructions() {
         if(soi==null){
             soi = SpliceObserverInstructions.create(this);
         }
-        out.writeObject(soi);
+        return soi;
+    }
+
+    @Override
+    public synchronized void writeExternal(ObjectOutput out) throws IOException {
+        out.writeObject(getObserverInstructions());
         out.writeBoolean(serializeOperationList );
         if (serializeOperationList) {
             out.writeObject(operationsList);
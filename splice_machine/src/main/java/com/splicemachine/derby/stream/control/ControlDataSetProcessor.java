@@ -332,6 +332,10 @@ public class ControlDataSetProcessor implements DataSetProcessor{
                                           String location, OperationContext context,Qualifier[][] qualifiers,
                                           DataValueDescriptor probeValue, ExecRow execRow,
                                           boolean useSample, double sampleFraction) throws StandardException {
+            DataSet<V> local = ControlParquetReader.read(schema, baseColumnMap, partitionColumnMap, location,
+                    context, qualifiers, probeValue, execRow, useSample);
+            if (local != null)
+                return local;
             DistributedDataSetProcessor proc = EngineDriver.driver().processorFactory().distributedProcessor();
             return new ControlDataSet(proc.readParquetFile(schema, baseColumnMap,partitionColumnMap, location,
                     context, qualifiers, probeValue,execRow, useSample, sampleFraction).toLocalIterator());
@@ -383,6 +387,7 @@ public class ControlDataSetProcessor implements DataSetProcessor{
 
     @Override
     public void refreshTable(String location) {
+        ControlParquetReader.invalidate(location);
         DistributedDataSetProcessor proc = EngineDriver.driver().processorFactory().distributedProcessor();
         proc.refreshTable(location);
     }
@@ -0,0 +1,627 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.reference.SQLState;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLChar;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.si.impl.driver.SIDriver;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.log4j.Logger;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.compat.RowGroupFilter;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.Footer;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.types.DataType;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.DecimalType;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import splice.com.google.common.cache.Cache;
+import splice.com.google.common.cache.CacheBuilder;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the Parquet files of an external table in the calling thread, for queries running in control, instead of
+ * collecting the rows of a Spark job.
+ *
+ * Only the projected columns are read, and the row groups whose statistics can't satisfy the qualifiers on numeric
+ * columns are skipped. The footers of the files of a location are cached until the location is modified or the table
+ * is refreshed.
+ *
+ * Partitioned locations, sampling and columns of types without a direct Parquet representation are left to Spark.
+ */
+public class ControlParquetReader {
+    private static final Logger LOG = Logger.getLogger(ControlParquetReader.class);
+
+    private static final long JULIAN_DAY_OF_EPOCH = 2440588L;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long SECONDS_PER_DAY = TimeUnit.DAYS.toSeconds(1);
+
+    private static final PathFilter HIDDEN_FILES = path -> {
+        String name = path.getName();
+        return !name.startsWith("_") && !name.startsWith(".");
+    };
+
+    private static final Cache<String, Listing> LISTINGS = CacheBuilder.newBuilder().maximumSize(256).build();
+
+    private final Configuration conf;
+    private final StructField[] fields;
+    private final int[] baseColumnMap;
+    private final Qualifier[][] qualifiers;
+    private final DataValueDescriptor probeValue;
+    private final ExecRow execRow;
+    private final ExecRow template;
+    // position of each column of the files in the rows, -1 if not read
+    private final int[] rowPositions;
+    private final int numColumns;
+
+    private ControlParquetReader(Configuration conf, StructType schema, int[] baseColumnMap, Qualifier[][] qualifiers,
+                                 DataValueDescriptor probeValue, ExecRow execRow, ExecRow template) {
+        this.conf = conf;
+        this.fields = schema.fields();
+        this.baseColumnMap = baseColumnMap;
+        this.qualifiers = qualifiers;
+        this.probeValue = probeValue;
+        this.execRow = execRow;
+        this.template = template;
+        this.rowPositions = new int[baseColumnMap.length];
+        int position = 0;
+        for (int i = 0; i < baseColumnMap.length; i++) {
+            rowPositions[i] = baseColumnMap[i] == -1 ? -1 : position++;
+        }
+        this.numColumns = position;
+    }
+
+    /**
+     * Forget the files and footers of a location, so the next read lists them again.
+     */
+    public static void invalidate(String location) {
+        LISTINGS.invalidate(new Path(location).toString());
+    }
+
+    /**
+     * @return the rows of the Parquet files of the location, or null if they must be read by Spark
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> DataSet<V> read(StructType schema, int[] baseColumnMap, int[] partitionColumnMap,
+                                      String location, OperationContext context, Qualifier[][] qualifiers,
+                                      DataValueDescriptor probeValue, ExecRow execRow,
+                                      boolean useSample) throws StandardException {
+        if (useSample || (partitionColumnMap != null && partitionColumnMap.length > 0) ||
+                baseColumnMap.length > schema.fields().length)
+            return null;
+        Object configSource = SIDriver.driver().getConfiguration().getConfigSource().unwrapDelegate();
+        if (!(configSource instanceof Configuration))
+            return null;
+        try {
+            Configuration conf = (Configuration) configSource;
+            ControlParquetReader reader = new ControlParquetReader(conf, schema, baseColumnMap, qualifiers, probeValue,
+                    execRow, template(context, baseColumnMap, execRow));
+            if (!reader.canQualify())
+                return null;
+            List<Footer> footers = footers(conf, new Path(location));
+            if (footers == null)
+                return null;
+            for (Footer footer : footers) {
+                if (!reader.canRead(footer.getParquetMetadata().getFileMetaData().getSchema()))
+                    return null;
+            }
+            if (qualifiers != null) {
+                for (Qualifier[] or : qualifiers) {
+                    for (Qualifier q : or) {
+                        q.clearOrderableCache();
+                    }
+                }
+            }
+            Rows rows = reader.new Rows(footers.iterator());
+            SpliceOperation op = context == null ? null : context.getOperation();
+            if (op != null)
+                op.registerCloseable(rows);
+            return new ControlDataSet(rows);
+        } catch (IOException e) {
+            throw StandardException.newException(SQLState.EXTERNAL_TABLES_READ_FAILURE, e, e.getMessage());
+        }
+    }
+
+    private static ExecRow template(OperationContext context, int[] baseColumnMap,
+                                    ExecRow execRow) throws StandardException {
+        if (context != null && context.getOperation().getExecRowDefinition() instanceof ValueRow)
+            return context.getOperation().getExecRowDefinition();
+        List<DataValueDescriptor> columns = new ArrayList<>();
+        for (int column : baseColumnMap) {
+            if (column != -1)
+                columns.add(execRow.getColumn(column + 1).getNewNull());
+        }
+        ExecRow template = new ValueRow(columns.size());
+        template.setRowArray(columns.toArray(new DataValueDescriptor[columns.size()]));
+        return template;
+    }
+
+    private static List<Footer> footers(Configuration conf, Path path) throws IOException {
+        FileSystem fs = path.getFileSystem(conf);
+        FileStatus status;
+        try {
+            status = fs.getFileStatus(path);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        String key = path.toString();
+        Listing listing = LISTINGS.getIfPresent(key);
+        if (listing != null && listing.modificationTime == status.getModificationTime())
+            return listing.footers;
+
+        List<FileStatus> files = new ArrayList<>();
+        if (status.isDirectory()) {
+            for (FileStatus file : fs.listStatus(path, HIDDEN_FILES)) {
+                // partition directories are discovered by Spark
+                if (file.isDirectory())
+                    return null;
+                files.add(file);
+            }
+        } else {
+            files.add(status);
+        }
+        List<Footer> footers = new ArrayList<>(files.size());
+        for (FileStatus file : files) {
+            footers.add(new Footer(file.getPath(),
+                    ParquetFileReader.readFooter(conf, file, ParquetMetadataConverter.NO_FILTER)));
+        }
+        if (LOG.isDebugEnabled())
+            LOG.debug(String.format("read %d footers of %s", footers.size(), key));
+        LISTINGS.put(key, new Listing(status.getModificationTime(), footers));
+        return footers;
+    }
+
+    /**
+     * @return true if every qualifier applies to a column read from the files
+     */
+    private boolean canQualify() {
+        if (qualifiers == null)
+            return true;
+        for (Qualifier[] or : qualifiers) {
+            for (Qualifier q : or) {
+                if (q.getVariantType() != Qualifier.VARIANT &&
+                        (q.getStoragePosition() >= rowPositions.length || rowPositions[q.getStoragePosition()] == -1))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the columns of a file can be converted to the types of the table
+     */
+    private boolean canRead(MessageType fileSchema) {
+        for (int i = 0; i < rowPositions.length; i++) {
+            if (rowPositions[i] == -1)
+                continue;
+            int field = fieldIndex(fileSchema, fields[i].name());
+            if (field == -1)
+                continue;
+            Type type = fileSchema.getType(field);
+            if (!type.isPrimitive() || type.isRepetition(Type.Repetition.REPEATED) ||
+                    !isSupported(type.asPrimitiveType(), fields[i].dataType()))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isSupported(PrimitiveType type, DataType dataType) {
+        PrimitiveType.PrimitiveTypeName typeName = type.getPrimitiveTypeName();
+        if (dataType == DataTypes.IntegerType || dataType == DataTypes.ShortType || dataType == DataTypes.ByteType)
+            return typeName == PrimitiveType.PrimitiveTypeName.INT32;
+        if (dataType == DataTypes.LongType)
+            return typeName == PrimitiveType.PrimitiveTypeName.INT64;
+        if (dataType == DataTypes.FloatType)
+            return typeName == PrimitiveType.PrimitiveTypeName.FLOAT;
+        if (dataType == DataTypes.DoubleType)
+            return typeName == PrimitiveType.PrimitiveTypeName.DOUBLE;
+        if (dataType == DataTypes.BooleanType)
+            return typeName == PrimitiveType.PrimitiveTypeName.BOOLEAN;
+        if (dataType == DataTypes.StringType)
+            return typeName == PrimitiveType.PrimitiveTypeName.BINARY;
+        if (dataType == DataTypes.BinaryType)
+            return typeName == PrimitiveType.PrimitiveTypeName.BINARY ||
+                    typeName == PrimitiveType.PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY;
+        if (dataType == DataTypes.DateType)
+            return typeName == PrimitiveType.PrimitiveTypeName.INT32;
+        if (dataType == DataTypes.TimestampType)
+            return typeName == PrimitiveType.PrimitiveTypeName.INT96 ||
+                    (typeName == PrimitiveType.PrimitiveTypeName.INT64 &&
+                            (type.getOriginalType() == OriginalType.TIMESTAMP_MILLIS ||
+                                    type.getOriginalType() == OriginalType.TIMESTAMP_MICROS));
+        if (dataType instanceof DecimalType)
+            return type.getOriginalType() == OriginalType.DECIMAL &&
+                    type.getDecimalMetadata().getScale() == ((DecimalType) dataType).scale();
+        return false;
+    }
+
+    /**
+     * Spark resolves the columns of the files by name, ignoring the case.
+     */
+    private static int fieldIndex(MessageType fileSchema, String name) {
+        for (int i = 0; i < fileSchema.getFieldCount(); i++) {
+            if (fileSchema.getFieldName(i).equalsIgnoreCase(name))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the predicate on the statistics of the row groups implied by the qualifiers, or null if there is none
+     */
+    private FilterPredicate rowGroupPredicate(MessageType fileSchema) throws StandardException {
+        if (qualifiers == null)
+            return null;
+        FilterPredicate predicate = null;
+        for (int i = 0; i < qualifiers[0].length; i++) {
+            Qualifier q = qualifiers[0][i];
+            FilterPredicate and = rowGroupPredicate(fileSchema, q, i == 0 && probeValue != null ? probeValue : null);
+            if (and != null)
+                predicate = predicate == null ? and : FilterApi.and(predicate, and);
+        }
+        for (int and_idx = 1; and_idx < qualifiers.length; and_idx++) {
+            FilterPredicate or = null;
+            for (Qualifier q : qualifiers[and_idx]) {
+                FilterPredicate p = rowGroupPredicate(fileSchema, q, null);
+                if (p == null) {
+                    or = null;
+                    break;
+                }
+                or = or == null ? p : FilterApi.or(or, p);
+            }
+            if (or != null)
+                predicate = predicate == null ? or : FilterApi.and(predicate, or);
+        }
+        return predicate;
+    }
+
+    private FilterPredicate rowGroupPredicate(MessageType fileSchema, Qualifier q,
+                                              DataValueDescriptor value) throws StandardException {
+        if (q.getVariantType() == Qualifier.VARIANT || q.negateCompareResult())
+            return null;
+        if (value == null)
+            value = q.getOrderable();
+        int column = q.getStoragePosition();
+        int field = fieldIndex(fileSchema, fields[column].name());
+        DataValueDescriptor columnType = execRow.getColumn(baseColumnMap[column] + 1);
+        // the statistics are only comparable with values of the type of the column
+        if (field == -1 || value == null || value.isNull() || columnType == null ||
+                value.getTypeFormatId() != columnType.getTypeFormatId())
+            return null;
+        return statisticsPredicate(fileSchema.getFieldName(field),
+                fileSchema.getType(field).asPrimitiveType().getPrimitiveTypeName(), fields[column].dataType(),
+                q.getOperator(), value);
+    }
+
+    /**
+     * Only the statistics of plain numeric columns are compared: INT32 and INT64 also back DECIMAL (unscaled),
+     * DATE and TIMESTAMP columns, whose statistics are not in the unit of the value.
+     *
+     * @return the predicate on the statistics of a column, or null if they can't be compared with the value
+     */
+    static FilterPredicate statisticsPredicate(String path, PrimitiveType.PrimitiveTypeName typeName, DataType dataType,
+                                               int operator, DataValueDescriptor value) throws StandardException {
+        switch (typeName) {
+            case INT32:
+                return dataType == DataTypes.IntegerType || dataType == DataTypes.ShortType ||
+                        dataType == DataTypes.ByteType ?
+                        compare(FilterApi.intColumn(path), operator, value.getInt()) : null;
+            case INT64:
+                return dataType == DataTypes.LongType ?
+                        compare(FilterApi.longColumn(path), operator, value.getLong()) : null;
+            case FLOAT:
+                return dataType == DataTypes.FloatType ?
+                        compare(FilterApi.floatColumn(path), operator, value.getFloat()) : null;
+            case DOUBLE:
+                return dataType == DataTypes.DoubleType ?
+                        compare(FilterApi.doubleColumn(path), operator, value.getDouble()) : null;
+            default:
+                return null;
+        }
+    }
+
+    private static <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsLtGt>
+            FilterPredicate compare(C column, int operator, T value) {
+        switch (operator) {
+            case DataValueDescriptor.ORDER_OP_EQUALS:
+                return FilterApi.eq(column, value);
+            case DataValueDescriptor.ORDER_OP_LESSTHAN:
+                return FilterApi.lt(column, value);
+            case DataValueDescriptor.ORDER_OP_LESSOREQUALS:
+                return FilterApi.ltEq(column, value);
+            case DataValueDescriptor.ORDER_OP_GREATERTHAN:
+                return FilterApi.gt(column, value);
+            case DataValueDescriptor.ORDER_OP_GREATEROREQUALS:
+                return FilterApi.gtEq(column, value);
+            default:
+                return null;
+        }
+    }
+
+    private boolean qualifies(ExecRow row) throws StandardException {
+        if (qualifiers == null)
+            return true;
+        for (int i = 0; i < qualifiers[0].length; i++) {
+            Qualifier q = qualifiers[0][i];
+            if (q.getVariantType() == Qualifier.VARIANT)
+                continue; // Cannot Push Down Qualifier
+            if (!qualifies(row, q, i == 0 && probeValue != null ? probeValue : q.getOrderable()))
+                return false;
+        }
+        for (int and_idx = 1; and_idx < qualifiers.length; and_idx++) {
+            boolean pushed = false;
+            boolean qualifies = false;
+            for (Qualifier q : qualifiers[and_idx]) {
+                if (q.getVariantType() == Qualifier.VARIANT)
+                    continue; // Cannot Push Down Qualifier
+                pushed = true;
+                if (qualifies(row, q, q.getOrderable())) {
+                    qualifies = true;
+                    break;
+                }
+            }
+            if (pushed && !qualifies)
+                return false;
+        }
+        return true;
+    }
+
+    private boolean qualifies(ExecRow row, Qualifier q, DataValueDescriptor value) throws StandardException {
+        DataValueDescriptor column = row.getColumn(rowPositions[q.getStoragePosition()] + 1);
+        boolean qualifies = column.compare(q.getOperator(), value, q.getOrderedNulls(), q.getUnknownRV());
+        return q.negateCompareResult() != qualifies;
+    }
+
+    private ExecRow toRow(Group group, int[] groupFields, MessageType requested) throws StandardException {
+        Object[] values = new Object[numColumns];
+        for (int i = 0; i < rowPositions.length; i++) {
+            if (rowPositions[i] == -1)
+                continue;
+            int field = groupFields[i];
+            if (field == -1 || group.getFieldRepetitionCount(field) == 0)
+                continue;
+            Object value = readValue(group, field, requested.getType(field).asPrimitiveType(), fields[i].dataType());
+            if (value instanceof String)
+                value = toCharOrVarchar((String) value, execRow.getColumn(baseColumnMap[i] + 1));
+            values[rowPositions[i]] = value;
+        }
+        ExecRow row = template.getClone();
+        row.fromSparkRow(RowFactory.create(values));
+        return row;
+    }
+
+    private static Object readValue(Group group, int field, PrimitiveType type, DataType dataType) {
+        if (dataType == DataTypes.IntegerType)
+            return group.getInteger(field, 0);
+        if (dataType == DataTypes.ShortType)
+            return (short) group.getInteger(field, 0);
+        if (dataType == DataTypes.ByteType)
+            return (byte) group.getInteger(field, 0);
+        if (dataType == DataTypes.LongType)
+            return group.getLong(field, 0);
+        if (dataType == DataTypes.FloatType)
+            return group.getFloat(field, 0);
+        if (dataType == DataTypes.DoubleType)
+            return group.getDouble(field, 0);
+        if (dataType == DataTypes.BooleanType)
+            return group.getBoolean(field, 0);
+        if (dataType == DataTypes.StringType)
+            return group.getString(field, 0);
+        if (dataType == DataTypes.BinaryType)
+            return group.getBinary(field, 0).getBytes();
+        if (dataType == DataTypes.DateType)
+            return Date.valueOf(LocalDate.ofEpochDay(group.getInteger(field, 0)));
+        if (dataType == DataTypes.TimestampType)
+            return readTimestamp(group, field, type);
+        int scale = ((DecimalType) dataType).scale();
+        switch (type.getPrimitiveTypeName()) {
+            case INT32:
+                return BigDecimal.valueOf(group.getInteger(field, 0), scale);
+            case INT64:
+                return BigDecimal.valueOf(group.getLong(field, 0), scale);
+            default:
+                return new BigDecimal(new BigInteger(group.getBinary(field, 0).getBytes()), scale);
+        }
+    }
+
+    private static Timestamp readTimestamp(Group group, int field, PrimitiveType type) {
+        long seconds;
+        long nanos;
+        if (type.getPrimitiveTypeName() == PrimitiveType.PrimitiveTypeName.INT96) {
+            // nanoseconds of the day followed by the julian day, little endian
+            ByteBuffer buffer = ByteBuffer.wrap(group.getInt96(field, 0).getBytes()).order(ByteOrder.LITTLE_ENDIAN);
+            long nanosOfDay = buffer.getLong();
+            long julianDay = buffer.getInt();
+            seconds = (julianDay - JULIAN_DAY_OF_EPOCH) * SECONDS_PER_DAY + nanosOfDay / NANOS_PER_SECOND;
+            nanos = nanosOfDay % NANOS_PER_SECOND;
+        } else if (type.getOriginalType() == OriginalType.TIMESTAMP_MILLIS) {
+            long millis = group.getLong(field, 0);
+            seconds = Math.floorDiv(millis, 1000L);
+            nanos = TimeUnit.MILLISECONDS.toNanos(Math.floorMod(millis, 1000L));
+        } else {
+            long micros = group.getLong(field, 0);
+            seconds = Math.floorDiv(micros, 1000000L);
+            nanos = TimeUnit.MICROSECONDS.toNanos(Math.floorMod(micros, 1000000L));
+        }
+        Timestamp timestamp = new Timestamp(TimeUnit.SECONDS.toMillis(seconds));
+        timestamp.setNanos((int) nanos);
+        return timestamp;
+    }
+
+    /**
+     * Pad CHAR and cut VARCHAR values like Spark does for the columns of external tables.
+     */
+    private static String toCharOrVarchar(String value, DataValueDescriptor dvd) {
+        if (!(dvd instanceof SQLChar))
+            return value;
+        int size = ((SQLChar) dvd).getSqlCharSize();
+        if (size <= 0)
+            return value;
+        if (!(dvd instanceof SQLVarchar))
+            return value.length() > size ? value.substring(0, size) : StringUtils.rightPad(value, size);
+        return value.length() > size ? value.substring(0, size) : value;
+    }
+
+    private static class Listing {
+        private final long modificationTime;
+        private final List<Footer> footers;
+
+        Listing(long modificationTime, List<Footer> footers) {
+            this.modificationTime = modificationTime;
+            this.footers = Collections.unmodifiableList(footers);
+        }
+    }
+
+    /**
+     * The qualifying rows of the files, reading one row group at a time.
+     */
+    private class Rows implements Iterator<ExecRow>, AutoCloseable {
+        private final Iterator<Footer> files;
+        private Footer file;
+        private MessageType fileSchema;
+        private MessageType requested;
+        private int[] groupFields;
+        private Iterator<BlockMetaData> blocks;
+        private ParquetFileReader reader;
+        private RecordReader<Group> records;
+        private long remaining;
+        private ExecRow next;
+
+        Rows(Iterator<Footer> files) {
+            this.files = files;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    while (remaining == 0) {
+                        if (blocks != null && blocks.hasNext()) {
+                            readBlock(blocks.next());
+                        } else if (files.hasNext()) {
+                            openFile(files.next());
+                        } else {
+                            close();
+                            return false;
+                        }
+                    }
+                    remaining--;
+                    ExecRow row = toRow(records.read(), groupFields, requested);
+                    if (qualifies(row))
+                        next = row;
+                }
+                return true;
+            } catch (IOException | StandardException e) {
+                throw Exceptions.getRuntimeException(e);
+            }
+        }
+
+        @Override
+        public ExecRow next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            ExecRow row = next;
+            next = null;
+            return row;
+        }
+
+        private void openFile(Footer footer) throws StandardException {
+            file = footer;
+            fileSchema = footer.getParquetMetadata().getFileMetaData().getSchema();
+            groupFields = new int[rowPositions.length];
+            List<Type> types = new ArrayList<>();
+            for (int i = 0; i < rowPositions.length; i++) {
+                int field = rowPositions[i] == -1 ? -1 : fieldIndex(fileSchema, fields[i].name());
+                groupFields[i] = field == -1 ? -1 : types.size();
+                if (field != -1)
+                    types.add(fileSchema.getType(field));
+            }
+            requested = new MessageType(fileSchema.getName(), types);
+            List<BlockMetaData> fileBlocks = footer.getParquetMetadata().getBlocks();
+            FilterPredicate predicate = rowGroupPredicate(fileSchema);
+            if (predicate != null)
+                fileBlocks = RowGroupFilter.filterRowGroups(FilterCompat.get(predicate), fileBlocks, fileSchema);
+            blocks = fileBlocks.iterator();
+        }
+
+        @SuppressWarnings("deprecation")
+        private void readBlock(BlockMetaData block) throws IOException {
+            closeReader();
+            reader = new ParquetFileReader(conf, file.getFile(), Collections.singletonList(block), requested.getColumns());
+            PageReadStore pages = reader.readNextRowGroup();
+            records = new ColumnIOFactory().getColumnIO(requested, fileSchema)
+                    .getRecordReader(pages, new GroupRecordConverter(requested));
+            remaining = pages.getRowCount();
+        }
+
+        private void closeReader() throws IOException {
+            if (reader != null) {
+                reader.close();
+                reader = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeReader();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.GenericAggregateOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.pipeline.Exceptions;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import splice.com.google.common.collect.Iterators;
+import splice.com.google.common.collect.PeekingIterator;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Iterator;
+
+/**
+ * Merges the aggregates of rows ordered on the grouping columns, emitting each group as soon as a row of the next
+ * group is read. Only the row of the current group is held, instead of the map of all groups built by
+ * reduceByKey, and a LIMIT above the aggregate stops reading the source once it has its rows.
+ */
+public class MergeOrderedAggregatesFlatMapFunction<Op extends SpliceOperation>
+    extends SpliceFlatMapFunction<Op, Iterator<ExecRow>, ExecRow> {
+
+    private static final long serialVersionUID = 6817390418852937412L;
+
+    protected boolean initialized;
+    protected GenericAggregateOperation op;
+    protected SpliceGenericAggregator[] aggregates;
+    private int[] groupingKeys;
+
+    public MergeOrderedAggregatesFlatMapFunction() {
+    }
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public MergeOrderedAggregatesFlatMapFunction(OperationContext<Op> operationContext, int[] groupingKeys) {
+        super(operationContext);
+        this.groupingKeys = groupingKeys;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+        out.writeInt(groupingKeys.length);
+        for (int groupingKey : groupingKeys) {
+            out.writeInt(groupingKey);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readExternal(in);
+        groupingKeys = new int[in.readInt()];
+        for (int i = 0; i < groupingKeys.length; i++) {
+            groupingKeys[i] = in.readInt();
+        }
+    }
+
+    @Override
+    public Iterator<ExecRow> call(Iterator<ExecRow> locatedRows) throws Exception {
+        if (!initialized) {
+            op = (GenericAggregateOperation) getOperation();
+            aggregates = op.aggregates;
+            initialized = true;
+        }
+        final PeekingIterator<ExecRow> rows = Iterators.peekingIterator(locatedRows);
+        return new Iterator<ExecRow>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public ExecRow next() {
+                try {
+                    return nextGroup(rows);
+                } catch (StandardException e) {
+                    throw Exceptions.getRuntimeException(e);
+                }
+            }
+        };
+    }
+
+    private ExecRow nextGroup(PeekingIterator<ExecRow> rows) throws StandardException {
+        // the source may reuse its rows
+        ExecRow r1 = rows.next().getClone();
+        for (SpliceGenericAggregator aggregator : aggregates) {
+            if (!aggregator.isInitialized(r1)) {
+                aggregator.initializeAndAccumulateIfNeeded(r1, r1);
+            }
+        }
+        ExecRow key = r1.getKeyedExecRow(groupingKeys);
+        while (rows.hasNext() && key.equals(rows.peek().getKeyedExecRow(groupingKeys))) {
+            ExecRow r2 = rows.next();
+            for (SpliceGenericAggregator aggregator : aggregates) {
+                if (!aggregator.isInitialized(r2)) {
+                    aggregator.accumulate(r2, r1);
+                } else {
+                    aggregator.merge(r2, r1);
+                }
+            }
+        }
+        return r1;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.iapi;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate.RegionAggregation;
+
+import java.util.List;
+
+/**
+ * Runs the partial aggregation of a grouped aggregate on the regions of the table it scans.
+ */
+public interface RegionAggregateClient {
+
+    /**
+     * For storage engines which can't aggregate next to the data.
+     */
+    RegionAggregateClient NOT_SUPPORTED = (tableName, aggregation) -> null;
+
+    /**
+     * @return the partial aggregate rows of all the regions holding rows of the scan, or null if some region
+     *         didn't aggregate its rows, in which case the rows must be read by the scan
+     */
+    List<ExecRow> aggregate(String tableName, RegionAggregation aggregation) throws StandardException;
+}
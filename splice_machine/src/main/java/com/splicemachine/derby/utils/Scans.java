@@ -16,6 +16,7 @@ package com.splicemachine.derby.utils;
 
 import com.carrotsearch.hppc.BitSet;
 import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
 import com.splicemachine.db.iapi.services.io.FormatableBitSet;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.store.access.Qualifier;
@@ -24,6 +25,9 @@ import com.splicemachine.db.iapi.types.*;
 import com.splicemachine.db.impl.sql.execute.ValueRow;
 import com.splicemachine.derby.impl.sql.execute.operations.QualifierUtils;
 import com.splicemachine.derby.impl.store.access.base.SpliceConglomerate;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.encoding.Encoding;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnView;
@@ -31,6 +35,7 @@ import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.storage.DataScan;
 import com.splicemachine.storage.EntryPredicateFilter;
+import com.splicemachine.storage.ZonePredicate;
 import com.splicemachine.utils.Pair;
 import org.apache.log4j.Logger;
 
@@ -671,6 +676,113 @@ public class Scans extends SpliceUtils {
         return(row_qualifies);
     }
 
+    /**
+     * Build the {@link ZonePredicate} of the AND qualifiers of a scan of a base table which can be checked against
+     * the zone maps of its store files: comparisons of integer, real, double, date and timestamp columns with constant
+     * values, and IS [NOT] NULL tests. Qualifiers the zone maps can't check are left out, since the predicate only has
+     * to tell which rows can't match.
+     *
+     * @param tableVersion the serialization version of the table, dates and timestamps are tracked as the longs its
+     *                     serializers write, which differ between versions
+     * @return the predicate, or null if none of the qualifiers can be checked
+     */
+    public static ZonePredicate getZonePredicate(Qualifier[][] qualifiers, ExecRow template, int[] baseColumnMap,
+                                                 FormatableBitSet defaultValueMap,
+                                                 String tableVersion) throws StandardException {
+        if (qualifiers == null || qualifiers.length == 0 || qualifiers[0] == null)
+            return null;
+        DataValueDescriptor[] row = template.getRowArray();
+        ZonePredicate predicate = new ZonePredicate();
+        for (Qualifier q : qualifiers[0]) {
+            int position = q.getStoragePosition();
+            int column = baseColumnMap != null ? (position < baseColumnMap.length ? baseColumnMap[position] : -1) : position;
+            // columns added with a default value are missing from the rows written before they were added
+            if (q.getVariantType() == Qualifier.VARIANT || column < 0 || column >= row.length ||
+                    (defaultValueMap != null && column < defaultValueMap.getLength() && defaultValueMap.isSet(column)))
+                continue;
+            DataValueDescriptor orderable = q.getOrderable();
+            boolean negate = q.negateCompareResult();
+            if (orderable == null || orderable.isNull()) {
+                if (q.getOperator() == DataType.ORDER_OP_EQUALS && q.getOrderedNulls())
+                    predicate.testNull(position, !negate);
+                continue;
+            }
+            // the zone maps don't track nulls in their min and max, a null column must not satisfy the qualifier
+            if (q.getOrderedNulls() || q.getUnknownRV() != negate)
+                continue;
+            ZonePredicate.Operator operator = zoneOperator(q.getOperator(), negate);
+            if (operator == null)
+                continue;
+            int columnFormatId = row[column].getTypeFormatId();
+            int valueFormatId = orderable.getTypeFormatId();
+            switch (columnFormatId) {
+                case StoredFormatIds.SQL_TINYINT_ID:
+                case StoredFormatIds.SQL_SMALLINT_ID:
+                case StoredFormatIds.SQL_INTEGER_ID:
+                case StoredFormatIds.SQL_LONGINT_ID:
+                    if (isIntegerFormat(valueFormatId))
+                        predicate.compareScalar(position, operator, orderable.getLong());
+                    break;
+                case StoredFormatIds.SQL_REAL_ID:
+                case StoredFormatIds.SQL_DOUBLE_ID:
+                    if (valueFormatId == StoredFormatIds.SQL_REAL_ID || valueFormatId == StoredFormatIds.SQL_DOUBLE_ID ||
+                            (isIntegerFormat(valueFormatId) && valueFormatId != StoredFormatIds.SQL_LONGINT_ID)) {
+                        predicate.compareDouble(position, columnFormatId == StoredFormatIds.SQL_REAL_ID ?
+                                Encoding.SpliceEncodingKind.FLOAT : Encoding.SpliceEncodingKind.DOUBLE,
+                                operator, orderable.getDouble());
+                    }
+                    break;
+                case StoredFormatIds.SQL_DATE_ID:
+                case StoredFormatIds.SQL_TIMESTAMP_ID:
+                    if (valueFormatId == columnFormatId && tableVersion != null) {
+                        Long value = encodedTime(orderable, tableVersion);
+                        if (value != null)
+                            predicate.compareScalar(position, operator, value);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return predicate.isEmpty() ? null : predicate;
+    }
+
+    /**
+     * @return the long a date or timestamp is stored as by the serializers of the table version, whose order is the
+     * order of the values, or null if the value can't be stored in this version
+     */
+    private static Long encodedTime(DataValueDescriptor value, String tableVersion) {
+        try {
+            DescriptorSerializer serializer = VersionedSerializers.forVersion(tableVersion, true).getSerializer(value);
+            return Encoding.decodeLong(serializer.encodeDirect(value, false));
+        } catch (StandardException | IllegalArgumentException e) {
+            // a timestamp out of the range of the version, or an unknown version
+            return null;
+        }
+    }
+
+    private static boolean isIntegerFormat(int formatId) {
+        return formatId == StoredFormatIds.SQL_TINYINT_ID || formatId == StoredFormatIds.SQL_SMALLINT_ID ||
+                formatId == StoredFormatIds.SQL_INTEGER_ID || formatId == StoredFormatIds.SQL_LONGINT_ID;
+    }
+
+    private static ZonePredicate.Operator zoneOperator(int operator, boolean negate) {
+        switch (operator) {
+            case DataType.ORDER_OP_EQUALS:
+                return negate ? ZonePredicate.Operator.NE : ZonePredicate.Operator.EQ;
+            case DataType.ORDER_OP_LESSTHAN:
+                return negate ? ZonePredicate.Operator.GE : ZonePredicate.Operator.LT;
+            case DataType.ORDER_OP_LESSOREQUALS:
+                return negate ? ZonePredicate.Operator.GT : ZonePredicate.Operator.LE;
+            case DataType.ORDER_OP_GREATERTHAN:
+                return negate ? ZonePredicate.Operator.LE : ZonePredicate.Operator.GT;
+            case DataType.ORDER_OP_GREATEROREQUALS:
+                return negate ? ZonePredicate.Operator.LT : ZonePredicate.Operator.GE;
+            default:
+                return null;
+        }
+    }
+
     public static boolean filterNull(int operator, DataValueDescriptor columnValue, DataValueDescriptor orderable, int variantType) {
         if (orderable==null||orderable.isNull()) {
             switch (operator) {
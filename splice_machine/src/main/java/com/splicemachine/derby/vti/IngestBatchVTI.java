@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.vti;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.vti.VTICosting;
+import com.splicemachine.db.vti.VTIEnvironment;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.DataSetProcessor;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.vti.iapi.DatasetProvider;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reads a batch of rows registered by a streaming ingest job of this JVM, so that the job writes each batch
+ * with a single INSERT ... SELECT through the write pipeline. The statement must run in control, e.g.
+ * <pre>
+ *     INSERT INTO T --splice-properties useSpark=false
+ *     SELECT * FROM new com.splicemachine.derby.vti.IngestBatchVTI('batchKey') AS b (C1 INT, C2 VARCHAR(20))
+ * </pre>
+ */
+public class IngestBatchVTI implements DatasetProvider, VTICosting {
+    private static final ConcurrentMap<String, List<ExecRow>> BATCHES = new ConcurrentHashMap<>();
+
+    private OperationContext operationContext;
+    private String batchKey;
+
+    public IngestBatchVTI() {}
+
+    public IngestBatchVTI(String batchKey) {
+        this.batchKey = batchKey;
+    }
+
+    public static void register(String batchKey, List<ExecRow> rows) {
+        BATCHES.put(batchKey, rows);
+    }
+
+    public static void unregister(String batchKey) {
+        BATCHES.remove(batchKey);
+    }
+
+    @Override
+    public DataSet<ExecRow> getDataSet(SpliceOperation op, DataSetProcessor dsp, ExecRow execRow) throws StandardException {
+        List<ExecRow> rows = BATCHES.get(batchKey);
+        if (rows == null)
+            throw StandardException.plainWrapException(new IllegalStateException("No ingest batch registered for " + batchKey));
+        operationContext = dsp.createOperationContext(op);
+        return dsp.createDataSet(rows.iterator());
+    }
+
+    @Override
+    public double getEstimatedRowCount(VTIEnvironment vtiEnvironment) throws SQLException {
+        List<ExecRow> rows = BATCHES.get(batchKey);
+        return rows == null ? 1000 : rows.size();
+    }
+
+    @Override
+    public double getEstimatedCostPerInstantiation(VTIEnvironment vtiEnvironment) throws SQLException {
+        return 0;
+    }
+
+    @Override
+    public boolean supportsMultipleInstantiations(VTIEnvironment vtiEnvironment) throws SQLException {
+        return false;
+    }
+
+    @Override
+    public OperationContext getOperationContext() {
+        return operationContext;
+    }
+}
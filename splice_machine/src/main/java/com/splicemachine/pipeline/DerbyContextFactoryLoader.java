@@ -186,24 +186,39 @@ public class DerbyContextFactoryLoader implements ContextFactoryLoader{
                 long indexConglomId=ddlChange.getDropIndex().getConglomerate();
                 if (indexSharedByConstraint(ddlChange, txn, indexConglomId))
                     break;
-                synchronized(indexFactories){
-                    for(LocalWriteFactory factory : indexFactories.list()){
-                        if(factory.getConglomerateId()==indexConglomId &&!(factory instanceof DropIndexFactory)){
-                            DropIndexFactory wrappedFactory=new DropIndexFactory(txn,factory,indexConglomId);
-                            indexFactories.replace(wrappedFactory);
-                            return;
-                        }
-                    }
-                    //it hasn't been added yet, so make sure that we add the index
-                    indexFactories.addFactory(new DropIndexFactory(txn,null,indexConglomId));
+                dropIndexFactory(txn,indexConglomId);
+                break;
+            case CREATE_MATERIALIZED_VIEW:
+                if(ddlChange.getMaterializedView().getTable().getConglomerate()==conglomId){
+                    indexFactories.replace(MaterializedViewFactory.create(ddlChange));
                 }
                 break;
+            case DROP_MATERIALIZED_VIEW:
+                if(ddlChange.getDropMaterializedView().getBaseConglomerate()!=conglomId) break;
+                // the storage table of a materialized view is maintained like an index
+                dropIndexFactory(DDLUtils.getLazyTransaction(ddlChange.getTxnId()),
+                        ddlChange.getDropMaterializedView().getConglomerate());
+                break;
             // ignored
             default:
                 break;
         }
     }
 
+    private void dropIndexFactory(TxnView txn,long indexConglomId){
+        synchronized(indexFactories){
+            for(LocalWriteFactory factory : indexFactories.list()){
+                if(factory.getConglomerateId()==indexConglomId &&!(factory instanceof DropIndexFactory)){
+                    DropIndexFactory wrappedFactory=new DropIndexFactory(txn,factory,indexConglomId);
+                    indexFactories.replace(wrappedFactory);
+                    return;
+                }
+            }
+            //it hasn't been added yet, so make sure that we add the index
+            indexFactories.addFactory(new DropIndexFactory(txn,null,indexConglomId));
+        }
+    }
+
     private boolean indexSharedByConstraint(DDLMessage.DDLChange ddlChange, TxnView txn, long indexConglomId) {
         try (SpliceTransactionResourceImpl transactionResource = new SpliceTransactionResourceImpl()) {
             transactionResource.marshallTransaction(txn);
@@ -328,6 +343,7 @@ public class DerbyContextFactoryLoader implements ContextFactoryLoader{
                     indexFactories.replace(indexFactory);
                 }
             }
+            addMaterializedViews(lcc,dataDictionary,td);
         }
 
         // - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
@@ -347,6 +363,24 @@ public class DerbyContextFactoryLoader implements ContextFactoryLoader{
     }
 
 
+    /**
+     * Materialized views over the table are maintained like indexes, their storage tables are written to
+     * along with the base table.
+     */
+    private void addMaterializedViews(LanguageConnectionContext lcc,
+                                      DataDictionary dataDictionary,
+                                      TableDescriptor td) throws StandardException{
+        for(ViewDescriptor vd : dataDictionary.getMaterializedViewDescriptors(td,lcc.getTransactionExecute())){
+            MaterializedViewInfo info=vd.getMaterializedViewInfo();
+            TableDescriptor view=dataDictionary.getTableDescriptor(vd.getUUID(),lcc.getTransactionExecute());
+            TableDescriptor storageTd=dataDictionary.getTableDescriptor(info.getStorageTableId(),lcc.getTransactionExecute());
+            if(view==null || storageTd==null)
+                continue;
+            DDLMessage.MaterializedView materializedView=ProtoUtil.createMaterializedView(lcc,td,storageTd,info,view.getName());
+            indexFactories.replace(MaterializedViewFactory.create(materializedView));
+        }
+    }
+
     private void buildUniqueConstraint(ConstraintDescriptor cd,
                                        OperationStatusFactory osf,
                                        PipelineExceptionFactory pef) throws StandardException{
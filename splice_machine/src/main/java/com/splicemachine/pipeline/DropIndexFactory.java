@@ -90,7 +90,7 @@ class DropIndexFactory implements LocalWriteFactory{
         if (this == o) return true;
         if (o instanceof DropIndexFactory)
             return ((DropIndexFactory) o).indexConglomId == indexConglomId;
-        else return o instanceof IndexFactory && ((IndexFactory) o).getConglomerateId() == indexConglomId;
+        else return (o instanceof IndexFactory || o instanceof MaterializedViewFactory) && ((LocalWriteFactory) o).getConglomerateId() == indexConglomId;
     }
 
     @Override
@@ -179,9 +179,16 @@ public class IndexWriteHandler extends RoutingWriteHandler{
                  *
                  * To avoid this scenario, we check for whether the insert and the delete have the same row key. If
                  * they do, we skip the write/delete altogether. Any WW conflict should also happen for the base row.
+                 *
+                 * Indexes with INCLUDE columns keep those in the index row value, so if only the included columns
+                 * changed we overwrite the index row in place instead. The new index row is complete (all included
+                 * columns and the base row location), so we write it as an UPSERT: an UPDATE would be split into
+                 * new and old values by the partition writer, which only holds for base table update encodings.
                  */
+                add = !newIndex.valueSlice().equals(deleteMutation.valueSlice());
+                if (add)
+                    newIndex.setType(KVPair.Type.UPSERT);
                 deleteMutation = null;
-                add=false;
             }
             if (deleteMutation != null) {
                 indexBuffer.add(deleteMutation);
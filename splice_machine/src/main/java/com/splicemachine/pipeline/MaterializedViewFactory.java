@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline;
+
+import com.splicemachine.ddl.DDLMessage;
+import com.splicemachine.derby.ddl.DDLUtils;
+import com.splicemachine.derby.impl.sql.execute.index.MaterializedViewTransformer;
+import com.splicemachine.pipeline.context.PipelineWriteContext;
+import com.splicemachine.pipeline.contextfactory.LocalWriteFactory;
+import com.splicemachine.pipeline.writehandler.SnapshotIsolatedWriteHandler;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.DDLFilter;
+import com.splicemachine.si.impl.driver.SIDriver;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.IOException;
+
+/**
+ * Creates WriteHandlers that intercept writes to base tables and append the changes they make to the storage tables
+ * of materialized views over them.
+ */
+class MaterializedViewFactory implements LocalWriteFactory{
+    private DDLMessage.MaterializedView materializedView;
+    private TxnView txn; // Null in the case of startup, populated in the case of DDL Change
+    private long storageConglomerateId;
+
+    MaterializedViewFactory(DDLMessage.MaterializedView materializedView, TxnView txn) {
+        this.materializedView = materializedView;
+        this.txn = txn;
+        storageConglomerateId = materializedView.getConglomerate();
+    }
+
+    public static MaterializedViewFactory create(DDLMessage.MaterializedView materializedView) {
+        return new MaterializedViewFactory(materializedView,null);
+    }
+
+    public static MaterializedViewFactory create(DDLMessage.DDLChange ddlChange) {
+        return new MaterializedViewFactory(ddlChange.getMaterializedView(), DDLUtils.getLazyTransaction(ddlChange.getTxnId()));
+    }
+
+    @Override
+    public void addTo(PipelineWriteContext ctx, boolean keepState, int expectedWrites) throws IOException {
+        MaterializedViewTransformer transformer = new MaterializedViewTransformer(materializedView);
+        MaterializedViewWriteHandler writeHandler = new MaterializedViewWriteHandler(keepState, expectedWrites, transformer);
+        if (txn == null) {
+            ctx.addLast(writeHandler);
+        } else {
+            // writes before the demarcation point are picked up by the initial population of the view
+            DDLFilter ddlFilter = SIDriver.driver().readController().newDDLFilter(txn);
+            ctx.addLast(new SnapshotIsolatedWriteHandler(writeHandler, ddlFilter));
+        }
+    }
+
+    @Override
+    public long getConglomerateId() {
+        return storageConglomerateId;
+    }
+
+    @Override
+    public boolean canReplace(LocalWriteFactory newContext){
+        return newContext instanceof MaterializedViewFactory;
+    }
+
+    @Override
+    public void replace(LocalWriteFactory newFactory){
+        synchronized(this){
+            MaterializedViewFactory other=(MaterializedViewFactory)newFactory;
+            this.storageConglomerateId=other.storageConglomerateId;
+            this.materializedView=other.materializedView;
+            this.txn=other.txn;
+        }
+    }
+
+    @Override
+    @SuppressFBWarnings(value = "EQ_CHECK_FOR_OPERAND_NOT_COMPATIBLE_WITH_THIS", justification = "intended")
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o instanceof MaterializedViewFactory) {
+            return storageConglomerateId == ((MaterializedViewFactory) o).storageConglomerateId;
+        } else if (o instanceof DropIndexFactory) {
+            DropIndexFactory that = (DropIndexFactory) o;
+            return storageConglomerateId == that.getConglomerateId();
+        } else return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (materializedView.getConglomerate() ^ (materializedView.getConglomerate() >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "storageConglomId=" + storageConglomerateId + " view=" + materializedView.getViewName();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.execute.index.MaterializedViewTransformer;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.callbuffer.CallBuffer;
+import com.splicemachine.pipeline.context.WriteContext;
+import com.splicemachine.pipeline.writehandler.RoutingWriteHandler;
+import com.splicemachine.utils.ByteSlice;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Intercepts UPDATE/UPSERT/INSERT/DELETE mutations to a base table and appends the change they make to the
+ * aggregates of a materialized view to its storage table.
+ *
+ * The version of each row before the batch is read as its first mutation goes through the pipeline, while it can
+ * still be read, but the mutations are only folded into the deltas on flush, once we know which of them made it to
+ * the base table. Later mutations of the same row in the batch apply to the version left by the previous ones. All
+ * mutations of a batch that hit the same group end up in a single storage row.
+ *
+ * Writes that skip index writes skip the view as well. Table transforms rewrite the rows the view already holds, but
+ * a bulk HFile import adds rows the view doesn't know about, so it marks the view stale beforehand and queries read
+ * the base table until the view is rebuilt by SYSCS_UTIL.SYSCS_FOLD_MATERIALIZED_VIEW.
+ *
+ * The deltas are appended under fresh row keys, so they are not idempotent: a batch retried by the pipeline after
+ * its deltas reached the storage table, e.g. because the region of the storage table moved while the response was in
+ * flight, counts its rows twice. The base rows of a retry are read again and may already hold the batch, and the
+ * retry may be split differently, so there is no key the deltas could be written under that a retry would reproduce.
+ * The view drifts from its base table in that case, until it is dropped and created again.
+ */
+public class MaterializedViewWriteHandler extends RoutingWriteHandler{
+    private static final Logger LOG = Logger.getLogger(MaterializedViewWriteHandler.class);
+    private final MaterializedViewTransformer transformer;
+    private final int expectedWrites;
+    private final List<KVPair> mutations = new ArrayList<>();
+    /* version of each row of the batch before the batch, null if there was none */
+    private final Map<ByteSlice, ExecRow> baseRows = new HashMap<>();
+    private CallBuffer<KVPair> storageBuffer;
+
+    public MaterializedViewWriteHandler(boolean keepState,
+                                        int expectedWrites,
+                                        MaterializedViewTransformer transformer){
+        super(transformer.getStorageConglomBytes(),keepState);
+        this.expectedWrites = expectedWrites;
+        this.transformer = transformer;
+    }
+
+    @Override
+    protected boolean isHandledMutationType(KVPair.Type type) {
+        return type == KVPair.Type.DELETE || type == KVPair.Type.UPDATE || type == KVPair.Type.INSERT ||
+            type == KVPair.Type.UPSERT || type == KVPair.Type.BLIND_UPDATE;
+    }
+
+    @Override
+    public boolean route(KVPair mutation,WriteContext ctx) {
+        if (ctx.skipIndexWrites()) {
+            return true;
+        }
+        try {
+            ByteSlice rowKey = ByteSlice.wrap(mutation.getRowKey());
+            switch (mutation.getType()) {
+                case INSERT:
+                    baseRows.putIfAbsent(rowKey, null);
+                    break;
+                case UPDATE:
+                case BLIND_UPDATE:
+                    if (!transformer.areAggregatedColumnsModified(mutation))
+                        return true; // the view doesn't read the modified columns, ignore...
+                    // fall through
+                case UPSERT:
+                case DELETE:
+                    if (!baseRows.containsKey(rowKey))
+                        baseRows.put(rowKey, transformer.fetchBaseRow(mutation, ctx));
+                    break;
+                default:
+                    throw new RuntimeException("Not Valid Execution Path");
+            }
+            mutations.add(mutation);
+            return true;
+        } catch (Exception e) {
+            fail(mutation,ctx,e);
+            return false;
+        }
+    }
+
+    @Override
+    protected void doFlush(WriteContext ctx) throws Exception {
+        if (mutations.isEmpty() || ctx.skipIndexWrites())
+            return;
+        Map<ByteSlice, KVPair> sources = new HashMap<>();
+        for (KVPair mutation : mutations) {
+            // the base write failed, it doesn't count
+            if (!ctx.canRun(mutation))
+                continue;
+            ByteSlice rowKey = ByteSlice.wrap(mutation.getRowKey());
+            ExecRow oldRow = mutation.getType() == KVPair.Type.INSERT ? null : baseRows.get(rowKey);
+            ExecRow newRow;
+            switch (mutation.getType()) {
+                case INSERT:
+                    newRow = transformer.decode(mutation);
+                    break;
+                case DELETE:
+                    newRow = null;
+                    break;
+                case UPSERT:
+                    newRow = oldRow == null ? transformer.decode(mutation) : transformer.meld(oldRow, mutation);
+                    break;
+                default:
+                    if (oldRow == null)
+                        continue; // an update of a row that's gone
+                    newRow = transformer.meld(oldRow, mutation);
+            }
+            if (oldRow != null)
+                sources.putIfAbsent(transformer.accumulate(oldRow, true), mutation);
+            if (newRow != null)
+                sources.putIfAbsent(transformer.accumulate(newRow, false), mutation);
+            baseRows.put(rowKey, newRow);
+        }
+        mutations.clear();
+        baseRows.clear();
+        Map<ByteSlice, KVPair> deltas = transformer.encodeDeltas();
+        if (deltas.isEmpty())
+            return;
+        if (storageBuffer == null)
+            storageBuffer = getRoutedWriteBuffer(ctx, expectedWrites);
+        for (Map.Entry<ByteSlice, KVPair> delta : deltas.entrySet()) {
+            if (keepState)
+                this.routedToBaseMutationMap.put(delta.getValue(), sources.get(delta.getKey()));
+            storageBuffer.add(delta.getValue());
+        }
+        if (LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG, "appending %d deltas to materialized view %s", deltas.size(), transformer.getViewName());
+        storageBuffer.flushBuffer();
+    }
+
+    @Override
+    public void doClose(WriteContext ctx) throws Exception {
+        if (storageBuffer != null)
+            storageBuffer.close(); // Blocks
+    }
+
+    @Override
+    public String toString() {
+        return "MaterializedViewWriteHandler { keepState = " + keepState + " expectedWrites = "
+                + expectedWrites + " view = " + transformer.getViewName() + "}";
+    }
+}
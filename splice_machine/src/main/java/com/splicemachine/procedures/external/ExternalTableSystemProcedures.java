@@ -24,6 +24,7 @@ import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
 import com.splicemachine.db.iapi.store.access.TransactionController;
 import com.splicemachine.db.impl.jdbc.EmbedConnection;
 import com.splicemachine.derby.procedures.SpliceAdmin;
+import com.splicemachine.derby.stream.control.ControlParquetReader;
 
 import org.apache.log4j.Logger;
 
@@ -70,6 +71,7 @@ public class ExternalTableSystemProcedures {
             String jobGroup = lcc.getSessionUserId() + " <" + tc.getTransactionIdString() +">";
 
             EngineDriver.driver().getOlapClient().execute(new DistributedRefreshExternalTableSchemaJob(jobGroup, td.getLocation()));
+            ControlParquetReader.invalidate(td.getLocation());
 
         }catch (Throwable t){
             throw StandardException.plainWrapException(t);
@@ -19,6 +19,7 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.ZeroCopyLiteralByteString;
 import com.splicemachine.db.catalog.IndexDescriptor;
 import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
 import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 import com.splicemachine.db.iapi.sql.dictionary.*;
 import com.splicemachine.db.iapi.types.DataTypeDescriptor;
@@ -42,6 +43,7 @@ import splice.com.google.common.collect.Lists;
 import splice.com.google.common.primitives.Ints;
 
 import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -319,7 +321,8 @@ public class ProtoUtil {
                 .setUnique(indexDescriptor.isUnique())
                 .setExcludeDefaults(indexDescriptor.excludeDefaults())
                 .setExcludeNulls(indexDescriptor.excludeNulls())
-                .setNumExprs(indexDescriptor.getExprBytecode().length);
+                .setNumExprs(indexDescriptor.getExprBytecode().length)
+                .setNumIncludedColumns(ascColumns.length - indexDescriptor.numberOfOrderedColumns());
         if (defaultValuesBytes != null)
             builder.setDefaultValues(ByteString.copyFrom(defaultValuesBytes));
         for(int i=0;i<ascColumns.length;i++){
@@ -391,6 +394,53 @@ public class ProtoUtil {
                 .build();
     }
 
+    public static MaterializedView createMaterializedView(LanguageConnectionContext lcc, TableDescriptor baseTd,
+                                                          TableDescriptor storageTd, MaterializedViewInfo info,
+                                                          String viewName) throws StandardException {
+        MaterializedView.Builder builder = MaterializedView.newBuilder()
+                .setConglomerate(storageTd.getHeapConglomerateId())
+                .setTable(createTable(baseTd.getHeapConglomerateId(), baseTd, lcc))
+                .setViewName(viewName);
+        // indexed by storage position, dropped columns leave holes
+        int[] baseFormatIds = new int[baseTd.getMaxStorageColumnID()];
+        Arrays.fill(baseFormatIds, StoredFormatIds.SQL_INTEGER_ID);
+        ColumnDescriptorList baseColumns = baseTd.getColumnDescriptorList();
+        for (int i = 0; i < baseColumns.size(); i++) {
+            ColumnDescriptor cd = baseColumns.elementAt(i);
+            baseFormatIds[cd.getStoragePosition() - 1] = cd.getType().getNull().getTypeFormatId();
+        }
+        builder.addAllBaseFormatIds(Ints.asList(baseFormatIds));
+
+        for (int i = 0; i < info.getStorageColumnCount(); i++) {
+            String baseColumn = info.getStorageBaseColumn(i);
+            builder.addColumnFunctions(info.getStorageFunction(i))
+                    .addBaseColumns(baseColumn == null ? -1 : baseTd.getColumnDescriptor(baseColumn).getStoragePosition() - 1);
+        }
+        builder.addAllFormatIds(Ints.asList(storageTd.getFormatIds()));
+        String tV = DataDictionaryUtils.getTableVersion(lcc, storageTd.getUUID());
+        if (tV != null)
+            builder.setStorageTableVersion(tV);
+        return builder.build();
+    }
+
+    public static DDLChange createMaterializedViewChange(long txnId, LanguageConnectionContext lcc, TableDescriptor baseTd,
+                                                         TableDescriptor storageTd, MaterializedViewInfo info,
+                                                         String viewName) throws StandardException {
+        return DDLChange.newBuilder()
+                .setMaterializedView(createMaterializedView(lcc, baseTd, storageTd, info, viewName))
+                .setTxnId(txnId)
+                .setDdlChangeType(DDLChangeType.CREATE_MATERIALIZED_VIEW)
+                .build();
+    }
+
+    public static DDLChange dropMaterializedView(long txnId, long baseConglomerate, long conglomerate) {
+        return DDLChange.newBuilder().setTxnId(txnId).setDropMaterializedView(DropMaterializedView.newBuilder()
+                .setBaseConglomerate(baseConglomerate)
+                .setConglomerate(conglomerate))
+                .setDdlChangeType(DDLChangeType.DROP_MATERIALIZED_VIEW)
+                .build();
+    }
+
     public static DDLChange createRestoreMode(long txnId) {
         return DDLChange.newBuilder().setTxnId(txnId).setDdlChangeType(DDLChangeType.ENTER_RESTORE_MODE).build();
     }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2021 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.derby.test.framework.SpliceNetConnection;
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.test.Benchmark;
+import org.apache.log4j.Logger;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures bulk INSERT and UPDATE throughput on a table with a primary key, where every written row
+ * goes through write-write conflict detection and the primary key constraint check on the region side.
+ * Runs against the mem platform as well as HBase.
+ */
+@Category(Benchmark.class)
+public class ConflictDetectionBenchmark extends Benchmark {
+
+    private static final Logger LOG = Logger.getLogger(ConflictDetectionBenchmark.class);
+
+    private static final String TABLE = "T";
+    private static final int BATCH_SIZE = 1000;
+    private static final int NUM_BATCHES = 50;
+    private static final int NUM_UPDATES = 20;
+
+    @ClassRule
+    public static SpliceSchemaWatcher spliceSchemaWatcher = new SpliceSchemaWatcher(ConflictDetectionBenchmark.class.getSimpleName());
+
+    static Connection makeConnection() throws SQLException {
+        Connection connection = SpliceNetConnection.getDefaultConnection();
+        connection.setSchema(spliceSchemaWatcher.schemaName);
+        connection.setAutoCommit(true);
+        return connection;
+    }
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        getInfo();
+
+        try (Connection conn = makeConnection(); Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE " + TABLE + " (id INTEGER PRIMARY KEY, counter INTEGER, payload VARCHAR(100))");
+        }
+    }
+
+    static final String STAT_ERROR = "ERROR";
+    static final String STAT_INSERT = "INSERT";
+    static final String STAT_UPDATE = "UPDATE";
+
+    private static final AtomicInteger nextId = new AtomicInteger(0);
+
+    private static void doBulkInserts(int batches) {
+        try (Connection conn = makeConnection();
+             PreparedStatement insert = conn.prepareStatement("INSERT INTO " + TABLE + " VALUES (?, 0, ?)")) {
+            for (int b = 0; b < batches; ++b) {
+                int first = nextId.getAndAdd(BATCH_SIZE);
+                for (int i = first; i < first + BATCH_SIZE; ++i) {
+                    insert.setInt(1, i);
+                    insert.setString(2, "payload " + i);
+                    insert.addBatch();
+                }
+                long start = System.currentTimeMillis();
+                int[] counts = insert.executeBatch();
+                updateStats(STAT_INSERT, counts.length, System.currentTimeMillis() - start);
+                if (counts.length != BATCH_SIZE) {
+                    updateStats(STAT_ERROR);
+                }
+            }
+        }
+        catch (Throwable t) {
+            LOG.error("Connection broken", t);
+            updateStats(STAT_ERROR);
+        }
+    }
+
+    private static void doBulkUpdates(int updates) {
+        try (Connection conn = makeConnection();
+             PreparedStatement update = conn.prepareStatement("UPDATE " + TABLE + " SET counter = counter + 1")) {
+            for (int i = 0; i < updates; ++i) {
+                long start = System.currentTimeMillis();
+                int count = update.executeUpdate();
+                updateStats(STAT_UPDATE, count, System.currentTimeMillis() - start);
+            }
+        }
+        catch (Throwable t) {
+            LOG.error("Connection broken", t);
+            updateStats(STAT_ERROR);
+        }
+    }
+
+    @Test
+    public void bulkInsertAndUpdate() throws Exception {
+        LOG.info("bulkInsert");
+        runBenchmark(4, () -> doBulkInserts(NUM_BATCHES));
+        LOG.info("bulkUpdate");
+        runBenchmark(1, () -> doBulkUpdates(NUM_UPDATES));
+    }
+}
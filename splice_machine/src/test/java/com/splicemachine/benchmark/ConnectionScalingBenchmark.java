@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2021 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.derby.test.framework.SpliceNetConnection;
+import com.splicemachine.test.Benchmark;
+import org.apache.log4j.Logger;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request latency and server memory and threads while a growing number of idle connections are open. Run it
+ * against a server started with and without -Dderby.drda.nio=true to compare the network server front ends.
+ * Server metrics are read through the JMX port of the region server (-Dbenchmark.jmx=host:port).
+ */
+@Category(Benchmark.class)
+public class ConnectionScalingBenchmark extends Benchmark {
+
+    private static final Logger LOG = Logger.getLogger(ConnectionScalingBenchmark.class);
+
+    private static final int[] IDLE_CONNECTIONS = {0, 250, 1000, 4000};
+    private static final int ACTIVE_CONNECTIONS = 10;
+    private static final int DEFAULT_OPS = 2000;
+
+    static final String STAT_ERROR = "ERROR";
+    static final String STAT_REQUEST = "REQUEST";
+
+    private static void doRequests(int operations) {
+        try (Connection conn = SpliceNetConnection.getDefaultConnection()) {
+            PreparedStatement ps = conn.prepareStatement("VALUES CURRENT_TIMESTAMP");
+            for (int i = 0; i < operations; ++i) {
+                long start = System.currentTimeMillis();
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        updateStats(STAT_ERROR);
+                    }
+                }
+                updateStats(STAT_REQUEST, System.currentTimeMillis() - start);
+            }
+        }
+        catch (Throwable t) {
+            LOG.error("Connection broken", t);
+        }
+    }
+
+    private static JMXConnector jmxConnector;
+
+    private static MBeanServerConnection serverMBeans() {
+        String address = System.getProperty("benchmark.jmx", "localhost:10102");
+        try {
+            jmxConnector = JMXConnectorFactory.connect(
+                    new JMXServiceURL("service:jmx:rmi:///jndi/rmi://" + address + "/jmxrmi"));
+            return jmxConnector.getMBeanServerConnection();
+        }
+        catch (Exception e) {
+            LOG.warn("Server JMX not available at " + address + ", only latencies are reported", e);
+            return null;
+        }
+    }
+
+    private static long usedHeap(MBeanServerConnection mbeans) throws Exception {
+        if (mbeans == null)
+            return -1;
+        ObjectName memory = new ObjectName("java.lang:type=Memory");
+        mbeans.invoke(memory, "gc", null, null);
+        return (Long) ((CompositeData) mbeans.getAttribute(memory, "HeapMemoryUsage")).get("used");
+    }
+
+    private static int threads(MBeanServerConnection mbeans) throws Exception {
+        if (mbeans == null)
+            return -1;
+        return (Integer) mbeans.getAttribute(new ObjectName("java.lang:type=Threading"), "ThreadCount");
+    }
+
+    @Test
+    public void idleConnections() throws Exception {
+        getInfo();
+        MBeanServerConnection mbeans = serverMBeans();
+        List<Connection> idle = new ArrayList<>();
+        try {
+            long baseHeap = usedHeap(mbeans);
+            int baseThreads = threads(mbeans);
+            for (int target : IDLE_CONNECTIONS) {
+                while (idle.size() < target) {
+                    Connection conn = SpliceNetConnection.getDefaultConnection();
+                    // pooled connections have usually run something before sitting idle
+                    try (Statement s = conn.createStatement(); ResultSet rs = s.executeQuery("VALUES 1")) {
+                        rs.next();
+                    }
+                    idle.add(conn);
+                }
+
+                long heap = usedHeap(mbeans);
+                int threads = threads(mbeans);
+                runBenchmark(ACTIVE_CONNECTIONS, () -> doRequests(DEFAULT_OPS));
+                long count = getCountStats(STAT_REQUEST);
+                LOG.info(String.format("idle connections: %d\tserver threads: %d (+%d)\tserver heap(MB): %d (+%d)" +
+                                "\tavg latency(ms): %.3f\terrors: %d",
+                        target, threads, threads - baseThreads, heap >> 20, (heap - baseHeap) >> 20,
+                        count == 0 ? 0d : (double) getSumStats(STAT_REQUEST) / count, getCountStats(STAT_ERROR)));
+            }
+        }
+        finally {
+            for (Connection conn : idle) {
+                conn.close();
+            }
+            if (jmxConnector != null)
+                jmxConnector.close();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2021 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.derby.test.framework.SpliceNetConnection;
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.test.Benchmark;
+import org.apache.log4j.Logger;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.sql.*;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures submit-to-first-row latency of short OLAP queries executed repeatedly through the
+ * same prepared statement, which is dominated by shipping the activation to the OLAP server
+ * and its executors.
+ */
+@Category(Benchmark.class)
+public class OlapRepeatedQueryBenchmark extends Benchmark {
+
+    private static final Logger LOG = Logger.getLogger(OlapRepeatedQueryBenchmark.class);
+
+    private static final int DEFAULT_CONNECTIONS = 4;
+    private static final int DEFAULT_OPS = 500;
+    private static final int DEFAULT_WAREHOUSES = 10;
+
+    @ClassRule
+    public static SpliceSchemaWatcher spliceSchemaWatcher = new SpliceSchemaWatcher(OlapRepeatedQueryBenchmark.class.getSimpleName());
+
+    static Connection makeConnection() throws SQLException {
+        Connection connection = SpliceNetConnection.getDefaultConnection();
+        connection.setSchema(spliceSchemaWatcher.schemaName);
+        connection.setAutoCommit(true);
+        return connection;
+    }
+
+    static int warehouses = DEFAULT_WAREHOUSES;
+    static int districts = TPCCLoader.configDistPerWhse;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        getInfo();
+
+        LOG.info("Create tables");
+
+        TPCCLoader loader = new TPCCLoader(spliceSchemaWatcher.schemaName, warehouses);
+        loader.loadWarehouses();
+        loader.loadCustomers();
+
+        try (Connection conn = makeConnection(); Statement st = conn.createStatement()) {
+            LOG.info("Analyze");
+            st.execute("ANALYZE SCHEMA " + spliceSchemaWatcher.schemaName);
+        }
+    }
+
+    static final String STAT_ERROR = "ERROR";
+    static final String STAT_FIRST_ROW = "FIRST_ROW";
+    static final String STAT_FIRST_EXEC = "FIRST_EXEC";
+    static final String STAT_ALL_ROWS = "ALL_ROWS";
+
+    private static void doRepeatedQueries(int operations) {
+        try (Connection conn = makeConnection()) {
+            PreparedStatement query = conn.prepareStatement(
+                    "SELECT c_d_id, count(*), avg(c_balance) FROM " + TPCCLoader.TABLE_CUSTOMER +
+                            " --splice-properties useSpark=true\n WHERE c_w_id = ? GROUP BY c_d_id");
+            Random rnd = ThreadLocalRandom.current();
+
+            for (int i = 0; i < operations; ++i) {
+                query.setInt(1, rnd.nextInt(warehouses) + 1);
+
+                long start = System.currentTimeMillis();
+                try (ResultSet rs = query.executeQuery()) {
+                    if (!rs.next()) {
+                        updateStats(STAT_ERROR);
+                        continue;
+                    }
+                    updateStats(i == 0 ? STAT_FIRST_EXEC : STAT_FIRST_ROW, System.currentTimeMillis() - start);
+                    int rows = 1;
+                    while (rs.next()) {
+                        ++rows;
+                    }
+                    updateStats(STAT_ALL_ROWS, System.currentTimeMillis() - start);
+                    if (rows != districts) {
+                        updateStats(STAT_ERROR);
+                    }
+                }
+            }
+        }
+        catch (Throwable t) {
+            LOG.error("Connection broken", t);
+        }
+    }
+
+    @Test
+    public void repeatedQuerySingle() throws Exception {
+        LOG.info("repeatedQuerySingle");
+        runBenchmark(1, () -> doRepeatedQueries(DEFAULT_OPS));
+    }
+
+    @Test
+    public void repeatedQueryMulti() throws Exception {
+        LOG.info("repeatedQueryMulti");
+        runBenchmark(DEFAULT_CONNECTIONS, () -> doRepeatedQueries(DEFAULT_OPS));
+    }
+}
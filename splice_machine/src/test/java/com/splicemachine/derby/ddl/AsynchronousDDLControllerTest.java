@@ -132,6 +132,8 @@ public class AsynchronousDDLControllerTest{
             Assert.fail("The coordination did not time out!");
         }catch(StandardException se){
             Assert.assertEquals("Incorrect error code!","SE017",se.getSQLState());
+            Assert.assertEquals("Incorrect timed out change count!",1,controller.getTotalTimedOutChanges());
+            Assert.assertEquals("Incorrect acknowledged change count!",0,controller.getTotalAcknowledgedChanges());
             throw se;
         }
     }
@@ -236,6 +238,9 @@ public class AsynchronousDDLControllerTest{
         String retChangeId=controller.notifyMetadataChange(change);
         Assert.assertEquals("Change id does not match!",changeId,retChangeId);
         Assert.assertTrue("Some servers are missing!",ddlCommunicator.completedServers.containsAll(ddlCommunicator.allServers));
+        Assert.assertEquals("Incorrect acknowledged change count!",1,controller.getTotalAcknowledgedChanges());
+        Assert.assertTrue("Acknowledgment latency is missing the waits!",controller.getLastAcknowledgmentLatencyMs()>=4*timeout/5);
+        Assert.assertEquals(controller.getLastAcknowledgmentLatencyMs(),controller.getMaxAcknowledgmentLatencyMs());
     }
 
     @Test(expected=StandardException.class)
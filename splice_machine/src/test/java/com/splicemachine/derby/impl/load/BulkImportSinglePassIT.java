@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.load;
+
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceUnitTest;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.homeless.TestUtils;
+import com.splicemachine.test.SerialTest;
+import org.apache.commons.io.FileUtils;
+import org.junit.*;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+import splice.com.google.common.base.Throwables;
+
+import java.io.File;
+import java.sql.ResultSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Bulk imports with splice.bulkImport.singlePass set, which parse their input once and write the table and its
+ * indexes from the same persisted key/values. The tables and indexes must hold what the two pass imports write,
+ * and the imported rows and bad records must be counted once.
+ */
+@Category(SerialTest.class)
+public class BulkImportSinglePassIT extends SpliceUnitTest {
+
+    private static final String SCHEMA_NAME = BulkImportSinglePassIT.class.getSimpleName().toUpperCase();
+    private static final String LINEITEM = "LINEITEM";
+    private static final String ORDERS = "ORDERS";
+    private static boolean notSupported;
+    private static String BADDIR;
+    private static String BULKLOADDIR;
+
+    private static final SpliceWatcher spliceClassWatcher = new SpliceWatcher(SCHEMA_NAME);
+    private static final SpliceSchemaWatcher spliceSchemaWatcher = new SpliceSchemaWatcher(SCHEMA_NAME);
+
+    @ClassRule
+    public static TestRule chain = RuleChain.outerRule(spliceClassWatcher).around(spliceSchemaWatcher);
+
+    @Rule
+    public SpliceWatcher methodWatcher = new SpliceWatcher(SCHEMA_NAME);
+
+    @BeforeClass
+    public static void loaddata() throws Exception {
+        try {
+            BADDIR = SpliceUnitTest.createBadLogDirectory(SCHEMA_NAME).getCanonicalPath();
+            BULKLOADDIR = SpliceUnitTest.createBulkLoadDirectory(SCHEMA_NAME).getCanonicalPath();
+            spliceClassWatcher.execute(
+                    "call SYSCS_UTIL.SYSCS_SET_GLOBAL_DATABASE_PROPERTY('splice.bulkImport.singlePass', 'true')");
+
+            TestUtils.executeSqlFile(spliceClassWatcher, "tcph/createTable.sql", SCHEMA_NAME);
+            // the indexes exist before the imports, so their key/values are written with those of the tables
+            spliceClassWatcher.execute("create index O_CUST_IDX on ORDERS(O_CUSTKEY, O_ORDERKEY)");
+            spliceClassWatcher.execute("create index O_DATE_PRI_KEY_IDX on ORDERS(O_ORDERDATE, O_ORDERPRIORITY, O_ORDERKEY)");
+            spliceClassWatcher.execute("create index L_SHIPDATE_IDX on LINEITEM(L_SHIPDATE, L_PARTKEY, L_EXTENDEDPRICE, L_DISCOUNT)");
+            spliceClassWatcher.execute("create index L_PART_IDX on LINEITEM(L_PARTKEY, L_ORDERKEY, L_SUPPKEY, L_SHIPDATE)");
+            spliceClassWatcher.execute("create table rows_count (i varchar(10), j varchar(10) not null, primary key (i))");
+            spliceClassWatcher.execute("create index rows_count_idx on rows_count(j)");
+
+            spliceClassWatcher.execute(format("call SYSCS_UTIL.BULK_IMPORT_HFILE('%s','%s',null,'%s','|','\"',null,null,null,0,null,true,null, '%s', false)", SCHEMA_NAME, LINEITEM, getResource("lineitem.tbl"), BULKLOADDIR));
+            spliceClassWatcher.execute(format("call SYSCS_UTIL.BULK_IMPORT_HFILE('%s','%s',null,'%s','|','\"',null,null,null,0,null,true,null, '%s', false)", SCHEMA_NAME, ORDERS, getResource("orders.tbl"), BULKLOADDIR));
+        }
+        catch (Exception e) {
+            java.lang.Throwable ex = Throwables.getRootCause(e);
+            if (ex.getMessage().contains("bulk load not supported")) {
+                notSupported = true;
+            }
+            else
+                throw e;
+        }
+    }
+
+    @AfterClass
+    public static void cleanup() throws Exception {
+        spliceClassWatcher.execute(
+                "call SYSCS_UTIL.SYSCS_SET_GLOBAL_DATABASE_PROPERTY('splice.bulkImport.singlePass', null)");
+        FileUtils.deleteDirectory(new File(BULKLOADDIR));
+    }
+
+    @Test
+    public void testTablesAreImported() throws Exception {
+        if (notSupported)
+            return;
+        assertEquals(9958L, (long) methodWatcher.query("select count(*) from " + LINEITEM));
+        assertEquals(2500L, (long) methodWatcher.query("select count(*) from " + ORDERS));
+    }
+
+    @Test
+    public void testIndexesAreImported() throws Exception {
+        if (notSupported)
+            return;
+        String orders = "select count(*), sum(o_orderkey), sum(o_custkey) from orders --splice-properties index=%s";
+        assertSameResults(format(orders, "null"), format(orders, "O_CUST_IDX"));
+        assertSameResults(format(orders, "null"), format(orders, "O_DATE_PRI_KEY_IDX"));
+
+        String lineitem = "select count(*), sum(l_orderkey), sum(l_partkey), max(l_shipdate) from lineitem --splice-properties index=%s";
+        assertSameResults(format(lineitem, "null"), format(lineitem, "L_PART_IDX"));
+        String shipdate = "select count(*), sum(l_partkey), sum(l_extendedprice) from lineitem --splice-properties index=%s\n" +
+                "where l_shipdate between date('1995-01-01') and date('1995-12-31')";
+        assertSameResults(format(shipdate, "null"), format(shipdate, "L_SHIPDATE_IDX"));
+    }
+
+    @Test
+    public void testIndexLookups() throws Exception {
+        if (notSupported)
+            return;
+        String sql = "select o_orderkey, o_orderdate from orders --splice-properties index=%s\n" +
+                "where o_custkey = 10 order by o_orderkey";
+        assertSameResults(format(sql, "null"), format(sql, "O_CUST_IDX"));
+        sql = "select l_orderkey, l_linenumber from lineitem --splice-properties index=%s\n" +
+                "where l_partkey = 100 order by l_orderkey, l_linenumber";
+        assertSameResults(format(sql, "null"), format(sql, "L_PART_IDX"));
+    }
+
+    @Test
+    public void testRowsAndBadRecordsAreCountedOnce() throws Exception {
+        if (notSupported)
+            return;
+        // one row imported, one row violating the primary key and one violating the not null constraint
+        try (ResultSet result = methodWatcher.executeQuery(format(
+                "call SYSCS_UTIL.BULK_IMPORT_HFILE('%s','%s',null,'%s',null,null,null,null,null,-1,'%s',true,null, '%s', false)",
+                SCHEMA_NAME, "ROWS_COUNT", getResourceDirectory() + "rows_count.csv", BADDIR, BULKLOADDIR))) {
+            Assert.assertTrue(result.next());
+            assertEquals("rows imported", 1, result.getInt(1));
+            assertEquals("bad records", 2, result.getInt(2));
+        }
+        assertEquals(1L, (long) methodWatcher.query("select count(*) from rows_count"));
+        assertEquals(1L, (long) methodWatcher.query("select count(*) from rows_count --splice-properties index=ROWS_COUNT_IDX"));
+    }
+
+    private void assertSameResults(String expectedSql, String sql) throws Exception {
+        String expected;
+        try (ResultSet rs = methodWatcher.executeQuery(expectedSql)) {
+            expected = TestUtils.FormattedResult.ResultFactory.toString(rs);
+        }
+        try (ResultSet rs = methodWatcher.executeQuery(sql)) {
+            assertEquals(sql, expected, TestUtils.FormattedResult.ResultFactory.toString(rs));
+        }
+    }
+
+    private static String getResource(String name) {
+        return SpliceUnitTest.getResourceDirectory() + "tcph/data/" + name;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.actions.index;
+
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceUnitTest;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.derby.test.framework.TestConnection;
+import com.splicemachine.test_tools.TableCreator;
+import org.junit.*;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+
+import java.sql.ResultSet;
+
+import static com.splicemachine.test_tools.Rows.row;
+import static com.splicemachine.test_tools.Rows.rows;
+
+/**
+ * Tests for indexes created with INCLUDE columns, which are stored in the index row
+ * so that queries referencing them don't need to look up the base row.
+ */
+public class CoveringIndexIT extends SpliceUnitTest {
+
+    private static final String SCHEMA = CoveringIndexIT.class.getSimpleName().toUpperCase();
+    private static final SpliceWatcher classWatcher = new SpliceWatcher(SCHEMA);
+    private static final SpliceSchemaWatcher schemaWatcher = new SpliceSchemaWatcher(SCHEMA);
+
+    @ClassRule
+    public static TestRule chain = RuleChain.outerRule(classWatcher).around(schemaWatcher);
+
+    @Rule
+    public SpliceWatcher methodWatcher = new SpliceWatcher(SCHEMA);
+
+    @BeforeClass
+    public static void createTables() throws Exception {
+        TestConnection conn = classWatcher.getOrCreateConnection();
+        new TableCreator(conn)
+                .withCreate("create table A (a1 int, a2 varchar(10), a3 double, a4 int, primary key(a1))")
+                .withIndex("create index A_IDX on A (a2) include (a3, a4)")
+                .withIndex("create unique index A_UIDX on A (a4 desc) include (a2)")
+                .withInsert("insert into A values(?, ?, ?, ?)")
+                .withRows(rows(
+                        row(1, "one", 1.5, 10),
+                        row(2, "two", null, 20),
+                        row(3, "three", 3.5, 30),
+                        row(4, "four", 4.5, null)))
+                .create();
+    }
+
+    @Test
+    public void testIncludedColumnsAvoidIndexLookup() throws Exception {
+        String sql = "select a2, a3, a4 from A --splice-properties index=A_IDX\n where a2 > 'o'";
+        queryDoesNotContainString("explain " + sql, "IndexLookup", methodWatcher);
+
+        try (ResultSet rs = methodWatcher.executeQuery(sql + " order by a2")) {
+            assertRow(rs, "one", 1.5, 10);
+            assertRow(rs, "three", 3.5, 30);
+            assertRow(rs, "two", null, 20);
+            Assert.assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testIncludedColumnsOnUniqueIndex() throws Exception {
+        String sql = "select a4, a2 from A --splice-properties index=A_UIDX\n where a4 >= 20";
+        queryDoesNotContainString("explain " + sql, "IndexLookup", methodWatcher);
+
+        try (ResultSet rs = methodWatcher.executeQuery(sql + " order by a4")) {
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(20, rs.getInt(1));
+            Assert.assertEquals("two", rs.getString(2));
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(30, rs.getInt(1));
+            Assert.assertEquals("three", rs.getString(2));
+            Assert.assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testUpdateMaintainsIncludedColumns() throws Exception {
+        methodWatcher.execute("create table B (b1 int, b2 int, b3 varchar(10))");
+        methodWatcher.execute("create index B_IDX on B (b2) include (b3)");
+        methodWatcher.execute("insert into B values (1, 1, 'a'), (2, 2, 'b'), (3, 3, 'c')");
+
+        // update an included column only, the index row key doesn't change
+        methodWatcher.execute("update B set b3 = 'x' where b1 = 1");
+        methodWatcher.execute("update B set b3 = null where b1 = 2");
+        // update a key column, the index row moves
+        methodWatcher.execute("update B set b2 = 30, b3 = 'z' where b1 = 3");
+
+        String sql = "select b2, b3 from B --splice-properties index=B_IDX\n order by b2";
+        try (ResultSet rs = methodWatcher.executeQuery(sql)) {
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(1, rs.getInt(1));
+            Assert.assertEquals("x", rs.getString(2));
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(2, rs.getInt(1));
+            Assert.assertNull(rs.getString(2));
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(30, rs.getInt(1));
+            Assert.assertEquals("z", rs.getString(2));
+            Assert.assertFalse(rs.next());
+        }
+        try (ResultSet rs = methodWatcher.executeQuery("select count(*) from B --splice-properties index=B_IDX\n where b2 = 3")) {
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(0, rs.getInt(1));
+        }
+        // b1 is not in the index, the lookup goes through the base row location kept in the index row
+        sql = "select b1, b2, b3 from B --splice-properties index=B_IDX\n order by b2";
+        try (ResultSet rs = methodWatcher.executeQuery(sql)) {
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(1, rs.getInt(1));
+            Assert.assertEquals("x", rs.getString(3));
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(2, rs.getInt(1));
+            Assert.assertNull(rs.getString(3));
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(3, rs.getInt(1));
+            Assert.assertEquals("z", rs.getString(3));
+            Assert.assertFalse(rs.next());
+        }
+
+        // update the included column again, from NULL, and back to the original value
+        methodWatcher.execute("update B set b3 = 'y' where b1 = 2");
+        methodWatcher.execute("update B set b3 = 'a' where b1 = 1");
+        sql = "select b1, b3 from B --splice-properties index=B_IDX\n where b2 < 3 order by b2";
+        try (ResultSet rs = methodWatcher.executeQuery(sql)) {
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(1, rs.getInt(1));
+            Assert.assertEquals("a", rs.getString(2));
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(2, rs.getInt(1));
+            Assert.assertEquals("y", rs.getString(2));
+            Assert.assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testInvalidIncludeColumns() throws Exception {
+        testFail("42X66", "create index A_DUP_IDX on A (a2) include (a2)", methodWatcher);
+        testFail("0A000", "create index A_EXPR_IDX on A (upper(a2)) include (a3)", methodWatcher);
+    }
+
+    private static void assertRow(ResultSet rs, String a2, Double a3, int a4) throws Exception {
+        Assert.assertTrue(rs.next());
+        Assert.assertEquals(a2, rs.getString(1));
+        double d = rs.getDouble(2);
+        if (a3 == null) {
+            Assert.assertTrue(rs.wasNull());
+        } else {
+            Assert.assertEquals(a3, d, 0.0);
+        }
+        Assert.assertEquals(a4, rs.getInt(3));
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.actions.index;
+
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceUnitTest;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.derby.test.framework.TestConnection;
+import com.splicemachine.test_tools.TableCreator;
+import org.apache.commons.io.FileUtils;
+import org.junit.*;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+import splice.com.google.common.base.Throwables;
+
+import java.io.File;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static com.splicemachine.test_tools.Rows.row;
+import static com.splicemachine.test_tools.Rows.rows;
+
+/**
+ * Tests for materialized aggregate views, whose partial aggregates are kept up to date by the write pipeline
+ * of their base table.
+ */
+public class MaterializedViewIT extends SpliceUnitTest {
+
+    private static final String SCHEMA = MaterializedViewIT.class.getSimpleName().toUpperCase();
+    private static final SpliceWatcher classWatcher = new SpliceWatcher(SCHEMA);
+    private static final SpliceSchemaWatcher schemaWatcher = new SpliceSchemaWatcher(SCHEMA);
+
+    @ClassRule
+    public static TestRule chain = RuleChain.outerRule(classWatcher).around(schemaWatcher);
+
+    @Rule
+    public SpliceWatcher methodWatcher = new SpliceWatcher(SCHEMA);
+
+    @BeforeClass
+    public static void createTables() throws Exception {
+        TestConnection conn = classWatcher.getOrCreateConnection();
+        new TableCreator(conn)
+                .withCreate("create table A (a1 int, a2 varchar(10), a3 int, primary key(a1))")
+                .withInsert("insert into A values(?, ?, ?)")
+                .withRows(rows(
+                        row(1, "x", 10),
+                        row(2, "x", 20),
+                        row(3, "y", null),
+                        row(4, "z", 40)))
+                .create();
+        conn.createStatement().execute(
+                "create materialized view A_MVIEW as select a2, sum(a3) as s, count(a3) as c, count(*) as n from A group by a2");
+    }
+
+    @Test
+    public void testMaintainedOnWrites() throws Exception {
+        assertGroups("select a2, s, c, n from A_MVIEW order by a2",
+                new Object[][]{{"x", 30L, 2L, 2L}, {"y", null, 0L, 1L}, {"z", 40L, 1L, 1L}});
+
+        methodWatcher.execute("insert into A values (5, 'y', 5), (6, 'w', 6)");
+        methodWatcher.execute("update A set a3 = 15 where a1 = 1");
+        methodWatcher.execute("update A set a2 = 'w' where a1 = 2");
+        methodWatcher.execute("delete from A where a1 = 4");
+
+        assertGroups("select a2, s, c, n from A_MVIEW order by a2",
+                new Object[][]{{"w", 26L, 2L, 2L}, {"x", 15L, 1L, 1L}, {"y", 5L, 1L, 2L}});
+        // the view agrees with the base table
+        assertGroups("select a2, sum(a3), count(a3), count(*) from A --splice-properties index=null\n group by a2 order by a2",
+                new Object[][]{{"w", 26L, 2L, 2L}, {"x", 15L, 1L, 1L}, {"y", 5L, 1L, 2L}});
+    }
+
+    @Test
+    public void testQueryRewrittenToView() throws Exception {
+        String sql = "select a2, count(*) from A group by a2";
+        queryDoesNotContainString("explain " + sql, "TableScan[A(", methodWatcher);
+        boolean readsView = false;
+        try (ResultSet rs = methodWatcher.executeQuery("explain " + sql)) {
+            while (rs.next()) {
+                readsView |= rs.getString(1).contains("A_MVIEW_MV");
+            }
+        }
+        Assert.assertTrue("Expected a scan of the view's storage table", readsView);
+    }
+
+    @Test
+    public void testRowWrittenTwiceInOneBatch() throws Exception {
+        methodWatcher.execute("create table C (c1 int primary key, c2 int, c3 int)");
+        methodWatcher.execute("create materialized view C_MVIEW as select c2, sum(c3) as s, count(*) as n from C group by c2");
+        // both rows go through the pipeline in the same batch, the second one replaces the first
+        methodWatcher.execute("insert into C --splice-properties insertMode=UPSERT\n values (1, 1, 10), (1, 2, 20)");
+        methodWatcher.execute("insert into C --splice-properties insertMode=UPSERT\n values (2, 1, 5), (2, 1, 7), (1, 1, 1)");
+
+        assertGroups("select c2, s, n from C_MVIEW order by c2", new Object[][]{{1, 8, 2}});
+        assertGroups("select c2, sum(c3), count(*) from C --splice-properties index=null\n group by c2 order by c2",
+                new Object[][]{{1, 8, 2}});
+    }
+
+    @Test
+    public void testFoldMaterializedView() throws Exception {
+        methodWatcher.execute("create table D (d1 int primary key, d2 varchar(10), d3 int)");
+        methodWatcher.execute("create materialized view D_MVIEW as select d2, sum(d3) as s, count(d3) as c from D group by d2");
+        methodWatcher.execute("insert into D values (1, 'x', 1), (2, 'y', 2)");
+        methodWatcher.execute("insert into D values (3, 'x', 3)");
+        methodWatcher.execute("update D set d3 = null where d1 = 3");
+        methodWatcher.execute("delete from D where d1 = 2");
+        Object[][] expected = {{"x", 1L, 1L}};
+        assertGroups("select d2, s, c from D_MVIEW order by d2", expected);
+        Assert.assertTrue(countStorageRows("D_MVIEW_MV") > 1);
+
+        methodWatcher.execute(format("call SYSCS_UTIL.SYSCS_FOLD_MATERIALIZED_VIEW('%s', 'D_MVIEW')", SCHEMA));
+
+        // one row per group left, the emptied group is gone
+        Assert.assertEquals(1, countStorageRows("D_MVIEW_MV"));
+        assertGroups("select d2, s, c from D_MVIEW order by d2", expected);
+        methodWatcher.execute("insert into D values (4, 'y', 4)");
+        assertGroups("select d2, s, c from D_MVIEW order by d2", new Object[][]{{"x", 1L, 1L}, {"y", 4L, 1L}});
+
+        testFail("22008", format("call SYSCS_UTIL.SYSCS_FOLD_MATERIALIZED_VIEW('%s', 'D')", SCHEMA), methodWatcher);
+    }
+
+    @Test
+    public void testTruncateBaseTable() throws Exception {
+        methodWatcher.execute("create table E (e1 int primary key, e2 varchar(10), e3 int)");
+        methodWatcher.execute("create materialized view E_MVIEW as select e2, sum(e3) as s, count(*) as n from E group by e2");
+        methodWatcher.execute("insert into E values (1, 'x', 1), (2, 'y', 2)");
+
+        methodWatcher.execute("truncate table E");
+
+        Assert.assertEquals(0, countStorageRows("E_MVIEW_MV"));
+        assertGroups("select e2, s, n from E_MVIEW order by e2", new Object[0][]);
+        assertGroups("select e2, sum(e3), count(*) from E group by e2", new Object[0][]);
+        // the view is maintained by the pipeline of the new conglomerate of the table
+        methodWatcher.execute("insert into E values (3, 'x', 3)");
+        assertGroups("select e2, s, n from E_MVIEW order by e2", new Object[][]{{"x", 3L, 1L}});
+    }
+
+    @Test
+    public void testBulkImportMarksViewStale() throws Exception {
+        methodWatcher.execute("create table F (f1 int primary key, f2 varchar(10), f3 int)");
+        methodWatcher.execute("create materialized view F_MVIEW as select f2, sum(f3) as s, count(*) as n from F group by f2");
+        methodWatcher.execute("insert into F values (1, 'x', 1)");
+        String sql = "select f2, sum(f3) from F group by f2";
+        Assert.assertTrue(explainReads(sql, "F_MVIEW_MV"));
+
+        File bulkLoadDirectory = createBulkLoadDirectory(SCHEMA);
+        try {
+            methodWatcher.execute(format("call SYSCS_UTIL.BULK_IMPORT_HFILE('%s','F',null,'%s',null,null,null,null,null,0,null,true,null, '%s', false)",
+                    SCHEMA, getResourceDirectory() + "materialized_view.csv", bulkLoadDirectory.getCanonicalPath()));
+        } catch (SQLException e) {
+            if (Throwables.getRootCause(e).getMessage().contains("bulk load not supported"))
+                return;
+            throw e;
+        } finally {
+            FileUtils.deleteDirectory(bulkLoadDirectory);
+        }
+
+        // the imported rows bypassed the pipeline, the view is computed from the base table
+        Object[][] expected = {{"x", 4L, 2L}, {"y", 5L, 2L}};
+        assertGroups("select f2, s, n from F_MVIEW order by f2", expected);
+        Assert.assertFalse(explainReads(sql, "F_MVIEW_MV"));
+        assertGroups(sql + " order by f2", new Object[][]{{"x", 4L}, {"y", 5L}});
+
+        // folding a stale view rebuilds it from the base table
+        methodWatcher.execute(format("call SYSCS_UTIL.SYSCS_FOLD_MATERIALIZED_VIEW('%s', 'F_MVIEW')", SCHEMA));
+        Assert.assertEquals(2, countStorageRows("F_MVIEW_MV"));
+        assertGroups("select f2, s, n from F_MVIEW order by f2", expected);
+        Assert.assertTrue(explainReads(sql, "F_MVIEW_MV"));
+        methodWatcher.execute("insert into F values (5, 'x', 5)");
+        assertGroups("select f2, s, n from F_MVIEW order by f2", new Object[][]{{"x", 9L, 3L}, {"y", 5L, 2L}});
+    }
+
+    private boolean explainReads(String sql, String table) throws Exception {
+        try (ResultSet rs = methodWatcher.executeQuery("explain " + sql)) {
+            while (rs.next()) {
+                if (rs.getString(1).contains(table))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    private long countStorageRows(String storageTable) throws Exception {
+        try (ResultSet rs = methodWatcher.executeQuery("select count(*) from " + storageTable)) {
+            Assert.assertTrue(rs.next());
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    public void testInvalidMaterializedViews() throws Exception {
+        testFail("0A000", "create materialized view A_AVG as select a2, avg(a3) from A group by a2", methodWatcher);
+        testFail("0A000", "create materialized view A_WHERE as select a2, count(*) from A where a3 > 1 group by a2", methodWatcher);
+        testFail("0A000", "create materialized view A_DISTINCT as select a2, count(distinct a3) from A group by a2", methodWatcher);
+        // can't be maintained when rows are updated or deleted
+        testFail("0A000", "create materialized view A_MIN as select a2, min(a3) from A group by a2", methodWatcher);
+        testFail("0A000", "create materialized view A_MAX as select a2, max(a3) from A group by a2", methodWatcher);
+    }
+
+    private void assertGroups(String sql, Object[][] expected) throws Exception {
+        try (ResultSet rs = methodWatcher.executeQuery(sql)) {
+            for (Object[] row : expected) {
+                Assert.assertTrue(rs.next());
+                for (int i = 0; i < row.length; i++) {
+                    Object actual = rs.getObject(i + 1);
+                    if (row[i] == null) {
+                        Assert.assertNull(actual);
+                    } else {
+                        Assert.assertEquals(row[i].toString(), actual.toString());
+                    }
+                }
+            }
+            Assert.assertFalse(rs.next());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.*;
+import java.util.Iterator;
+
+/**
+ * Trigger rows past the spill threshold of a control execution, kept in a local file.
+ */
+@Category(ArchitectureIndependent.class)
+public class TriggerRowHolderImplTest {
+    private static final int IN_MEMORY_ROWS = 3;
+    private static final int ROWS = 10;
+
+    @Test
+    public void testSpilledRowsAreReadBack() throws Exception {
+        TriggerRowHolderImpl holder = newHolder();
+        insertRows(holder);
+
+        Assert.assertNotNull(holder.getSpillFile());
+        Assert.assertEquals(ROWS - IN_MEMORY_ROWS, holder.getSpillFile().size());
+        Assert.assertEquals(IN_MEMORY_ROWS - 1, holder.getLastArraySlot());
+        assertRows(holder.getCachedRowsIterator());
+        // the rows can be read more than once
+        assertRows(holder.getCachedRowsIterator());
+        holder.close();
+    }
+
+    @Test
+    public void testSpilledRowsAreSerialized() throws Exception {
+        TriggerRowHolderImpl holder = newHolder();
+        insertRows(holder);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            holder.writeExternal(out);
+        }
+        holder.close();
+
+        TriggerRowHolderImpl copy = new TriggerRowHolderImpl();
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy.readExternal(in);
+        }
+        // the copy holds every row in memory
+        Assert.assertNull(copy.getSpillFile());
+        Assert.assertEquals(ROWS - 1, copy.getLastArraySlot());
+        assertRows(copy.getCachedRowsIterator());
+    }
+
+    @Test
+    public void testSpillFileIsDeletedOnClose() throws Exception {
+        TriggerRowHolderImpl holder = newHolder();
+        insertRows(holder);
+        File file = holder.getSpillFile().getFile();
+        Assert.assertTrue(file.exists());
+
+        // leave an iterator before the end of the spilled rows
+        Iterator<ExecRow> rows = holder.getCachedRowsIterator();
+        for (int i = 0; i <= IN_MEMORY_ROWS; i++)
+            rows.next();
+        holder.close();
+
+        Assert.assertFalse(file.exists());
+        Assert.assertNull(holder.getSpillFile());
+        Assert.assertTrue(holder.canBeReused(false, 0));
+    }
+
+    private static TriggerRowHolderImpl newHolder() {
+        return new TriggerRowHolderImpl(null, null, null, Integer.MAX_VALUE, Integer.MAX_VALUE, IN_MEMORY_ROWS,
+                row(0), "3.0", false, null, null, 0, null);
+    }
+
+    private static void insertRows(TriggerRowHolderImpl holder) throws Exception {
+        for (int i = 0; i < ROWS; i++)
+            holder.insert(row(i), null);
+    }
+
+    private static void assertRows(Iterator<ExecRow> rows) throws Exception {
+        for (int i = 0; i < ROWS; i++) {
+            Assert.assertTrue(rows.hasNext());
+            ExecRow row = rows.next();
+            Assert.assertEquals(i, row.getColumn(1).getInt());
+            Assert.assertEquals("row " + i, row.getColumn(2).getString());
+        }
+        Assert.assertFalse(rows.hasNext());
+    }
+
+    private static ExecRow row(int i) {
+        ExecRow row = new ValueRow(2);
+        row.setColumn(1, new SQLInteger(i));
+        row.setColumn(2, new SQLVarchar("row " + i));
+        return row;
+    }
+}
@@ -44,6 +44,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.math.BigDecimal;
+import java.sql.BatchUpdateException;
 import java.sql.Blob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -64,6 +65,7 @@ import static java.lang.String.format;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 
 @RunWith(Parameterized.class)
@@ -288,6 +290,76 @@ public class BatchedOperationsIT {
     }
 
 
+    @Test
+    public void testFailureInBatchedInsertsContinuesUnderAutoCommit() throws Exception {
+        try (TestConnection conn = methodWatcher.connectionBuilder().useOLAP(useSpark).build();
+             Statement statement = conn.createStatement()) {
+            statement.executeUpdate("drop table tbatch if exists");
+            statement.executeUpdate("create table tbatch (col1 int primary key)");
+
+            // The sixth element of the batch violates the primary key, the batch runs under autocommit
+            try (PreparedStatement ps = conn.prepareStatement("insert into tbatch values ?")) {
+                addDuplicateKeyBatch(ps);
+                try {
+                    ps.executeBatch();
+                    fail("Expected a primary key violation");
+                } catch (BatchUpdateException e) {
+                    assertEquals(SQLState.LANG_DUPLICATE_KEY_CONSTRAINT, e.getSQLState());
+                    int[] counts = e.getUpdateCounts();
+                    assertEquals(10, counts.length);
+                    for (int i = 0; i < counts.length; ++i) {
+                        assertEquals(i == 5 ? Statement.EXECUTE_FAILED : 1, counts[i]);
+                    }
+                }
+            }
+
+            try (ResultSet rs = statement.executeQuery("select count(*) from tbatch")) {
+                assertTrue(rs.next());
+                assertEquals(9, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    public void testFailureInSingleStatementBatchReportsUpdateCounts() throws Exception {
+        classWatcher.execute("call SYSCS_UTIL.SYSCS_SET_GLOBAL_DATABASE_PROPERTY('splice.execution.batchElementUpdateCounts', 'true')");
+        try (TestConnection conn = methodWatcher.connectionBuilder().useOLAP(useSpark).singleStatementBatch(true).build();
+             Statement statement = conn.createStatement()) {
+            statement.executeUpdate("drop table tbatch if exists");
+            statement.executeUpdate("create table tbatch (col1 int primary key)");
+
+            // The batch is executed as a single statement and stops at the failing element
+            try (PreparedStatement ps = conn.prepareStatement("insert into tbatch values ?")) {
+                addDuplicateKeyBatch(ps);
+                try {
+                    ps.executeBatch();
+                    fail("Expected a primary key violation");
+                } catch (BatchUpdateException e) {
+                    assertEquals(SQLState.LANG_DUPLICATE_KEY_CONSTRAINT, e.getSQLState());
+                    int[] counts = e.getUpdateCounts();
+                    assertTrue(counts.length >= 5);
+                    for (int i = 0; i < counts.length; ++i) {
+                        assertEquals(i < 5 ? 1 : Statement.EXECUTE_FAILED, counts[i]);
+                    }
+                }
+            }
+
+            try (ResultSet rs = statement.executeQuery("select count(*) from tbatch")) {
+                assertTrue(rs.next());
+                assertEquals(5, rs.getInt(1));
+            }
+        } finally {
+            classWatcher.execute("call SYSCS_UTIL.SYSCS_SET_GLOBAL_DATABASE_PROPERTY('splice.execution.batchElementUpdateCounts', null)");
+        }
+    }
+
+    private static void addDuplicateKeyBatch(PreparedStatement ps) throws Exception {
+        for (int i = 0; i < 10; ++i) {
+            ps.setInt(1, i == 5 ? 0 : i);
+            ps.addBatch();
+        }
+    }
+
     @Test
     public void testBatchedUpdates() throws Exception {
         try (TestConnection conn = methodWatcher.connectionBuilder().useOLAP(true).build();
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceUnitTest;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.derby.test.framework.TestConnection;
+import com.splicemachine.test_tools.TableCreator;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import splice.com.google.common.collect.Lists;
+
+import java.sql.ResultSet;
+import java.util.*;
+
+import static com.splicemachine.test_tools.Rows.row;
+
+/**
+ * Grouped aggregates over a source ordered on the grouping columns (an index scan), with and without joins
+ * above the scan, which don't keep the order of their left side.
+ */
+@RunWith(Parameterized.class)
+public class OrderedGroupedAggregateIT extends SpliceUnitTest {
+    private static final String SCHEMA = OrderedGroupedAggregateIT.class.getSimpleName().toUpperCase();
+    private static final int ROWS = 60;
+    private static final int GROUPS = 5;
+    private static SpliceWatcher spliceClassWatcher = new SpliceWatcher(SCHEMA);
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        Collection<Object[]> params = Lists.newArrayListWithCapacity(2);
+        params.add(new Object[]{"false"});
+        params.add(new Object[]{"true"});
+        return params;
+    }
+
+    private String useSparkString;
+
+    public OrderedGroupedAggregateIT(String useSparkString) {
+        this.useSparkString = useSparkString;
+    }
+
+    @ClassRule
+    public static SpliceSchemaWatcher spliceSchemaWatcher = new SpliceSchemaWatcher(SCHEMA);
+
+    @Rule
+    public SpliceWatcher methodWatcher = new SpliceWatcher(SCHEMA);
+
+    @BeforeClass
+    public static void createSharedTables() throws Exception {
+        TestConnection connection = spliceClassWatcher.getOrCreateConnection();
+        List<Iterable<Object>> tRows = new ArrayList<>();
+        List<Iterable<Object>> uRows = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            // scatter the groups over the base table
+            tRows.add(row(i, i % GROUPS, i));
+            uRows.add(row(ROWS + 1 - i));
+        }
+        new TableCreator(connection)
+                .withCreate("create table t (a int primary key, b int, c int)")
+                .withIndex("create index t_idx on t (b)")
+                .withInsert("insert into t values(?,?,?)")
+                .withRows(tRows)
+                .create();
+        new TableCreator(connection)
+                .withCreate("create table u (a int primary key)")
+                .withInsert("insert into u values(?)")
+                .withRows(uRows)
+                .create();
+    }
+
+    @Test
+    public void testGroupOnIndexColumn() throws Exception {
+        String sql = format("select b, count(*), sum(c) from t --splice-properties index=T_IDX, useSpark=%s\n" +
+                "group by b", useSparkString);
+        assertGroups(sql, GROUPS);
+    }
+
+    @Test
+    public void testGroupOnIndexColumnWithLimit() throws Exception {
+        String sql = format("select b, count(*), sum(c) from t --splice-properties index=T_IDX, useSpark=%s\n" +
+                "group by b {limit 2}", useSparkString);
+        assertGroups(sql, 2);
+    }
+
+    @Test
+    public void testGroupOnIndexColumnAboveSortMergeJoin() throws Exception {
+        String sql = format("select t.b, count(*), sum(t.c) from t --splice-properties index=T_IDX, useSpark=%s\n" +
+                ", u --splice-properties joinStrategy=SORTMERGE\n" +
+                "where t.a = u.a group by t.b", useSparkString);
+        assertGroups(sql, GROUPS);
+    }
+
+    @Test
+    public void testGroupOnIndexColumnAboveSortMergeJoinWithLimit() throws Exception {
+        String sql = format("select t.b, count(*), sum(t.c) from t --splice-properties index=T_IDX, useSpark=%s\n" +
+                ", u --splice-properties joinStrategy=SORTMERGE\n" +
+                "where t.a = u.a group by t.b {limit 2}", useSparkString);
+        assertGroups(sql, 2);
+    }
+
+    @Test
+    public void testGroupOnIndexColumnAboveBroadcastJoin() throws Exception {
+        String sql = format("select t.b, count(*), sum(t.c) from t --splice-properties index=T_IDX, useSpark=%s\n" +
+                ", u --splice-properties joinStrategy=BROADCAST\n" +
+                "where t.a = u.a group by t.b", useSparkString);
+        assertGroups(sql, GROUPS);
+    }
+
+    /**
+     * Every group must be returned once, with the aggregates of all its rows.
+     */
+    private void assertGroups(String sql, int expectedGroups) throws Exception {
+        Set<Integer> seen = new HashSet<>();
+        try (ResultSet rs = methodWatcher.executeQuery(sql)) {
+            while (rs.next()) {
+                int b = rs.getInt(1);
+                Assert.assertTrue(sql + ": group " + b + " returned twice", seen.add(b));
+                long count = 0;
+                long sum = 0;
+                for (int i = 1; i <= ROWS; i++) {
+                    if (i % GROUPS == b) {
+                        count++;
+                        sum += i;
+                    }
+                }
+                Assert.assertEquals(sql + ": count of group " + b, count, rs.getLong(2));
+                Assert.assertEquals(sql + ": sum of group " + b, sum, rs.getLong(3));
+            }
+        }
+        Assert.assertEquals(sql, expectedGroups, seen.size());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceUnitTest;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.derby.test.framework.TestConnection;
+import com.splicemachine.test_tools.TableCreator;
+import org.junit.*;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static com.splicemachine.test_tools.Rows.row;
+import static com.splicemachine.test_tools.Rows.rows;
+
+/**
+ * Tests for the resultCache query hint, which keeps the results of a query in memory until a commit to one of the
+ * tables it reads.
+ */
+public class ResultCacheIT extends SpliceUnitTest {
+
+    private static final String SCHEMA = ResultCacheIT.class.getSimpleName().toUpperCase();
+    private static final SpliceWatcher classWatcher = new SpliceWatcher(SCHEMA);
+    private static final SpliceSchemaWatcher schemaWatcher = new SpliceSchemaWatcher(SCHEMA);
+
+    @ClassRule
+    public static TestRule chain = RuleChain.outerRule(classWatcher).around(schemaWatcher);
+
+    @Rule
+    public SpliceWatcher methodWatcher = new SpliceWatcher(SCHEMA);
+
+    @BeforeClass
+    public static void createTables() throws Exception {
+        TestConnection conn = classWatcher.getOrCreateConnection();
+        new TableCreator(conn)
+                .withCreate("create table T (a int, b int)")
+                .withInsert("insert into T values(?, ?)")
+                .withRows(rows(row(1, 1), row(2, 2), row(3, 3)))
+                .create();
+        new TableCreator(conn)
+                .withCreate("create table U (c int)")
+                .withInsert("insert into U values(?)")
+                .withRows(rows(row(1), row(2)))
+                .create();
+    }
+
+    @Test
+    public void testCachedResultsServedUntilCommit() throws Exception {
+        String sql = "select count(*), sum(b) from T --splice-properties resultCache=true\n";
+        long hits = cacheHits();
+        assertResult(sql, 3, 6);
+        assertResult(sql, 3, 6);
+        Assert.assertTrue("Expected a result cache hit", cacheHits() > hits);
+
+        // a write to another table doesn't invalidate the result
+        methodWatcher.execute("insert into U values (3)");
+        hits = cacheHits();
+        assertResult(sql, 3, 6);
+        Assert.assertTrue("Expected a result cache hit", cacheHits() > hits);
+
+        methodWatcher.execute("insert into T values (4, 4)");
+        assertResult(sql, 4, 10);
+        methodWatcher.execute("delete from T where a = 4");
+        assertResult(sql, 3, 6);
+    }
+
+    @Test
+    public void testParametersAreCacheKeys() throws Exception {
+        try (PreparedStatement ps = methodWatcher.prepareStatement(
+                "select count(*) from T --splice-properties resultCache=true\n where a >= ?")) {
+            for (int i = 0; i < 2; i++) {
+                ps.setInt(1, 2);
+                try (ResultSet rs = ps.executeQuery()) {
+                    Assert.assertTrue(rs.next());
+                    Assert.assertEquals(2, rs.getInt(1));
+                }
+                ps.setInt(1, 3);
+                try (ResultSet rs = ps.executeQuery()) {
+                    Assert.assertTrue(rs.next());
+                    Assert.assertEquals(1, rs.getInt(1));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUncommittedWritesAreNotCached() throws Exception {
+        String sql = "select count(*) from U --splice-properties resultCache=true\n";
+        TestConnection conn = methodWatcher.getOrCreateConnection();
+        long before = count(sql);
+        conn.setAutoCommit(false);
+        try {
+            conn.createStatement().execute("insert into U values (10)");
+            Assert.assertEquals(before + 1, count(sql));
+            conn.rollback();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        Assert.assertEquals(before, count(sql));
+    }
+
+    private long count(String sql) throws Exception {
+        try (ResultSet rs = methodWatcher.executeQuery(sql)) {
+            Assert.assertTrue(rs.next());
+            return rs.getLong(1);
+        }
+    }
+
+    private void assertResult(String sql, int count, int sum) throws Exception {
+        try (ResultSet rs = methodWatcher.executeQuery(sql)) {
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(count, rs.getInt(1));
+            Assert.assertEquals(sum, rs.getInt(2));
+            Assert.assertFalse(rs.next());
+        }
+    }
+
+    private long cacheHits() throws Exception {
+        long hits = 0;
+        try (ResultSet rs = methodWatcher.executeQuery("call SYSCS_UTIL.SYSCS_GET_CACHE_INFO()")) {
+            while (rs.next()) {
+                if ("resultCache".equals(rs.getString(2)))
+                    hits += rs.getLong(6);
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.groupedaggregate;
+
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.iapi.types.UserType;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
+import com.splicemachine.db.impl.sql.execute.MaxMinAggregator;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.stubbing.OngoingStubbing;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class RegionAggregationTest {
+
+    private static final String[] STATUS = {"open", "closed", "open", "open", "closed"};
+    private static final int[] AMOUNT = {3, 7, 12, 5, 1};
+
+    private static ExecAggregator[] countStarAndMax() {
+        return new ExecAggregator[]{
+                new CountAggregator().setup(null, "COUNT(*)", null),
+                new MaxMinAggregator().setup(null, "MAX", null)};
+    }
+
+    /**
+     * A scanner returning (status, amount) rows, reusing its row like {@link SITableScanner} does.
+     */
+    private static SITableScanner scanner() throws Exception {
+        SITableScanner scanner = mock(SITableScanner.class);
+        ExecRow row = new ValueRow(2);
+        OngoingStubbing<ExecRow> next = when(scanner.next());
+        for (int i = 0; i < STATUS.length; i++) {
+            int r = i;
+            next = next.thenAnswer(invocation -> {
+                row.setColumn(1, new SQLVarchar(STATUS[r]));
+                row.setColumn(2, new SQLInteger(AMOUNT[r]));
+                return row;
+            });
+        }
+        next.thenReturn(null);
+        return scanner;
+    }
+
+    @Test
+    public void testPartialAggregatesPerGroup() throws Exception {
+        RegionAggregation aggregation = new RegionAggregation(null, new int[]{1}, new int[]{1, 2}, countStarAndMax(), 10);
+        List<ExecRow> rows = RegionAggregation.readRows(RegionAggregation.writeRows(aggregation.aggregate(scanner())));
+
+        assertEquals(2, rows.size());
+        Map<String, ExecRow> groups = new HashMap<>();
+        for (ExecRow row : rows) {
+            groups.put(row.getColumn(1).getString(), row);
+        }
+        ExecRow open = groups.get("open");
+        assertEquals(3, ((ExecAggregator) open.getColumn(2).getObject()).getResult().getInt());
+        assertEquals(12, ((ExecAggregator) open.getColumn(3).getObject()).getResult().getInt());
+        ExecRow closed = groups.get("closed");
+        assertEquals(2, ((ExecAggregator) closed.getColumn(2).getObject()).getResult().getInt());
+        assertEquals(7, ((ExecAggregator) closed.getColumn(3).getObject()).getResult().getInt());
+    }
+
+    @Test
+    public void testTooManyGroups() throws Exception {
+        RegionAggregation aggregation = new RegionAggregation(null, new int[]{1}, new int[]{1, 2}, countStarAndMax(), 1);
+        assertNull(aggregation.aggregate(scanner()));
+    }
+
+    @Test
+    public void testSourceRowLayout() throws Exception {
+        RegionAggregation aggregation = new RegionAggregation(null, new int[]{1}, new int[]{1, 2}, countStarAndMax(), 10);
+        ExecRow partial = aggregation.aggregate(scanner()).get(0);
+
+        // source rows of (count result, count input, count aggregator, status, max result, max input, max aggregator)
+        ExecRow template = new ValueRow(7);
+        template.setRowArray(new DataValueDescriptor[]{
+                new SQLInteger(), new SQLInteger(), new UserType(), new SQLVarchar(),
+                new SQLInteger(), new SQLInteger(), new UserType()});
+        SpliceGenericAggregator[] sourceAggregates = {
+                new SpliceGenericAggregator(null, 3, 2, 1),
+                new SpliceGenericAggregator(null, 7, 6, 5)};
+        ExecRow row = RegionAggregation.toSourceRow(partial, template, new int[]{3}, sourceAggregates);
+
+        assertEquals(partial.getColumn(1), row.getColumn(4));
+        assertEquals(partial.getColumn(2).getObject(), row.getColumn(3).getObject());
+        assertEquals(partial.getColumn(3).getObject(), row.getColumn(7).getObject());
+        assertNull(row.getColumn(1).getObject());
+    }
+}
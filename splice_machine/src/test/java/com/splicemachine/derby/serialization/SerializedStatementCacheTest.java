@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.serialization;
+
+import com.splicemachine.db.iapi.services.loader.GeneratedClass;
+import com.splicemachine.db.impl.sql.GenericStorablePreparedStatement;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.*;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+
+@Category(ArchitectureIndependent.class)
+public class SerializedStatementCacheTest {
+
+    @Before
+    public void setUp() {
+        SerializedStatementCache.invalidateAll();
+    }
+
+    @Test
+    public void testFingerprintIsContentAddressed() throws Exception {
+        SerializedStatementCache.Fingerprint a = SerializedStatementCache.Fingerprint.of(new byte[]{1, 2, 3});
+        SerializedStatementCache.Fingerprint b = SerializedStatementCache.Fingerprint.of(new byte[]{1, 2, 3});
+        SerializedStatementCache.Fingerprint c = SerializedStatementCache.Fingerprint.of(new byte[]{1, 2, 4});
+
+        Assert.assertEquals(a, b);
+        Assert.assertEquals(a.hashCode(), b.hashCode());
+        Assert.assertNotEquals(a, c);
+    }
+
+    @Test
+    public void testFingerprintRoundTrip() throws Exception {
+        SerializedStatementCache.Fingerprint fingerprint = SerializedStatementCache.Fingerprint.of("select 1".getBytes());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(fingerprint);
+            fingerprint.write(oos);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            Assert.assertEquals(fingerprint, ois.readObject());
+            Assert.assertEquals(fingerprint, SerializedStatementCache.Fingerprint.read(ois));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownReferenceFails() throws Exception {
+        SerializedStatementCache.resolveReference(SerializedStatementCache.Fingerprint.of(new byte[]{42}));
+    }
+
+    @Test
+    public void testOutOfBandScope() throws Exception {
+        SerializedStatementCache.Fingerprint fingerprint = SerializedStatementCache.Fingerprint.of(new byte[]{7});
+
+        Assert.assertFalse(SerializedStatementCache.isShippedOutOfBand(fingerprint));
+        boolean inScope = SerializedStatementCache.writeOutOfBand(fingerprint,
+                () -> SerializedStatementCache.isShippedOutOfBand(fingerprint));
+        Assert.assertTrue(inScope);
+        Assert.assertFalse(SerializedStatementCache.isShippedOutOfBand(fingerprint));
+    }
+
+    @Test
+    public void testResolveMissThenHit() throws Exception {
+        SerializedStatementCache.SerializedStatement ss = SerializedStatementCache.serialize(new TestStatement("select 1"));
+        long hits = SerializedStatementCache.getHitCount();
+        long misses = SerializedStatementCache.getMissCount();
+
+        GenericStorablePreparedStatement first = SerializedStatementCache.resolve(ss.getFingerprint(), ss.getBytes());
+        Assert.assertEquals(misses + 1, SerializedStatementCache.getMissCount());
+        Assert.assertEquals(hits, SerializedStatementCache.getHitCount());
+        Assert.assertEquals("select 1", ((TestStatement) first).text);
+
+        GenericStorablePreparedStatement second = SerializedStatementCache.resolve(ss.getFingerprint(), ss.getBytes());
+        Assert.assertSame(first, second);
+        Assert.assertEquals(misses + 1, SerializedStatementCache.getMissCount());
+        Assert.assertEquals(hits + 1, SerializedStatementCache.getHitCount());
+        Assert.assertSame(first, SerializedStatementCache.resolveReference(ss.getFingerprint()));
+    }
+
+    @Test
+    public void testResolvedStatementKeepsItsSerializedForm() throws Exception {
+        SerializedStatementCache.SerializedStatement ss = SerializedStatementCache.serialize(new TestStatement("select 2"));
+        GenericStorablePreparedStatement resolved = SerializedStatementCache.resolve(ss.getFingerprint(), ss.getBytes());
+
+        SerializedStatementCache.SerializedStatement again = SerializedStatementCache.serialize(resolved);
+        Assert.assertSame(ss.getBytes(), again.getBytes());
+        Assert.assertSame(ss.getFingerprint(), again.getFingerprint());
+    }
+
+    @Test
+    public void testSenderKeepsSerializedFormPerActivationClass() throws Exception {
+        TestStatement statement = new TestStatement("select 6");
+        statement.loadedClass = mock(GeneratedClass.class);
+        SerializedStatementCache.SerializedStatement first = SerializedStatementCache.serialize(statement);
+        Assert.assertSame(first.getBytes(), SerializedStatementCache.serialize(statement).getBytes());
+
+        // recompiled into a new activation class
+        statement.text = "select 7";
+        statement.loadedClass = mock(GeneratedClass.class);
+        SerializedStatementCache.SerializedStatement recompiled = SerializedStatementCache.serialize(statement);
+        Assert.assertNotEquals(first.getFingerprint(), recompiled.getFingerprint());
+        Assert.assertSame(recompiled.getBytes(), SerializedStatementCache.serialize(statement).getBytes());
+
+        // nothing to key the serialized form on
+        TestStatement notLoaded = new TestStatement("select 8");
+        Assert.assertNotSame(SerializedStatementCache.serialize(notLoaded).getBytes(),
+                SerializedStatementCache.serialize(notLoaded).getBytes());
+    }
+
+    @Test(expected = SerializedStatementCache.StatementNotCachedException.class)
+    public void testUnknownReferenceIsNotCached() throws Exception {
+        SerializedStatementCache.resolveReference(SerializedStatementCache.Fingerprint.of(new byte[]{43}));
+    }
+
+    @Test
+    public void testInstructionsKeepReceivedStatement() throws Exception {
+        SpliceObserverInstructions soi = new SpliceObserverInstructions(new TestStatement("select 3"), null, "user", null, null);
+        SerializedStatementCache.SerializedStatement sent = soi.getSerializedStatement();
+
+        SpliceObserverInstructions received = (SpliceObserverInstructions) roundTrip(soi);
+        Assert.assertEquals("select 3", ((TestStatement) received.getStatement()).text);
+        Assert.assertEquals(sent.getFingerprint(), received.getSerializedStatement().getFingerprint());
+        Assert.assertArrayEquals(sent.getBytes(), received.getSerializedStatement().getBytes());
+
+        // shipped further (e.g. broadcast to the executors) with the bytes it was received with
+        SpliceObserverInstructions forwarded = (SpliceObserverInstructions) roundTrip(received);
+        Assert.assertSame(received.getStatement(), forwarded.getStatement());
+    }
+
+    @Test
+    public void testBroadcastInstructionsByReference() throws Exception {
+        TestStatement statement = new TestStatement("select 4");
+        SpliceObserverInstructions soi = new SpliceObserverInstructions(statement, null, "user", null, null);
+        SerializedStatementCache.Fingerprint fingerprint = soi.getSerializedStatement().getFingerprint();
+
+        byte[] byValue = write(soi);
+        byte[] byReference = SerializedStatementCache.writeOutOfBand(fingerprint, () -> write(soi));
+        Assert.assertTrue(byReference.length < byValue.length);
+
+        SpliceObserverInstructions received = SerializedStatementCache.readOutOfBand(fingerprint, statement,
+                () -> (SpliceObserverInstructions) read(byReference));
+        Assert.assertSame(statement, received.getStatement());
+    }
+
+    @Test
+    public void testWriteWithReferencesRecordsStatementsWrittenByValue() throws Exception {
+        SpliceObserverInstructions soi = new SpliceObserverInstructions(new TestStatement("select 5"), null, "user", null, null);
+        SerializedStatementCache.Fingerprint fingerprint = soi.getSerializedStatement().getFingerprint();
+
+        Set<SerializedStatementCache.Fingerprint> writtenByValue = new HashSet<>();
+        SerializedStatementCache.writeWithReferences(fp -> false, writtenByValue, () -> write(soi));
+        Assert.assertTrue(writtenByValue.contains(fingerprint));
+
+        writtenByValue.clear();
+        byte[] byReference = SerializedStatementCache.writeWithReferences(fingerprint::equals, writtenByValue, () -> write(soi));
+        Assert.assertTrue(writtenByValue.isEmpty());
+        try {
+            read(byReference);
+            Assert.fail("The statement was never resolved on this side");
+        } catch (SerializedStatementCache.StatementNotCachedException expected) {
+        }
+    }
+
+    private static Object roundTrip(Object o) throws Exception {
+        return read(write(o));
+    }
+
+    private static byte[] write(Object o) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(o);
+        }
+        return baos.toByteArray();
+    }
+
+    private static Object read(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ois.readObject();
+        }
+    }
+
+    public static class TestStatement extends GenericStorablePreparedStatement {
+        private String text;
+        private transient GeneratedClass loadedClass;
+
+        public TestStatement() {
+        }
+
+        TestStatement(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public GeneratedClass getLoadedActivationClass() {
+            return loadedClass;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeUTF(text);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            text = in.readUTF();
+        }
+    }
+}
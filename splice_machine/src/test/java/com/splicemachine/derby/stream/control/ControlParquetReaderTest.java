@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.db.iapi.types.*;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.spark.sql.types.DataTypes;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+
+@Category(ArchitectureIndependent.class)
+public class ControlParquetReaderTest {
+
+    @Test
+    public void testNumericColumnsArePruned() throws Exception {
+        Assert.assertEquals(FilterApi.eq(FilterApi.intColumn("c"), 5),
+                ControlParquetReader.statisticsPredicate("c", PrimitiveTypeName.INT32, DataTypes.IntegerType,
+                        DataValueDescriptor.ORDER_OP_EQUALS, new SQLInteger(5)));
+        Assert.assertEquals(FilterApi.lt(FilterApi.longColumn("c"), 5L),
+                ControlParquetReader.statisticsPredicate("c", PrimitiveTypeName.INT64, DataTypes.LongType,
+                        DataValueDescriptor.ORDER_OP_LESSTHAN, new SQLLongint(5)));
+        Assert.assertEquals(FilterApi.gtEq(FilterApi.doubleColumn("c"), 1.5),
+                ControlParquetReader.statisticsPredicate("c", PrimitiveTypeName.DOUBLE, DataTypes.DoubleType,
+                        DataValueDescriptor.ORDER_OP_GREATEROREQUALS, new SQLDouble(1.5)));
+    }
+
+    @Test
+    public void testDecimalColumnsAreNotPruned() throws Exception {
+        // a DECIMAL(9,2) is stored in an INT32 as its unscaled value, 1234 for 12.34
+        Assert.assertNull(ControlParquetReader.statisticsPredicate("c", PrimitiveTypeName.INT32,
+                DataTypes.createDecimalType(9, 2), DataValueDescriptor.ORDER_OP_EQUALS,
+                new SQLDecimal(new BigDecimal("12.34"))));
+        Assert.assertNull(ControlParquetReader.statisticsPredicate("c", PrimitiveTypeName.INT64,
+                DataTypes.createDecimalType(18, 2), DataValueDescriptor.ORDER_OP_EQUALS,
+                new SQLDecimal(new BigDecimal("12.34"))));
+    }
+
+    @Test
+    public void testDateAndTimestampColumnsAreNotPruned() throws Exception {
+        // a DATE is stored in an INT32 as days since the epoch
+        Assert.assertNull(ControlParquetReader.statisticsPredicate("c", PrimitiveTypeName.INT32,
+                DataTypes.DateType, DataValueDescriptor.ORDER_OP_EQUALS,
+                new SQLDate(Date.valueOf("2020-01-01"))));
+        Assert.assertNull(ControlParquetReader.statisticsPredicate("c", PrimitiveTypeName.INT64,
+                DataTypes.TimestampType, DataValueDescriptor.ORDER_OP_EQUALS,
+                new SQLTimestamp(Timestamp.valueOf("2020-01-01 00:00:00"))));
+    }
+}
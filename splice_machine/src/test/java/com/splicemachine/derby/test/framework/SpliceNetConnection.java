@@ -147,6 +147,8 @@ public class SpliceNetConnection {
         private String jdbcDb2Compatible;
         private String snapshot;
         private String autoCommit;
+        private String queryPrefetch;
+        private String singleStatementBatch;
 
         @Override
         public ConnectionBuilder clone() throws CloneNotSupportedException {
@@ -219,6 +221,16 @@ public class SpliceNetConnection {
             return this;
         }
 
+        public ConnectionBuilder queryPrefetch(boolean queryPrefetch) {
+            this.queryPrefetch = Boolean.toString(queryPrefetch);
+            return this;
+        }
+
+        public ConnectionBuilder singleStatementBatch(boolean singleStatementBatch) {
+            this.singleStatementBatch = Boolean.toString(singleStatementBatch);
+            return this;
+        }
+
         public Connection build() throws SQLException {
             Properties info = new Properties();
             info.put("user", (user != null ? user : jdbcUser).toUpperCase());
@@ -246,6 +258,10 @@ public class SpliceNetConnection {
             if (autoCommit != null) {
                 info.put("autoCommit", autoCommit);
             }
+            if (queryPrefetch != null)
+                info.put("queryPrefetch", queryPrefetch);
+            if (singleStatementBatch != null)
+                info.put("singleStatementBatch", singleStatementBatch);
             StringBuilder url = new StringBuilder();
             if (host != null || port != null) {
                 url.append(URL_PREFIX);
@@ -144,6 +144,11 @@ public class SpliceWatcher extends TestWatcher implements AutoCloseable {
             delegate.autoCommit(autoCommit);
             return this;
         }
+
+        public ConnectionBuilder singleStatementBatch(boolean singleStatementBatch) {
+            delegate.singleStatementBatch(singleStatementBatch);
+            return this;
+        }
         /**
          * Always creates a new connection, replacing this class's reference to the current connection, if any.
          */
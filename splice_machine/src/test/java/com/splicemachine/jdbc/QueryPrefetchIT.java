@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.jdbc;
+
+import com.splicemachine.derby.test.framework.SpliceNetConnection;
+import com.splicemachine.derby.test.framework.SpliceSchemaWatcher;
+import com.splicemachine.derby.test.framework.SpliceUnitTest;
+import com.splicemachine.derby.test.framework.SpliceWatcher;
+import com.splicemachine.test_tools.TableCreator;
+import org.junit.*;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.splicemachine.test_tools.Rows.row;
+
+/**
+ * Result sets of the network client reading their query blocks ahead of time (the queryPrefetch connection
+ * attribute), while the connection is used for other requests. The reply to a prefetched CNTQRY must be read
+ * before the reply to any later request, and must not lose or repeat rows.
+ */
+public class QueryPrefetchIT extends SpliceUnitTest {
+    private static final String SCHEMA = QueryPrefetchIT.class.getSimpleName().toUpperCase();
+    private static final int DOUBLINGS = 11;
+    // enough rows of about 100 bytes for many query blocks
+    private static final int ROWS = 10 << DOUBLINGS;
+    private static final String FILLER = String.format("%0100d", 0);
+
+    private static final SpliceWatcher spliceClassWatcher = new SpliceWatcher(SCHEMA);
+    private static final SpliceSchemaWatcher spliceSchemaWatcher = new SpliceSchemaWatcher(SCHEMA);
+
+    @ClassRule
+    public static TestRule chain = RuleChain.outerRule(spliceClassWatcher).around(spliceSchemaWatcher);
+
+    @BeforeClass
+    public static void createData() throws Exception {
+        List<Iterable<Object>> rows = new ArrayList<>();
+        for (int a = 1; a <= 10; a++)
+            rows.add(row(a, FILLER));
+        new TableCreator(spliceClassWatcher.getOrCreateConnection())
+                .withCreate("create table t (a int primary key, b varchar(200))")
+                .withInsert("insert into t values(?,?)")
+                .withRows(rows)
+                .create();
+        int factor = 10;
+        for (int i = 0; i < DOUBLINGS; i++) {
+            spliceClassWatcher.executeUpdate(format("insert into t select a + %d, b from t", factor));
+            factor = factor * 2;
+        }
+    }
+
+    private Connection conn;
+
+    @Before
+    public void setUp() throws Exception {
+        conn = SpliceNetConnection.newBuilder().schema(SCHEMA).queryPrefetch(true).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (!conn.getAutoCommit())
+            conn.rollback();
+        conn.close();
+    }
+
+    private static final String SCAN = "select a, b from t --splice-properties useSpark=false\n order by a";
+
+    @Test
+    public void testReadAllRows() throws Exception {
+        try (Statement s = conn.createStatement(); ResultSet rs = s.executeQuery(SCAN)) {
+            assertRows(rs, 1, ROWS);
+            Assert.assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testOtherStatementWhilePrefetching() throws Exception {
+        try (Statement s = conn.createStatement(); ResultSet rs = s.executeQuery(SCAN)) {
+            for (int i = 1; i <= 4; i++) {
+                // past the first query block, the next one is being prefetched
+                assertRows(rs, (i - 1) * ROWS / 8 + 1, i * ROWS / 8);
+                try (Statement other = conn.createStatement();
+                     ResultSet count = other.executeQuery("select count(*) from t")) {
+                    Assert.assertTrue(count.next());
+                    Assert.assertEquals(ROWS, count.getInt(1));
+                }
+                try (PreparedStatement other = conn.prepareStatement("select b from t where a = ?")) {
+                    other.setInt(1, i);
+                    try (ResultSet row = other.executeQuery()) {
+                        Assert.assertTrue(row.next());
+                        Assert.assertEquals(FILLER, row.getString(1));
+                    }
+                }
+            }
+            assertRows(rs, ROWS / 2 + 1, ROWS);
+            Assert.assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testCloseWhilePrefetching() throws Exception {
+        try (Statement s = conn.createStatement()) {
+            ResultSet rs = s.executeQuery(SCAN);
+            assertRows(rs, 1, ROWS / 4);
+            rs.close();
+            // the statement and the connection can still be used
+            try (ResultSet again = s.executeQuery(SCAN)) {
+                assertRows(again, 1, ROWS);
+                Assert.assertFalse(again.next());
+            }
+        }
+        assertCount();
+    }
+
+    @Test
+    public void testCommitWhilePrefetching() throws Exception {
+        conn.setAutoCommit(false);
+        conn.setHoldability(ResultSet.HOLD_CURSORS_OVER_COMMIT);
+        try (Statement s = conn.createStatement(); ResultSet rs = s.executeQuery(SCAN)) {
+            assertRows(rs, 1, ROWS / 4);
+            conn.commit();
+            // a holdable cursor is still open after the commit
+            assertRows(rs, ROWS / 4 + 1, ROWS);
+            Assert.assertFalse(rs.next());
+        }
+        assertCount();
+    }
+
+    @Test
+    public void testRollbackWhilePrefetching() throws Exception {
+        conn.setAutoCommit(false);
+        try (Statement s = conn.createStatement(); ResultSet rs = s.executeQuery(SCAN)) {
+            assertRows(rs, 1, ROWS / 4);
+            conn.rollback();
+            // the rollback closes the cursor
+            try {
+                while (rs.next()) {
+                }
+                Assert.fail("Expected the result set to be closed");
+            } catch (SQLException e) {
+                Assert.assertEquals("XCL16", e.getSQLState());
+            }
+        }
+        assertCount();
+    }
+
+    @Test
+    public void testErrorInPrefetchedBlock() throws Exception {
+        int failingRow = ROWS / 2;
+        String sql = format("select a, 1 / (a - %d) from t --splice-properties useSpark=false\n order by a", failingRow);
+        try (Statement s = conn.createStatement(); ResultSet rs = s.executeQuery(sql)) {
+            int read = 0;
+            try {
+                while (rs.next()) {
+                    Assert.assertEquals(++read, rs.getInt(1));
+                }
+                Assert.fail("Expected a division by zero");
+            } catch (SQLException e) {
+                Assert.assertEquals("22012", e.getSQLState());
+            }
+            // the rows before the failing one are returned, none after it
+            Assert.assertTrue("read " + read + " rows", read > 0 && read < failingRow);
+        }
+        assertCount();
+    }
+
+    @Test
+    public void testFetchAfterLastBlock() throws Exception {
+        try (Statement s = conn.createStatement()) {
+            // a single query block
+            try (ResultSet rs = s.executeQuery("select a, b from t --splice-properties useSpark=false\n where a <= 10 order by a")) {
+                assertRows(rs, 1, 10);
+                Assert.assertFalse(rs.next());
+                Assert.assertFalse(rs.next());
+            }
+            try (ResultSet rs = s.executeQuery(SCAN)) {
+                assertRows(rs, 1, ROWS);
+                Assert.assertFalse(rs.next());
+                Assert.assertFalse(rs.next());
+            }
+        }
+        assertCount();
+    }
+
+    private static void assertRows(ResultSet rs, int first, int last) throws SQLException {
+        for (int a = first; a <= last; a++) {
+            Assert.assertTrue("missing row " + a, rs.next());
+            Assert.assertEquals(a, rs.getInt(1));
+            Assert.assertEquals(FILLER, rs.getString(2));
+        }
+    }
+
+    /**
+     * The connection must still answer requests in order.
+     */
+    private void assertCount() throws SQLException {
+        try (Statement s = conn.createStatement(); ResultSet rs = s.executeQuery("select count(*) from t")) {
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(ROWS, rs.getInt(1));
+        }
+    }
+}
@@ -24,25 +24,34 @@ import com.splicemachine.si.impl.rollforward.RollForwardStatus;
 import com.splicemachine.storage.Partition;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.TrafficControl;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.log4j.Logger;
 import splice.com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.*;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Read-Resolver which asynchronously submits regions for execution, discarding
  * any entries which exceed the size of the processing queue.
  * <p/>
  * This implementation uses an LMAX disruptor to asynchronously pass Read-resolve events
- * to a background thread, which in turn uses a SynchronousReadResolver to actually perform the resolution.
+ * to a background thread. The background thread drains the available events in batches of up to
+ * {@code maxBatchSize} events, groups them by region and transaction, and hands each group to the
+ * KeyedReadResolver, so that each transaction is looked up once and its rows are resolved in
+ * a single bulk write. Rows which are submitted more than once within a batch are only resolved once,
+ * and the groups with the most submissions (i.e. the hottest rows) are resolved first.
+ * <p/>
+ * The number of queued, dropped, coalesced and resolved rows, as well as the lag between submission
+ * and resolution, are exposed through {@link ReadResolverManagement}.
  *
  * @author Scott Fines
  *         Date: 7/1/14
  */
 @ThreadSafe
-public class AsyncReadResolver{
+public class AsyncReadResolver implements ReadResolverManagement{
     private static final Logger LOG=Logger.getLogger(AsyncReadResolver.class);
     private final RingBuffer<ResolveEvent> ringBuffer;
     private final Disruptor<ResolveEvent> disruptor;
@@ -53,8 +62,17 @@ public class AsyncReadResolver{
     private final RollForwardStatus status;
     private final TrafficControl trafficControl;
     private final KeyedReadResolver synchronousResolver;
+    private final int maxBatchSize;
+
+    private final AtomicLong queued=new AtomicLong(0l);
+    private final AtomicLong dropped=new AtomicLong(0l);
+    private final AtomicLong applied=new AtomicLong(0l);
+    private final AtomicLong coalesced=new AtomicLong(0l);
+    private final AtomicLong processed=new AtomicLong(0l);
+    private final AtomicLong totalLagNanos=new AtomicLong(0l);
+    private volatile long lastLagNanos;
 
-    public AsyncReadResolver(int maxThreads,int bufferSize,
+    public AsyncReadResolver(int maxThreads,int bufferSize,int maxBatchSize,
                              TxnSupplier txnSupplier,
                              RollForwardStatus status,
                              TrafficControl trafficControl,
@@ -63,6 +81,7 @@ public class AsyncReadResolver{
         this.trafficControl=trafficControl;
         this.status=status;
         this.synchronousResolver = synchronousResolver;
+        this.maxBatchSize=Math.max(1,maxBatchSize);
         consumerThreads=new ThreadPoolExecutor(maxThreads,maxThreads,
                 60,TimeUnit.SECONDS,
                 new LinkedBlockingQueue<Runnable>(),
@@ -93,9 +112,29 @@ public class AsyncReadResolver{
         return new PartitionReadResolver(region,rollForward);
     }
 
+    @Override public long getQueuedCount(){ return queued.get(); }
+    @Override public long getDroppedCount(){ return dropped.get(); }
+    @Override public long getAppliedCount(){ return applied.get(); }
+    @Override public long getCoalescedCount(){ return coalesced.get(); }
+    @Override public int getQueueCapacity(){ return ringBuffer.getBufferSize(); }
+    @Override public long getLastLagMillis(){ return TimeUnit.NANOSECONDS.toMillis(lastLagNanos); }
+
+    @Override
+    public long getPendingCount(){
+        return ringBuffer.getBufferSize()-ringBuffer.remainingCapacity();
+    }
+
+    @Override
+    public double getAverageLagMillis(){
+        long count=processed.get();
+        if(count<=0) return 0d;
+        return ((double)totalLagNanos.get()/count)/TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
     private static class ResolveEvent{
         Partition region;
         long txnId;
+        long submitNanos;
         ByteSlice rowKey=new ByteSlice();
     }
 
@@ -107,24 +146,89 @@ public class AsyncReadResolver{
         }
     }
 
+    /**
+     * The rows of a batch which were written by the same transaction on the same region.
+     */
+    private static class ResolveGroup{
+        final Partition region;
+        final long txnId;
+        final Set<ByteSlice> rowKeys=new LinkedHashSet<>();
+        int submissions;
+        long totalSubmitNanos;
+
+        ResolveGroup(Partition region,long txnId){
+            this.region=region;
+            this.txnId=txnId;
+        }
+    }
+
     private class ResolveEventHandler implements EventHandler<ResolveEvent>{
+        private final Map<Partition,Map<Long,ResolveGroup>> groups=new IdentityHashMap<>();
+        private int batchSize;
+        private long oldestSubmitNanos;
 
         @Override
         public void onEvent(ResolveEvent event,long sequence,boolean endOfBatch) throws Exception{
-            try{
-                if(synchronousResolver.resolve(event.region,
-                        event.rowKey,
-                        event.txnId,
-                        txnSupplier,
-                        status,
-                        false,
-                        trafficControl)){
-//                    event.rollForward.recordResolved(event.rowKey,event.txnId);
+            Map<Long,ResolveGroup> regionGroups=groups.get(event.region);
+            if(regionGroups==null){
+                regionGroups=new HashMap<>();
+                groups.put(event.region,regionGroups);
+            }
+            ResolveGroup group=regionGroups.get(event.txnId);
+            if(group==null){
+                group=new ResolveGroup(event.region,event.txnId);
+                regionGroups.put(event.txnId,group);
+            }
+            /*
+             * The event is reused by the ring buffer once we return, but the row key array was copied
+             * on submission, so we can hold on to it.
+             */
+            if(!group.rowKeys.add(ByteSlice.wrap(event.rowKey.array(),event.rowKey.offset(),event.rowKey.length())))
+                coalesced.incrementAndGet();
+            group.submissions++;
+            group.totalSubmitNanos+=event.submitNanos;
+            if(batchSize==0 || event.submitNanos<oldestSubmitNanos)
+                oldestSubmitNanos=event.submitNanos;
+            event.region=null; //don't hold on to the region from the ring buffer
+            batchSize++;
+
+            if(endOfBatch || batchSize>=maxBatchSize)
+                resolveBatch();
+        }
+
+        private void resolveBatch(){
+            List<ResolveGroup> toResolve=new ArrayList<>();
+            for(Map<Long,ResolveGroup> regionGroups:groups.values()){
+                toResolve.addAll(regionGroups.values());
+            }
+            int submitted=batchSize;
+            long oldest=oldestSubmitNanos;
+            groups.clear();
+            batchSize=0;
+
+            //resolve the groups whose rows have been seen the most first
+            toResolve.sort((o1,o2)->Integer.compare(o2.submissions,o1.submissions));
+            long batchLag=0l;
+            for(ResolveGroup group:toResolve){
+                if(stopped) return;
+                try{
+                    int resolved=synchronousResolver.resolve(group.region,
+                            new ArrayList<>(group.rowKeys),
+                            group.txnId,
+                            txnSupplier,
+                            status,
+                            false,
+                            trafficControl);
+                    applied.addAndGet(resolved);
+                }catch(Exception e){
+                    LOG.info("Error during read resolution",e);
                 }
-            }catch(Exception e){
-                LOG.info("Error during read resolution",e);
-                throw e;
+                long now=System.nanoTime();
+                batchLag+=group.submissions*now-group.totalSubmitNanos;
             }
+            totalLagNanos.addAndGet(batchLag);
+            processed.addAndGet(submitted);
+            lastLagNanos=System.nanoTime()-oldest;
         }
     }
 
@@ -144,6 +248,7 @@ public class AsyncReadResolver{
             try{
                 sequence=ringBuffer.tryNext();
             }catch(InsufficientCapacityException e){
+                dropped.incrementAndGet();
                 if(LOG.isTraceEnabled())
                     LOG.trace("Unable to submit for read resolution");
                 return;
@@ -153,10 +258,12 @@ public class AsyncReadResolver{
                 ResolveEvent event=ringBuffer.get(sequence);
                 event.region=region;
                 event.txnId=txnId;
+                event.submitNanos=System.nanoTime();
                 event.rowKey.set(rowKey.getByteCopy());
             }finally{
                 ringBuffer.publish(sequence);
             }
+            queued.incrementAndGet();
         }
 
         @Override
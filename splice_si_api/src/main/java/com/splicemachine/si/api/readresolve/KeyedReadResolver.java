@@ -20,6 +20,8 @@ import com.splicemachine.storage.Partition;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.TrafficControl;
 
+import java.util.List;
+
 /**
  * @author Scott Fines
  *         Date: 12/21/15
@@ -32,4 +34,27 @@ public interface KeyedReadResolver{
                     RollForwardStatus status,
                     boolean failOnError,
                     TrafficControl trafficControl);
+
+    /**
+     * Resolve a group of rows which were all written by the same transaction on the same region.
+     *
+     * Implementations should look up the transaction only once, and write the resolution of all the
+     * rows in bulk.
+     *
+     * @return the number of rows which were resolved
+     */
+    default int resolve(Partition region,
+                        List<ByteSlice> rowKeys,
+                        long txnId,
+                        TxnSupplier txnSupplier,
+                        RollForwardStatus status,
+                        boolean failOnError,
+                        TrafficControl trafficControl){
+        int resolved=0;
+        for(ByteSlice rowKey:rowKeys){
+            if(resolve(region,rowKey,txnId,txnSupplier,status,failOnError,trafficControl))
+                resolved++;
+        }
+        return resolved;
+    }
 }
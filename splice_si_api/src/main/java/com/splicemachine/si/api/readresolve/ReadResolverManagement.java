@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.api.readresolve;
+
+import javax.management.MXBean;
+
+/**
+ * Backpressure and throughput statistics of the asynchronous read resolver.
+ */
+@SuppressWarnings("unused")
+@MXBean(true)
+public interface ReadResolverManagement{
+
+    /**
+     * @return the number of rows submitted to the resolution queue
+     */
+    long getQueuedCount();
+
+    /**
+     * @return the number of rows which could not be submitted because the resolution queue was full
+     */
+    long getDroppedCount();
+
+    /**
+     * @return the number of rows which were resolved
+     */
+    long getAppliedCount();
+
+    /**
+     * @return the number of submitted rows which were skipped because the same row had been submitted
+     * for the same transaction in the same batch
+     */
+    long getCoalescedCount();
+
+    /**
+     * @return the number of rows waiting in the resolution queue
+     */
+    long getPendingCount();
+
+    /**
+     * @return the capacity of the resolution queue
+     */
+    int getQueueCapacity();
+
+    /**
+     * @return the time, in milliseconds, between the submission and the resolution of the oldest row of
+     * the last resolved batch
+     */
+    long getLastLagMillis();
+
+    /**
+     * @return the average time, in milliseconds, between the submission and the resolution of a row
+     */
+    double getAverageLagMillis();
+}
@@ -101,6 +101,9 @@ public class SIConstants {
 
     public static final String ENTRY_PREDICATE_LABEL= "p";
 
+    // serialized ZonePredicate used to skip store file ranges with the zone maps of the files
+    public static final String ZONE_PREDICATE_ATTR = "zp";
+
     // flag to indicate the scan should get all the versions.
     public static final String ALL_VERSIONS = "sav";
     public static final byte[] ALL_VERSIONS_VALUE = {};
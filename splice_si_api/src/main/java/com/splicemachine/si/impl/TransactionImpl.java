@@ -26,7 +26,9 @@ import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 
 import static com.splicemachine.db.shared.common.reference.SQLState.LANG_INTERNAL_ERROR;
 
@@ -167,10 +169,25 @@ public class TransactionImpl extends BaseTransaction {
          * no navigation will be required.
          */
         TransactionState savePoint;
+        Map<Long, Txn> rolledbackSubtransactions = new LinkedHashMap<>();
         do{
             savePoint=txnStack.pop();
-            savePoint.txn.rollback(); //rollback the child transaction
+            Txn txn = savePoint.txn;
+            if (txn.allowsWrites() && txn.getSubId() != 0) {
+                /*
+                 * In memory subtransactions are only recorded on the transaction table when rolled back.
+                 * Roll them back locally and record them once per persisted transaction below, rather than
+                 * once for every savepoint in the stack.
+                 */
+                txn.subRollback();
+                rolledbackSubtransactions.put(txn.getBeginTimestamp(), txn);
+            } else {
+                txn.rollback(); //rollback the child transaction
+            }
         }while(!savePoint.name.equals(name));
+        for (Txn txn : rolledbackSubtransactions.values()) {
+            lifecycleManager.rollbackSubtransactions(txn.getTxnId(), txn.getRolledback());
+        }
 
         /*
          * In effect, we've removed the save point (because we've rolled it back). Thus,
@@ -28,6 +28,7 @@ import com.splicemachine.si.api.filter.TransactionReadController;
 import com.splicemachine.si.api.readresolve.AsyncReadResolver;
 import com.splicemachine.si.api.readresolve.KeyedReadResolver;
 import com.splicemachine.si.api.readresolve.ReadResolver;
+import com.splicemachine.si.api.readresolve.ReadResolverManagement;
 import com.splicemachine.si.api.rollforward.RollForward;
 import com.splicemachine.si.api.server.ClusterHealth;
 import com.splicemachine.si.api.server.TransactionalRegion;
@@ -229,6 +230,14 @@ public class SIDriver {
         return rollForward;
     }
 
+    /**
+     * @return the statistics of the asynchronous read resolver, or {@code null} if asynchronous
+     * read resolution is disabled
+     */
+    public ReadResolverManagement getReadResolverManagement(){
+        return readResolver;
+    }
+
     public ReadResolver getReadResolver(Partition basePartition){
         if(readResolver==null) return NoOpReadResolver.INSTANCE;
         else
@@ -298,6 +307,7 @@ public class SIDriver {
         if(bufferSize<=0) return null;
         final AsyncReadResolver asyncReadResolver=new AsyncReadResolver(maxThreads,
                 bufferSize,
+                config.getReadResolverBatchSize(),
                 txnSupplier,
                 new RollForwardStatus(),
                 GreenLight.INSTANCE,keyedResolver);
@@ -98,4 +98,8 @@ public class ConflictRollForward {
     public TxnSupplier getTxnSupplier() {
         return txnSupplier;
     }
+
+    public OperationFactory getOpFactory() {
+        return opFactory;
+    }
 }
@@ -59,6 +59,8 @@ import java.util.concurrent.locks.Lock;
 @SuppressWarnings("unchecked")
 public class SITransactor implements Transactor{
     private static final Logger LOG=Logger.getLogger(SITransactor.class);
+    /* Minimum number of rows to check for conflicts for fetching them in a single call to be worthwhile */
+    private static final int MIN_BATCH_FETCH_ROWS = 2;
     private final OperationFactory opFactory;
     private final OperationStatusFactory operationStatusLib;
     private final ExceptionFactory exceptionLib;
@@ -275,6 +277,8 @@ public class SITransactor implements Transactor{
         IntObjectHashMap<DataPut> finalMutationsToWrite = new IntObjectHashMap(dataAndLocks.length, 0.9f);
         DataResult possibleConflicts = null;
         BitSet bloomInMemoryCheck  = skipConflictDetection ? null : table.getBloomInMemoryCheck(constraintChecker!=null,dataAndLocks);
+        DataResult[] latestRows = skipConflictDetection ? null :
+                fetchLatestRows(table, rollForwardQueue, dataAndLocks, constraintChecker, bloomInMemoryCheck, finalStatus);
         List<ByteSlice> toRollforward = null;
         if (rollforward) {
             toRollforward = new ArrayList<>(dataAndLocks.length);
@@ -298,11 +302,15 @@ public class SITransactor implements Transactor{
                  * We know that this is the case because there is no constraint checker (constraint checkers are only
                  * applied on key elements.
                  */
-                //todo -sf remove the Row key copy here
                 checkedConflicts = true;
 
-                possibleConflicts = bloomInMemoryCheck == null ||
-                        bloomInMemoryCheck.get(i) ? table.getLatest(kvPair.getRowKey(), possibleConflicts, rollForwardQueue) : null;
+                if (latestRows != null) {
+                    possibleConflicts = latestRows[i];
+                } else {
+                    //todo -sf remove the Row key copy here
+                    possibleConflicts = bloomInMemoryCheck == null ||
+                            bloomInMemoryCheck.get(i) ? table.getLatest(kvPair.getRowKey(), possibleConflicts, rollForwardQueue) : null;
+                }
                 if (possibleConflicts != null && !possibleConflicts.isEmpty()) {
                     if (LOG.isDebugEnabled()) {
                         for (DataCell dataCell : possibleConflicts) {
@@ -388,6 +396,67 @@ public class SITransactor implements Transactor{
         return finalMutationsToWrite;
     }
 
+    /**
+     * Fetches the latest version of all the rows of the batch that need conflict detection with a single
+     * call to the partition, in row key order, so that the partition can serve them from one ordered pass
+     * instead of one read per row.
+     *
+     * @return the latest version of each row that needs conflict detection, indexed by position in the batch
+     * (null entries for rows that don't need it), or null if the rows must be fetched one at a time instead:
+     * when batching is disabled, when there are too few rows to benefit, or when some rows couldn't be locked
+     * (the writer will retry those, so contended batches stay on the per-row path).
+     */
+    private DataResult[] fetchLatestRows(Partition table,
+                                         ConflictRollForward rollForwardQueue,
+                                         Pair<KVPair, Lock>[] dataAndLocks,
+                                         ConstraintChecker constraintChecker,
+                                         BitSet bloomInMemoryCheck,
+                                         MutationStatus[] finalStatus) throws IOException {
+        SIDriver driver = SIDriver.driver();
+        boolean batchConflictDetection = driver != null ?
+                driver.getConfiguration().getBatchConflictDetection() :
+                SIConfigurations.DEFAULT_BATCH_CONFLICT_DETECTION;
+        if (!batchConflictDetection)
+            return null;
+
+        int count = 0;
+        Integer[] positions = new Integer[dataAndLocks.length];
+        for (int i = 0; i < dataAndLocks.length; i++) {
+            Pair<KVPair, Lock> dataAndLock = dataAndLocks[i];
+            if (dataAndLock == null) {
+                if (finalStatus[i] != null && finalStatus[i].isNotRun())
+                    return null; // lock contention
+                continue;
+            }
+            KVPair.Type writeType = dataAndLock.getFirst().getType();
+            if (constraintChecker == null && KVPair.Type.INSERT.equals(writeType))
+                continue;
+            if (bloomInMemoryCheck != null && !bloomInMemoryCheck.get(i))
+                continue;
+            positions[count++] = i;
+        }
+        if (count < MIN_BATCH_FETCH_ROWS)
+            return null;
+
+        Arrays.sort(positions, 0, count, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return dataAndLocks[o1].getFirst().rowKeySlice().compareTo(dataAndLocks[o2].getFirst().rowKeySlice());
+            }
+        });
+        List<ByteSlice> sortedKeys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sortedKeys.add(dataAndLocks[positions[i]].getFirst().rowKeySlice());
+        }
+
+        List<DataResult> latest = table.getLatest(sortedKeys, rollForwardQueue);
+        DataResult[] latestRows = new DataResult[dataAndLocks.length];
+        for (int i = 0; i < count; i++) {
+            latestRows[positions[i]] = latest.get(i);
+        }
+        return latestRows;
+    }
+
     private boolean isRolledBack(DataResult result) throws IOException {
         for (DataCell cell : result) {
             long timestamp = cell.version();
@@ -447,17 +516,32 @@ public class SITransactor implements Transactor{
          *
          * If the lock cannot be acquired, then we set NOT_RUN into the finalStatus array. Those rows will be filtered
          * out and must be retried by the writer. mutationsAndLocks at the same location will be null
+         *
+         * Consecutive mutations to the same row share the lock taken for the first one, so they are paired with
+         * a null lock (and aren't released twice).
          */
         int position=0;
+        ByteSlice previousRow=null;
+        boolean previousLocked=false;
         try{
             for(KVPair mutation : mutations){
                 ByteSlice byteSlice=mutation.rowKeySlice();
+                if(previousRow!=null && previousRow.equals(byteSlice)){
+                    if(previousLocked)
+                        mutationsAndLocks[position]=Pair.newPair(mutation,null);
+                    else
+                        finalStatus[position]=operationStatusLib.notRun();
+                    position++;
+                    continue;
+                }
                 Lock lock=table.getRowLock(byteSlice.array(),byteSlice.offset(),byteSlice.length());//tableWriter.getRowLock(table, mutation.rowKeySlice());
-                if(lock.tryLock())
+                previousLocked=lock.tryLock();
+                if(previousLocked)
                     mutationsAndLocks[position]=Pair.newPair(mutation,lock);
                 else
                     finalStatus[position]=operationStatusLib.notRun();
 
+                previousRow=byteSlice;
                 position++;
             }
         }catch(RuntimeException re){
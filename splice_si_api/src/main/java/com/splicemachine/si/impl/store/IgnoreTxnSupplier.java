@@ -17,6 +17,6 @@ package com.splicemachine.si.impl.store;
 import java.io.IOException;
 
 public interface IgnoreTxnSupplier {
-    boolean shouldIgnore(Long txnId) throws IOException;
+    boolean shouldIgnore(long txnId) throws IOException;
     void refresh();
 }
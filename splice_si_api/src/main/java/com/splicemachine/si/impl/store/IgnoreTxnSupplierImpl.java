@@ -26,52 +26,42 @@ import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.function.BiFunction;
-import java.util.function.BiPredicate;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by jyuan on 10/30/17.
  */
-public class IgnoreTxnSupplierImpl implements IgnoreTxnSupplier {
+public class IgnoreTxnSupplierImpl implements IgnoreTxnSupplier, IgnoreTxnManagement {
     private static final Logger LOG = Logger.getLogger(IgnoreTxnSupplier.class);
-    private volatile Set<Pair<Long, Long>> cache;
+    // replaced as a whole on refresh, so lookups never lock
+    private volatile IgnoredTxnRanges cache = IgnoredTxnRanges.EMPTY;
     private EntryDecoder entryDecoder;
     final private PartitionFactory partitionFactory;
     final private TxnOperationFactory txnOperationFactory;
     private boolean ignoreTxnTableExists;
     private volatile boolean initialized = false;
 
+    private final AtomicLong totalRefreshes = new AtomicLong();
+    private final AtomicLong totalRefreshFailures = new AtomicLong();
+    private final AtomicLong maxRefreshLatency = new AtomicLong();
+    private volatile long lastRefreshLatency;
+
     public IgnoreTxnSupplierImpl(PartitionFactory partitionFactory, TxnOperationFactory txnOperationFactory) {
         this.partitionFactory = partitionFactory;
         this.txnOperationFactory = txnOperationFactory;
-        cache = new HashSet<>();
     }
 
     @Override
-    public boolean shouldIgnore(Long txnId) throws IOException{
-
-        boolean ignore = false;
-
+    public boolean shouldIgnore(long txnId) throws IOException{
         init();
-
-        if (!cache.isEmpty()) {
-            for (Pair<Long, Long> range : cache) {
-                if (txnId > range.getFirst() && txnId < range.getSecond()) {
-                    ignore = true;
-                    break;
-                }
-            }
-        }
-
-        return ignore;
+        return cache.contains(txnId);
     }
 
-
-    private Set<Pair<Long, Long>> populateIgnoreTxnCache() throws IOException {
-        Set<Pair<Long, Long>> newCache = new HashSet<>();
+    private IgnoredTxnRanges populateIgnoreTxnCache() throws IOException {
+        long start = System.currentTimeMillis();
+        List<Pair<Long, Long>> ranges = new ArrayList<>();
         PartitionAdmin admin = partitionFactory.getAdmin();
         ignoreTxnTableExists = admin.tableExists(HBaseConfiguration.IGNORE_TXN_TABLE_NAME);
         if (ignoreTxnTableExists) {
@@ -89,41 +79,24 @@ public class IgnoreTxnSupplierImpl implements IgnoreTxnSupplier {
                         MultiFieldDecoder decoder = entryDecoder.getEntryDecoder();
                         long startTxnId = decoder.decodeNextLong();
                         long endTxnId = decoder.decodeNextLong();
-                        newCache.add(new Pair<Long, Long>(startTxnId, endTxnId));
+                        ranges.add(new Pair<Long, Long>(startTxnId, endTxnId));
                     }
                 }
             }
-            newCache = combineOverlappingRanges(newCache);
         }
+        IgnoredTxnRanges newCache = IgnoredTxnRanges.of(ranges);
+        long latency = System.currentTimeMillis() - start;
+        lastRefreshLatency = latency;
+        maxRefreshLatency.accumulateAndGet(latency, Math::max);
+        totalRefreshes.incrementAndGet();
+        if (LOG.isDebugEnabled())
+            LOG.debug(String.format("Loaded %d ignored transaction ranges as %d ranges in %d ms",
+                    ranges.size(), newCache.size(), latency));
         return newCache;
     }
 
     static Set<Pair<Long, Long>> combineOverlappingRanges(Set<Pair<Long, Long>> cache) {
-        LOG.info("Starting combineOverlappingRanges");
-        BiPredicate<Pair<Long, Long>, Pair<Long, Long>> disjoint = (a, b) -> 
-            a.getFirst() >= b.getSecond() || a.getSecond() <= b.getFirst();
-        BiFunction<Pair<Long, Long>, Pair<Long, Long>, Pair<Long, Long>> combine = (a, b) ->
-            new Pair<Long, Long>(
-                a.getFirst() < b.getFirst() ? a.getFirst() : b.getFirst(),
-                a.getSecond() > b.getSecond() ? a.getSecond() : b.getSecond()
-            );
-        Set<Pair<Long, Long>> newCache = new HashSet<>();
-        Set<Pair<Long, Long>> discard = new HashSet<>();
-        List<Pair<Long, Long>> ranges = new ArrayList<>(cache);
-        while( ! ranges.isEmpty() ) {
-            Pair<Long, Long> r0 = ranges.remove(0);
-            for( Pair<Long, Long> r : ranges ) {
-                if( ! disjoint.test(r, r0) ) {
-                    r0 = combine.apply(r, r0);
-                    discard.add(r);
-                }
-            }
-            newCache.add(r0);
-            ranges.removeAll( discard );
-            discard.clear();
-        }
-        LOG.info("Completed combineOverlappingRanges");
-        return newCache;
+        return IgnoredTxnRanges.of(cache).toPairs();
     }
 
     private DataResultScanner openScanner(Partition table) throws IOException {
@@ -148,10 +121,36 @@ public class IgnoreTxnSupplierImpl implements IgnoreTxnSupplier {
             try {
                 cache = populateIgnoreTxnCache();
             } catch (IOException e) {
+                totalRefreshFailures.incrementAndGet();
                 LOG.error("Couldn't populate Ignore Cache", e);
                 // Force restart
                 // System.exit(-1);
             }
         }
     }
+
+    @Override
+    public int getIgnoredRangeCount() {
+        return cache.size();
+    }
+
+    @Override
+    public long getTotalRefreshes() {
+        return totalRefreshes.get();
+    }
+
+    @Override
+    public long getTotalRefreshFailures() {
+        return totalRefreshFailures.get();
+    }
+
+    @Override
+    public long getLastRefreshLatencyMs() {
+        return lastRefreshLatency;
+    }
+
+    @Override
+    public long getMaxRefreshLatencyMs() {
+        return maxRefreshLatency.get();
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.store;
+
+import com.splicemachine.utils.Pair;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable index of the transaction ranges to ignore. A range ignores the transactions strictly between its
+ * bounds. The ranges are merged when they overlap and kept sorted, so a lookup is a binary search over
+ * primitive arrays.
+ */
+final class IgnoredTxnRanges{
+    static final IgnoredTxnRanges EMPTY=new IgnoredTxnRanges(new long[0],new long[0]);
+
+    private final long[] starts;
+    private final long[] ends;
+
+    private IgnoredTxnRanges(long[] starts,long[] ends){
+        this.starts=starts;
+        this.ends=ends;
+    }
+
+    static IgnoredTxnRanges of(Collection<Pair<Long, Long>> ranges){
+        List<Pair<Long, Long>> sorted=new ArrayList<>(ranges.size());
+        for(Pair<Long, Long> range : ranges){
+            if(range.getFirst()<range.getSecond())
+                sorted.add(range); // an empty range ignores nothing
+        }
+        if(sorted.isEmpty())
+            return EMPTY;
+        sorted.sort((a,b) -> Long.compare(a.getFirst(),b.getFirst()));
+
+        long[] starts=new long[sorted.size()];
+        long[] ends=new long[sorted.size()];
+        int size=0;
+        for(Pair<Long, Long> range : sorted){
+            if(size>0 && range.getFirst()<ends[size-1]){
+                ends[size-1]=Math.max(ends[size-1],range.getSecond());
+            }else{
+                starts[size]=range.getFirst();
+                ends[size]=range.getSecond();
+                size++;
+            }
+        }
+        if(size<starts.length){
+            long[] s=new long[size];
+            long[] e=new long[size];
+            System.arraycopy(starts,0,s,0,size);
+            System.arraycopy(ends,0,e,0,size);
+            starts=s;
+            ends=e;
+        }
+        return new IgnoredTxnRanges(starts,ends);
+    }
+
+    boolean contains(long txnId){
+        int size=starts.length;
+        if(size==0 || txnId<=starts[0] || txnId>=ends[size-1])
+            return false;
+        // the last range starting before txnId is the only one which may contain it
+        int low=0;
+        int high=size-1;
+        while(low<high){
+            int mid=(low+high+1)>>>1;
+            if(starts[mid]<txnId)
+                low=mid;
+            else
+                high=mid-1;
+        }
+        return txnId<ends[low];
+    }
+
+    int size(){
+        return starts.length;
+    }
+
+    Set<Pair<Long, Long>> toPairs(){
+        Set<Pair<Long, Long>> pairs=new HashSet<>(starts.length);
+        for(int i=0;i<starts.length;i++){
+            pairs.add(new Pair<>(starts[i],ends[i]));
+        }
+        return pairs;
+    }
+}
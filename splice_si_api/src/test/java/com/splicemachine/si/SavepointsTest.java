@@ -14,6 +14,7 @@
 
 package com.splicemachine.si;
 
+import com.carrotsearch.hppc.LongHashSet;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TransactionMissing;
 import com.splicemachine.si.api.txn.Txn;
@@ -36,7 +37,10 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import splice.com.google.common.collect.Lists;
 
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Tests around the logic for savepoints.
@@ -276,6 +280,65 @@ public class SavepointsTest {
         Assert.assertEquals("dan90 age=20 job=null", testUtility.read(t1.getTxn(), "dan90"));
     }
 
+    @Test
+    public void testRollbackMixedInMemoryAndPersistedSavepoints() throws Exception{
+        final List<Long> recorded = Lists.newArrayList();
+        TxnLifecycleManager recording = new ForwardingLifecycleManager(control){
+            @Override
+            public void rollbackSubtransactions(long txnId, LongHashSet rolledback) throws IOException {
+                recorded.add(txnId);
+                super.rollbackSubtransactions(txnId, rolledback);
+            }
+        };
+        Txn parent=control.beginTransaction();
+        TransactionImpl t1 = new TransactionImpl("user", parent, false, recording);
+        t1.elevate(DESTINATION_TABLE);
+
+        testUtility.insertAge(t1.getTxn(), "dan93", 20);
+        Assert.assertEquals("dan93 age=20 job=null", testUtility.read(t1.getTxn(), "dan93"));
+
+        t1.setSavePoint("first", null);
+        t1.elevate(DESTINATION_TABLE);
+        List<Txn> savepoints = Lists.newArrayList(t1.getTxn());
+
+        // more savepoints than fit in the sub ids of a single persisted txn
+        for (int i = 0; i < SIConstants.TRASANCTION_INCREMENT * 3; ++i) {
+            t1.setSavePoint("test" + i, null);
+            t1.elevate(DESTINATION_TABLE);
+            savepoints.add(t1.getTxn());
+        }
+
+        testUtility.insertAge(t1.getTxn(), "dan93", 30);
+        Assert.assertEquals("dan93 age=30 job=null", testUtility.read(t1.getTxn(), "dan93"));
+
+        Set<Long> owners = new HashSet<>();
+        int persisted = 0;
+        for (Txn savepoint : savepoints) {
+            if (savepoint.getSubId() == 0)
+                persisted++;
+            else
+                owners.add(savepoint.getBeginTimestamp());
+        }
+        Assert.assertTrue("We didnt have persisted savepoints", persisted > 1);
+        Assert.assertTrue("We didnt have in memory savepoints", owners.size() > 1);
+
+        t1.rollbackToSavePoint("first", null);
+
+        // the in memory savepoints are recorded once per persisted txn owning them
+        Assert.assertEquals("Wrong number of rollbackSubtransactions calls", owners.size(), recorded.size());
+        Set<Long> recordedOwners = new HashSet<>();
+        for (long txnId : recorded) {
+            recordedOwners.add(txnId & SIConstants.TRANSANCTION_ID_MASK);
+        }
+        Assert.assertEquals(owners, recordedOwners);
+        for (Txn savepoint : savepoints) {
+            Assert.assertEquals(Txn.State.ROLLEDBACK, savepoint.getState());
+        }
+
+        t1.elevate(DESTINATION_TABLE);
+        Assert.assertEquals("dan93 age=20 job=null", testUtility.read(t1.getTxn(), "dan93"));
+    }
+
     @Test
     public void testReleaseUserTxnWithSomePersistedTxns() throws Exception{
         Txn parent=control.beginTransaction();
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2012 - 2020 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.api.readresolve;
+
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.impl.rollforward.RollForwardStatus;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.utils.ByteSlice;
+import com.splicemachine.utils.GreenLight;
+import com.splicemachine.utils.TrafficControl;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+@Category(ArchitectureIndependent.class)
+public class AsyncReadResolverTest{
+
+    @Test
+    public void testRowsAreGroupedByRegionAndTransaction() throws Exception{
+        Partition region1=mock(Partition.class);
+        Partition region2=mock(Partition.class);
+        RecordingResolver resolver=new RecordingResolver(3);
+        AsyncReadResolver asyncResolver=new AsyncReadResolver(1,16,16,mock(TxnSupplier.class),
+                new RollForwardStatus(),GreenLight.INSTANCE,resolver);
+        try{
+            /*
+             * Submit everything before starting the resolver, so that all the events are
+             * handed over as a single batch
+             */
+            ReadResolver r1=asyncResolver.getResolver(region1,null);
+            ReadResolver r2=asyncResolver.getResolver(region2,null);
+            r1.resolve(row("a"),1);
+            r1.resolve(row("b"),1);
+            r1.resolve(row("c"),2);
+            r2.resolve(row("a"),1);
+            r1.resolve(row("a"),1);
+            r1.resolve(row("b"),1);
+            asyncResolver.start();
+
+            Assert.assertTrue("Resolution did not complete",resolver.done.await(10,TimeUnit.SECONDS));
+            //the hottest group is resolved first
+            Assert.assertSame(region1,resolver.regions.get(0));
+            Assert.assertEquals(1L,(long)resolver.txnIds.get(0));
+            Assert.assertEquals(Arrays.asList(row("a"),row("b")),resolver.rowKeys.get(0));
+            Assert.assertEquals(3,resolver.regions.size());
+
+            Assert.assertEquals(6,asyncResolver.getQueuedCount());
+            Assert.assertEquals(2,asyncResolver.getCoalescedCount());
+            Assert.assertEquals(0,asyncResolver.getDroppedCount());
+        }finally{
+            asyncResolver.shutdown();
+        }
+    }
+
+    @Test
+    public void testDroppedRowsAreCounted() throws Exception{
+        Partition region=mock(Partition.class);
+        AsyncReadResolver asyncResolver=new AsyncReadResolver(1,2,16,mock(TxnSupplier.class),
+                new RollForwardStatus(),GreenLight.INSTANCE,new RecordingResolver(1));
+        try{
+            ReadResolver resolver=asyncResolver.getResolver(region,null);
+            resolver.resolve(row("a"),1);
+            resolver.resolve(row("b"),1);
+            resolver.resolve(row("c"),1);
+
+            Assert.assertEquals(2,asyncResolver.getQueueCapacity());
+            Assert.assertEquals(2,asyncResolver.getQueuedCount());
+            Assert.assertEquals(2,asyncResolver.getPendingCount());
+            Assert.assertEquals(1,asyncResolver.getDroppedCount());
+        }finally{
+            asyncResolver.shutdown();
+        }
+    }
+
+    private static ByteSlice row(String key){
+        return ByteSlice.wrap(key.getBytes());
+    }
+
+    private static class RecordingResolver implements KeyedReadResolver{
+        final List<Partition> regions=Collections.synchronizedList(new ArrayList<>());
+        final List<Long> txnIds=Collections.synchronizedList(new ArrayList<>());
+        final List<List<ByteSlice>> rowKeys=Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done;
+
+        RecordingResolver(int expectedGroups){
+            this.done=new CountDownLatch(expectedGroups);
+        }
+
+        @Override
+        public boolean resolve(Partition region,ByteSlice rowKey,long txnId,TxnSupplier txnSupplier,
+                               RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+            throw new AssertionError("Rows should be resolved in groups");
+        }
+
+        @Override
+        public int resolve(Partition region,List<ByteSlice> rowKeys,long txnId,TxnSupplier txnSupplier,
+                           RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+            regions.add(region);
+            txnIds.add(txnId);
+            this.rowKeys.add(rowKeys);
+            done.countDown();
+            return rowKeys.size();
+        }
+    }
+}
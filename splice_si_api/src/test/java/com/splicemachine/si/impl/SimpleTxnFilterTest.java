@@ -367,7 +367,7 @@ public class SimpleTxnFilterTest{
     public void testCantSeeIgnoredDelete() throws Exception{
         IgnoreTxnSupplier ignoreSupplier = new IgnoreTxnSupplier() {
             @Override
-            public boolean shouldIgnore(Long txnId) throws IOException { return txnId > 0x400L && txnId < 0x600L; }
+            public boolean shouldIgnore(long txnId) throws IOException { return txnId > 0x400L && txnId < 0x600L; }
             @Override
             public void refresh() {}
         };
@@ -417,7 +417,7 @@ public class SimpleTxnFilterTest{
     public void testCantSeeIgnoredUpdate() throws Exception{
         IgnoreTxnSupplier ignoreSupplier = new IgnoreTxnSupplier() {
             @Override
-            public boolean shouldIgnore(Long txnId) throws IOException { return txnId > 0x400L && txnId < 0x600L; }
+            public boolean shouldIgnore(long txnId) throws IOException { return txnId > 0x400L && txnId < 0x600L; }
             @Override
             public void refresh() {}
         };
@@ -101,4 +101,37 @@ public class IgnoreTxnSupplierImplTest {
         
         Assert.assertEquals("Unexpected size of output " + output, 10, output.size());
     }
+
+    @Test
+    public void testCombineTransitivelyOverlappingRanges() {
+        Set<Pair<Long, Long>> input = new HashSet<>();
+        input.add(new Pair<>(0L, 2L));
+        input.add(new Pair<>(3L, 5L));
+        input.add(new Pair<>(1L, 4L));
+
+        Set<Pair<Long, Long>> output = IgnoreTxnSupplierImpl.combineOverlappingRanges(input);
+
+        Assert.assertEquals("Unexpected output " + output, 1, output.size());
+        Assert.assertTrue("Unexpected output " + output, output.contains(new Pair<>(0L, 5L)));
+    }
+
+    @Test
+    public void testIgnoredRangesLookup() {
+        Set<Pair<Long, Long>> input = new HashSet<>();
+        input.add(new Pair<>(10L, 20L));
+        input.add(new Pair<>(20L, 30L));
+        input.add(new Pair<>(15L, 18L));
+        input.add(new Pair<>(40L, 40L));
+        input.add(new Pair<>(50L, 60L));
+        IgnoredTxnRanges ranges = IgnoredTxnRanges.of(input);
+
+        Assert.assertEquals(3, ranges.size());
+        long[] ignored = {11L, 15L, 19L, 21L, 29L, 51L, 59L};
+        long[] notIgnored = {0L, 10L, 20L, 30L, 35L, 40L, 50L, 60L, 100L};
+        for (long txnId : ignored)
+            Assert.assertTrue(txnId + " should be ignored", ranges.contains(txnId));
+        for (long txnId : notIgnored)
+            Assert.assertFalse(txnId + " should not be ignored", ranges.contains(txnId));
+        Assert.assertFalse(IgnoredTxnRanges.EMPTY.contains(1L));
+    }
 }